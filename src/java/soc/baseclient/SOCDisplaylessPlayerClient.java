@@ -75,6 +75,7 @@ import soc.message.SOCLongestRoad;
 import soc.message.SOCMakeOffer;
 import soc.message.SOCMembers;
 import soc.message.SOCMessage;
+import soc.message.SOCMessageBinary;
 import soc.message.SOCMonopolyPick;
 import soc.message.SOCMoveRobber;
 import soc.message.SOCNewChannel;
@@ -273,12 +274,10 @@ public class SOCDisplaylessPlayerClient implements Runnable
         {
             while (connected)
             {
-                String s;
                 if (sLocal == null)
-                    s = in.readUTF();
+                    treat(SOCMessageBinary.readMessage(in));  // text or binary frame
                 else
-                    s = sLocal.readNext();
-                treat((SOCMessage) SOCMessage.toMsg(s));
+                    treat((SOCMessage) SOCMessage.toMsg(sLocal.readNext()));
             }
         }
         catch (InterruptedIOException x)
@@ -1185,7 +1185,9 @@ public class SOCPlayerClient extends Applet
             connected = true;
             (reader = new Thread(this)).start();
             // send VERSION right away (1.1.06 and later)
-            putNet(SOCVersion.toCmd(Version.versionNumber(), Version.version(), Version.buildnum(), null));
+            final String vBuild = Version.buildnum();
+            putNet(SOCVersion.toCmd
+                (Version.versionNumber(), Version.version(), vBuild, SOCMessageBinary.getClientFeatures(vBuild)));
         }
         catch (Exception e)
         {
@@ -1983,8 +1985,7 @@ public class SOCPlayerClient extends Applet
         {
             while (connected)
             {
-                String s = in.readUTF();
-                treat((SOCMessage) SOCMessage.toMsg(s), false);
+                treat(SOCMessageBinary.readMessage(in), false);  // text or binary frame
             }
         }
         catch (IOException e)
@@ -373,6 +373,60 @@ public class SOCBoard implements Serializable, Cloneable
      */
     protected static final int MINNODE_V2 = 0x01;
 
+    /**
+     * Size of the precomputed adjacency tables such as {@link #ADJ_NODES_TO_EDGE}:
+     * They cover coordinates 0x00 to 0xFF, the whole coordinate range of the v1 and v2 encodings.
+     * Adjacency methods calculate the result for any coordinate outside that range.
+     * @since 1.2.00
+     */
+    private static final int ADJ_TABLE_SIZE = 0x100;
+
+    /**
+     * Each edge's 2 end nodes, for {@link #getAdjacentNodesToEdge_arr(int)}.
+     * The same in both encodings. Shared and read-only, like the other adjacency tables.
+     * @since 1.2.00
+     */
+    private static final int[][] ADJ_NODES_TO_EDGE = new int[ADJ_TABLE_SIZE][];
+
+    /**
+     * Each node's 1 to 3 adjacent hexes, for {@link #getAdjacentHexesToNode(int)}.
+     * The same in both encodings.
+     * @since 1.2.00
+     */
+    private static final int[][] ADJ_HEXES_TO_NODE = new int[ADJ_TABLE_SIZE][];
+
+    /**
+     * Shared Integer objects for coordinates 0x00 to 0xFF,
+     * used by the adjacency methods which return a Vector.
+     * @since 1.2.00
+     * @see #coordInteger(int)
+     */
+    private static final Integer[] COORD_INTEGERS = new Integer[ADJ_TABLE_SIZE];
+
+    static
+    {
+        for (int c = 0; c < ADJ_TABLE_SIZE; ++c)
+        {
+            ADJ_NODES_TO_EDGE[c] = calcAdjacentNodesToEdge_arr(c);
+            ADJ_HEXES_TO_NODE[c] = calcAdjacentHexesToNode(c);
+            COORD_INTEGERS[c] = new Integer(c);
+        }
+    }
+
+    /**
+     * Precomputed adjacent nodes and edges in the v1 encoding ({@link #BOARD_ENCODING_ORIGINAL}).
+     * @see #getAdjacencyTables()
+     * @since 1.2.00
+     */
+    private static final AdjacencyTables ADJ_V1 = new AdjacencyTables(MINNODE_V1, MINEDGE_V1, MAXEDGE_V1);
+
+    /**
+     * Precomputed adjacent nodes and edges in the v2 encoding ({@link #BOARD_ENCODING_6PLAYER}).
+     * @see #getAdjacencyTables()
+     * @since 1.2.00
+     */
+    private static final AdjacencyTables ADJ_V2 = new AdjacencyTables(MINNODE_V2, MINEDGE_V2, MAXEDGE_V2);
+
     /**
      * Land-hex coordinates in standard board ({@link #BOARD_ENCODING_ORIGINAL}).
      * @since 1.1.08
@@ -628,6 +682,26 @@ public class SOCBoard implements Serializable, Cloneable
      */
     private Vector cities;
 
+    /**
+     * Settlement or city at each node coordinate, or null; index is the node coordinate.
+     * Kept in sync with {@link #pieces} by {@link #putPiece(SOCPlayingPiece)} and
+     * {@link #removePiece(SOCPlayingPiece)}, for {@link #settlementAtNode(int)} without searching.
+     * If there's more than one at a node, such as while upgrading a settlement to a city,
+     * holds the one earliest in {@link #pieces}, as searching would find.
+     * Length is {@link #MAXNODEPLUSONE}.
+     * @since 1.2.00
+     */
+    private SOCPlayingPiece[] nodePieces;
+
+    /**
+     * Road at each edge coordinate, or null; index is the edge coordinate.
+     * Kept in sync with {@link #roads} like {@link #nodePieces}, for {@link #roadAtEdge(int)}.
+     * If there's more than one at an edge, holds the one earliest in {@link #roads}.
+     * Length is {@link #MAXEDGE_V2} + 1, the highest edge in either encoding.
+     * @since 1.2.00
+     */
+    private SOCPlayingPiece[] edgeRoads;
+
     /**
      * random number generator
      */
@@ -698,6 +772,8 @@ public class SOCBoard implements Serializable, Cloneable
         roads = new Vector(60);
         settlements = new Vector(20);
         cities = new Vector(16);
+        nodePieces = new SOCPlayingPiece[MAXNODEPLUSONE];
+        edgeRoads = new SOCPlayingPiece[MAXEDGE_V2 + 1];
 
         /**
          * initialize the port vector
@@ -795,6 +871,59 @@ public class SOCBoard implements Serializable, Cloneable
         }
     }
 
+    /**
+     * Use the game's random number generator, so its seed determines the board layout.
+     * Called from {@link SOCGame#setRandomSeed(long)}.
+     * @param r  Random generator to use in {@link #makeNewBoard(Hashtable)}
+     * @since 1.2.00
+     */
+    void setRandom(final Random r)
+    {
+        rand = r;
+    }
+
+    /**
+     * Make a copy of this board for {@link SOCGame#snapshot()}. Changes to the copy,
+     * such as placing pieces or moving the robber, don't affect this board, and vice versa.
+     *<P>
+     * The layout and piece arrays and lists are copied. The pieces themselves aren't:
+     * They don't change after creation, and still refer to this board's game's players.
+     * Tables which never change after the constructor, such as {@link #nodesOnBoard}, are shared.
+     *
+     * @return  a copy of this board
+     * @since 1.2.00
+     */
+    SOCBoard snapshot()
+    {
+        final SOCBoard cp;
+        try
+        {
+            cp = (SOCBoard) clone();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new IllegalStateException(e.toString());  // won't happen: this class is Cloneable
+        }
+
+        cp.hexLayout = (int[]) hexLayout.clone();
+        cp.numberLayout = (int[]) numberLayout.clone();
+        if (nodeIDtoPortType != null)
+            cp.nodeIDtoPortType = (int[]) nodeIDtoPortType.clone();
+        cp.ports = new Vector[ports.length];
+        for (int i = 0; i < ports.length; ++i)
+            cp.ports[i] = (Vector) ports[i].clone();
+
+        cp.pieces = (Vector) pieces.clone();
+        cp.roads = (Vector) roads.clone();
+        cp.settlements = (Vector) settlements.clone();
+        cp.cities = (Vector) cities.clone();
+        cp.nodePieces = (SOCPlayingPiece[]) nodePieces.clone();
+        cp.edgeRoads = (SOCPlayingPiece[]) edgeRoads.clone();
+        cp.rand = new Random();
+
+        return cp;
+    }
+
     /**
      * Possible number paths for 4-player original board.
      * {@link #makeNewBoard(Hashtable)} randomly chooses one path (one 1-dimensional array)
@@ -1868,20 +1997,27 @@ public class SOCBoard implements Serializable, Cloneable
     {
         pieces.addElement(pp);
 
+        final int coord = pp.getCoordinates();
         switch (pp.getType())
         {
         case SOCPlayingPiece.ROAD:
             roads.addElement(pp);
+            if ((coord >= 0) && (coord < edgeRoads.length) && (edgeRoads[coord] == null))
+                edgeRoads[coord] = pp;
 
             break;
 
         case SOCPlayingPiece.SETTLEMENT:
             settlements.addElement(pp);
+            if ((coord >= 0) && (coord < nodePieces.length) && (nodePieces[coord] == null))
+                nodePieces[coord] = pp;
 
             break;
 
         case SOCPlayingPiece.CITY:
             cities.addElement(pp);
+            if ((coord >= 0) && (coord < nodePieces.length) && (nodePieces[coord] == null))
+                nodePieces[coord] = pp;  // if upgrading, is set when the settlement is removed
 
             break;
         }
@@ -1902,20 +2038,28 @@ public class SOCBoard implements Serializable, Cloneable
             {
                 pieces.removeElement(p);
 
+                final int coord = p.getCoordinates();
                 switch (piece.getType())
                 {
                 case SOCPlayingPiece.ROAD:
                     roads.removeElement(p);
+                    if ((coord >= 0) && (coord < edgeRoads.length) && (edgeRoads[coord] == p))
+                        edgeRoads[coord] = findRoadAtEdge(coord);
 
                     break;
 
                 case SOCPlayingPiece.SETTLEMENT:
                     settlements.removeElement(p);
+                    if ((coord >= 0) && (coord < nodePieces.length) && (nodePieces[coord] == p))
+                        nodePieces[coord] = findSettlementAtNode(coord);
+                            // When upgrading to a city, the settlement is removed after the city is placed
 
                     break;
 
                 case SOCPlayingPiece.CITY:
                     cities.removeElement(p);
+                    if ((coord >= 0) && (coord < nodePieces.length) && (nodePieces[coord] == p))
+                        nodePieces[coord] = findSettlementAtNode(coord);
 
                     break;
                 }
@@ -1925,6 +2069,46 @@ public class SOCBoard implements Serializable, Cloneable
         }
     }
 
+    /**
+     * Search {@link #pieces} for a settlement or city at this node,
+     * to update {@link #nodePieces} after one's been removed.
+     * @param nodeCoord  Node coordinate
+     * @return  The first settlement or city there, or null
+     * @since 1.2.00
+     */
+    private SOCPlayingPiece findSettlementAtNode(final int nodeCoord)
+    {
+        for (int i = 0; i < pieces.size(); ++i)
+        {
+            final SOCPlayingPiece p = (SOCPlayingPiece) pieces.elementAt(i);
+            final int typ = p.getType();
+            if ((nodeCoord == p.getCoordinates())
+                && ((typ == SOCPlayingPiece.SETTLEMENT) || (typ == SOCPlayingPiece.CITY)))
+                return p;
+        }
+
+        return null;
+    }
+
+    /**
+     * Search {@link #roads} for a road at this edge,
+     * to update {@link #edgeRoads} after one's been removed.
+     * @param edgeCoord  Edge coordinate
+     * @return  The first road there, or null
+     * @since 1.2.00
+     */
+    private SOCPlayingPiece findRoadAtEdge(final int edgeCoord)
+    {
+        for (int i = 0; i < roads.size(); ++i)
+        {
+            final SOCPlayingPiece p = (SOCPlayingPiece) roads.elementAt(i);
+            if (edgeCoord == p.getCoordinates())
+                return p;
+        }
+
+        return null;
+    }
+
     /**
      * get the list of pieces on the board
      */
@@ -2026,24 +2210,60 @@ public class SOCBoard implements Serializable, Cloneable
      */
     public Vector getAdjacentNodesToEdge(final int coord)
     {
+        final int[] narr = ((coord >= 0) && (coord < ADJ_TABLE_SIZE))
+            ? getAdjacencyTables().nodesToEdge[coord]
+            : calcAdjacentNodesToEdge(coord, minNode);
+
         Vector nodes = new Vector(2);
-        final int[] narr = getAdjacentNodesToEdge_arr(coord);
+        for (int i = 0; i < narr.length; ++i)
+            nodes.addElement(coordInteger(narr[i]));
+        return nodes;
+    }
+
+    /**
+     * Calculate an edge's adjacent nodes within range <tt>minNode</tt> to {@link #MAXNODE},
+     * for {@link #getAdjacentNodesToEdge(int)} and its precomputed table.
+     * @return 0 to 2 node coordinates
+     * @since 1.2.00
+     */
+    private static int[] calcAdjacentNodesToEdge(final int coord, final int minNode)
+    {
+        final int[] narr = calcAdjacentNodesToEdge_arr(coord);
+        final int[] nodes = new int[2];
+        int n = 0;
         if ((narr[0] >= minNode) && (narr[0] <= MAXNODE))
-            nodes.addElement(new Integer(narr[0]));
+            nodes[n++] = narr[0];
         if ((narr[1] >= minNode) && (narr[1] <= MAXNODE))
-            nodes.addElement(new Integer(narr[1]));
-        return nodes;
+            nodes[n++] = narr[1];
+        return copyOf(nodes, n);
     }
 
     /**
      * Adjacent node coordinates to an edge.
      * Does not check against range {@link #MINNODE_V1} to {@link #MAXNODE},
      * so nodes in the water (off the land board) may be returned.
+     *<P>
+     * Before v1.2.00 this returned a new array from each call.
+     * For coordinates 0x00 to 0xFF, it's now a precomputed array shared by all callers:
+     * Do not change its contents.
      * @return the nodes that touch this edge, as an array of 2 integer coordinates
      * @see #getAdjacentNodesToEdge(int)
      * @since 1.1.08
      */
     public static int[] getAdjacentNodesToEdge_arr(final int coord)
+    {
+        if ((coord >= 0) && (coord < ADJ_TABLE_SIZE))
+            return ADJ_NODES_TO_EDGE[coord];
+        else
+            return calcAdjacentNodesToEdge_arr(coord);
+    }
+
+    /**
+     * Calculate an edge's 2 adjacent nodes, for {@link #getAdjacentNodesToEdge_arr(int)}
+     * and its precomputed table.
+     * @since 1.2.00
+     */
+    private static int[] calcAdjacentNodesToEdge_arr(final int coord)
     {
         int[] nodes = new int[2];
 
@@ -2072,8 +2292,25 @@ public class SOCBoard implements Serializable, Cloneable
      */
     public Vector getAdjacentEdgesToEdge(int coord)
     {
+        final int[] earr = ((coord >= 0) && (coord < ADJ_TABLE_SIZE))
+            ? getAdjacencyTables().edgesToEdge[coord]
+            : calcAdjacentEdgesToEdge(coord, minEdge, maxEdge);
+
         Vector edges = new Vector(4);
-        int tmp;
+        for (int i = 0; i < earr.length; ++i)
+            edges.addElement(coordInteger(earr[i]));
+        return edges;
+    }
+
+    /**
+     * Calculate an edge's adjacent edges within range <tt>minEdge</tt> to <tt>maxEdge</tt>,
+     * for {@link #getAdjacentEdgesToEdge(int)} and its precomputed table.
+     * @return 0 to 4 edge coordinates
+     * @since 1.2.00
+     */
+    private static int[] calcAdjacentEdgesToEdge(final int coord, final int minEdge, final int maxEdge)
+    {
+        final int[] offsets;
 
         /**
          * if the coords are (even, even), then
@@ -2081,33 +2318,7 @@ public class SOCBoard implements Serializable, Cloneable
          */
         if ((((coord & 0x0F) + (coord >> 4)) % 2) == 0)
         {
-            tmp = coord - 0x10;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord + 0x01;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord + 0x10;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord - 0x01;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
+            offsets = new int[]{ -0x10, 0x01, 0x10, -0x01 };
         }
 
         /**
@@ -2116,33 +2327,7 @@ public class SOCBoard implements Serializable, Cloneable
          */
         else if (((coord >> 4) % 2) == 0)
         {
-            tmp = coord - 0x11;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord + 0x01;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord + 0x11;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord - 0x01;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
+            offsets = new int[]{ -0x11, 0x01, 0x11, -0x01 };
         }
         else
         {
@@ -2150,45 +2335,61 @@ public class SOCBoard implements Serializable, Cloneable
              * otherwise the coords are (odd, even),
              * and the road is '\'
              */
-            tmp = coord - 0x10;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord + 0x11;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord + 0x10;
-
-            if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
-
-            tmp = coord - 0x11;
+            offsets = new int[]{ -0x10, 0x11, 0x10, -0x11 };
+        }
 
+        final int[] edges = new int[4];
+        int n = 0;
+        for (int i = 0; i < offsets.length; ++i)
+        {
+            final int tmp = coord + offsets[i];
             if ((tmp >= minEdge) && (tmp <= maxEdge))
-            {
-                edges.addElement(new Integer(tmp));
-            }
+                edges[n++] = tmp;
         }
 
-        return edges;
+        return copyOf(edges, n);
     }
 
     /**
      * @return the coordinates (Integers) of the 1 to 3 hexes touching this node
+     * @see #getAdjacentHexesToNode_arr(int)
      */
     public static Vector getAdjacentHexesToNode(int coord)
     {
+        final int[] harr = getAdjacentHexesToNode_arr(coord);
+
         Vector hexes = new Vector(3);
-        int tmp;
+        for (int i = 0; i < harr.length; ++i)
+            hexes.addElement(coordInteger(harr[i]));
+        return hexes;
+    }
+
+    /**
+     * Adjacent hex coordinates to a node, without allocating.
+     *<P>
+     * For coordinates 0x00 to 0xFF, this is a precomputed array shared by all callers:
+     * Do not change its contents.
+     * @return the coordinates of the 1 to 3 hexes touching this node
+     * @see #getAdjacentHexesToNode(int)
+     * @since 1.2.00
+     */
+    public static int[] getAdjacentHexesToNode_arr(final int coord)
+    {
+        if ((coord >= 0) && (coord < ADJ_TABLE_SIZE))
+            return ADJ_HEXES_TO_NODE[coord];
+        else
+            return calcAdjacentHexesToNode(coord);
+    }
+
+    /**
+     * Calculate a node's adjacent hexes within range {@link #MINHEX} to {@link #MAXHEX},
+     * for {@link #getAdjacentHexesToNode(int)} and its precomputed table.
+     * @return 0 to 3 hex coordinates
+     * @since 1.2.00
+     */
+    private static int[] calcAdjacentHexesToNode(final int coord)
+    {
+        final int[] offsets;
 
         /**
          * if the coords are (even, odd), then
@@ -2196,26 +2397,7 @@ public class SOCBoard implements Serializable, Cloneable
          */
         if (((coord >> 4) % 2) == 0)
         {
-            tmp = coord - 0x10;
-
-            if ((tmp >= MINHEX) && (tmp <= MAXHEX))
-            {
-                hexes.addElement(new Integer(tmp));                
-            }
-
-            tmp = coord + 0x10;
-
-            if ((tmp >= MINHEX) && (tmp <= MAXHEX))
-            {
-                hexes.addElement(new Integer(tmp));
-            }
-
-            tmp = coord - 0x12;
-
-            if ((tmp >= MINHEX) && (tmp <= MAXHEX))
-            {
-                hexes.addElement(new Integer(tmp));
-            }
+            offsets = new int[]{ -0x10, 0x10, -0x12 };
         }
         else
         {
@@ -2223,29 +2405,19 @@ public class SOCBoard implements Serializable, Cloneable
              * otherwise the coords are (odd, even),
              * and the node is 'upside down Y'.
              */
-            tmp = coord - 0x21;
-
-            if ((tmp >= MINHEX) && (tmp <= MAXHEX))
-            {
-                hexes.addElement(new Integer(tmp));
-            }
-
-            tmp = coord + 0x01;
-
-            if ((tmp >= MINHEX) && (tmp <= MAXHEX))
-            {
-                hexes.addElement(new Integer(tmp));
-            }
-
-            tmp = coord - 0x01;
+            offsets = new int[]{ -0x21, 0x01, -0x01 };
+        }
 
+        final int[] hexes = new int[3];
+        int n = 0;
+        for (int i = 0; i < offsets.length; ++i)
+        {
+            final int tmp = coord + offsets[i];
             if ((tmp >= MINHEX) && (tmp <= MAXHEX))
-            {
-                hexes.addElement(new Integer(tmp));
-            }
+                hexes[n++] = tmp;
         }
 
-        return hexes;
+        return copyOf(hexes, n);
     }
 
     /**
@@ -2259,7 +2431,7 @@ public class SOCBoard implements Serializable, Cloneable
         int[] edgea = getAdjacentEdgesToNode_arr(coord);
         for (int i = edgea.length - 1; i>=0; --i)
             if (edgea[i] != -9)
-                edges.addElement(new Integer(edgea[i]));
+                edges.addElement(coordInteger(edgea[i]));
         return edges;
     }
 
@@ -2269,6 +2441,10 @@ public class SOCBoard implements Serializable, Cloneable
      * found on the outer ring of the board coordinate
      * system, but some of their adjacent nodes/edges may be
      * "off the board" and thus invalid.
+     *<P>
+     * Before v1.2.00 this returned a new array from each call.
+     * For coordinates 0x00 to 0xFF, it's now a precomputed array shared by all callers:
+     * Do not change its contents.
      * @param coord  Node coordinate.  Is not checked for validity.
      * @return the edges touching this node, as an array of 3 coordinates.
      *    Unused elements of the array are set to -9.
@@ -2276,6 +2452,9 @@ public class SOCBoard implements Serializable, Cloneable
      */
     public final int[] getAdjacentEdgesToNode_arr(final int coord)
     {
+        if ((coord >= 0) && (coord < ADJ_TABLE_SIZE))
+            return getAdjacencyTables().edgesToNode[coord];  // <--- Early return: Precomputed ---
+
         int[] edges = new int[3];
         for (int i = 0; i < 3; ++i)
             edges[i] = getAdjacentEdgeToNode(coord, i);
@@ -2303,6 +2482,23 @@ public class SOCBoard implements Serializable, Cloneable
      */
     public int getAdjacentEdgeToNode(final int nodeCoord, final int nodeDir)
         throws IllegalArgumentException
+    {
+        if ((nodeCoord >= 0) && (nodeCoord < ADJ_TABLE_SIZE) && (nodeDir >= 0) && (nodeDir <= 2))
+            return getAdjacencyTables().edgesToNode[nodeCoord][nodeDir];
+        else
+            return calcAdjacentEdgeToNode(nodeCoord, nodeDir, minEdge, maxEdge);
+    }
+
+    /**
+     * Calculate a node's adjacent edge in a given direction within range <tt>minEdge</tt> to <tt>maxEdge</tt>,
+     * for {@link #getAdjacentEdgeToNode(int, int)} and its precomputed table.
+     * @return  The adjacent edge in that direction, or -9 if none (if off the board)
+     * @throws IllegalArgumentException if <tt>nodeDir</tt> is less than 0 or greater than 2
+     * @since 1.2.00
+     */
+    private static int calcAdjacentEdgeToNode
+        (final int nodeCoord, final int nodeDir, final int minEdge, final int maxEdge)
+        throws IllegalArgumentException
     {
         // See RST dissertation figures A.2 (nodes), A.3 (edges),
         // and A.8 and A.10 (computing adjacent edges to a node).
@@ -2493,7 +2689,7 @@ public class SOCBoard implements Serializable, Cloneable
         int[] nodea = getAdjacentNodesToNode_arr(coord);
         for (int i = nodea.length - 1; i>=0; --i)
             if (nodea[i] != -9)
-                nodes.addElement(new Integer(nodea[i]));
+                nodes.addElement(coordInteger(nodea[i]));
         return nodes;
     }
 
@@ -2503,6 +2699,10 @@ public class SOCBoard implements Serializable, Cloneable
      * found on the outer ring of the board coordinate
      * system, but some of their adjacent nodes/edges may be
      * "off the board" and thus invalid.
+     *<P>
+     * Before v1.2.00 this returned a new array from each call.
+     * For coordinates 0x00 to 0xFF, it's now a precomputed array shared by all callers:
+     * Do not change its contents.
      * @param coord  Node coordinate.  Is not checked for validity.
      * @return the nodes touching this node, as an array of 3 coordinates.
      *    Unused elements of the array are set to -9.
@@ -2510,6 +2710,9 @@ public class SOCBoard implements Serializable, Cloneable
      */
     public final int[] getAdjacentNodesToNode_arr(final int coord)
     {
+        if ((coord >= 0) && (coord < ADJ_TABLE_SIZE))
+            return getAdjacencyTables().nodesToNode[coord];  // <--- Early return: Precomputed ---
+
         int nodes[] = new int[3];
         for (int i = 0; i < 3; ++i)
             nodes[i] = getAdjacentNodeToNode(coord, i);
@@ -2537,6 +2740,22 @@ public class SOCBoard implements Serializable, Cloneable
      */
     public int getAdjacentNodeToNode(final int nodeCoord, final int nodeDir)
         throws IllegalArgumentException
+    {
+        if ((nodeCoord >= 0) && (nodeCoord < ADJ_TABLE_SIZE) && (nodeDir >= 0) && (nodeDir <= 2))
+            return getAdjacencyTables().nodesToNode[nodeCoord][nodeDir];
+        else
+            return calcAdjacentNodeToNode(nodeCoord, nodeDir, minNode);
+    }
+
+    /**
+     * Calculate a node's adjacent node in a given direction within range <tt>minNode</tt> to {@link #MAXNODE},
+     * for {@link #getAdjacentNodeToNode(int, int)} and its precomputed table.
+     * @return  The adjacent node in that direction, or -9 if none (if off the board)
+     * @throws IllegalArgumentException if <tt>nodeDir</tt> is less than 0 or greater than 2
+     * @since 1.2.00
+     */
+    private static int calcAdjacentNodeToNode(final int nodeCoord, final int nodeDir, final int minNode)
+        throws IllegalArgumentException
     {
         // See RST dissertation figures A.2 (nodes)
         // and A.7 and A.9 (computing adjacent nodes to a node).
@@ -2605,6 +2824,42 @@ public class SOCBoard implements Serializable, Cloneable
         return node;
     }
 
+    /**
+     * Get this board's precomputed adjacency tables, for its encoding's range of nodes and edges.
+     * @since 1.2.00
+     */
+    private final AdjacencyTables getAdjacencyTables()
+    {
+        return (minNode == MINNODE_V2) ? ADJ_V2 : ADJ_V1;
+    }
+
+    /**
+     * Get an Integer for this coordinate, for adjacency methods which return a Vector.
+     * @return A shared Integer if <tt>coord</tt> is 0x00 to 0xFF, otherwise a new one
+     * @since 1.2.00
+     */
+    private static Integer coordInteger(final int coord)
+    {
+        if ((coord >= 0) && (coord < ADJ_TABLE_SIZE))
+            return COORD_INTEGERS[coord];
+        else
+            return new Integer(coord);
+    }
+
+    /**
+     * Copy the first <tt>n</tt> elements of an array, like Java 6's Arrays.copyOf.
+     * @since 1.2.00
+     */
+    private static int[] copyOf(final int[] arr, final int n)
+    {
+        if (n == arr.length)
+            return arr;
+
+        final int[] copy = new int[n];
+        System.arraycopy(arr, 0, copy, 0, n);
+        return copy;
+    }
+
     /**
      * Offsets from a node to another node 2 away,
      * indexed by the facing directions: {@link #FACING_NE} is 1,
@@ -2910,49 +3165,34 @@ public class SOCBoard implements Serializable, Cloneable
 
     /**
      * If there's a settlement or city at this node, find it.
+     *<P>
+     * Before v1.2.00 this searched all pieces on the board; it's now a quick array lookup.
      * 
      * @param nodeCoord Location coordinate (as returned by SOCBoardPanel.findNode)
      * @return Settlement or city or null
      */
     public SOCPlayingPiece settlementAtNode(int nodeCoord)
     {
-        Enumeration pEnum = pieces.elements();
-
-        while (pEnum.hasMoreElements())
-        {
-            SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
-            int typ = p.getType(); 
+        if ((nodeCoord < 0) || (nodeCoord >= nodePieces.length))
+            return null;
 
-            if ((nodeCoord == p.getCoordinates()) &&
-                ( (typ == SOCPlayingPiece.SETTLEMENT) || (typ == SOCPlayingPiece.CITY) ))
-            {
-                return p;  // <-- Early return: Found it ---
-            }
-        }
-        
-        return null;
+        return nodePieces[nodeCoord];
     }
-    
+
     /**
      * If there's a road placed at this node, find it.
+     *<P>
+     * Before v1.2.00 this searched all roads on the board; it's now a quick array lookup.
      * 
      * @param edgeCoord Location coordinate (as returned by SOCBoardPanel.findEdge) 
      * @return road or null
      */
     public SOCPlayingPiece roadAtEdge(int edgeCoord)
     {
-        Enumeration pEnum = roads.elements();
+        if ((edgeCoord < 0) || (edgeCoord >= edgeRoads.length))
+            return null;
 
-        while (pEnum.hasMoreElements())
-        {
-            SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
-            if (edgeCoord == p.getCoordinates())
-            {
-                return p;  // <-- Early return: Found it ---
-            }
-        }
-        
-        return null;
+        return edgeRoads[edgeCoord];
     }
 
     /**
@@ -3050,4 +3290,52 @@ public class SOCBoard implements Serializable, Cloneable
         return str;
     }
 
+
+    /**
+     * Precomputed adjacent nodes and edges for each coordinate 0x00 to 0xFF in one board encoding,
+     * whose range of valid nodes and edges is <tt>minNode</tt> to {@link SOCBoard#MAXNODE}
+     * and <tt>minEdge</tt> to <tt>maxEdge</tt>.
+     * Built once when {@link SOCBoard} is loaded, and shared by every board with that encoding.
+     * The tables and their arrays are read-only.
+     * @since 1.2.00
+     */
+    private static final class AdjacencyTables
+    {
+        /** Each edge's 0 to 2 nodes, for {@link SOCBoard#getAdjacentNodesToEdge(int)} */
+        final int[][] nodesToEdge = new int[ADJ_TABLE_SIZE][];
+
+        /** Each edge's 0 to 4 adjacent edges, for {@link SOCBoard#getAdjacentEdgesToEdge(int)} */
+        final int[][] edgesToEdge = new int[ADJ_TABLE_SIZE][];
+
+        /**
+         * Each node's adjacent edge in each direction 0 to 2, or -9 if none,
+         * for {@link SOCBoard#getAdjacentEdgesToNode_arr(int)}
+         */
+        final int[][] edgesToNode = new int[ADJ_TABLE_SIZE][];
+
+        /**
+         * Each node's adjacent node in each direction 0 to 2, or -9 if none,
+         * for {@link SOCBoard#getAdjacentNodesToNode_arr(int)}
+         */
+        final int[][] nodesToNode = new int[ADJ_TABLE_SIZE][];
+
+        AdjacencyTables(final int minNode, final int minEdge, final int maxEdge)
+        {
+            for (int c = 0; c < ADJ_TABLE_SIZE; ++c)
+            {
+                nodesToEdge[c] = calcAdjacentNodesToEdge(c, minNode);
+                edgesToEdge[c] = calcAdjacentEdgesToEdge(c, minEdge, maxEdge);
+
+                final int[] edges = new int[3], nodes = new int[3];
+                for (int dir = 0; dir < 3; ++dir)
+                {
+                    edges[dir] = calcAdjacentEdgeToNode(c, dir, minEdge, maxEdge);
+                    nodes[dir] = calcAdjacentNodeToNode(c, dir, minNode);
+                }
+                edgesToNode[c] = edges;
+                nodesToNode[c] = nodes;
+            }
+        }
+    }
+
 }
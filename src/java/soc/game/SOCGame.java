@@ -2,6 +2,7 @@
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2007-2013,2015-2017 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2017 JSettlers contributors
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -600,9 +601,29 @@ public class SOCGame implements Serializable, Cloneable
     private int[] devCardDeck;
 
     /**
-     * used to generate random numbers
+     * used to generate random numbers.
+     * Before v1.2.00 this was unseeded; now it's created from {@link #randomSeed}
+     * and shared with {@link #board}.
+     * @see #setRandomSeed(long)
      */
-    private Random rand = new Random();
+    private Random rand;
+
+    /**
+     * The seed of {@link #rand}, for replaying a game from its {@link #journal}.
+     * @see #getRandomSeed()
+     * @since 1.2.00
+     */
+    private long randomSeed;
+
+    /**
+     * This game's journal of actions, or null if not recording.
+     * Game action methods add to it; see {@link SOCGameJournal} for which ones.
+     * While one of those methods calls another, this field is temporarily null
+     * so that only the outer call is recorded.
+     * @see #startJournal()
+     * @since 1.2.00
+     */
+    private SOCGameJournal journal;
 
     /**
      * used to track if there were any player subs
@@ -631,8 +652,8 @@ public class SOCGame implements Serializable, Cloneable
      *<P>
      * At the end of a game, the server may increase this value by
      * 90 minutes ({@link soc.server.SOCGameListAtServer#GAME_EXPIRE_MINUTES})
-     * in order to remove it from the {@link soc.server.SOCGameTimeoutChecker}
-     * run loop.
+     * so the {@link soc.server.SOCGameTimeoutChecker} won't check it again
+     * for a while.
      *
      * @since 1.1.11
      */
@@ -761,6 +782,7 @@ public class SOCGame implements Serializable, Cloneable
             vp_winner = VP_WINNER_STANDARD;
         }
         board = SOCBoard.createBoard(op, maxPlayers);
+        setRandomSeed(new Random().nextLong());
         opts = op;
         players = new SOCPlayer[maxPlayers];
         seats = new int[maxPlayers];
@@ -976,6 +998,8 @@ public class SOCGame implements Serializable, Cloneable
 
         players[pn].setName(name);
         seats[pn] = OCCUPIED;
+        if (journal != null)
+            journal.add(SOCGameJournal.ADD_PLAYER, name, pn);
 
         if ((gameState > NEW) && (gameState < OVER))
         {
@@ -1010,6 +1034,8 @@ public class SOCGame implements Serializable, Cloneable
         SOCPlayer pl = getPlayer(name);
         if (pl == null)
             throw new IllegalArgumentException("name");
+        if (journal != null)
+            journal.add(SOCGameJournal.REMOVE_PLAYER, name, -1);
         pl.setName(null);
         seats[pl.getPlayerNumber()] = VACANT;
 
@@ -1070,6 +1096,8 @@ public class SOCGame implements Serializable, Cloneable
         if (isAtServer && getResetVoteActive())
             throw new IllegalStateException();
 
+        if (journal != null)
+            journal.add(SOCGameJournal.LOCK_SEAT, pn);
         seatLocks[pn] = LOCKED;
     }
 
@@ -1088,6 +1116,8 @@ public class SOCGame implements Serializable, Cloneable
         if (isAtServer && getResetVoteActive())
             throw new IllegalStateException();
 
+        if (journal != null)
+            journal.add(SOCGameJournal.UNLOCK_SEAT, pn);
         seatLocks[pn] = UNLOCKED;
     }
 
@@ -1513,6 +1543,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void setGameState(int gs)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.SET_GAME_STATE, gs);
+
         if ((gs == PLAY) && (gameState == SPECIAL_BUILDING))
             oldGameState = PLAY1;  // Needed for isSpecialBuilding() to work at client
         else
@@ -1911,6 +1944,8 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void putPiece(SOCPlayingPiece pp)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.PUT_PIECE, pp);
         putPieceCommon(pp, false);
     }
 
@@ -2059,17 +2094,9 @@ public class SOCGame implements Serializable, Cloneable
                     /**
                      * look for other player's roads adjacent to this node
                      */
-                    Enumeration allRoadsEnum = board.getRoads().elements();
-
-                    while (allRoadsEnum.hasMoreElements())
-                    {
-                        SOCRoad road = (SOCRoad) allRoadsEnum.nextElement();
-
-                        if (adjEdge.intValue() == road.getCoordinates())
-                        {
-                            roads[road.getPlayer().getPlayerNumber()]++;
-                        }
-                    }
+                    final SOCPlayingPiece road = board.roadAtEdge(adjEdge.intValue());
+                    if (road != null)
+                        roads[road.getPlayer().getPlayerNumber()]++;
                 }
 
                 /**
@@ -2346,6 +2373,8 @@ public class SOCGame implements Serializable, Cloneable
         if (pp.getCoordinates() != pp.getPlayer().getLastSettlementCoord())
             throw new IllegalArgumentException("Not coordinate of last settlement");
 
+        if (journal != null)
+            journal.add(SOCGameJournal.UNDO_PUT_INIT_SETTLEMENT, pp);
         undoPutPieceCommon(pp);  // Will also zero resources via player.undoPutPiece
 
         if (gameState == START1B)
@@ -2365,6 +2394,8 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void startGame()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.START_GAME);
         isAtServer = true;
 
         board.makeNewBoard(opts);
@@ -2548,6 +2579,8 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void endTurn()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.END_TURN);
         if (! advanceTurnToSpecialBuilding())
         {
             // "Normal" end-turn:
@@ -2696,6 +2729,8 @@ public class SOCGame implements Serializable, Cloneable
         if ((gameState < START1A) || (gameState >= OVER))
             throw new IllegalStateException("Game not active: state " + gameState);
 
+        if (journal != null)
+            journal.add(SOCGameJournal.FORCE_END_TURN);
         forcingEndTurn = true;
 
         switch (gameState)
@@ -2726,17 +2761,32 @@ public class SOCGame implements Serializable, Cloneable
                 (SOCForceEndTurnResult.FORCE_ENDTURN_NONE);
 
         case PLACING_ROAD:
-            cancelBuildRoad(currentPlayerNumber);
+            {
+                final SOCGameJournal jr = journal;
+                journal = null;  // part of this journaled action
+                cancelBuildRoad(currentPlayerNumber);
+                journal = jr;
+            }
             return new SOCForceEndTurnResult
                 (SOCForceEndTurnResult.FORCE_ENDTURN_RSRC_RET_UNPLACE, ROAD_SET);
 
         case PLACING_SETTLEMENT:
-            cancelBuildSettlement(currentPlayerNumber);
+            {
+                final SOCGameJournal jr = journal;
+                journal = null;  // part of this journaled action
+                cancelBuildSettlement(currentPlayerNumber);
+                journal = jr;
+            }
             return new SOCForceEndTurnResult
                 (SOCForceEndTurnResult.FORCE_ENDTURN_RSRC_RET_UNPLACE, SETTLEMENT_SET);
 
         case PLACING_CITY:
-            cancelBuildCity(currentPlayerNumber);
+            {
+                final SOCGameJournal jr = journal;
+                journal = null;  // part of this journaled action
+                cancelBuildCity(currentPlayerNumber);
+                journal = jr;
+            }
             return new SOCForceEndTurnResult
                 (SOCForceEndTurnResult.FORCE_ENDTURN_RSRC_RET_UNPLACE, CITY_SET);
 
@@ -2886,7 +2936,10 @@ public class SOCGame implements Serializable, Cloneable
         {
             SOCResourceSet hand = players[pn].getResources();
             discardPickRandom(hand, hand.getTotal() / 2, discards, rand);
+            final SOCGameJournal jr = journal;
+            journal = null;  // part of this journaled action
             discard(pn, discards);  // Checks for other discarders, sets gameState
+            journal = jr;
         }
 
         if (gameState == WAITING_FOR_DISCARDS)
@@ -2902,6 +2955,9 @@ public class SOCGame implements Serializable, Cloneable
 
     /**
      * Choose discards at random; does not actually discard anything or change game state.
+     *<P>
+     * Before v1.2.00 this made a Vector of the hand's cards to pick from. It now picks from
+     * a packed copy of the hand's amounts without allocating; the picks are the same.
      *
      * @param fromHand     Discard from this set
      * @param numDiscards  This many must be discarded
@@ -2910,32 +2966,31 @@ public class SOCGame implements Serializable, Cloneable
      */
     public static void discardPickRandom(SOCResourceSet fromHand, int numDiscards, SOCResourceSet discards, Random rand)
     {
-        Vector tempHand = new Vector(16);
-
-        // System.err.println("resources="+ourPlayerData.getResources());
-        for (int rsrcType = SOCResourceConstants.CLAY;
-                rsrcType <= SOCResourceConstants.WOOD; rsrcType++)
-        {
-            for (int i = fromHand.getAmount(rsrcType);
-                    i != 0; i--)
-            {
-                tempHand.addElement(new Integer(rsrcType));
-
-                // System.err.println("rsrcType="+rsrcType);
-            }
-        }
+        // The known resources, in type order; unknown ones can't be picked
+        long tempHand = SOCResourceSet.setAmount(fromHand.getPacked(), 0, SOCResourceConstants.UNKNOWN);
+        int handSize = SOCResourceSet.getTotal(tempHand);
 
         /**
          * pick cards
          */
         for (; numDiscards > 0; numDiscards--)
         {
-            // System.err.println("numDiscards="+numDiscards+"|hand.size="+hand.size());
-            int idx = Math.abs(rand.nextInt() % tempHand.size());
+            // System.err.println("numDiscards="+numDiscards+"|hand.size="+handSize);
+            int idx = Math.abs(rand.nextInt() % handSize);
 
             // System.err.println("idx="+idx);
-            discards.add(1, ((Integer) tempHand.elementAt(idx)).intValue());
-            tempHand.removeElementAt(idx);
+            // find idx's type, as if the cards were listed in type order
+            int rsrcType = SOCResourceConstants.CLAY;
+            for (int amt = SOCResourceSet.getAmount(tempHand, rsrcType); idx >= amt;
+                 amt = SOCResourceSet.getAmount(tempHand, rsrcType))
+            {
+                idx -= amt;
+                ++rsrcType;
+            }
+
+            discards.add(1, rsrcType);
+            tempHand = SOCResourceSet.setAmount(tempHand, SOCResourceSet.getAmount(tempHand, rsrcType) - 1, rsrcType);
+            --handSize;
         }
     }
 
@@ -2969,6 +3024,9 @@ public class SOCGame implements Serializable, Cloneable
         if (! (players[pn].getNeedToDiscard()))
             throw new IllegalStateException("Player " + pn + " does not need to discard");
 
+        if (journal != null)
+            journal.add(SOCGameJournal.PLAYER_DISCARD_RANDOM, pn);
+
         // Since doesn't change current player number, this is safe to call
         SOCForceEndTurnResult rs = forceEndTurnChkDiscards(pn);
         return rs.getResourcesGainedLost();
@@ -3002,6 +3060,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public IntPair rollDice()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.ROLL_DICE);
+
         // N7C: Roll no 7s until a city is built.
         // N7: Roll no 7s during first # rounds.
         //     Use > not >= because roundCount includes current round
@@ -3074,6 +3135,11 @@ public class SOCGame implements Serializable, Cloneable
 
     /**
      * figure out what resources a player would get on a given roll
+     *<P>
+     * Before v1.2.00 this walked each of the player's settlements and cities and their adjacent hexes.
+     * It now reads the player's table of counts by dice number and resource,
+     * which is kept up to date as pieces are placed, upgraded, or removed;
+     * see {@link SOCPlayerNumbers#getNumberResourceCount(int, int, int)}.
      *
      * @param player   the player
      * @param roll     the roll
@@ -3083,73 +3149,23 @@ public class SOCGame implements Serializable, Cloneable
     public SOCResourceSet getResourcesGainedFromRoll(SOCPlayer player, int roll)
     {
         SOCResourceSet resources = new SOCResourceSet();
-        final int robberHex = board.getRobberHex();
-
-        /**
-         * check the hexes touching settlements
-         */
-        getResourcesGainedFromRollPieces(roll, resources, robberHex, player.getSettlements().elements(), 1);
+        if ((roll < 2) || (roll > 12))
+            return resources;  // <--- Early return: No hex has this number ---
 
         /**
-         * check the hexes touching cities
+         * The player's numbers are updated as settlements and cities are placed or removed;
+         * a city counts twice. The count there for the robber's hex is left out.
          */
-        getResourcesGainedFromRollPieces(roll, resources, robberHex, player.getCities().elements(), 2);
-
-        return resources;
-    }
-
-    /**
-     * Figure out what resources these piece positions would get on a given roll,
-     * based on the hexes adjacent to the pieces' node coordinates.
-     * Used in {@link #getResourcesGainedFromRoll(SOCPlayer, int)}.
-     *
-     * @param roll       the total number rolled on the dice
-     * @param resources  Add new resources to this set
-     * @param robberHex  Robber's position, from {@link SOCBoard#getRobberHex()}
-     * @param sEnum      Enumeration of a type of the player's {@link SOCPlayingPiece}s;
-     *                   should be either {@link SOCSettlement}s or {@link SOCCity}s
-     * @param incr       Add this many resources (1 or 2) per playing piece
-     * @since 1.1.17
-     */
-    private final void getResourcesGainedFromRollPieces
-        (final int roll, SOCResourceSet resources, final int robberHex, Enumeration sEnum, final int incr)
-    {
-        while (sEnum.hasMoreElements())
+        final SOCPlayerNumbers numbers = player.getNumbers();
+        final int robberHex = board.getRobberHex();
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
         {
-            final SOCPlayingPiece sc = (SOCPlayingPiece) sEnum.nextElement();
-            Enumeration hexes = SOCBoard.getAdjacentHexesToNode(sc.getCoordinates()).elements();
-
-            while (hexes.hasMoreElements())
-            {
-                final int hexCoord = ((Integer) hexes.nextElement()).intValue();
-
-                if ((board.getNumberOnHexFromCoord(hexCoord) == roll) && (hexCoord != robberHex))
-                {
-                    switch (board.getHexTypeFromCoord(hexCoord))
-                    {
-                    case SOCBoard.CLAY_HEX:
-                        resources.add(incr, SOCResourceConstants.CLAY);
-                        break;
-
-                    case SOCBoard.ORE_HEX:
-                        resources.add(incr, SOCResourceConstants.ORE);
-                        break;
-
-                    case SOCBoard.SHEEP_HEX:
-                        resources.add(incr, SOCResourceConstants.SHEEP);
-                        break;
-
-                    case SOCBoard.WHEAT_HEX:
-                        resources.add(incr, SOCResourceConstants.WHEAT);
-                        break;
-
-                    case SOCBoard.WOOD_HEX:
-                        resources.add(incr, SOCResourceConstants.WOOD);
-                        break;
-                    }
-                }
-            }
+            final int amt = numbers.getNumberResourceCount(roll, rtype, robberHex);
+            if (amt != 0)
+                resources.add(amt, rtype);
         }
+
+        return resources;
     }
 
     /**
@@ -3200,6 +3216,8 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void discard(int pn, SOCResourceSet rs)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.DISCARD, pn, rs);
         players[pn].getResources().subtract(rs);
         players[pn].setNeedToDiscard(false);
 
@@ -3300,6 +3318,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public SOCMoveRobberResult moveRobber(int pn, int co)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.MOVE_ROBBER, pn, co);
+
         SOCMoveRobberResult result = new SOCMoveRobberResult();
 
         board.setRobberHex(co, true);
@@ -3318,7 +3339,10 @@ public class SOCGame implements Serializable, Cloneable
         else if (victims.size() == 1)
         {
             SOCPlayer victim = (SOCPlayer) victims.firstElement();
+            final SOCGameJournal jr = journal;
+            journal = null;  // part of this journaled action
             int loot = stealFromPlayer(victim.getPlayerNumber());
+            journal = jr;
             result.setLoot(loot);
         }
         else
@@ -3456,6 +3480,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public int stealFromPlayer(int pn)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.STEAL_FROM_PLAYER, pn);
+
         /**
          * pick a resource card at random
          */
@@ -3587,6 +3614,9 @@ public class SOCGame implements Serializable, Cloneable
         if (isGameOptionSet("NT"))
             return;
 
+        if (journal != null)
+            journal.addTrade(offering, accepting, players[offering].getCurrentOffer());
+
         SOCResourceSet offeringPlayerResources = players[offering].getResources();
         SOCResourceSet acceptingPlayerResources = players[accepting].getResources();
         SOCTradeOffer offer = players[offering].getCurrentOffer();
@@ -3769,6 +3799,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void makeBankTrade(SOCResourceSet give, SOCResourceSet get)
     {
+        if (journal != null)
+            journal.addBankTrade(give, get);
+
         final SOCPlayer currPlayer = players[currentPlayerNumber];
         SOCResourceSet playerResources = currPlayer.getResources();
 
@@ -3854,6 +3887,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void buyRoad(int pn)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.BUY_ROAD, pn);
+
         SOCResourceSet resources = players[pn].getResources();
         resources.subtract(1, SOCResourceConstants.CLAY);
         resources.subtract(1, SOCResourceConstants.WOOD);
@@ -3868,6 +3904,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void buySettlement(int pn)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.BUY_SETTLEMENT, pn);
+
         SOCResourceSet resources = players[pn].getResources();
         resources.subtract(1, SOCResourceConstants.CLAY);
         resources.subtract(1, SOCResourceConstants.SHEEP);
@@ -3884,6 +3923,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void buyCity(int pn)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.BUY_CITY, pn);
+
         SOCResourceSet resources = players[pn].getResources();
         resources.subtract(3, SOCResourceConstants.ORE);
         resources.subtract(2, SOCResourceConstants.WHEAT);
@@ -3933,6 +3975,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void cancelBuildRoad(int pn)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.CANCEL_BUILD_ROAD, pn);
+
         if (gameState == PLACING_FREE_ROAD2)
         {
             advanceTurnStateAfterPutPiece();
@@ -3958,6 +4003,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void cancelBuildSettlement(int pn)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.CANCEL_BUILD_SETTLEMENT, pn);
+
         SOCResourceSet resources = players[pn].getResources();
         resources.add(1, SOCResourceConstants.CLAY);
         resources.add(1, SOCResourceConstants.SHEEP);
@@ -3977,6 +4025,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void cancelBuildCity(int pn)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.CANCEL_BUILD_CITY, pn);
+
         SOCResourceSet resources = players[pn].getResources();
         resources.add(3, SOCResourceConstants.ORE);
         resources.add(2, SOCResourceConstants.WHEAT);
@@ -3995,6 +4046,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public int buyDevCard()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.BUY_DEV_CARD);
+
         int card =  devCardDeck[numDevCards - 1];
         numDevCards--;
 
@@ -4129,6 +4183,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void playKnight()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.PLAY_KNIGHT);
+
         lastActionTime = System.currentTimeMillis();
         lastActionWasBankTrade = false;
         players[currentPlayerNumber].setPlayedDevCard(true);
@@ -4155,6 +4212,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void playRoadBuilding()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.PLAY_ROAD_BUILDING);
+
         lastActionTime = System.currentTimeMillis();
         lastActionWasBankTrade = false;
         players[currentPlayerNumber].setPlayedDevCard(true);
@@ -4172,6 +4232,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void playDiscovery()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.PLAY_DISCOVERY);
+
         lastActionTime = System.currentTimeMillis();
         lastActionWasBankTrade = false;
         players[currentPlayerNumber].setPlayedDevCard(true);
@@ -4185,6 +4248,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void playMonopoly()
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.PLAY_MONOPOLY);
+
         lastActionTime = System.currentTimeMillis();
         lastActionWasBankTrade = false;
         players[currentPlayerNumber].setPlayedDevCard(true);
@@ -4238,6 +4304,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public void doDiscoveryAction(SOCResourceSet pick)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.DISCOVERY_PICK, -1, pick);
+
         for (int i = SOCResourceConstants.CLAY; i <= SOCResourceConstants.WOOD;
                 i++)
         {
@@ -4259,6 +4328,9 @@ public class SOCGame implements Serializable, Cloneable
      */
     public int[] doMonopolyAction(final int rtype)
     {
+        if (journal != null)
+            journal.add(SOCGameJournal.MONOPOLY_PICK, rtype);
+
         int sum = 0;
         int[] monoResult = new int[maxPlayers];
 
@@ -4517,6 +4589,130 @@ public class SOCGame implements Serializable, Cloneable
         return cp;
     }
 
+    /**
+     * Make an independent copy of this game's current state, for a robot to explore
+     * hypothetical moves without changing or locking the real game.
+     * The copy has its own board, players, resources, dice, dev card deck and game state,
+     * so any change to the copy (such as {@link #putPiece(SOCPlayingPiece)},
+     * {@link #putTempPiece(SOCPlayingPiece)}, moving the robber, or changing a player's resources)
+     * won't affect this game, and changes to this game won't affect the copy.
+     *<P>
+     * The copy shares what doesn't change: Game options, and the playing pieces already
+     * on the board. Those existing pieces still refer to this game's players and board, and are
+     * used by the copy only for their type, coordinates and player number. To place a new piece in
+     * the copy, create it with the copy's {@link #getPlayer(int)} and {@link #getBoard()}.
+     *<P>
+     * Take the snapshot while this game isn't being changed, such as from the thread which
+     * updates it. Afterwards the copy can be used on any one thread, without locking this game.
+     * The copy has its own {@link java.util.Random} with a new seed, isn't {@link #inUse},
+     * has no board reset in progress, and has no journal.
+     *
+     * @return  a copy of this game
+     * @since 1.2.00
+     */
+    public SOCGame snapshot()
+    {
+        final SOCGame cp;
+        try
+        {
+            cp = (SOCGame) super.clone();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new IllegalStateException(e.toString());  // won't happen: this class is Cloneable
+        }
+
+        cp.inUse = false;
+        cp.boardResetOngoingInfo = null;
+        cp.journal = null;
+        cp.board = board.snapshot();
+        cp.setRandomSeed(new Random().nextLong());
+
+        cp.players = new SOCPlayer[maxPlayers];
+        for (int i = 0; i < maxPlayers; ++i)
+            if (players[i] != null)
+                cp.players[i] = new SOCPlayer(players[i], cp);
+
+        cp.seats = (int[]) seats.clone();
+        cp.seatLocks = (boolean[]) seatLocks.clone();
+        cp.boardResetVotes = (int[]) boardResetVotes.clone();
+        if (devCardDeck != null)
+            cp.devCardDeck = (int[]) devCardDeck.clone();
+        cp.oldPlayerWithLongestRoad = (Stack) oldPlayerWithLongestRoad.clone();
+            // SOCOldLRStats elements are never changed after creation
+
+        return cp;
+    }
+
+    /**
+     * Get this game's random seed, which determines its board layout, dice rolls,
+     * dev card order, and the other random choices made by its game action methods.
+     * @return  the seed chosen when the game was created, or given to {@link #setRandomSeed(long)}
+     * @since 1.2.00
+     */
+    public long getRandomSeed()
+    {
+        return randomSeed;
+    }
+
+    /**
+     * Set this game's random seed, to play the same game again.
+     * Restarts the random sequence used by this game and its board.
+     * To reproduce a game, call this before {@link #startGame()}.
+     * @param seed  Random seed
+     * @see #getRandomSeed()
+     * @see SOCGameJournal#replay()
+     * @since 1.2.00
+     */
+    public void setRandomSeed(final long seed)
+    {
+        randomSeed = seed;
+        rand = new Random(seed);
+        board.setRandom(rand);
+    }
+
+    /**
+     * Start recording this game's actions into a new journal, so the game can be
+     * replayed later with {@link SOCGameJournal#replay()}.
+     * Must be called before {@link #startGame()}. Players who have already sat down
+     * and locked seats are recorded as the journal's first entries.
+     * A game created by {@link #resetAsCopy()} can start its journal while waiting for robots,
+     * in state {@link #READY_RESET_WAIT_ROBOT_DISMISS} or {@link #READY}; that state is also recorded.
+     * @return  the new journal, which is also returned by {@link #getJournal()}
+     * @throws IllegalStateException  if game state isn't {@link #NEW}, {@link #READY}
+     *     or {@link #READY_RESET_WAIT_ROBOT_DISMISS}
+     * @since 1.2.00
+     */
+    public SOCGameJournal startJournal()
+        throws IllegalStateException
+    {
+        if ((gameState != NEW) && (gameState != READY) && (gameState != READY_RESET_WAIT_ROBOT_DISMISS))
+            throw new IllegalStateException("state=" + gameState);
+
+        journal = new SOCGameJournal(name, opts, randomSeed);
+        if (gameState != NEW)
+            journal.add(SOCGameJournal.SET_GAME_STATE, gameState);
+        for (int pn = 0; pn < maxPlayers; ++pn)
+        {
+            if (seats[pn] != VACANT)
+                journal.add(SOCGameJournal.ADD_PLAYER, players[pn].getName(), pn);
+            if (seatLocks[pn] == LOCKED)
+                journal.add(SOCGameJournal.LOCK_SEAT, pn);
+        }
+
+        return journal;
+    }
+
+    /**
+     * Get this game's journal of actions, if recording.
+     * @return  the journal from {@link #startJournal()}, or null
+     * @since 1.2.00
+     */
+    public SOCGameJournal getJournal()
+    {
+        return journal;
+    }
+
     /**
      * Begin a board-reset vote.
      * The requester is marked as voting yes, and we mark other players as "no vote yet".
@@ -4822,7 +5018,12 @@ public class SOCGame implements Serializable, Cloneable
     {
         if ((! onlyIfCan) || canAskSpecialBuild(pn, true))
         {
+            final SOCGameJournal jr = journal;
+            if (jr != null)
+                jr.add(SOCGameJournal.ASK_SPECIAL_BUILD, pn, (onlyIfCan) ? 1 : 0);
+            journal = null;  // part of this journaled action
             players[pn].setAskedSpecialBuild(true);
+            journal = jr;
             askedSpecialBuildPhase = true;
         }
     }
@@ -4911,6 +5112,8 @@ public class SOCGame implements Serializable, Cloneable
             }
         }
 
+        if (journal != null)
+            journal.add(SOCGameJournal.SET_DEBUG_FREE_PLACEMENT, (debugOn) ? 1 : 0);
         debugFreePlacement = debugOn;
         debugFreePlacementStartPlaced = false;
     }
@@ -0,0 +1,558 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.game;
+
+import java.io.Serializable;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * An append-only record of the actions taken in a {@link SOCGame}, with the game's
+ * random seed, name and options: Enough to play the same game again with {@link #replay()}.
+ * Started by {@link SOCGame#startJournal()}.
+ *<P>
+ * The game records each call to its game action methods, as called at the server:
+ * Adding and removing players, {@link SOCGame#startGame()}, {@link SOCGame#putPiece(SOCPlayingPiece)},
+ * {@link SOCGame#rollDice()}, trades, dev cards, {@link SOCGame#endTurn()}, etc,
+ * and {@link SOCPlayer#setAskedSpecialBuild(boolean)}.
+ * Calls which one of those methods makes to another are part of that action, and aren't recorded.
+ * The game's random numbers come from its seed, so replaying the same calls in the same order
+ * into a new game with that seed gives the same board, dice rolls, dev cards and stolen resources.
+ *<P>
+ * Not recorded:
+ *<UL>
+ * <LI> Temporary pieces from {@link SOCGame#putTempPiece(SOCPlayingPiece)}, which are always undone
+ * <LI> Setters which a client calls to track the server's game state, such as {@link SOCGame#setCurrentDice(int)}
+ * <LI> Debug commands which change a player's resources or cards directly
+ * <LI> Board reset votes; a reset creates a new game
+ *</UL>
+ *<P>
+ * Each entry is an action code followed by its fixed number of int parameters, in one growing <tt>int[]</tt>.
+ * Resource sets are stored as their {@link SOCResourceSet#getPacked()} value, in 2 ints.
+ * A typical game's journal is a few thousand ints.
+ *<P>
+ * Like {@link SOCGame}, not thread-safe.
+ *
+ * @since 1.2.00
+ */
+public class SOCGameJournal implements Serializable
+{
+    /** Action codes, each followed by {@link #PARAM_COUNT}[code] int parameters */
+    static final int
+        ADD_PLAYER = 0,  // name index, pn
+        REMOVE_PLAYER = 1,  // name index
+        LOCK_SEAT = 2,  // pn
+        UNLOCK_SEAT = 3,  // pn
+        SET_GAME_STATE = 4,  // gs
+        SET_DEBUG_FREE_PLACEMENT = 5,  // 1 or 0
+        START_GAME = 6,
+        PUT_PIECE = 7,  // type, pn, coord
+        UNDO_PUT_INIT_SETTLEMENT = 8,  // pn, coord
+        ROLL_DICE = 9,
+        DISCARD = 10,  // pn, resource set
+        PLAYER_DISCARD_RANDOM = 11,  // pn
+        MOVE_ROBBER = 12,  // pn, hex coord
+        STEAL_FROM_PLAYER = 13,  // victim pn
+        MAKE_TRADE = 14,  // offering pn, accepting pn, offered-to pn bitmask, give set, get set
+        MAKE_BANK_TRADE = 15,  // give set, get set
+        BUY_ROAD = 16,  // pn
+        BUY_SETTLEMENT = 17,  // pn
+        BUY_CITY = 18,  // pn
+        CANCEL_BUILD_ROAD = 19,  // pn
+        CANCEL_BUILD_SETTLEMENT = 20,  // pn
+        CANCEL_BUILD_CITY = 21,  // pn
+        BUY_DEV_CARD = 22,
+        PLAY_KNIGHT = 23,
+        PLAY_ROAD_BUILDING = 24,
+        PLAY_DISCOVERY = 25,
+        PLAY_MONOPOLY = 26,
+        DISCOVERY_PICK = 27,  // resource set
+        MONOPOLY_PICK = 28,  // resource type
+        ASK_SPECIAL_BUILD = 29,  // pn, onlyIfCan 1 or 0
+        SET_ASKED_SPECIAL_BUILD = 30,  // pn, 1 or 0
+        END_TURN = 31,
+        FORCE_END_TURN = 32;
+
+    /** Number of int parameters after each action code */
+    private static final int[] PARAM_COUNT =
+        { 2, 1, 1, 1, 1, 1, 0, 3, 2, 0, 3, 1, 2, 1, 7, 4, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 2, 1, 2, 2, 0, 0 };
+
+    /** Action names for {@link #toString()}, indexed by action code */
+    private static final String[] ACTION_NAMES =
+        { "addPlayer", "removePlayer", "lockSeat", "unlockSeat", "setGameState", "setDebugFreePlacement",
+          "startGame", "putPiece", "undoPutInitSettlement", "rollDice", "discard", "playerDiscardRandom",
+          "moveRobber", "stealFromPlayer", "makeTrade", "makeBankTrade", "buyRoad", "buySettlement", "buyCity",
+          "cancelBuildRoad", "cancelBuildSettlement", "cancelBuildCity", "buyDevCard", "playKnight",
+          "playRoadBuilding", "playDiscovery", "playMonopoly", "doDiscoveryAction", "doMonopolyAction",
+          "askSpecialBuild", "setAskedSpecialBuild", "endTurn", "forceEndTurn" };
+
+    /** The game's name, for {@link #replay()} */
+    private final String gameName;
+
+    /** Copy of the game's options when the journal was started, or null; for {@link #replay()} */
+    private final Hashtable opts;
+
+    /** The game's random seed; see {@link SOCGame#getRandomSeed()} */
+    private final long seed;
+
+    /** Entries, each an action code and its parameters; {@link #len} ints are used */
+    private int[] data = new int[256];
+
+    /** Number of ints used in {@link #data} */
+    private int len;
+
+    /** Number of entries in {@link #data} */
+    private int count;
+
+    /** Player names for {@link #ADD_PLAYER} and {@link #REMOVE_PLAYER}, indexed by their parameter */
+    private final Vector names = new Vector();
+
+    /**
+     * Create an empty journal for a game.
+     * @param gameName  Game name
+     * @param opts  Game options, or null; will be copied
+     * @param seed  Game's random seed
+     */
+    SOCGameJournal(final String gameName, final Hashtable opts, final long seed)
+    {
+        this.gameName = gameName;
+        this.opts = SOCGameOption.cloneOptions(opts);
+        this.seed = seed;
+    }
+
+    /**
+     * Get the random seed of the journal's game.
+     * @return  the seed given to {@link SOCGame#setRandomSeed(long)} or chosen when the game was created
+     */
+    public long getRandomSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Get the number of actions recorded so far.
+     * @return  Number of entries
+     */
+    public int getEntryCount()
+    {
+        return count;
+    }
+
+    /**
+     * Create a new game with this journal's name, options and random seed, and make the same calls
+     * in the same order as the journal's game, to reach the same state.
+     * The new game has its own journal, which is started before replaying.
+     * @return  the new game
+     * @throws IllegalStateException  if an action fails in the new game, which shouldn't happen
+     *     unless the original game was also changed in ways which aren't recorded
+     */
+    public SOCGame replay()
+        throws IllegalStateException
+    {
+        SOCGame ga = new SOCGame(gameName, true, SOCGameOption.cloneOptions(opts));
+        ga.setRandomSeed(seed);
+        ga.startJournal();
+
+        int i = 0;
+        for (int n = 0; n < count; ++n)
+        {
+            final int action = data[i];
+            try
+            {
+                replayAction(ga, action, i + 1);
+            }
+            catch (RuntimeException e)
+            {
+                throw new IllegalStateException("Replay failed at entry " + n + " " + ACTION_NAMES[action] + ": " + e);
+            }
+            i += 1 + PARAM_COUNT[action];
+        }
+
+        return ga;
+    }
+
+    /**
+     * Call one recorded action in a game.
+     * @param ga  Game to call
+     * @param action  Action code
+     * @param p  Index in {@link #data} of the action's first parameter
+     */
+    private void replayAction(final SOCGame ga, final int action, final int p)
+    {
+        final SOCBoard board = ga.getBoard();
+
+        switch (action)
+        {
+        case ADD_PLAYER:
+            ga.addPlayer((String) names.elementAt(data[p]), data[p + 1]);
+            break;
+
+        case REMOVE_PLAYER:
+            ga.removePlayer((String) names.elementAt(data[p]));
+            break;
+
+        case LOCK_SEAT:
+            ga.lockSeat(data[p]);
+            break;
+
+        case UNLOCK_SEAT:
+            ga.unlockSeat(data[p]);
+            break;
+
+        case SET_GAME_STATE:
+            ga.setGameState(data[p]);
+            break;
+
+        case SET_DEBUG_FREE_PLACEMENT:
+            ga.setDebugFreePlacement(data[p] != 0);
+            break;
+
+        case START_GAME:
+            ga.startGame();
+            break;
+
+        case PUT_PIECE:
+            {
+                final SOCPlayer pl = ga.getPlayer(data[p + 1]);
+                final int coord = data[p + 2];
+                final SOCPlayingPiece pp;
+                switch (data[p])
+                {
+                case SOCPlayingPiece.ROAD:
+                    pp = new SOCRoad(pl, coord, board);
+                    break;
+                case SOCPlayingPiece.SETTLEMENT:
+                    pp = new SOCSettlement(pl, coord, board);
+                    break;
+                default:
+                    pp = new SOCCity(pl, coord, board);
+                }
+                ga.putPiece(pp);
+            }
+            break;
+
+        case UNDO_PUT_INIT_SETTLEMENT:
+            ga.undoPutInitSettlement(new SOCSettlement(ga.getPlayer(data[p]), data[p + 1], board));
+            break;
+
+        case ROLL_DICE:
+            ga.rollDice();
+            break;
+
+        case DISCARD:
+            ga.discard(data[p], getResources(p + 1));
+            break;
+
+        case PLAYER_DISCARD_RANDOM:
+            ga.playerDiscardRandom(data[p]);
+            break;
+
+        case MOVE_ROBBER:
+            ga.moveRobber(data[p], data[p + 1]);
+            break;
+
+        case STEAL_FROM_PLAYER:
+            ga.stealFromPlayer(data[p]);
+            break;
+
+        case MAKE_TRADE:
+            {
+                final int offering = data[p], toMask = data[p + 2];
+                boolean[] to = new boolean[ga.maxPlayers];
+                for (int pn = 0; pn < to.length; ++pn)
+                    to[pn] = (0 != (toMask & (1 << pn)));
+                ga.getPlayer(offering).setCurrentOffer
+                    (new SOCTradeOffer(gameName, offering, to, getResources(p + 3), getResources(p + 5)));
+                ga.makeTrade(offering, data[p + 1]);
+            }
+            break;
+
+        case MAKE_BANK_TRADE:
+            ga.makeBankTrade(getResources(p), getResources(p + 2));
+            break;
+
+        case BUY_ROAD:
+            ga.buyRoad(data[p]);
+            break;
+
+        case BUY_SETTLEMENT:
+            ga.buySettlement(data[p]);
+            break;
+
+        case BUY_CITY:
+            ga.buyCity(data[p]);
+            break;
+
+        case CANCEL_BUILD_ROAD:
+            ga.cancelBuildRoad(data[p]);
+            break;
+
+        case CANCEL_BUILD_SETTLEMENT:
+            ga.cancelBuildSettlement(data[p]);
+            break;
+
+        case CANCEL_BUILD_CITY:
+            ga.cancelBuildCity(data[p]);
+            break;
+
+        case BUY_DEV_CARD:
+            ga.buyDevCard();
+            break;
+
+        case PLAY_KNIGHT:
+            ga.playKnight();
+            break;
+
+        case PLAY_ROAD_BUILDING:
+            ga.playRoadBuilding();
+            break;
+
+        case PLAY_DISCOVERY:
+            ga.playDiscovery();
+            break;
+
+        case PLAY_MONOPOLY:
+            ga.playMonopoly();
+            break;
+
+        case DISCOVERY_PICK:
+            ga.doDiscoveryAction(getResources(p));
+            break;
+
+        case MONOPOLY_PICK:
+            ga.doMonopolyAction(data[p]);
+            break;
+
+        case ASK_SPECIAL_BUILD:
+            ga.askSpecialBuild(data[p], data[p + 1] != 0);
+            break;
+
+        case SET_ASKED_SPECIAL_BUILD:
+            ga.getPlayer(data[p]).setAskedSpecialBuild(data[p + 1] != 0);
+            break;
+
+        case END_TURN:
+            ga.endTurn();
+            break;
+
+        case FORCE_END_TURN:
+            ga.forceEndTurn();
+            break;
+
+        default:
+            throw new IllegalStateException("unknown action: " + action);
+        }
+    }
+
+    /**
+     * Record an action which has no parameters.
+     * @param action  Action code, such as {@link #ROLL_DICE}
+     */
+    void add(final int action)
+    {
+        ensureCapacity(1);
+        data[len++] = action;
+        ++count;
+    }
+
+    /**
+     * Record an action which has 1 int parameter.
+     * @param action  Action code, such as {@link #BUY_ROAD}
+     * @param p1  Parameter
+     */
+    void add(final int action, final int p1)
+    {
+        ensureCapacity(2);
+        data[len++] = action;
+        data[len++] = p1;
+        ++count;
+    }
+
+    /**
+     * Record an action which has 2 int parameters.
+     * @param action  Action code, such as {@link #MOVE_ROBBER}
+     * @param p1  First parameter
+     * @param p2  Second parameter
+     */
+    void add(final int action, final int p1, final int p2)
+    {
+        ensureCapacity(3);
+        data[len++] = action;
+        data[len++] = p1;
+        data[len++] = p2;
+        ++count;
+    }
+
+    /**
+     * Record {@link #PUT_PIECE} or {@link #UNDO_PUT_INIT_SETTLEMENT}.
+     * @param action  Action code
+     * @param pp  Piece being placed or removed
+     */
+    void add(final int action, final SOCPlayingPiece pp)
+    {
+        final int pn = pp.getPlayer().getPlayerNumber(), coord = pp.getCoordinates();
+        if (action == PUT_PIECE)
+        {
+            ensureCapacity(4);
+            data[len++] = action;
+            data[len++] = pp.getType();
+            data[len++] = pn;
+            data[len++] = coord;
+            ++count;
+        } else {
+            add(action, pn, coord);
+        }
+    }
+
+    /**
+     * Record {@link #ADD_PLAYER} or {@link #REMOVE_PLAYER}.
+     * @param action  Action code
+     * @param name  Player name
+     * @param pn  Player number; ignored for {@link #REMOVE_PLAYER}
+     */
+    void add(final int action, final String name, final int pn)
+    {
+        names.addElement(name);
+        if (action == ADD_PLAYER)
+            add(action, names.size() - 1, pn);
+        else
+            add(action, names.size() - 1);
+    }
+
+    /**
+     * Record an action which has a player number (or -1) and a resource set, such as {@link #DISCARD},
+     * or just a resource set.
+     * @param action  Action code
+     * @param pn  Player number, or -1 if this action has no player number parameter
+     * @param rs  Resource set
+     */
+    void add(final int action, final int pn, final SOCResourceSet rs)
+    {
+        ensureCapacity(4);
+        data[len++] = action;
+        if (pn != -1)
+            data[len++] = pn;
+        addResources(rs);
+        ++count;
+    }
+
+    /**
+     * Record {@link #MAKE_BANK_TRADE}.
+     * @param give  Resources given to the bank
+     * @param get  Resources received
+     */
+    void addBankTrade(final SOCResourceSet give, final SOCResourceSet get)
+    {
+        ensureCapacity(5);
+        data[len++] = MAKE_BANK_TRADE;
+        addResources(give);
+        addResources(get);
+        ++count;
+    }
+
+    /**
+     * Record {@link #MAKE_TRADE}, including the offering player's current offer,
+     * since the offer isn't recorded when it's made.
+     * @param offering  Offering player number
+     * @param accepting  Accepting player number
+     * @param offer  Offering player's current offer
+     */
+    void addTrade(final int offering, final int accepting, final SOCTradeOffer offer)
+    {
+        final boolean[] to = offer.getTo();
+        int toMask = 0;
+        for (int pn = 0; pn < to.length; ++pn)
+            if (to[pn])
+                toMask |= (1 << pn);
+
+        ensureCapacity(8);
+        data[len++] = MAKE_TRADE;
+        data[len++] = offering;
+        data[len++] = accepting;
+        data[len++] = toMask;
+        addResources(offer.getGiveSet());
+        addResources(offer.getGetSet());
+        ++count;
+    }
+
+    /**
+     * Append a resource set's packed value as 2 ints, high half first.
+     * Caller must call {@link #ensureCapacity(int)} first.
+     */
+    private void addResources(final SOCResourceSet rs)
+    {
+        final long packed = rs.getPacked();
+        data[len++] = (int) (packed >>> 32);
+        data[len++] = (int) packed;
+    }
+
+    /**
+     * Get a resource set stored by {@link #addResources(SOCResourceSet)}.
+     * @param p  Index in {@link #data}
+     * @return  a new resource set
+     */
+    private SOCResourceSet getResources(final int p)
+    {
+        return new SOCResourceSet(((long) data[p] << 32) | (data[p + 1] & 0xFFFFFFFFL));
+    }
+
+    /** Make room for <tt>n</tt> more ints in {@link #data}. */
+    private void ensureCapacity(final int n)
+    {
+        if (len + n > data.length)
+        {
+            int[] d = new int[Math.max(2 * data.length, len + n)];
+            System.arraycopy(data, 0, d, 0, len);
+            data = d;
+        }
+    }
+
+    /**
+     * For debugging, list the recorded actions, one per line.
+     * @return  Seed and actions, such as "seed=12345\nstartGame\nputPiece 1 0 0x67\n..."
+     */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer("seed=");
+        sb.append(seed);
+        int i = 0;
+        for (int n = 0; n < count; ++n)
+        {
+            final int action = data[i];
+            sb.append('\n').append(ACTION_NAMES[action]);
+            final int nParams = PARAM_COUNT[action];
+            for (int j = 1; j <= nParams; ++j)
+            {
+                sb.append(' ');
+                if ((j == 1) && ((action == ADD_PLAYER) || (action == REMOVE_PLAYER)))
+                    sb.append(names.elementAt(data[i + 1]));
+                else if ((action == PUT_PIECE && j == 3) || (action == UNDO_PUT_INIT_SETTLEMENT && j == 2)
+                         || (action == MOVE_ROBBER && j == 2))
+                    sb.append("0x").append(Integer.toHexString(data[i + j]));
+                else
+                    sb.append(data[i + j]);
+            }
+            i += 1 + nParams;
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,421 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.game;
+
+/**
+ * Incremental longest-road length for one player, used by {@link SOCPlayer#calcLongestRoad2()}.
+ * The longest road is the longest trail along the player's roads which uses each road at most once,
+ * and can't pass through another player's settlement or city.
+ *<P>
+ * The player's roads are kept in a bitset indexed by edge coordinate, and each road remembers the
+ * longest trail in its connected group of roads. {@link #calc(SOCBoard)} searches again only the groups
+ * touching a node which has changed since the last call: A road added or removed there, or another
+ * player's settlement placed or removed there. The search is a depth-first search which marks the roads
+ * of the current trail in a bitset; it doesn't allocate any objects.
+ *<P>
+ * Roads' end nodes are found from the edge coordinate as in {@link SOCBoard#getAdjacentNodesToEdge_arr(int)},
+ * and a node's roads by checking the few edges which could touch it. This works for both the v1 and v2
+ * board encodings, whose edge and node coordinates are all within 0 - 0xFF.
+ *<P>
+ * Not thread-safe; like the rest of {@link SOCPlayer}, callers synchronize if needed.
+ *
+ * @since 1.2.00
+ */
+final class SOCLongestRoad
+{
+    /** Number of longs in a bitset of 256 edge or node coordinates */
+    private static final int BITSET_LEN = 4;
+
+    /** Maximum number of changed nodes to track before recalculating all groups */
+    private static final int CHANGED_MAX = 32;
+
+    /** Player number, to ignore our own settlements and cities */
+    private final int playerNumber;
+
+    /** Our roads; bit per edge coordinate */
+    private final long[] roads;
+
+    /** Number of our roads touching each node coordinate; non-zero for the nodes in {@link #roads} */
+    private final byte[] nodeRoadCount;
+
+    /**
+     * Nodes touching our roads which had another player's settlement or city at the last
+     * {@link #calc(SOCBoard)}; bit per node coordinate.
+     */
+    private final long[] blocked;
+
+    /**
+     * Length of the longest trail in each road's group as of the last {@link #calc(SOCBoard)};
+     * index is edge coordinate. Valid only for edges in {@link #roads}.
+     */
+    private final byte[] groupLongest;
+
+    /** Nodes changed since the last {@link #calc(SOCBoard)}; see {@link #nChanged} */
+    private final int[] changed;
+
+    /** Number of nodes in {@link #changed}, or -1 if too many changed: Recalculate all groups. */
+    private int nChanged;
+
+    /** Longest trail length of all groups, as of the last {@link #calc(SOCBoard)} */
+    private int longest;
+
+    // Scratch space for calc; contents aren't used between calls.
+
+    /** Roads in the current trail of the search */
+    private final long[] trail = new long[BITSET_LEN];
+
+    /** Roads in the group being searched */
+    private final long[] group = new long[BITSET_LEN];
+
+    /** Roads in groups already searched during this calc */
+    private final long[] done = new long[BITSET_LEN];
+
+    /** Nodes of the group being searched, and the count; a group of n roads has at most n + 1 nodes */
+    private final int[] groupNodes = new int[256];
+
+    private int nGroupNodes;
+
+    /**
+     * Create a longest-road calculator for a player with no roads.
+     * @param pn  Player number
+     */
+    SOCLongestRoad(final int pn)
+    {
+        playerNumber = pn;
+        roads = new long[BITSET_LEN];
+        nodeRoadCount = new byte[256];
+        blocked = new long[BITSET_LEN];
+        groupLongest = new byte[256];
+        changed = new int[CHANGED_MAX];
+    }
+
+    /**
+     * Copy constructor, for {@link SOCPlayer#SOCPlayer(SOCPlayer)}.
+     * @param lr  Calculator to copy
+     */
+    SOCLongestRoad(final SOCLongestRoad lr)
+    {
+        playerNumber = lr.playerNumber;
+        roads = lr.roads.clone();
+        nodeRoadCount = lr.nodeRoadCount.clone();
+        blocked = lr.blocked.clone();
+        groupLongest = lr.groupLongest.clone();
+        changed = lr.changed.clone();
+        nChanged = lr.nChanged;
+        longest = lr.longest;
+    }
+
+    /**
+     * One of our roads has been placed.
+     * @param edge  Road's edge coordinate; ignored if outside 0 - 0xEE
+     */
+    void roadAdded(final int edge)
+    {
+        if ((edge < 0) || (edge > 0xEE) || isSet(roads, edge))
+            return;
+
+        roads[edge >> 6] |= (1L << (edge & 63));
+        final int nA = nodeA(edge), nB = nodeB(edge);
+        ++nodeRoadCount[nA];
+        ++nodeRoadCount[nB];
+        changed(nA);
+        changed(nB);
+    }
+
+    /**
+     * One of our roads has been removed.
+     * @param edge  Road's edge coordinate; ignored if not one of our roads
+     */
+    void roadRemoved(final int edge)
+    {
+        if ((edge < 0) || (edge > 0xEE) || ! isSet(roads, edge))
+            return;
+
+        roads[edge >> 6] &= ~(1L << (edge & 63));
+        final int nA = nodeA(edge), nB = nodeB(edge);
+        if (0 == --nodeRoadCount[nA])
+            blocked[nA >> 6] &= ~(1L << (nA & 63));
+        if (0 == --nodeRoadCount[nB])
+            blocked[nB >> 6] &= ~(1L << (nB & 63));
+        changed(nA);
+        changed(nB);
+    }
+
+    /**
+     * Calculate the longest road length, searching again only the groups of roads
+     * which have changed since the last call.
+     * @param board  Game board, to check nodes for other players' settlements and cities
+     * @return  Length of the longest road, or 0 if no roads
+     */
+    int calc(final SOCBoard board)
+    {
+        // Check our roads' nodes for settlements placed or removed since last time
+        for (int w = 0; w < BITSET_LEN; ++w)
+        {
+            long bits = roads[w];
+            while (bits != 0)
+            {
+                final long low = bits & -bits;
+                bits ^= low;
+                final int edge = (w << 6) + Long.numberOfTrailingZeros(low);
+                checkBlocked(board, nodeA(edge));
+                checkBlocked(board, nodeB(edge));
+            }
+        }
+
+        if (nChanged == 0)
+            return longest;  // <--- Early return: Nothing changed ---
+
+        for (int i = 0; i < BITSET_LEN; ++i)
+            done[i] = 0;
+
+        if (nChanged == -1)
+        {
+            for (int w = 0; w < BITSET_LEN; ++w)
+            {
+                long bits = roads[w];
+                while (bits != 0)
+                {
+                    final long low = bits & -bits;
+                    bits ^= low;
+                    final int edge = (w << 6) + Long.numberOfTrailingZeros(low);
+                    if (! isSet(done, edge))
+                        searchGroup(nodeA(edge));
+                }
+            }
+        } else {
+            for (int i = 0; i < nChanged; ++i)
+            {
+                final int node = changed[i];
+                if (nodeRoadCount[node] == 0)
+                    continue;  // all roads here were removed; the far nodes are also in changed[]
+
+                // if any road at this node is done, its whole group is
+                boolean isDone = false;
+                for (int k = 0; k < 4; ++k)
+                {
+                    final int edge = nodeEdge(node, k);
+                    if ((edge != -1) && isSet(roads, edge) && isSet(done, edge))
+                    {
+                        isDone = true;
+                        break;
+                    }
+                }
+
+                if (! isDone)
+                    searchGroup(node);
+            }
+        }
+        nChanged = 0;
+
+        int len = 0;
+        for (int w = 0; w < BITSET_LEN; ++w)
+        {
+            long bits = roads[w];
+            while (bits != 0)
+            {
+                final long low = bits & -bits;
+                bits ^= low;
+                final int gl = groupLongest[(w << 6) + Long.numberOfTrailingZeros(low)];
+                if (gl > len)
+                    len = gl;
+            }
+        }
+        longest = len;
+
+        return len;
+    }
+
+    /**
+     * Check whether a node touching our roads has another player's settlement or city.
+     * If that's changed since last time, update {@link #blocked} and add it to {@link #changed}.
+     */
+    private void checkBlocked(final SOCBoard board, final int node)
+    {
+        final SOCPlayingPiece pp = board.settlementAtNode(node);
+        final boolean isBlocked = (pp != null) && (pp.getPlayer().getPlayerNumber() != playerNumber);
+        if (isBlocked != isSet(blocked, node))
+        {
+            blocked[node >> 6] ^= (1L << (node & 63));
+            changed(node);
+        }
+    }
+
+    /** Add a node to {@link #changed}, unless it's already there. */
+    private void changed(final int node)
+    {
+        if (nChanged == -1)
+            return;
+
+        for (int i = 0; i < nChanged; ++i)
+            if (changed[i] == node)
+                return;
+
+        if (nChanged == CHANGED_MAX)
+            nChanged = -1;
+        else
+            changed[nChanged++] = node;
+    }
+
+    /**
+     * Find the group of roads connected to this node, search it for its longest trail,
+     * and update those roads' {@link #groupLongest} and {@link #done}.
+     * @param startNode  A node touching at least one of our roads
+     */
+    private void searchGroup(final int startNode)
+    {
+        // Gather the group's roads and nodes
+        for (int i = 0; i < BITSET_LEN; ++i)
+            group[i] = 0;
+        groupNodes[0] = startNode;
+        nGroupNodes = 1;
+        for (int ni = 0; ni < nGroupNodes; ++ni)
+        {
+            final int node = groupNodes[ni];
+            for (int k = 0; k < 4; ++k)
+            {
+                final int edge = nodeEdge(node, k);
+                if ((edge == -1) || ! isSet(roads, edge) || isSet(group, edge))
+                    continue;
+
+                group[edge >> 6] |= (1L << (edge & 63));
+                final int other = otherNode(edge, node);
+                boolean seen = false;
+                for (int j = 0; j < nGroupNodes; ++j)
+                    if (groupNodes[j] == other)
+                    {
+                        seen = true;
+                        break;
+                    }
+                if (! seen)
+                    groupNodes[nGroupNodes++] = other;
+            }
+        }
+
+        // Longest trail starting from any node in the group
+        int len = 0;
+        for (int ni = 0; ni < nGroupNodes; ++ni)
+        {
+            final int l = longestFrom(groupNodes[ni], 0);
+            if (l > len)
+                len = l;
+        }
+
+        for (int w = 0; w < BITSET_LEN; ++w)
+        {
+            long bits = group[w];
+            done[w] |= bits;
+            while (bits != 0)
+            {
+                final long low = bits & -bits;
+                bits ^= low;
+                groupLongest[(w << 6) + Long.numberOfTrailingZeros(low)] = (byte) len;
+            }
+        }
+    }
+
+    /**
+     * Depth-first search for the longest trail continuing from a node, not using any road
+     * already in {@link #trail}. A trail can end at, but not pass through, a {@link #blocked} node.
+     * @param node  Node to continue from
+     * @param len  Length of the trail so far
+     * @return  Length of the longest trail through this node, including {@code len}
+     */
+    private int longestFrom(final int node, final int len)
+    {
+        if ((len > 0) && isSet(blocked, node))
+            return len;  // <--- Early return: Another player's settlement ends this trail ---
+
+        int best = len;
+        for (int k = 0; k < 4; ++k)
+        {
+            final int edge = nodeEdge(node, k);
+            if ((edge == -1) || ! isSet(roads, edge) || isSet(trail, edge))
+                continue;
+
+            final long bit = 1L << (edge & 63);
+            trail[edge >> 6] |= bit;
+            final int l = longestFrom(otherNode(edge, node), len + 1);
+            trail[edge >> 6] &= ~bit;
+            if (l > best)
+                best = l;
+        }
+
+        return best;
+    }
+
+    /** Is this coordinate's bit set? */
+    private static boolean isSet(final long[] bits, final int coord)
+    {
+        return (0 != (bits[coord >> 6] & (1L << (coord & 63))));
+    }
+
+    /** Is this edge vertical ('|')? Same test as {@link SOCBoard#getAdjacentNodesToEdge_arr(int)}. */
+    private static boolean isVertical(final int edge)
+    {
+        return ((((edge & 0x0F) + (edge >> 4)) % 2) == 0);
+    }
+
+    /** An edge's first end node, as in {@link SOCBoard#getAdjacentNodesToEdge_arr(int)} [0]. */
+    private static int nodeA(final int edge)
+    {
+        return isVertical(edge) ? (edge + 0x01) : edge;
+    }
+
+    /** An edge's second end node, as in {@link SOCBoard#getAdjacentNodesToEdge_arr(int)} [1]. */
+    private static int nodeB(final int edge)
+    {
+        return isVertical(edge) ? (edge + 0x10) : (edge + 0x11);
+    }
+
+    /** The end node of an edge which isn't {@code node}. */
+    private static int otherNode(final int edge, final int node)
+    {
+        final int a = nodeA(edge);
+        return (a != node) ? a : nodeB(edge);
+    }
+
+    /**
+     * One of the 4 edge coordinates which might touch a node, if it does.
+     * Each node touches at most 3 edges; these candidates are the only edges
+     * whose {@link #nodeA(int)} or {@link #nodeB(int)} can be {@code node}.
+     * @param node  Node coordinate
+     * @param k  Candidate number, 0 - 3
+     * @return  Edge coordinate, or -1 if that candidate doesn't touch {@code node} or is out of range
+     */
+    private static int nodeEdge(final int node, final int k)
+    {
+        final int edge;
+        final boolean vert;
+        switch (k)
+        {
+        case 0:  edge = node - 0x01;  vert = true;  break;  // node is its nodeA
+        case 1:  edge = node - 0x10;  vert = true;  break;  // nodeB
+        case 2:  edge = node;         vert = false; break;  // nodeA
+        default: edge = node - 0x11;  vert = false;         // nodeB
+        }
+
+        if ((edge < 0) || (edge > 0xEE) || (isVertical(edge) != vert))
+            return -1;
+
+        return edge;
+    }
+
+}
@@ -2,6 +2,7 @@
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2007-2012,2014-2015 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2017 JSettlers contributors
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -23,13 +24,13 @@ package soc.game;
 import soc.disableDebug.D;
 
 import soc.message.SOCMessage;
+import soc.util.CountedBitSet;
 import soc.util.IntPair;
 import soc.util.NodeLenVis;
 
 import java.io.Serializable;
 
 import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.Stack;
 import java.util.Vector;
 
@@ -114,10 +115,24 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     private int longestRoadLength;
 
     /**
-     * list of longest paths
+     * list of longest paths.
+     * Not updated by {@link #calcLongestRoad2()} until needed; see {@link #lrPathsStale}.
      */
     private Vector lrPaths;
 
+    /**
+     * If true, {@link #calcLongestRoad2()} has been called since {@link #lrPaths} was calculated,
+     * so {@link #getLRPaths()} must calculate it again.
+     * @since 1.2.00
+     */
+    private boolean lrPathsStale;
+
+    /**
+     * Calculates {@link #longestRoadLength} incrementally as roads and settlements are placed.
+     * @since 1.2.00
+     */
+    private SOCLongestRoad longestRoadCalc;
+
     /**
      * how many of each resource this player has
      */
@@ -176,17 +191,18 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     private Vector roadNodes;
 
     /**
-     * a graph of what nodes are connected by this
-     * player's roads
+     * the edges where this player has roads, for {@link #isConnectedByRoad(int, int)}.
+     * Before v1.2.00 this was a node-by-node graph of <tt>boolean[][]</tt>.
+     * @since 1.2.00
      */
-    private boolean[][] roadNodeGraph;
+    private CountedBitSet roadEdges;
 
     /**
      * a list of edges where it is legal to place a road.
      * an edge is legal if a road could eventually be
      * placed there.
      */
-    private boolean[] legalRoads;
+    private CountedBitSet legalRoads;
 
     /**
      * a list of nodes where it is legal to place a
@@ -195,7 +211,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      * @see #potentialSettlements
      * @see SOCBoard#nodesOnBoard
      */
-    private boolean[] legalSettlements;
+    private CountedBitSet legalSettlements;
 
     /**
      * a list of edges where a road could be placed
@@ -204,7 +220,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      * Elements are set true when the player places adjacent settlements or roads, via
      * {@link #updatePotentials(SOCPlayingPiece)}.
      */
-    private boolean[] potentialRoads;
+    private CountedBitSet potentialRoads;
 
     /**
      * a list of nodes where a settlement could be
@@ -215,13 +231,13 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      * @see #legalSettlements
      * @see SOCBoard#nodesOnBoard
      */
-    private boolean[] potentialSettlements;
+    private CountedBitSet potentialSettlements;
 
     /**
      * a list of nodes where a city could be
      * placed on the next turn.
      */
-    private boolean[] potentialCities;
+    private CountedBitSet potentialCities;
 
     /**
      * a boolean array stating wheather this player is touching a
@@ -294,10 +310,27 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      * @param player        the player to copy
      */
     public SOCPlayer(SOCPlayer player)
+    {
+        this(player, player.game);
+    }
+
+    /**
+     * Create a copy of the player, in the same game or in a copy of its game
+     * such as from {@link SOCGame#snapshot()}.
+     * Changes to the copy don't affect the original player, and vice versa.
+     *
+     * @param player  the player to copy
+     * @param ga      the game that the copy is in
+     * @since 1.2.00
+     */
+    public SOCPlayer(SOCPlayer player, SOCGame ga)
     {
         int i;
-        game = player.game;
+        game = ga;
+        name = player.name;
         playerNumber = player.playerNumber;
+        lastSettlementCoord = player.lastSettlementCoord;
+        lastRoadCoord = player.lastRoadCoord;
         numPieces = new int[SOCPlayingPiece.MAXPLUSONE];
         numPieces[SOCPlayingPiece.ROAD] = player.numPieces[SOCPlayingPiece.ROAD];
         numPieces[SOCPlayingPiece.SETTLEMENT] = player.numPieces[SOCPlayingPiece.SETTLEMENT];
@@ -308,13 +341,15 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         cities = (Vector) player.cities.clone();
         longestRoadLength = player.longestRoadLength;
         lrPaths = (Vector) player.lrPaths.clone();
+        lrPathsStale = player.lrPathsStale;
+        longestRoadCalc = new SOCLongestRoad(player.longestRoadCalc);
         resources = player.resources.copy();
         resourceStats = new int[player.resourceStats.length];
         System.arraycopy(player.resourceStats, 0, resourceStats, 0, player.resourceStats.length);
         devCards = new SOCDevCardSet(player.devCards);
         numKnights = player.numKnights;
         buildingVP = player.buildingVP;
-        finalTotalVP = 0;
+        finalTotalVP = player.finalTotalVP;
         playedDevCard = player.playedDevCard;
         needToDiscard = player.needToDiscard;
         boardResetAskedThisTurn = player.boardResetAskedThisTurn;
@@ -332,39 +367,16 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         }
 
         roadNodes = (Vector) player.roadNodes.clone();
-        roadNodeGraph = new boolean[SOCBoard.MAXNODEPLUSONE][SOCBoard.MAXNODEPLUSONE];
-
-        final int minNode = player.getGame().getBoard().getMinNode();
-        for (i = minNode; i < SOCBoard.MAXNODEPLUSONE; i++)
-        {
-            System.arraycopy(player.roadNodeGraph[i], minNode,
-                roadNodeGraph[i], minNode, SOCBoard.MAXNODEPLUSONE - minNode);
-
-            // for (j = minNode; j < SOCBoard.MAXNODEPLUSONE; j++)
-            //    roadNodeGraph[i][j] = player.roadNodeGraph[i][j];
-        }
+        roadEdges = new CountedBitSet(player.roadEdges);
 
         /**
          * init legal and potential arrays
          */
-        legalRoads = new boolean[0xEF];
-        legalSettlements = new boolean[0xFF];
-        potentialRoads = new boolean[0xEF];
-        potentialSettlements = new boolean[0xFF];
-        potentialCities = new boolean[0xFF];
-
-        for (i = 0; i < 0xEF; i++)
-        {
-            legalRoads[i] = player.legalRoads[i];
-            potentialRoads[i] = player.potentialRoads[i];
-        }
-
-        for (i = 0; i < 0xFF; i++)
-        {
-            legalSettlements[i] = player.legalSettlements[i];
-            potentialSettlements[i] = player.potentialSettlements[i];
-            potentialCities[i] = player.potentialCities[i];
-        }
+        legalRoads = new CountedBitSet(player.legalRoads);
+        legalSettlements = new CountedBitSet(player.legalSettlements);
+        potentialRoads = new CountedBitSet(player.potentialRoads);
+        potentialSettlements = new CountedBitSet(player.potentialSettlements);
+        potentialCities = new CountedBitSet(player.potentialCities);
 
         if (player.currentOffer != null)
         {
@@ -385,7 +397,6 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     public SOCPlayer(int pn, SOCGame ga)
     {
         int i;
-        int j;
 
         game = ga;
         playerNumber = pn;
@@ -399,6 +410,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         cities = new Vector(4);
         longestRoadLength = 0;
         lrPaths = new Vector();
+        longestRoadCalc = new SOCLongestRoad(pn);
         resources = new SOCResourceSet();
         resourceStats = new int[SOCResourceConstants.UNKNOWN];
         devCards = new SOCDevCardSet();
@@ -424,37 +436,17 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         }
 
         roadNodes = new Vector(20);
-        roadNodeGraph = new boolean[SOCBoard.MAXNODEPLUSONE][SOCBoard.MAXNODEPLUSONE];
-
-        final int minNode = board.getMinNode();
-        for (i = minNode; i < SOCBoard.MAXNODEPLUSONE; i++)
-        {
-            for (j = minNode; j < SOCBoard.MAXNODEPLUSONE; j++)
-            {
-                roadNodeGraph[i][j] = false;
-            }
-        }
+        roadEdges = new CountedBitSet(0xEF);
 
         /**
          * init legal and potential arrays
          */
-        potentialRoads = new boolean[0xEF];
-        potentialCities = new boolean[0xFF];
-
-        for (i = 0; i < 0xEF; i++)
-        {
-            potentialRoads[i] = false;
-        }
-
-        for (i = 0; i < 0xFF; i++)
-        {
-            potentialCities[i] = false;
-        }
+        potentialRoads = new CountedBitSet(0xEF);
+        potentialCities = new CountedBitSet(0xFF);
 
-        legalRoads = board.initPlayerLegalRoads();
-        legalSettlements = board.initPlayerLegalAndPotentialSettlements();
-        potentialSettlements = new boolean[legalSettlements.length];
-        System.arraycopy(legalSettlements, 0, potentialSettlements, 0, legalSettlements.length);
+        legalRoads = new CountedBitSet(board.initPlayerLegalRoads());
+        legalSettlements = new CountedBitSet(board.initPlayerLegalAndPotentialSettlements());
+        potentialSettlements = new CountedBitSet(legalSettlements);
 
         currentOffer = null;
     }
@@ -470,12 +462,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public void clearPotentialSettlements()
     {
-        int i;
-
-        for (i = 0; i < 0xFF; i++)
-        {
-            potentialSettlements[i] = false;
-        }
+        potentialSettlements.clear();
     }
 
     /**
@@ -615,6 +602,8 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      * Does not validate that they are currently allowed to ask;
      * use {@link SOCGame#canAskSpecialBuild(int, boolean)} for that.
      * To read this flag, use {@link #hasAskedSpecialBuild()}.
+     *<P>
+     * If the game has a {@link SOCGame#getJournal()}, this call is recorded there.
      *
      * @param set  if the player has asked to build
      * @see SOCGame#askSpecialBuild(int, boolean)
@@ -622,6 +611,10 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public void setAskedSpecialBuild(boolean set)
     {
+        final SOCGameJournal journal = game.getJournal();
+        if ((journal != null) && (game.getPlayer(playerNumber) == this))
+            journal.add(SOCGameJournal.SET_ASKED_SPECIAL_BUILD, playerNumber, (set) ? 1 : 0);
+
         askedSpecialBuild = set;
     }
 
@@ -819,10 +812,21 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     }
 
     /**
+     * Get the longest road paths.
+     *<P>
+     * Before v1.2.00 the paths were found by each call to {@link #calcLongestRoad2()}.
+     * They're now found by the first call to this method after {@link #calcLongestRoad2()},
+     * from this player's roads and the board at the time of that call, not the time of
+     * {@link #calcLongestRoad2()}. Later calls return the same paths until the next
+     * {@link #calcLongestRoad2()} or {@link #setLRPaths(Vector)}. To get the paths
+     * as of a calculation, call this method before placing or removing any more pieces.
      * @return longest road paths
      */
     public Vector getLRPaths()
     {
+        if (lrPathsStale)
+            calcLRPaths();
+
         return lrPaths;
     }
 
@@ -832,6 +836,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public void setLRPaths(Vector vec)
     {
+        lrPathsStale = false;
         lrPaths.removeAllElements();
 
         Enumeration pathEnum = vec.elements();
@@ -1057,6 +1062,19 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         currentOffer = of;
     }
 
+    /**
+     * Does this player have a road at this edge?
+     * Checks the player's own roads, not the board: A robot's dummy players for
+     * planning have roads which aren't on the board.
+     * @param edge  Edge coordinate, or -9 or another invalid coordinate
+     * @return true if one of this player's roads is at <tt>edge</tt>
+     * @since 1.2.00
+     */
+    private boolean hasRoadAtEdge(final int edge)
+    {
+        return (edge >= 0) && (edge < roadEdges.size()) && roadEdges.get(edge);
+    }
+
     /**
      * @return true if one of this player's roads connects
      *                                 the two nodes.
@@ -1066,8 +1084,14 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public boolean isConnectedByRoad(int node1, int node2)
     {
-        //D.ebugPrintln("isConnectedByRoad "+Integer.toHexString(node1)+", "+Integer.toHexString(node2)+" = "+roadNodeGraph[node1][node2]);
-        return roadNodeGraph[node1][node2];
+        final int edge = game.getBoard().getEdgeBetweenAdjacentNodes(node1, node2);
+        if ((edge < 0) || (edge >= roadEdges.size()) || ! roadEdges.get(edge))
+            return false;
+
+        // getEdgeBetweenAdjacentNodes doesn't check that the nodes are really adjacent
+        final int[] nodes = SOCBoard.getAdjacentNodesToEdge_arr(edge);
+        return ((nodes[0] == node1) && (nodes[1] == node2))
+            || ((nodes[0] == node2) && (nodes[1] == node1));
     }
 
     /**
@@ -1095,21 +1119,18 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                 numPieces[SOCPlayingPiece.ROAD]--;
                 roads.addElement(piece);
                 lastRoadCoord = piece.getCoordinates();
+                longestRoadCalc.roadAdded(lastRoadCoord);
 
                 /**
                  * add the nodes this road touches to the roadNodes list
                  */
                 Enumeration nodes = board.getAdjacentNodesToEdge(piece.getCoordinates()).elements();
-                int[] nodeCoords = new int[2];
-                int i = 0;
 
                 while (nodes.hasMoreElements())
                 {
                     Integer node = (Integer) nodes.nextElement();
 
                     //D.ebugPrintln("^^^ node = "+Integer.toHexString(node.intValue()));
-                    nodeCoords[i] = node.intValue();
-                    i++;
 
                     /**
                      * only add nodes that aren't in the list
@@ -1123,13 +1144,9 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                 }
 
                 /**
-                 * update the graph of nodes connected by roads
+                 * update the edges connecting nodes with our roads
                  */
-                roadNodeGraph[nodeCoords[0]][nodeCoords[1]] = true;
-                roadNodeGraph[nodeCoords[1]][nodeCoords[0]] = true;
-
-                //D.ebugPrintln("^^ roadNodeGraph["+Integer.toHexString(nodeCoords[0])+"]["+Integer.toHexString(nodeCoords[1])+"] = true");
-                //D.ebugPrintln("^^ roadNodeGraph["+Integer.toHexString(nodeCoords[1])+"]["+Integer.toHexString(nodeCoords[0])+"] = true");
+                roadEdges.set(piece.getCoordinates(), true);
                 break;
 
             /**
@@ -1224,7 +1241,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                 //
                 // make it a legal space again
                 //
-                legalRoads[piece.getCoordinates()] = true;
+                legalRoads.set(piece.getCoordinates(), true);
 
                 //
                 // call updatePotentials
@@ -1355,7 +1372,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
             if (ours)
             {
                 removePiece(piece);
-                potentialCities[piece.getCoordinates()] = true;
+                potentialCities.set(piece.getCoordinates(), true);
 
                 /**
                  * update what numbers we're touching
@@ -1445,7 +1462,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                 //
                 if (board.isNodeOnBoard(settlementNode))
                 {
-                    legalSettlements[settlementNode] = true;
+                    legalSettlements.set(settlementNode, true);
 
                     //D.ebugPrintln(")))) legalSettlements["+Integer.toHexString(settlementNode)+"] = true");
                     //
@@ -1453,7 +1470,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                     //
                     if (game.getGameState() < SOCGame.PLAY)
                     {
-                        potentialSettlements[settlementNode] = true;
+                        potentialSettlements.set(settlementNode, true);
 
                         //D.ebugPrintln(")))) potentialSettlements["+Integer.toHexString(settlementNode)+"] = true");
                     }
@@ -1493,7 +1510,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
 
                         if (adjRoad)
                         {
-                            potentialSettlements[settlementNode] = true;
+                            potentialSettlements.set(settlementNode, true);
 
                             //D.ebugPrintln(")))) potentialSettlements["+Integer.toHexString(settlementNode)+"] = true");
                         }
@@ -1536,19 +1553,16 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                 case SOCPlayingPiece.ROAD:
                     roads.removeElement(p);
                     numPieces[SOCPlayingPiece.ROAD]++;
+                    longestRoadCalc.roadRemoved(pieceCoord);
 
                     /**
                      * remove the nodes this road touches from the roadNodes list
                      */
                     Enumeration nodes = board.getAdjacentNodesToEdge(pieceCoord).elements();
-                    int[] nodeCoords = new int[2];
-                    int i = 0;
 
                     while (nodes.hasMoreElements())
                     {
                         Integer node = (Integer) nodes.nextElement();
-                        nodeCoords[i] = node.intValue();
-                        i++;
 
                         /**
                          * only remove nodes if none of our roads are touching it
@@ -1583,15 +1597,14 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                         if (!match)
                         {
                             roadNodes.removeElement(node);
-                            potentialSettlements[node.intValue()] = false;
+                            potentialSettlements.set(node.intValue(), false);
                         }
                     }
 
                     /**
-                     * update the graph of nodes connected by roads
+                     * update the edges connecting nodes with our roads
                      */
-                    roadNodeGraph[nodeCoords[0]][nodeCoords[1]] = false;
-                    roadNodeGraph[nodeCoords[1]][nodeCoords[0]] = false;
+                    roadEdges.set(pieceCoord, false);
 
                     /**
                      * update the potential places to build roads
@@ -1599,15 +1612,14 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                      * NOTE: we're assuming that we could build a road here
                      * before, so we can make it a legal spot again
                      */
-                    potentialRoads[pieceCoord] = true;
-                    legalRoads[pieceCoord] = true;
+                    potentialRoads.set(pieceCoord, true);
+                    legalRoads.set(pieceCoord, true);
 
                     /**
                      * check each adjacent legal edge, if there are
                      * no roads touching it, then it's no longer a
                      * potential road
                      */
-                    Vector allPieces = board.getPieces();
                     Enumeration adjEdgesEnum = board.getAdjacentEdgesToEdge(pieceCoord).elements();
 
                     while (adjEdgesEnum.hasMoreElements())
@@ -1615,7 +1627,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                         Integer adjEdge = (Integer) adjEdgesEnum.nextElement();
                         final int adjEdgeID = adjEdge.intValue();
 
-                        if (potentialRoads[adjEdgeID])
+                        if (potentialRoads.get(adjEdgeID))
                         {
                             boolean isPotentialRoad = false;
 
@@ -1627,24 +1639,15 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
 
                             for (int ni = 0; (ni < 2) && ! isPotentialRoad; ++ni) 
                             {
-                                boolean blocked = false;  // Are we blocked in this node's direction?
                                 final int adjNode = adjNodes[ni];
-                                Enumeration allPiecesEnum = allPieces.elements();
-
-                                while (allPiecesEnum.hasMoreElements())
-                                {
-                                    SOCPlayingPiece aPiece = (SOCPlayingPiece) allPiecesEnum.nextElement();
 
-                                    if ((aPiece.getCoordinates() == adjNode) && (aPiece.getPlayer().getPlayerNumber() != this.getPlayerNumber()) && ((aPiece.getType() == SOCPlayingPiece.SETTLEMENT) || (aPiece.getType() == SOCPlayingPiece.CITY)))
-                                    {
-                                        /**
-                                         * we're blocked, don't bother checking adjacent edges
-                                         */
-                                        blocked = true;
-
-                                        break;
-                                    }
-                                }
+                                /**
+                                 * if there's a foreign settlement or city,
+                                 * we're blocked, don't bother checking adjacent edges
+                                 */
+                                final SOCPlayingPiece aPiece = board.settlementAtNode(adjNode);
+                                final boolean blocked =  // Are we blocked in this node's direction?
+                                    (aPiece != null) && (aPiece.getPlayer().getPlayerNumber() != this.getPlayerNumber());
 
                                 if (!blocked)
                                 {
@@ -1656,28 +1659,19 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
 
                                         if (adjAdjEdge.intValue() != adjEdgeID)
                                         {
-                                            Enumeration ourRoadsEnum = roads.elements();
-
-                                            while (ourRoadsEnum.hasMoreElements())
+                                            if (hasRoadAtEdge(adjAdjEdge.intValue()))
                                             {
-                                                SOCRoad ourRoad = (SOCRoad) ourRoadsEnum.nextElement();
-
-                                                if (ourRoad.getCoordinates() == adjAdjEdge.intValue())
-                                                {
-                                                    /**
-                                                     * we're still connected
-                                                     */
-                                                    isPotentialRoad = true;
-
-                                                    break;
-                                                }
+                                                /**
+                                                 * we're still connected
+                                                 */
+                                                isPotentialRoad = true;
                                             }
                                         }
                                     }
                                 }
                             }
 
-                            potentialRoads[adjEdgeID] = isPotentialRoad;
+                            potentialRoads.set(adjEdgeID, isPotentialRoad);
                         }
                     }
 
@@ -1718,7 +1712,6 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         boolean blocked;
         final int id = piece.getCoordinates();
         SOCBoard board = game.getBoard();
-        Vector allPieces = board.getPieces();
 
         /**
          * check if this piece is ours
@@ -1733,8 +1726,8 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         case SOCPlayingPiece.ROAD:
 
             // remove non-potentials
-            potentialRoads[id] = false;
-            legalRoads[id] = false;
+            potentialRoads.set(id, false);
+            legalRoads.set(id, false);
 
             if (ours)
             {
@@ -1748,21 +1741,8 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                     /**
                      * check for a foreign settlement or city
                      */
-                    blocked = false;
-
-                    Enumeration pEnum = allPieces.elements();
-
-                    while (pEnum.hasMoreElements())
-                    {
-                        SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
-
-                        if ((p.getCoordinates() == node) && (p.getPlayer().getPlayerNumber() != this.getPlayerNumber()) && ((p.getType() == SOCPlayingPiece.SETTLEMENT) || (p.getType() == SOCPlayingPiece.CITY)))
-                        {
-                            blocked = true;
-
-                            break;
-                        }
-                    }
+                    final SOCPlayingPiece p = board.settlementAtNode(node);
+                    blocked = (p != null) && (p.getPlayer().getPlayerNumber() != this.getPlayerNumber());
 
                     if (!blocked)
                     {
@@ -1770,13 +1750,13 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                         for (int i = 0; i < 3; ++i)
                         {
                             int edge = edges[i];
-                            if ((edge != -9) && legalRoads[edge])
-                                potentialRoads[edge] = true;
+                            if ((edge != -9) && legalRoads.get(edge))
+                                potentialRoads.set(edge, true);
                         }
 
-                        if (legalSettlements[node])
+                        if (legalSettlements.get(node))
                         {
-                            potentialSettlements[node] = true;
+                            potentialSettlements.set(node, true);
                         }
                     }
                 }
@@ -1792,15 +1772,15 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
             // remove non-potentials:
             // no settlement at this node coordinate,
             // no settlement in its adjacent nodes.
-            potentialSettlements[id] = false;
-            legalSettlements[id] = false;
+            potentialSettlements.set(id, false);
+            legalSettlements.set(id, false);
             int[] adjac = board.getAdjacentNodesToNode_arr(id);
             for (int i = 0; i < 3; ++i)
             {
                 if (adjac[i] != -9)
                 {
-                    potentialSettlements[adjac[i]] = false;
-                    legalSettlements[adjac[i]] = false;
+                    potentialSettlements.set(adjac[i], false);
+                    legalSettlements.set(adjac[i], false);
                 }
             }
 
@@ -1809,20 +1789,19 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
 
             if (ours)
             {
-                potentialCities[id] = true;
+                potentialCities.set(id, true);
 
                 adjac = board.getAdjacentEdgesToNode_arr(id);
                 for (int i = 0; i < 3; ++i)
                 {
                     tmp = adjac[i];
-                    if ((tmp != -9) && legalRoads[tmp])
-                        potentialRoads[tmp] = true;
+                    if ((tmp != -9) && legalRoads.get(tmp))
+                        potentialRoads.set(tmp, true);
                 }
             }
             else
             {
                 // see if a nearby potential road has been cut off:
-                // build the set of our road edges placed so far.
                 // for each of 3 adjacent edges to node:
                 //  if we have potentialRoad(edge)
                 //    check ourRoads vs that edge's far-end (away from node of new settlement)
@@ -1830,20 +1809,11 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                 //      because we're not getting past opponent's new settlement (on this end
                 //      of the edge) to build it.
 
-                HashSet ourRoads = new HashSet();  // TODO more efficient way of looking this up, with fewer temp objs
-                Enumeration pEnum = (this.pieces).elements();
-                while (pEnum.hasMoreElements())
-                {
-                    SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
-                    if (p.getType() == SOCPlayingPiece.ROAD)
-                        ourRoads.add(new Integer(p.getCoordinates()));
-                }
-
                 adjac = board.getAdjacentEdgesToNode_arr(id);
                 for (int i = 0; i < 3; ++i)
                 {
                     tmp = adjac[i];  // edge coordinate
-                    if ((tmp == -9) || ! potentialRoads[tmp])
+                    if ((tmp == -9) || ! potentialRoads.get(tmp))
                     {
                         continue;  // We don't have a potential road here, so
                                    // there's nothing to be potentially broken.
@@ -1870,7 +1840,10 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                     for (int ie = 0; ie < 3; ++ie)
                     {
                         int farEdge = farEdges[ie];
-                        if ((farEdge != tmp) && ourRoads.contains(new Integer(farEdge)))
+                        if (farEdge == tmp)
+                            continue;
+
+                        if (hasRoadAtEdge(farEdge))
                         {
                             foundOurRoad = true;
                             break;
@@ -1879,7 +1852,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                     if (! foundOurRoad)
                     {
                         // the potential road is no longer connected
-                        potentialRoads[tmp] = false;
+                        potentialRoads.set(tmp, false);
                     }
                 }
             }
@@ -1892,16 +1865,33 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         case SOCPlayingPiece.CITY:
 
             // remove non-potentials
-            potentialCities[id] = false;
+            potentialCities.set(id, false);
 
             break;
         }
     }
 
+    /**
+     * Get the list of nodes which are potential settlements, such as for sending to a client.
+     * @return  a new Vector of the node coordinates (Integers), in ascending order
+     * @see #setPotentialSettlements(Vector)
+     * @see #isPotentialSettlement(int)
+     * @since 1.2.00
+     */
+    public Vector getPotentialSettlements()
+    {
+        Vector psList = new Vector(potentialSettlements.cardinality());
+        for (int node = potentialSettlements.nextSetBit(0); node >= 0; node = potentialSettlements.nextSetBit(node + 1))
+            psList.addElement(new Integer(node));
+
+        return psList;
+    }
+
     /**
      * set which nodes are potential settlements
      *
      * @param psList        the list of potential settlements
+     * @see #getPotentialSettlements()
      */
     public void setPotentialSettlements(Vector psList)
     {
@@ -1912,7 +1902,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         while (settlementEnum.hasMoreElements())
         {
             Integer number = (Integer) settlementEnum.nextElement();
-            potentialSettlements[number.intValue()] = true;
+            potentialSettlements.set(number.intValue(), true);
         }
     }
 
@@ -1927,7 +1917,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public boolean isPotentialSettlement(int node)
     {
-        return potentialSettlements[node];
+        return potentialSettlements.get(node);
     }
 
     /**
@@ -1940,7 +1930,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public void clearPotentialSettlement(final int node)
     {
-        potentialSettlements[node] = false;
+        potentialSettlements.set(node, false);
     }
 
     /**
@@ -1952,7 +1942,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public boolean isPotentialCity(int node)
     {
-        return potentialCities[node];
+        return potentialCities.get(node);
     }
 
     /**
@@ -1965,7 +1955,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public void clearPotentialCity(final int node)
     {
-        potentialSettlements[node] = false;
+        potentialSettlements.set(node, false);
     }
 
     /**
@@ -1980,7 +1970,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     {
         if (edge == -1)
             edge = 0x00;
-        return potentialRoads[edge];
+        return potentialRoads.get(edge);
     }
 
     /**
@@ -1995,7 +1985,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     {
         if (edge == -1)
             edge = 0x00;
-        potentialRoads[edge] = false;
+        potentialRoads.set(edge, false);
     }
 
     /**
@@ -2007,9 +1997,9 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     {
         if (edge == -1)
             edge = 0x00;
-        else if ((edge < 0) || (edge >= legalRoads.length))
+        else if ((edge < 0) || (edge >= legalRoads.size()))
             return false;
-        return legalRoads[edge];
+        return legalRoads.get(edge);
     }
 
     /**
@@ -2017,16 +2007,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public boolean hasPotentialRoad()
     {
-        // TODO efficiency; maybe a count variable instead?
-        for (int i = game.getBoard().getMinNode(); i <= SOCBoard.MAXNODE; i++)
-        {
-            if (potentialRoads[i])
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return ! potentialRoads.isEmpty();
     }
 
     /**
@@ -2034,16 +2015,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public boolean hasPotentialSettlement()
     {
-        // TODO efficiency; maybe a count variable instead?
-        for (int i = game.getBoard().getMinNode(); i <= SOCBoard.MAXNODE; i++)
-        {
-            if (potentialSettlements[i])
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return ! potentialSettlements.isEmpty();
     }
 
     /**
@@ -2051,16 +2023,7 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
      */
     public boolean hasPotentialCity()
     {
-        // TODO efficiency; maybe a count variable instead?
-        for (int i = game.getBoard().getMinNode(); i <= SOCBoard.MAXNODE; i++)
-        {
-            if (potentialCities[i])
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return ! potentialCities.isEmpty();
     }
 
     /**
@@ -2103,12 +2066,32 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
     }
 
     /**
-     * Calculates the longest road for this player
+     * Calculates the longest road for this player.
+     *<P>
+     * Before v1.2.00 this searched all road paths from each road node, and also found
+     * the {@link #getLRPaths()}. It now asks {@link SOCLongestRoad} to search again only
+     * the groups of roads which have changed, and the paths are found when next needed.
      *
      * @return the length of the longest road for this player
      */
     public int calcLongestRoad2()
     {
+        longestRoadLength = longestRoadCalc.calc(game.getBoard());
+        lrPathsStale = true;
+
+        return longestRoadLength;
+    }
+
+    /**
+     * Find the longest road paths for {@link #getLRPaths()} by searching all road paths
+     * from each road node.
+     * Before v1.2.00 this was part of {@link #calcLongestRoad2()}.
+     * @since 1.2.00
+     */
+    private void calcLRPaths()
+    {
+        lrPathsStale = false;
+
         //Date startTime = new Date();
         //
         // clear the lr paths vector so that we have an accurate
@@ -2124,7 +2107,6 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
          */
         SOCBoard board = game.getBoard();
         Stack pending = new Stack();
-        int longest = 0;
 
         for (Enumeration e = roadNodes.elements(); e.hasMoreElements();)
         {
@@ -2145,21 +2127,12 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
                  */
                 if (len > 0)
                 {
-                    Enumeration pEnum = board.getPieces().elements();
-    
-                    while (pEnum.hasMoreElements())
+                    final SOCPlayingPiece p = board.settlementAtNode(coord);
+                    if ((p != null) && (p.getPlayer().getPlayerNumber() != playerNumber))
                     {
-                        SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
-    
-                        if ((p.getCoordinates() == coord)
-                            && (p.getPlayer().getPlayerNumber() != playerNumber)
-                            && ((p.getType() == SOCPlayingPiece.SETTLEMENT) || (p.getType() == SOCPlayingPiece.CITY)))
-                        {
-                            pathEnd = true;
-    
-                            //D.ebugPrintln("^^^ path end at "+Integer.toHexString(coord));
-                            break;
-                        }
+                        pathEnd = true;
+
+                        //D.ebugPrintln("^^^ path end at "+Integer.toHexString(coord));
                     }
                 }
 
@@ -2208,11 +2181,6 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
 
                 if (pathEnd)
                 {
-                    if (len > longest)
-                    {
-                        longest = len;
-                    }
-
                     //
                     // we want to store the longest path for a single set of nodes
                     // check to make sure that we don't save two paths that share a node
@@ -2295,12 +2263,9 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
             }
         }
 
-        longestRoadLength = longest;
-
         //Date stopTime = new Date();
         //long elapsed = stopTime.getTime() - startTime.getTime();
-        //System.out.println("LONGEST FOR "+name+" IS "+longest+" TIME = "+elapsed+"ms");
-        return longest;
+        //System.out.println("PATHS FOR "+name+" TIME = "+elapsed+"ms");
     }
 
     /**
@@ -2374,7 +2339,8 @@ public class SOCPlayer implements SOCDevCardConstants, Serializable, Cloneable
         ports = null;
         roadNodes.removeAllElements();
         roadNodes = null;
-        roadNodeGraph = null;
+        roadEdges = null;
+        longestRoadCalc = null;
         legalRoads = null;
         legalSettlements = null;
         potentialRoads = null;
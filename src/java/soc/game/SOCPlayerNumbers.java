@@ -2,6 +2,7 @@
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2009,2012 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2017 JSettlers contributors
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -22,7 +23,7 @@ package soc.game;
 
 import soc.util.IntPair;
 
-import java.util.Enumeration;
+import java.util.Arrays;
 import java.util.Vector;
 
 
@@ -32,28 +33,53 @@ import java.util.Vector;
  *<P>
  * Calls each touched hex's {@link SOCBoard#getHexTypeFromCoord(int)}, ignores all hex types besides
  * the usual {@link SOCBoard#CLAY_HEX} through {@link SOCBoard#WOOD_HEX}.
+ *<P>
+ * Before v1.2.00 this kept Vectors of Integers and {@link IntPair}s.
+ * It now keeps a table of counts by dice number and resource type, along with each touched hex's
+ * number, resource, and count, so the tables are updated in place and copied with a few array clones.
+ * Methods such as {@link #getNumberResourceCount(int, int, int)} read the tables without allocating;
+ * the methods returning Vectors build a new one from the tables on each call.
+ * Since a board hex has one dice number and resource type, the counts with the robber on any hex
+ * are the totals minus that hex's count.
  *
  * @author Robert S. Thomas
  */
 public class SOCPlayerNumbers
 {
     /**
-     * Dice roll numbers which yield this resource.
-     * Uses indexes in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}.
+     * Width of each dice number's row in {@link #numberResourceCount}:
+     * Resource types {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}, plus unused 0.
+     * @since 1.2.00
      */
-    private Vector[] numbersForResource;
+    private static final int RESOURCE_STRIDE = SOCResourceConstants.WOOD + 1;
 
-    /** Resources on dice roll numbers; uses indexes 2-12  */
-    private Vector[] resourcesForNumber;
+    /**
+     * Size of the by-hex tables; hex coordinates are less than this.
+     * @since 1.2.00
+     */
+    private static final int HEX_TABLE_SIZE = 0xBC;
 
-    /** Hex information, by hex coordinate ID  */
-    private Vector[] numberAndResourceForHex;
+    /**
+     * Number of times each dice number and resource pair has been added.
+     * Index is {@code (number * }{@link #RESOURCE_STRIDE}{@code ) + resource},
+     * for numbers 0-12 and resources {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}.
+     * @since 1.2.00
+     */
+    private int[] numberResourceCount;
 
     /**
-     * Reference to either {@link SOCBoard#HEXCOORDS_LAND_V1} or {@link SOCBoard#HEXCOORDS_LAND_V2}.
-     * @since 1.1.08
+     * For each hex coordinate with a nonzero {@link #hexPairCount}, the index of its number and resource
+     * within {@link #numberResourceCount}.
+     * @since 1.2.00
      */
-    private int[] landHexCoords;
+    private int[] hexNumberResource;
+
+    /**
+     * Number of times each hex coordinate's number and resource pair has been added,
+     * such as 2 for a city touching the hex, or 0.
+     * @since 1.2.00
+     */
+    private int[] hexPairCount;
 
     /**
      * make a copy of the player numbers
@@ -62,29 +88,9 @@ public class SOCPlayerNumbers
      */
     public SOCPlayerNumbers(SOCPlayerNumbers numbers)
     {
-        landHexCoords = numbers.landHexCoords;
-
-        numbersForResource = new Vector[SOCResourceConstants.MAXPLUSONE - 1];
-
-        for (int i = SOCResourceConstants.CLAY; i <= SOCResourceConstants.WOOD;
-                i++)
-        {
-            numbersForResource[i] = (Vector) numbers.numbersForResource[i].clone();
-        }
-
-        resourcesForNumber = new Vector[13];
-
-        for (int i = 0; i < 13; i++)
-        {
-            resourcesForNumber[i] = (Vector) numbers.resourcesForNumber[i].clone();
-        }
-
-        numberAndResourceForHex = new Vector[0xBC];
-
-        for (int i = 0; i < landHexCoords.length; i++)
-        {
-            numberAndResourceForHex[landHexCoords[i]] = (Vector) numbers.numberAndResourceForHex[landHexCoords[i]].clone();
-        }
+        numberResourceCount = (int[]) numbers.numberResourceCount.clone();
+        hexNumberResource = (int[]) numbers.hexNumberResource.clone();
+        hexPairCount = (int[]) numbers.hexPairCount.clone();
     }
 
     /**
@@ -98,34 +104,16 @@ public class SOCPlayerNumbers
         switch (boardEncodingFormat)
         {
         case SOCBoard.BOARD_ENCODING_ORIGINAL:
-            landHexCoords = SOCBoard.HEXCOORDS_LAND_V1;  break;
+            // fall through
         case SOCBoard.BOARD_ENCODING_6PLAYER:
-            landHexCoords = SOCBoard.HEXCOORDS_LAND_V2;  break;
+            break;
         default:
             throw new IllegalArgumentException("boardEncodingFormat: " + boardEncodingFormat);
         }
 
-        numbersForResource = new Vector[SOCResourceConstants.MAXPLUSONE - 1];
-
-        for (int i = SOCResourceConstants.CLAY; i <= SOCResourceConstants.WOOD;
-                i++)
-        {
-            numbersForResource[i] = new Vector();
-        }
-
-        resourcesForNumber = new Vector[13];
-
-        for (int i = 0; i < 13; i++)
-        {
-            resourcesForNumber[i] = new Vector();
-        }
-
-        numberAndResourceForHex = new Vector[0xBC];
-
-        for (int i = 0; i < landHexCoords.length; i++)
-        {
-            numberAndResourceForHex[landHexCoords[i]] = new Vector();
-        }
+        numberResourceCount = new int[13 * RESOURCE_STRIDE];
+        hexNumberResource = new int[HEX_TABLE_SIZE];
+        hexPairCount = new int[HEX_TABLE_SIZE];
     }
 
     /**
@@ -133,21 +121,9 @@ public class SOCPlayerNumbers
      */
     public void clear()
     {
-        for (int i = SOCResourceConstants.CLAY; i <= SOCResourceConstants.WOOD;
-                i++)
-        {
-            numbersForResource[i].removeAllElements();
-        }
-
-        for (int i = 0; i < 13; i++)
-        {
-            resourcesForNumber[i].removeAllElements();
-        }
-
-        for (int i = 0; i < landHexCoords.length; i++)
-        {
-            numberAndResourceForHex[landHexCoords[i]].removeAllElements();
-        }
+        Arrays.fill(numberResourceCount, 0);
+        Arrays.fill(hexNumberResource, 0);
+        Arrays.fill(hexPairCount, 0);
     }
 
     /**
@@ -160,15 +136,7 @@ public class SOCPlayerNumbers
      */
     public void updateNumbers(SOCPlayingPiece piece, SOCBoard board)
     {
-        Enumeration hexes = SOCBoard.getAdjacentHexesToNode(piece.getCoordinates()).elements();
-
-        while (hexes.hasMoreElements())
-        {
-            Integer hex = (Integer) hexes.nextElement();
-            int number = board.getNumberOnHexFromCoord(hex.intValue());
-            int resource = board.getHexTypeFromCoord(hex.intValue());
-            addNumberForResource(number, resource, hex.intValue());
-        }
+        updateNumbers(piece.getCoordinates(), board);
     }
 
     /**
@@ -181,72 +149,127 @@ public class SOCPlayerNumbers
      */
     public void updateNumbers(int coord, SOCBoard board)
     {
-        Enumeration hexes = SOCBoard.getAdjacentHexesToNode(coord).elements();
+        final int[] hexes = SOCBoard.getAdjacentHexesToNode_arr(coord);
 
-        while (hexes.hasMoreElements())
+        for (int i = 0; i < hexes.length; ++i)
         {
-            Integer hex = (Integer) hexes.nextElement();
-            int number = board.getNumberOnHexFromCoord(hex.intValue());
-            int resource = board.getHexTypeFromCoord(hex.intValue());
-            addNumberForResource(number, resource, hex.intValue());
+            final int hex = hexes[i];
+            addNumberForResource(board.getNumberOnHexFromCoord(hex), board.getHexTypeFromCoord(hex), hex);
         }
     }
 
     /**
-     * @return the resources for a number
+     * Get how many times a dice number and resource pair has been added,
+     * such as 3 if the player has a settlement and a city touching a wheat hex with number 8.
+     *
+     * @param number  the dice-roll number, 2 to 12
+     * @param resource  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
+     * @return  the count, or 0
+     * @since 1.2.00
+     */
+    public int getNumberResourceCount(final int number, final int resource)
+    {
+        return numberResourceCount[(number * RESOURCE_STRIDE) + resource];
+    }
+
+    /**
+     * Get how many times a dice number and resource pair has been added, not counting the robber's hex.
+     *
+     * @param number  the dice-roll number, 2 to 12
+     * @param resource  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
+     * @param robberHex  the robber hex
+     * @return  the count, or 0
+     * @see #getNumberResourceCount(int, int)
+     * @since 1.2.00
+     */
+    public int getNumberResourceCount(final int number, final int resource, final int robberHex)
+    {
+        final int idx = (number * RESOURCE_STRIDE) + resource;
+        int count = numberResourceCount[idx];
+        if ((robberHex >= 0) && (robberHex < HEX_TABLE_SIZE)
+            && (hexPairCount[robberHex] != 0) && (hexNumberResource[robberHex] == idx))
+            count -= hexPairCount[robberHex];
+
+        return count;
+    }
+
+    /**
+     * @return the resources for a number, as a new Vector of Integers;
+     *     a resource appears once for each time it was added for this number
      *
      * @param num  the number
+     * @see #getNumberResourceCount(int, int)
      */
     public Vector getResourcesForNumber(int num)
     {
-        return resourcesForNumber[num];
+        return getResourcesForNumber(num, -1);
     }
 
     /**
-     * @return the numbers for a resource
+     * @return the numbers for a resource, as a new Vector of Integers;
+     *     a number appears once for each time it was added for this resource
      *
      * @param resource  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
+     * @see #getNumberResourceCount(int, int)
      */
     public Vector getNumbersForResource(int resource)
     {
-        return numbersForResource[resource];
+        return getNumbersForResource(resource, -1);
     }
 
     /**
-     * @return the number-resource pairs for a hex
+     * @return the number-resource pairs for a hex, as a new Vector of {@link IntPair}s
      *
      * @param hex  the hex coord
+     * @see #hasNumbersForHex(int)
      */
     public Vector getNumberResourcePairsForHex(int hex)
     {
-        return numberAndResourceForHex[hex];
+        Vector pairs = new Vector();
+
+        final int count = hexPairCount[hex];
+        if (count != 0)
+        {
+            final int idx = hexNumberResource[hex];
+            for (int i = 0; i < count; ++i)
+                pairs.addElement(new IntPair(idx / RESOURCE_STRIDE, idx % RESOURCE_STRIDE));
+        }
+
+        return pairs;
+    }
+
+    /**
+     * Are this player's pieces touching a hex which produces resources?
+     * Same as <tt>! {@link #getNumberResourcePairsForHex(int) getNumberResourcePairsForHex(hex)}.isEmpty()</tt>
+     * without allocating.
+     *
+     * @param hex  the hex coord
+     * @since 1.2.00
+     */
+    public boolean hasNumbersForHex(final int hex)
+    {
+        return (hexPairCount[hex] != 0);
     }
 
     /**
-     * @return the numbers for a resource, taking the robber into account
+     * @return the numbers for a resource, taking the robber into account, as a new Vector of Integers
      *
      * @param resource  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
      * @param robberHex the robber hex
+     * @see #getNumberResourceCount(int, int, int)
      */
     public Vector getNumbersForResource(int resource, int robberHex)
     {
         Vector numbers = new Vector();
 
-        for (int i = 0; i < landHexCoords.length; i++)
+        for (int number = 0; number <= 12; ++number)
         {
-            if (landHexCoords[i] != robberHex)
+            final int count = getNumberResourceCount(number, resource, robberHex);
+            if (count != 0)
             {
-                Enumeration pairsEnum = numberAndResourceForHex[landHexCoords[i]].elements();
-
-                while (pairsEnum.hasMoreElements())
-                {
-                    IntPair pair = (IntPair) pairsEnum.nextElement();
-
-                    if (pair.getB() == resource)
-                    {
-                        numbers.addElement(new Integer(pair.getA()));
-                    }
-                }
+                final Integer numberInt = new Integer(number);
+                for (int i = 0; i < count; ++i)
+                    numbers.addElement(numberInt);
             }
         }
 
@@ -254,30 +277,24 @@ public class SOCPlayerNumbers
     }
 
     /**
-     * @return the resources for a number taking the robber into account
+     * @return the resources for a number taking the robber into account, as a new Vector of Integers
      *
-     * @param number  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
+     * @param number  the dice-roll number
      * @param robberHex the robber hex
+     * @see #getNumberResourceCount(int, int, int)
      */
     public Vector getResourcesForNumber(int number, int robberHex)
     {
         Vector resources = new Vector();
 
-        for (int i = 0; i < landHexCoords.length; i++)
+        for (int resource = SOCResourceConstants.CLAY; resource <= SOCResourceConstants.WOOD; ++resource)
         {
-            if (landHexCoords[i] != robberHex)
+            final int count = getNumberResourceCount(number, resource, robberHex);
+            if (count != 0)
             {
-                Enumeration pairsEnum = numberAndResourceForHex[landHexCoords[i]].elements();
-
-                while (pairsEnum.hasMoreElements())
-                {
-                    IntPair pair = (IntPair) pairsEnum.nextElement();
-
-                    if (pair.getA() == number)
-                    {
-                        resources.addElement(new Integer(pair.getB()));
-                    }
-                }
+                final Integer resourceInt = new Integer(resource);
+                for (int i = 0; i < count; ++i)
+                    resources.addElement(resourceInt);
             }
         }
 
@@ -288,22 +305,26 @@ public class SOCPlayerNumbers
      * set a number for a resource
      *
      * @param number    the dice-roll number
-     * @param resource  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
+     * @param resource  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD};
+     *     other hex types are ignored
      * @param hex       the hex coordinate ID
+     * @throws IllegalArgumentException if a different number or resource was already added for this hex,
+     *     which can't happen on a board because a hex has one number and type
      */
     public void addNumberForResource(int number, int resource, int hex)
+        throws IllegalArgumentException
     {
         if ((resource >= SOCResourceConstants.CLAY) && (resource <= SOCResourceConstants.WOOD))
         {
-            numbersForResource[resource].addElement(new Integer(number));
-
-            Integer resourceInt = new Integer(resource);
-
-            //if (!resourcesForNumber[number].contains(resourceInt)) {
-            resourcesForNumber[number].addElement(resourceInt);
-
-            //}
-            numberAndResourceForHex[hex].addElement(new IntPair(number, resource));
+            final int idx = (number * RESOURCE_STRIDE) + resource;
+            if (hexPairCount[hex] == 0)
+                hexNumberResource[hex] = idx;
+            else if (hexNumberResource[hex] != idx)
+                throw new IllegalArgumentException
+                    ("hex 0x" + Integer.toHexString(hex) + " already has another number or resource");
+
+            ++numberResourceCount[idx];
+            ++hexPairCount[hex];
         }
     }
 
@@ -317,15 +338,7 @@ public class SOCPlayerNumbers
      */
     public void undoUpdateNumbers(SOCPlayingPiece piece, SOCBoard board)
     {
-        Enumeration hexes = SOCBoard.getAdjacentHexesToNode(piece.getCoordinates()).elements();
-
-        while (hexes.hasMoreElements())
-        {
-            Integer hex = (Integer) hexes.nextElement();
-            int number = board.getNumberOnHexFromCoord(hex.intValue());
-            int resource = board.getHexTypeFromCoord(hex.intValue());
-            undoAddNumberForResource(number, resource, hex.intValue());
-        }
+        undoUpdateNumbers(piece.getCoordinates(), board);
     }
 
     /**
@@ -338,20 +351,19 @@ public class SOCPlayerNumbers
      */
     public void undoUpdateNumbers(int coord, SOCBoard board)
     {
-        Enumeration hexes = SOCBoard.getAdjacentHexesToNode(coord).elements();
+        final int[] hexes = SOCBoard.getAdjacentHexesToNode_arr(coord);
 
-        while (hexes.hasMoreElements())
+        for (int i = 0; i < hexes.length; ++i)
         {
-            Integer hex = (Integer) hexes.nextElement();
-            int number = board.getNumberOnHexFromCoord(hex.intValue());
-            int resource = board.getHexTypeFromCoord(hex.intValue());
-            undoAddNumberForResource(number, resource, hex.intValue());
+            final int hex = hexes[i];
+            undoAddNumberForResource(board.getNumberOnHexFromCoord(hex), board.getHexTypeFromCoord(hex), hex);
         }
     }
 
     /**
      * remove a number for a resource
-     * do this when you take back a piece
+     * do this when you take back a piece.
+     * Does nothing if that number and resource wasn't added for this hex.
      *
      * @param number    the dice-roll number
      * @param resource  the resource, in range {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
@@ -361,46 +373,11 @@ public class SOCPlayerNumbers
     {
         if ((resource >= SOCResourceConstants.CLAY) && (resource <= SOCResourceConstants.WOOD))
         {
-            Enumeration numEnum = numbersForResource[resource].elements();
-
-            while (numEnum.hasMoreElements())
-            {
-                Integer num = (Integer) numEnum.nextElement();
-
-                if (num.intValue() == number)
-                {
-                    numbersForResource[resource].removeElement(num);
-
-                    break;
-                }
-            }
-
-            Enumeration resourceEnum = resourcesForNumber[number].elements();
-
-            while (resourceEnum.hasMoreElements())
+            final int idx = (number * RESOURCE_STRIDE) + resource;
+            if ((hexPairCount[hex] != 0) && (hexNumberResource[hex] == idx))
             {
-                Integer resourceInt = (Integer) resourceEnum.nextElement();
-
-                if (resourceInt.intValue() == resource)
-                {
-                    resourcesForNumber[number].removeElement(resourceInt);
-
-                    break;
-                }
-            }
-
-            Enumeration numAndResourceEnum = numberAndResourceForHex[hex].elements();
-
-            while (numAndResourceEnum.hasMoreElements())
-            {
-                IntPair numAndResource = (IntPair) numAndResourceEnum.nextElement();
-
-                if ((numAndResource.getA() == number) && (numAndResource.getB() == resource))
-                {
-                    numberAndResourceForHex[hex].removeElement(numAndResource);
-
-                    break;
-                }
+                --numberResourceCount[idx];
+                --hexPairCount[hex];
             }
         }
     }
@@ -413,7 +390,12 @@ public class SOCPlayerNumbers
      */
     public boolean hasNumber(int number)
     {
-        return !resourcesForNumber[number].isEmpty();
+        final int start = number * RESOURCE_STRIDE;
+        for (int resource = SOCResourceConstants.CLAY; resource <= SOCResourceConstants.WOOD; ++resource)
+            if (numberResourceCount[start + resource] != 0)
+                return true;
+
+        return false;
     }
 
     /**
@@ -421,24 +403,23 @@ public class SOCPlayerNumbers
      */
     public String toString()
     {
-        String str = "SOCPN:";
+        StringBuffer str = new StringBuffer("SOCPN:");
 
         for (int i = SOCResourceConstants.CLAY; i <= SOCResourceConstants.WOOD;
                 i++)
         {
-            str += (i + ":");
-
-            Enumeration nums = numbersForResource[i].elements();
+            str.append(i).append(':');
 
-            while (nums.hasMoreElements())
+            for (int number = 0; number <= 12; ++number)
             {
-                Integer num = (Integer) nums.nextElement();
-                str += (num + ",");
+                final int count = numberResourceCount[(number * RESOURCE_STRIDE) + i];
+                for (int k = 0; k < count; ++k)
+                    str.append(number).append(',');
             }
 
-            str += "|";
+            str.append('|');
         }
 
-        return str;
+        return str.toString();
     }
 }
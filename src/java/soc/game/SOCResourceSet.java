@@ -2,6 +2,7 @@
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2008-2009,2012,2015 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2017 JSettlers contributors
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -28,6 +29,12 @@ import java.io.Serializable;
  * clay, ore, sheep, wheat, and wood resources.
  * Unknown resources are also tracked here.
  * Although it's possible to store negative amounts of resources, it's discouraged.
+ *<P>
+ * Since v1.2.00 a set's amounts can also be packed into a single <tt>long</tt> with {@link #getPacked()},
+ * {@link #PACKED_BITS} bits per resource type. The static methods such as {@link #add(long, long)}
+ * and {@link #gte(long, long)} work on those packed values directly, without allocating any objects,
+ * and a packed value can be used as a compact key for caching. The sets themselves keep
+ * an array, which is faster than unpacking when reading and changing amounts one type at a time.
  *
  * @see SOCResourceConstants
  * @see SOCPlayingPiece#getResourcesToBuild(int)
@@ -37,6 +44,61 @@ public class SOCResourceSet implements Serializable, Cloneable
     /** Resource set with zero of each resource type */
     public static final SOCResourceSet EMPTY_SET = new SOCResourceSet();
 
+    /**
+     * Number of bits per resource type in a packed resource set; see {@link #getPacked()}.
+     * @since 1.2.00
+     */
+    public static final int PACKED_BITS = 10;
+
+    /**
+     * Smallest amount of a resource type which fits in a packed resource set.
+     * @since 1.2.00
+     */
+    public static final int PACKED_MIN_AMOUNT = -(1 << (PACKED_BITS - 1));
+
+    /**
+     * Largest amount of a resource type which fits in a packed resource set.
+     * @since 1.2.00
+     */
+    public static final int PACKED_MAX_AMOUNT = (1 << (PACKED_BITS - 1)) - 1;
+
+    /**
+     * Mask for one resource type's bits in a packed resource set, before shifting.
+     * @since 1.2.00
+     */
+    private static final long PACKED_MASK = (1L << PACKED_BITS) - 1;
+
+    /**
+     * Number of bits used in a packed resource set, for all types {@link SOCResourceConstants#CLAY}
+     * through {@link SOCResourceConstants#UNKNOWN}; the higher bits are always 0.
+     * @since 1.2.00
+     */
+    private static final int PACKED_USED_BITS = PACKED_BITS * SOCResourceConstants.UNKNOWN;
+
+    /**
+     * Each type's sign bit in a packed resource set. XOR with this converts each signed amount
+     * to an unsigned amount + {@link #PACKED_MAX_AMOUNT} + 1, whose order is the same, and back again.
+     * @since 1.2.00
+     */
+    private static final long PACKED_SIGNS = 0x0802008020080200L;
+
+    /**
+     * Masks for the even-numbered and odd-numbered types' bits in a packed resource set
+     * (clay, sheep, wood; ore, wheat, unknown). With only every other type, each has
+     * {@link #PACKED_BITS} spare bits above it to hold carries without disturbing the next one.
+     * @since 1.2.00
+     */
+    private static final long PACKED_EVEN = 0x0003FF003FF003FFL, PACKED_ODD = 0x0FFC00FFC00FFC00L;
+
+    /**
+     * Lowest bit above each of the {@link #PACKED_EVEN} or {@link #PACKED_ODD} types' bits,
+     * and the 2 lowest bits above each type's bits, for checking carries.
+     * @since 1.2.00
+     */
+    private static final long
+        PACKED_EVEN_CARRY = 0x0004000040000400L, PACKED_EVEN_CARRY2 = 0x000C0000C0000C00L,
+        PACKED_ODD_CARRY = 0x1000010000100000L, PACKED_ODD_CARRY2 = 0x3000030000300000L;
+
     /**
      * the number of resources
      */
@@ -85,6 +147,17 @@ public class SOCResourceSet implements Serializable, Cloneable
         this(rset[0], rset[1], rset[2], rset[3], rset[4], (rset.length >= 6) ? rset[5] : 0);
     }
 
+    /**
+     * Make a resource set from a packed resource set.
+     * @param packed  Packed resource set, as from {@link #getPacked()} or {@link #pack(int, int, int, int, int, int)}
+     * @since 1.2.00
+     */
+    public SOCResourceSet(final long packed)
+    {
+        resources = new int[SOCResourceConstants.MAXPLUSONE];
+        setPacked(packed);
+    }
+
     /**
      * set the number of resources to zero
      */
@@ -440,7 +513,11 @@ public class SOCResourceSet implements Serializable, Cloneable
      */
     public int hashCode()
     {
-        return this.toString().hashCode();
+        int h = 0;
+        for (int i = SOCResourceConstants.MIN; i < SOCResourceConstants.MAXPLUSONE; ++i)
+            h = (31 * h) + resources[i];
+
+        return h;
     }
 
     /**
@@ -449,7 +526,7 @@ public class SOCResourceSet implements Serializable, Cloneable
     public SOCResourceSet copy()
     {
         SOCResourceSet copy = new SOCResourceSet();
-        copy.add(this);
+        System.arraycopy(resources, 0, copy.resources, 0, resources.length);
 
         return copy;
     }
@@ -461,12 +538,250 @@ public class SOCResourceSet implements Serializable, Cloneable
      */
     public void setAmounts(SOCResourceSet set)
     {
-        resources[SOCResourceConstants.CLAY]    = set.getAmount(SOCResourceConstants.CLAY);
-        resources[SOCResourceConstants.ORE]     = set.getAmount(SOCResourceConstants.ORE);
-        resources[SOCResourceConstants.SHEEP]   = set.getAmount(SOCResourceConstants.SHEEP);
-        resources[SOCResourceConstants.WHEAT]   = set.getAmount(SOCResourceConstants.WHEAT);
-        resources[SOCResourceConstants.WOOD]    = set.getAmount(SOCResourceConstants.WOOD);
-        resources[SOCResourceConstants.UNKNOWN] = set.getAmount(SOCResourceConstants.UNKNOWN);
+        System.arraycopy(set.resources, 0, resources, 0, resources.length);
+    }
+
+    /**
+     * Get this set's amounts as a packed resource set, for the static methods
+     * such as {@link #add(long, long)} which work on packed sets without allocating objects.
+     *<P>
+     * A packed set holds the amount of each resource type in {@link #PACKED_BITS} bits as a signed number,
+     * in order from {@link SOCResourceConstants#CLAY} in the lowest bits to {@link SOCResourceConstants#UNKNOWN}.
+     * An empty set is 0. Two packed sets are equal if and only if they have the same amounts.
+     *
+     * @return  This set's amounts, packed
+     * @throws IllegalStateException if an amount is outside the packed range
+     *     {@link #PACKED_MIN_AMOUNT} to {@link #PACKED_MAX_AMOUNT}; see {@link #isPackable()}
+     * @see #setPacked(long)
+     * @see #SOCResourceSet(long)
+     * @since 1.2.00
+     */
+    public long getPacked()
+        throws IllegalStateException
+    {
+        if (! isPackable())
+            throw new IllegalStateException("amount outside packed range: " + this);
+
+        long p = 0;
+        for (int i = SOCResourceConstants.MIN; i < SOCResourceConstants.MAXPLUSONE; ++i)
+            p = setAmount(p, resources[i], i);
+
+        return p;
+    }
+
+    /**
+     * Are all of this set's amounts within the packed range
+     * {@link #PACKED_MIN_AMOUNT} to {@link #PACKED_MAX_AMOUNT}, so {@link #getPacked()} can be called?
+     * @since 1.2.00
+     */
+    public boolean isPackable()
+    {
+        for (int i = SOCResourceConstants.MIN; i < SOCResourceConstants.MAXPLUSONE; ++i)
+        {
+            final int amt = resources[i];
+            if ((amt < PACKED_MIN_AMOUNT) || (amt > PACKED_MAX_AMOUNT))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Set this set's amounts from a packed resource set. This one's current data is lost and overwritten.
+     * @param packed  Packed resource set, as from {@link #getPacked()}
+     * @since 1.2.00
+     */
+    public void setPacked(final long packed)
+    {
+        for (int i = SOCResourceConstants.MIN; i < SOCResourceConstants.MAXPLUSONE; ++i)
+            resources[i] = getAmount(packed, i);
+    }
+
+    /**
+     * Make sure this is a valid resource type index for a packed resource set.
+     * @return <tt>rtype</tt>
+     * @throws ArrayIndexOutOfBoundsException if <tt>rtype</tt> is not
+     *     {@link SOCResourceConstants#CLAY} through {@link SOCResourceConstants#UNKNOWN}
+     * @since 1.2.00
+     */
+    private static int checkType(final int rtype)
+        throws ArrayIndexOutOfBoundsException
+    {
+        if ((rtype < SOCResourceConstants.MIN) || (rtype >= SOCResourceConstants.MAXPLUSONE))
+            throw new ArrayIndexOutOfBoundsException(rtype);
+
+        return rtype;
+    }
+
+    /**
+     * Make a packed resource set from amounts. See {@link #getPacked()} for the format.
+     *
+     * @param cl  number of clay resources
+     * @param or  number of ore resources
+     * @param sh  number of sheep resources
+     * @param wh  number of wheat resources
+     * @param wo  number of wood resources
+     * @param uk  number of unknown resources
+     * @return the packed set
+     * @throws IllegalArgumentException if any amount is outside the range
+     *     {@link #PACKED_MIN_AMOUNT} to {@link #PACKED_MAX_AMOUNT}
+     * @since 1.2.00
+     */
+    public static long pack(int cl, int or, int sh, int wh, int wo, int uk)
+        throws IllegalArgumentException
+    {
+        long p = setAmount(0L, cl, SOCResourceConstants.CLAY);
+        p = setAmount(p, or, SOCResourceConstants.ORE);
+        p = setAmount(p, sh, SOCResourceConstants.SHEEP);
+        p = setAmount(p, wh, SOCResourceConstants.WHEAT);
+        p = setAmount(p, wo, SOCResourceConstants.WOOD);
+        return setAmount(p, uk, SOCResourceConstants.UNKNOWN);
+    }
+
+    /**
+     * Get the amount of one resource type in a packed resource set.
+     * @param packed  the packed set; see {@link #getPacked()}
+     * @param rtype  the type of resource, like {@link SOCResourceConstants#CLAY}
+     * @return the amount
+     * @throws ArrayIndexOutOfBoundsException if <tt>rtype</tt> is not
+     *     {@link SOCResourceConstants#CLAY} through {@link SOCResourceConstants#UNKNOWN}
+     * @since 1.2.00
+     */
+    public static int getAmount(final long packed, final int rtype)
+        throws ArrayIndexOutOfBoundsException
+    {
+        // shift left to drop higher types' bits, then arithmetic shift right to sign-extend
+        return (int) ((packed << (64 - (PACKED_BITS * checkType(rtype)))) >> (64 - PACKED_BITS));
+    }
+
+    /**
+     * Set the amount of one resource type in a packed resource set.
+     * @param packed  the packed set; see {@link #getPacked()}
+     * @param amt   the amount
+     * @param rtype  the type of resource, like {@link SOCResourceConstants#CLAY}
+     * @return the packed set with that amount
+     * @throws IllegalArgumentException if <tt>amt</tt> is outside the range
+     *     {@link #PACKED_MIN_AMOUNT} to {@link #PACKED_MAX_AMOUNT}
+     * @throws ArrayIndexOutOfBoundsException if <tt>rtype</tt> is not
+     *     {@link SOCResourceConstants#CLAY} through {@link SOCResourceConstants#UNKNOWN}
+     * @since 1.2.00
+     */
+    public static long setAmount(final long packed, final int amt, final int rtype)
+        throws IllegalArgumentException, ArrayIndexOutOfBoundsException
+    {
+        if ((amt < PACKED_MIN_AMOUNT) || (amt > PACKED_MAX_AMOUNT))
+            throw new IllegalArgumentException("amt: " + amt);
+
+        final int shift = PACKED_BITS * (checkType(rtype) - 1);
+        return (packed & ~(PACKED_MASK << shift)) | ((amt & PACKED_MASK) << shift);
+    }
+
+    /**
+     * Get the total number of resources in a packed resource set, including {@link SOCResourceConstants#UNKNOWN}.
+     * @param packed  the packed set; see {@link #getPacked()}
+     * @return the total
+     * @since 1.2.00
+     */
+    public static int getTotal(long packed)
+    {
+        int sum = 0;
+        for (int i = SOCResourceConstants.MIN; i < SOCResourceConstants.MAXPLUSONE; ++i, packed >>= PACKED_BITS)
+            sum += (int) ((packed << (64 - PACKED_BITS)) >> (64 - PACKED_BITS));
+
+        return sum;
+    }
+
+    /**
+     * Add two packed resource sets.
+     * @param a  a packed set; see {@link #getPacked()}
+     * @param b  a packed set
+     * @return their sum
+     * @throws IllegalArgumentException if an amount in the sum is outside the range
+     *     {@link #PACKED_MIN_AMOUNT} to {@link #PACKED_MAX_AMOUNT}
+     * @since 1.2.00
+     */
+    public static long add(final long a, final long b)
+        throws IllegalArgumentException
+    {
+        final long sum = addOrOverflow(a, b);
+        if (sum == OVERFLOW)
+            throw new IllegalArgumentException("sum outside packed range");
+
+        return sum;
+    }
+
+    /**
+     * Subtract one packed resource set from another.
+     * Like {@link #subtract(SOCResourceSet)}, if any type's amount would go below 0, it's set to 0.
+     * @param a  a packed set; see {@link #getPacked()}
+     * @param b  a packed set to subtract from <tt>a</tt>
+     * @return the difference
+     * @throws IllegalArgumentException if an amount in the difference is greater than {@link #PACKED_MAX_AMOUNT}
+     * @since 1.2.00
+     */
+    public static long subtract(long a, long b)
+        throws IllegalArgumentException
+    {
+        long diff = 0;
+        for (int shift = 0; shift < PACKED_USED_BITS; shift += PACKED_BITS, a >>= PACKED_BITS, b >>= PACKED_BITS)
+        {
+            final int amt = (int) ((a << (64 - PACKED_BITS)) >> (64 - PACKED_BITS))
+                - (int) ((b << (64 - PACKED_BITS)) >> (64 - PACKED_BITS));
+            if (amt > PACKED_MAX_AMOUNT)
+                throw new IllegalArgumentException("difference outside packed range");
+            if (amt > 0)
+                diff |= ((long) amt) << shift;
+        }
+
+        return diff;
+    }
+
+    /**
+     * Is each resource type's amount in packed set A &gt;= that type's amount in packed set B?
+     * Same as {@link #gte(SOCResourceSet, SOCResourceSet)}.
+     * @param a  a packed set; see {@link #getPacked()}
+     * @param b  a packed set
+     * @return true if A contains B
+     * @since 1.2.00
+     */
+    public static boolean gte(final long a, final long b)
+    {
+        // Compare all types at once, as unsigned amounts:
+        // For each type, (a + carry bit) - b keeps the carry bit only if a >= b.
+        final long ua = a ^ PACKED_SIGNS, ub = b ^ PACKED_SIGNS;
+
+        return
+            (((((ua & PACKED_EVEN) | PACKED_EVEN_CARRY) - (ub & PACKED_EVEN)) & PACKED_EVEN_CARRY) == PACKED_EVEN_CARRY)
+            && (((((ua & PACKED_ODD) | PACKED_ODD_CARRY) - (ub & PACKED_ODD)) & PACKED_ODD_CARRY) == PACKED_ODD_CARRY);
+    }
+
+    /**
+     * Returned by {@link #addOrOverflow(long, long)} if the sum is outside the packed range.
+     * Not a valid packed set, since its unused bits above {@link #PACKED_USED_BITS} are set.
+     * @since 1.2.00
+     */
+    private static final long OVERFLOW = -1L;
+
+    /**
+     * Add two packed resource sets, or return {@link #OVERFLOW}.
+     * @param a  a packed set; see {@link #getPacked()}
+     * @param b  a packed set
+     * @return the sum, or {@link #OVERFLOW} if an amount is outside the range
+     *     {@link #PACKED_MIN_AMOUNT} to {@link #PACKED_MAX_AMOUNT}
+     * @since 1.2.00
+     */
+    private static long addOrOverflow(final long a, final long b)
+    {
+        // Add all types at once, as unsigned amounts ua = a + 512 and ub = b + 512:
+        // For each type, ua + ub + 512 is (a + b + 512) + 1024, which is in range
+        // only if its 2 bits above the type's bits are binary 01 (the carry bit alone).
+        final long ua = a ^ PACKED_SIGNS, ub = b ^ PACKED_SIGNS;
+        final long even = (ua & PACKED_EVEN) + (ub & PACKED_EVEN) + (PACKED_SIGNS & PACKED_EVEN),
+            odd = (ua & PACKED_ODD) + (ub & PACKED_ODD) + (PACKED_SIGNS & PACKED_ODD);
+        if (((even & PACKED_EVEN_CARRY2) != PACKED_EVEN_CARRY) || ((odd & PACKED_ODD_CARRY2) != PACKED_ODD_CARRY))
+            return OVERFLOW;
+
+        return ((even & PACKED_EVEN) | (odd & PACKED_ODD)) ^ PACKED_SIGNS;
     }
 
 }
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that the player is accepting an offer.
@@ -125,18 +123,28 @@ public class SOCAcceptOffer extends SOCMessage
      * @return    a StartGame message, or null of the data is garbled
      */
     public static SOCAcceptOffer parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a StartGame message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a StartGame message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCAcceptOffer parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int ac; // the number of the accepting player
         int of; //the number of the offering player
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            ac = Integer.parseInt(st.nextToken());
-            of = Integer.parseInt(st.nextToken());
+            ac = st.nextInt();
+            of = st.nextInt();
         }
         catch (Exception e)
         {
@@ -23,8 +23,6 @@ package soc.message;
 import soc.game.SOCResourceConstants;
 import soc.game.SOCResourceSet;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that a player wants to trade with the bank.
@@ -134,6 +132,18 @@ public class SOCBankTrade extends SOCMessage
      * @return    a BankTrade message, or null of the data is garbled
      */
     public static SOCBankTrade parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a BankTrade message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a BankTrade message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCBankTrade parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         SOCResourceSet give; // the set of resources being given to the bank
@@ -142,8 +152,6 @@ public class SOCBankTrade extends SOCMessage
         give = new SOCResourceSet();
         get = new SOCResourceSet();
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
@@ -153,12 +161,12 @@ public class SOCBankTrade extends SOCMessage
              */
             for (int i = 1; i <= SOCResourceConstants.WOOD; i++)
             {
-                give.setAmount(Integer.parseInt(st.nextToken()), i);
+                give.setAmount(st.nextInt(), i);
             }
 
             for (int i = 1; i <= SOCResourceConstants.WOOD; i++)
             {
-                get.setAmount(Integer.parseInt(st.nextToken()), i);
+                get.setAmount(st.nextInt(), i);
             }
         }
         catch (Exception e)
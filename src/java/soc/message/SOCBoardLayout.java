@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message contains the board layout information.
@@ -223,28 +221,38 @@ public class SOCBoardLayout extends SOCMessage
      * @return    a BoardLayout message
      */
     public static SOCBoardLayout parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a BoardLayout message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a BoardLayout message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCBoardLayout parseDataStr(final SOCMessageCursor st)
     {
         String ga; // game name
         int[] hl = new int[37]; // hex layout
         int[] nl = new int[37]; // number layout
         int rh; // robber hex
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
 
             for (int i = 0; i < 37; i++)
             {
-                hl[i] = Integer.parseInt(st.nextToken());
+                hl[i] = st.nextInt();
             }
 
             for (int i = 0; i < 37; i++)
             {
-                nl[i] = Integer.parseInt(st.nextToken());
+                nl[i] = st.nextInt();
             }
 
-            rh = Integer.parseInt(st.nextToken());
+            rh = st.nextInt();
         }
         catch (Exception e)
         {
@@ -254,6 +262,41 @@ public class SOCBoardLayout extends SOCMessage
         return new SOCBoardLayout(ga, hl, nl, rh, true);
     }
 
+    /**
+     * Write this message's fields in binary format: game, hexLayout, numberLayout as sent, robberHex.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeIntArray(hexLayout);
+        enc.writeIntArray(numberLayout);
+        enc.writeInt(robberHex);
+        return true;
+    }
+
+    /**
+     * Read a BoardLayout message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a BoardLayout message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCBoardLayout fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        final String ga = dec.readString();
+        final int[] hl = dec.readIntArray();
+        final int[] nl = dec.readIntArray();
+        if ((hl.length != 37) || (nl.length != 37))
+            throw new IllegalArgumentException("layout length");
+
+        return new SOCBoardLayout(ga, hl, nl, dec.readInt(), true);
+    }
+
     /**
      * Render the SOCBoardLayout in human-readable form.
      * In version 1.1.09 and later, the hexLayout and numberLayout contents are included,
@@ -288,6 +288,63 @@ public class SOCBoardLayout2 extends SOCMessage
         return new SOCBoardLayout2(ga, bef, parts);
     }
 
+    /**
+     * Write this message's fields in binary format: game, encoding format, number of parts, and then
+     * each part's name, a boolean true if it's an int[], and its value as an int[] or String.
+     * Integer parts are written as Strings, the same as {@link #parseDataStr(String)} would read them.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(boardEncodingFormat);
+        enc.writeInt(layoutParts.size());
+        for (Enumeration e = layoutParts.keys(); e.hasMoreElements(); )
+        {
+            final String okey = (String) e.nextElement();
+            final Object ov = layoutParts.get(okey);
+            enc.writeString(okey);
+            if (ov instanceof int[])
+            {
+                enc.writeBoolean(true);
+                enc.writeIntArray((int[]) ov);
+            } else {
+                enc.writeBoolean(false);
+                enc.writeString(ov.toString());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a BoardLayout2 message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a BoardLayout2 message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCBoardLayout2 fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        final String ga = dec.readString();
+        final int bef = dec.readInt();
+        final int n = dec.readInt();
+        Hashtable parts = new Hashtable();
+        for (int i = 0; i < n; ++i)
+        {
+            final String pname = dec.readString();
+            if (dec.readBoolean())
+                parts.put(pname, dec.readIntArray());
+            else
+                parts.put(pname, dec.readString());
+        }
+
+        return new SOCBoardLayout2(ga, bef, parts);
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message, from client to server, says which piece type the current player wants to build.
@@ -106,16 +104,26 @@ public class SOCBuildRequest extends SOCMessage
      * @return    a BuildRequest message, or null of the data is garbled
      */
     public static SOCBuildRequest parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a BuildRequest message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a BuildRequest message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCBuildRequest parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pt; // the type of piece to build
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pt = Integer.parseInt(st.nextToken());
+            pt = st.nextInt();
         }
         catch (Exception e)
         {
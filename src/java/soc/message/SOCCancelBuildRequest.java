@@ -20,7 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
 
 /**
  *  This message type has four meanings, depending on game state and direction of send. 
@@ -131,16 +130,26 @@ public class SOCCancelBuildRequest extends SOCMessage
      * @return    a CancelBuildRequest message, or null of the data is garbled
      */
     public static SOCCancelBuildRequest parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a CancelBuildRequest message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a CancelBuildRequest message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCCancelBuildRequest parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pt; // the type of piece to build
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pt = Integer.parseInt(st.nextToken());
+            pt = st.nextInt();
         }
         catch (Exception e)
         {
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message says that a player is changing the
@@ -116,18 +114,28 @@ public class SOCChangeFace extends SOCMessage
      * @return    a ChangeFace message, or null of the data is garbled
      */
     public static SOCChangeFace parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a ChangeFace message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a ChangeFace message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCChangeFace parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the number of the changing player
         int id; // the id of the face image
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            id = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            id = st.nextInt();
         }
         catch (Exception e)
         {
@@ -137,6 +145,35 @@ public class SOCChangeFace extends SOCMessage
         return new SOCChangeFace(ga, pn, id);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, faceId.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeInt(faceId);
+        return true;
+    }
+
+    /**
+     * Read a ChangeFace message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a ChangeFace message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCChangeFace fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCChangeFace
+            (dec.readString(), dec.readInt(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message says which player the current player wants to
@@ -100,16 +98,26 @@ public class SOCChoosePlayer extends SOCMessage
      * @return    a ChoosePlayer message, or null of the data is garbled
      */
     public static SOCChoosePlayer parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a ChoosePlayer message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a ChoosePlayer message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCChoosePlayer parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int ch; // the number of the chosen player 
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            ch = Integer.parseInt(st.nextToken());
+            ch = st.nextInt();
         }
         catch (Exception e)
         {
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message asks a player to choose a player to
@@ -109,12 +107,22 @@ public class SOCChoosePlayerRequest extends SOCMessage
      * @return    a ChoosePlayerRequest message, or null of the data is garbled
      */
     public static SOCChoosePlayerRequest parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a ChoosePlayerRequest message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a ChoosePlayerRequest message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCChoosePlayerRequest parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         boolean[] ch; // the choices
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
@@ -124,7 +132,7 @@ public class SOCChoosePlayerRequest extends SOCMessage
 
             while (st.hasMoreTokens())
             {
-                ch[count] = (Boolean.valueOf(st.nextToken())).booleanValue();
+                ch[count] = st.nextBoolean();
                 count++;
             }
         }
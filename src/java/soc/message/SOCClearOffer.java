@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that the player is retracting an offer.
@@ -108,16 +106,26 @@ public class SOCClearOffer extends SOCMessage
      * @return    a CLEAROFFER message, or null of the data is garbled
      */
     public static SOCClearOffer parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a CLEAROFFER message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a CLEAROFFER message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCClearOffer parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the seat number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
         }
         catch (Exception e)
         {
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that the server wants the trade message cleared.
@@ -107,16 +105,26 @@ public class SOCClearTradeMsg extends SOCMessage
      * @return    a StartGame message, or null of the data is garbled
      */
     public static SOCClearTradeMsg parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a StartGame message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a StartGame message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCClearTradeMsg parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the seat number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
         }
         catch (Exception e)
         {
@@ -20,7 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
 import soc.game.SOCDevCardConstants;  // for javadoc's use
 
 
@@ -152,20 +151,30 @@ public class SOCDevCard extends SOCMessage
      * @return    a DevCard message, or null of the data is garbled
      */
     public static SOCDevCard parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a DevCard message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a DevCard message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCDevCard parseDataStr(final SOCMessageCursor st)
     {
         String ga;
         int pn;
         int ac;
         int ct;
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            ac = Integer.parseInt(st.nextToken());
-            ct = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            ac = st.nextInt();
+            ct = st.nextInt();
         }
         catch (Exception e)
         {
@@ -175,6 +184,36 @@ public class SOCDevCard extends SOCMessage
         return new SOCDevCard(ga, pn, ac, ct);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, actionType, cardType.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeInt(actionType);
+        enc.writeInt(cardType);
+        return true;
+    }
+
+    /**
+     * Read a DevCard message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a DevCard message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCDevCard fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCDevCard
+            (dec.readString(), dec.readInt(), dec.readInt(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message says how many development cards are in the deck.
@@ -99,16 +97,26 @@ public class SOCDevCardCount extends SOCMessage
      * @return    a DevCardCount message, or null of the data is garbled
      */
     public static SOCDevCardCount parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a DevCardCount message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a DevCardCount message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCDevCardCount parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int nd; // the number of dev cards 
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            nd = Integer.parseInt(st.nextToken());
+            nd = st.nextInt();
         }
         catch (Exception e)
         {
@@ -118,6 +126,34 @@ public class SOCDevCardCount extends SOCMessage
         return new SOCDevCardCount(ga, nd);
     }
 
+    /**
+     * Write this message's fields in binary format: game, numDevCards.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(numDevCards);
+        return true;
+    }
+
+    /**
+     * Read a DevCardCount message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a DevCardCount message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCDevCardCount fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCDevCardCount
+            (dec.readString(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
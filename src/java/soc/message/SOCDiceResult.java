@@ -19,8 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message reports total of what was rolled on the dice.
@@ -68,16 +66,26 @@ public class SOCDiceResult extends SOCMessageTemplate1i
      * @return    a DiceResult message, or null if the data is garbled
      */
     public static SOCDiceResult parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a DiceResult message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a DiceResult message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCDiceResult parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int dr; // the dice result
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            dr = Integer.parseInt(st.nextToken());
+            dr = st.nextInt();
         }
         catch (Exception e)
         {
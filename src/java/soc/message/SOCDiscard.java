@@ -23,8 +23,6 @@ package soc.message;
 import soc.game.SOCResourceConstants;
 import soc.game.SOCResourceSet;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that a player is discarding
@@ -140,6 +138,18 @@ public class SOCDiscard extends SOCMessage
      * @return    a Discard message, or null of the data is garbled
      */
     public static SOCDiscard parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a Discard message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a Discard message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCDiscard parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int cl; // the ammount of clay being discarded  
@@ -149,17 +159,15 @@ public class SOCDiscard extends SOCMessage
         int wo; // the ammount of wood being discarded  
         int uk; // the ammount of unknown resources being discarded  
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            cl = Integer.parseInt(st.nextToken());
-            or = Integer.parseInt(st.nextToken());
-            sh = Integer.parseInt(st.nextToken());
-            wh = Integer.parseInt(st.nextToken());
-            wo = Integer.parseInt(st.nextToken());
-            uk = Integer.parseInt(st.nextToken());
+            cl = st.nextInt();
+            or = st.nextInt();
+            sh = st.nextInt();
+            wh = st.nextInt();
+            wo = st.nextInt();
+            uk = st.nextInt();
         }
         catch (Exception e)
         {
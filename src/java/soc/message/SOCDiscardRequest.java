@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message requests that the player discard a particular number of cards
@@ -99,16 +97,26 @@ public class SOCDiscardRequest extends SOCMessage
      * @return    a DiscardRequest message, or null of the data is garbled
      */
     public static SOCDiscardRequest parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a DiscardRequest message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a DiscardRequest message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCDiscardRequest parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int nd; // the number of discards
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            nd = Integer.parseInt(st.nextToken());
+            nd = st.nextInt();
         }
         catch (Exception e)
         {
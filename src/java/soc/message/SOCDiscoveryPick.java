@@ -23,8 +23,6 @@ package soc.message;
 import soc.game.SOCResourceConstants;
 import soc.game.SOCResourceSet;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message says which resources the player picked
@@ -108,14 +106,24 @@ public class SOCDiscoveryPick extends SOCMessage
      * @return    a DiscoveryPick message, or null of the data is garbled
      */
     public static SOCDiscoveryPick parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a DiscoveryPick message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a DiscoveryPick message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCDiscoveryPick parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         SOCResourceSet rs; // the chosen resources
 
         rs = new SOCResourceSet();
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
@@ -125,7 +133,7 @@ public class SOCDiscoveryPick extends SOCMessage
              */
             for (int i = 1; i <= SOCResourceConstants.WOOD; i++)
             {
-                rs.setAmount(Integer.parseInt(st.nextToken()), i);
+                rs.setAmount(st.nextInt(), i);
             }
         }
         catch (Exception e)
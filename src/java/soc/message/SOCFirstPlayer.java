@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message says who the first player is
@@ -99,16 +97,26 @@ public class SOCFirstPlayer extends SOCMessage
      * @return    a StartGame message, or null of the data is garbled
      */
     public static SOCFirstPlayer parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a StartGame message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a StartGame message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCFirstPlayer parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the seat number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
         }
         catch (Exception e)
         {
@@ -118,6 +126,34 @@ public class SOCFirstPlayer extends SOCMessage
         return new SOCFirstPlayer(ga, pn);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        return true;
+    }
+
+    /**
+     * Read a FirstPlayer message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a FirstPlayer message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCFirstPlayer fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCFirstPlayer
+            (dec.readString(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -20,7 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
 import soc.game.SOCGame;  // for javadoc's use
 
 
@@ -104,16 +103,26 @@ public class SOCGameState extends SOCMessage
      * @return    a GameState message, or null of the data is garbled
      */
     public static SOCGameState parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a GameState message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a GameState message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCGameState parseDataStr(final SOCMessageCursor st)
     {
         String ga;
         int gs;
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            gs = Integer.parseInt(st.nextToken());
+            gs = st.nextInt();
         }
         catch (Exception e)
         {
@@ -123,6 +132,34 @@ public class SOCGameState extends SOCMessage
         return new SOCGameState(ga, gs);
     }
 
+    /**
+     * Write this message's fields in binary format: game, state.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(state);
+        return true;
+    }
+
+    /**
+     * Read a GameState message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a GameState message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCGameState fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCGameState
+            (dec.readString(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message contains the scores for the people at a game.
@@ -129,13 +127,23 @@ public class SOCGameStats extends SOCMessage
      * @return    a GameStats message, or null of the data is garbled
      */
     public static SOCGameStats parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a GameStats message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a GameStats message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCGameStats parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int[] sc; // the scores
         boolean[] rb; // where robots are sitting
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
@@ -145,12 +153,12 @@ public class SOCGameStats extends SOCMessage
 
             for (int i = 0; i < maxPlayers; i++)
             {
-                sc[i] = Integer.parseInt(st.nextToken());
+                sc[i] = st.nextInt();
             }
 
             for (int i = 0; i < maxPlayers; i++)
             {
-                rb[i] = (Boolean.valueOf(st.nextToken())).booleanValue();
+                rb[i] = st.nextBoolean();
             }
         }
         catch (Exception e)
@@ -20,6 +20,8 @@
  **/
 package soc.message;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Vector;
 
 import soc.game.SOCGame;
@@ -31,7 +33,8 @@ import soc.util.SOCGameList;
  * their {@link soc.game.SOCGameOption game options}.
  * It's constructed and sent for each connecting client
  * which can understand game options (1.1.07 and newer),
- * by calling {@link #toCmd(Vector, int)}.
+ * by calling {@link #toCmd(Vector, int)}, or {@link #SOCGamesWithOptions(Vector, int)}
+ * to send in {@link SOCMessageBinary binary format}.
  *<P>
  * Robot clients don't need to know about or handle this message type,
  * because they don't create games.
@@ -52,8 +55,7 @@ public class SOCGamesWithOptions extends SOCMessageTemplateMs
      * but not the game options into {@link soc.game.SOCGameOption game option}
      * objects; call {@link soc.game.SOCGameOption#parseOptionsToHash(String)} for that.
      *<P>
-     * There is no server-side constructor, because the server
-     * instead calls {@link #toCmd(Vector, int)}.
+     * For the server-side constructor, see {@link #SOCGamesWithOptions(Vector, int)}.
      *
      * @param gla Game list array; can be empty, but not null
      */
@@ -62,6 +64,18 @@ public class SOCGamesWithOptions extends SOCMessageTemplateMs
         super(GAMESWITHOPTIONS, "-", gla);
     }
 
+    /**
+     * Constructor for server to send its list of games as a message object,
+     * such as to clients which can read {@link SOCMessageBinary binary format}.
+     * @param ga  the list of games; see {@link #toCmd(Vector, int)}
+     * @param cliVers  Client version; see {@link #toCmd(Vector, int)}
+     * @since 1.2.00
+     */
+    public SOCGamesWithOptions(Vector ga, final int cliVers)
+    {
+        this(toParams(ga, cliVers));
+    }
+
     /**
      * Get the list of games (and option strings).
      * List contains each game's name and option strings sent from server, as packed by
@@ -124,24 +138,103 @@ public class SOCGamesWithOptions extends SOCMessageTemplateMs
      */
     public static String toCmd(Vector ga, final int cliVers)
     {
-        // build by iteration
-        StringBuffer sb = new StringBuffer(Integer.toString(SOCMessage.GAMESWITHOPTIONS));
+        return toCmd(GAMESWITHOPTIONS, null, toParams(ga, cliVers));
+    }
+
+    /**
+     * Build the parameter list from a set of games: Each game's name and then its options.
+     * @param ga  the list of games; see {@link #toCmd(Vector, int)}
+     * @param cliVers  Client version; see {@link #toCmd(Vector, int)}
+     * @return  the parameters, 2 per game
+     * @since 1.2.00
+     */
+    private static String[] toParams(Vector ga, final int cliVers)
+    {
+        String[] gla = new String[2 * ga.size()];
         for (int i = 0; i < ga.size(); ++i)
         {
-            sb.append(sep);
             Object ob = ga.elementAt(i);
             if (ob instanceof SOCGame)
             {
-                sb.append(((SOCGame) ob).getName());
-                sb.append(sep);
-                sb.append(SOCGameOption.packOptionsToString(((SOCGame) ob).getGameOptions(), false, cliVers));
+                gla[2 * i] = ((SOCGame) ob).getName();
+                gla[2 * i + 1] = SOCGameOption.packOptionsToString(((SOCGame) ob).getGameOptions(), false, cliVers);
             } else {
-                sb.append((String) ob);
-                sb.append(sep);
-                sb.append("-");
+                gla[2 * i] = (String) ob;
+                gla[2 * i + 1] = "-";
             }
         }
-        return sb.toString();
+        return gla;
+    }
+
+    /**
+     * GAMESWITHOPTIONS sep game1 sep options1 sep game2 sep options2 ...
+     *
+     * @return the command String
+     * @since 1.2.00
+     */
+    public String toCmd()
+    {
+        return toCmd(GAMESWITHOPTIONS, null, pa);
+    }
+
+    /**
+     * Write this message's fields in binary format: the number of parameters (game names and option strings),
+     * and then each parameter. Many games have the same options, so each parameter is written as 0 followed
+     * by the string the first time it's seen, or as the 1-based index of that earlier distinct string.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeInt(pa.length);
+        HashMap<String, Integer> seen = new HashMap<String, Integer>();
+        for (int i = 0; i < pa.length; ++i)
+        {
+            final String s = pa[i];
+            final Integer idx = seen.get(s);
+            if (idx != null)
+            {
+                enc.writeInt(idx.intValue());
+            } else {
+                enc.writeInt(0);
+                enc.writeString(s);
+                seen.put(s, Integer.valueOf(seen.size() + 1));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a GamesWithOptions message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a GamesWithOptions message, or null if there's an odd number of parameters
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCGamesWithOptions fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        final int n = dec.readInt();
+        if (n < 0)
+            throw new IllegalArgumentException("list length");
+
+        String[] gla = new String[n];
+        ArrayList<String> distinct = new ArrayList<String>();
+        for (int i = 0; i < n; ++i)
+        {
+            final int idx = dec.readInt();
+            if (idx == 0)
+            {
+                gla[i] = dec.readString();
+                distinct.add(gla[i]);
+            } else {
+                gla[i] = distinct.get(idx - 1);  // throws IndexOutOfBoundsException if garbled
+            }
+        }
+
+        return parseDataStr(gla);
     }
 
 }
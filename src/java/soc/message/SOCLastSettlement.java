@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message tells the client where the last settlement was places
@@ -120,18 +118,28 @@ public class SOCLastSettlement extends SOCMessage
      * @return    a TextMsg message, or null of the data is garbled
      */
     public static SOCLastSettlement parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a MoveRobber message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a MoveRobber message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCLastSettlement parseDataStr(final SOCMessageCursor st)
     {
         String na; // name of the game
         int pn; // player number
         int co; // coordinates
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             na = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            co = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            co = st.nextInt();
         }
         catch (Exception e)
         {
@@ -141,6 +149,35 @@ public class SOCLastSettlement extends SOCMessage
         return new SOCLastSettlement(na, pn, co);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, coordinates.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeInt(coordinates);
+        return true;
+    }
+
+    /**
+     * Read a LastSettlement message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a LastSettlement message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCLastSettlement fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCLastSettlement
+            (dec.readString(), dec.readInt(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
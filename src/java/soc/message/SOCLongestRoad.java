@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message says which player has longest road.
@@ -102,16 +100,26 @@ public class SOCLongestRoad extends SOCMessage
      * @return    a StartGame message, or null of the data is garbled
      */
     public static SOCLongestRoad parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a StartGame message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a StartGame message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCLongestRoad parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the seat number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
         }
         catch (Exception e)
         {
@@ -121,6 +129,34 @@ public class SOCLongestRoad extends SOCMessage
         return new SOCLongestRoad(ga, pn);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        return true;
+    }
+
+    /**
+     * Read a LongestRoad message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a LongestRoad message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCLongestRoad fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCLongestRoad
+            (dec.readString(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -24,8 +24,6 @@ import soc.game.SOCResourceConstants;
 import soc.game.SOCResourceSet;
 import soc.game.SOCTradeOffer;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that a player wants to trade with other players
@@ -126,6 +124,18 @@ public class SOCMakeOffer extends SOCMessage
      * @return    a MakeOffer message, or null of the data is garbled
      */
     public static SOCMakeOffer parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a MakeOffer message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a MakeOffer message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCMakeOffer parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int from; // the number of the offering player
@@ -136,18 +146,16 @@ public class SOCMakeOffer extends SOCMessage
         give = new SOCResourceSet();
         get = new SOCResourceSet();
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            from = Integer.parseInt(st.nextToken());
+            from = st.nextInt();
             final int numPlayerTokens = st.countTokens() - (2 * 5);  // Should be == game.maxPlayers
             to = new boolean[numPlayerTokens];
 
             for (int i = 0; i < numPlayerTokens; i++)
             {
-                to[i] = (Boolean.valueOf(st.nextToken())).booleanValue();
+                to[i] = st.nextBoolean();
             }
 
             /**
@@ -155,12 +163,12 @@ public class SOCMakeOffer extends SOCMessage
              */
             for (int i = 1; i <= SOCResourceConstants.WOOD; i++)
             {
-                give.setAmount(Integer.parseInt(st.nextToken()), i);
+                give.setAmount(st.nextInt(), i);
             }
 
             for (int i = 1; i <= SOCResourceConstants.WOOD; i++)
             {
-                get.setAmount(Integer.parseInt(st.nextToken()), i);
+                get.setAmount(st.nextInt(), i);
             }
         }
         catch (Exception e)
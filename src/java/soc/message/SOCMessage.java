@@ -20,9 +20,8 @@ package soc.message;
 
 import java.io.Serializable;
 
+import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.NoSuchElementException;
-import java.util.StringTokenizer;
 
 
 /**
@@ -56,8 +55,10 @@ import java.util.StringTokenizer;
  *      If the message is specific to the JSettlers game and its interface,
  *      use a message number above 10000.  The intention is that other kinds of games
  *      can be played eventually within this server framework.
- * <LI> Add it to the switch in {@link #toMsg(String)}.  Again, note the version with a comment.
+ * <LI> Add it to the second switch in {@link #toMsg(String)}.  Again, note the version with a comment.
  *      In the switch you will call <tt>yourMessageType.parseDataStr(data)</tt>.
+ *      If the message is sent often during game play, instead add it to the first switch and give your class
+ *      a package-level <tt>parseDataStr({@link SOCMessageCursor})</tt> which reads fields in place.
  *      If your message class extends {@link SOCMessageTemplateMs} or {@link SOCMessageTemplateMi},
  *      instead call <tt>yourMessageType.parseDataStr(multiData)</tt>:
  *      for details see {@link SOCMessageMulti} class javadoc.
@@ -305,6 +306,23 @@ public abstract class SOCMessage implements Serializable, Cloneable
      */
     public abstract String toCmd();
 
+    /**
+     * Write this message's fields in the optional {@link SOCMessageBinary binary format}, if its type has a
+     * binary schema. Types with a schema override this method, and have a case in
+     * {@link SOCMessageBinary#decode(byte[], int, int)} which reads the same fields in the same order.
+     * The message type ID has already been written.
+     *<P>
+     * This default method writes nothing, so the message is always sent as text from {@link #toCmd()}.
+     *
+     * @param enc  Encoder to write fields to
+     * @return  True if written, false if this type has no binary schema
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        return false;
+    }
+
     /** Simple human-readable representation, used for debug purposes. */
     public abstract String toString();
 
@@ -423,26 +441,36 @@ public abstract class SOCMessage implements Serializable, Cloneable
      * Convert a string into a SOCMessage.
      * The string is in the form of "id SEP messagename {SEP2 messagedata}*".
      * If the message type id is unknown, this is printed to System.err.
+     *<P>
+     * The string is scanned once, without a tokenizer. Frequent in-game message types
+     * read their fields in place from a {@link SOCMessageCursor}; others are given their data as a String.
      *
      * @param s  String to convert
      * @return   converted String to a SOCMessage, or null if the string is garbled,
      *           or is an unknown command id
      */
-    public static SOCMessage toMsg(String s)
+    public static SOCMessage toMsg(final String s)
     {
         try
         {
-            StringTokenizer st = new StringTokenizer(s, sep);
+            final int len = s.length();
 
             /**
              * get the id that identifies the type of message
              */
-            int msgId = Integer.parseInt(st.nextToken());
+            final int idStart = skipSep(s, 0);
+            int idEnd = s.indexOf(sep_char, idStart);
+            if (idEnd == -1)
+                idEnd = len;
+            final int msgId = SOCMessageCursor.parseInt(s, idStart, idEnd);
 
             /**
-             * get the rest of the data
+             * find the rest of the data, up to the next SEP if any
              */
-            String data;
+            final int dataStart = skipSep(s, idEnd);
+            int dataEnd = (dataStart < len) ? s.indexOf(sep_char, dataStart) : -1;
+            if (dataEnd == -1)
+                dataEnd = len;
 
             /**
              * to handle {@link SOCMessageMulti} subclasses -
@@ -469,37 +497,142 @@ public abstract class SOCMessage implements Serializable, Cloneable
              *         return SOCPotentialSettlements.parseDataStr(multiData);
              *</pre>
              */
-            String[] multiData = null; 
+            final String[] multiData = (dataEnd < len) ? splitMultiData(s, dataStart) : null;
 
-            try
-            {
-                data = st.nextToken();
-                if (st.hasMoreTokens())
-                {
-                        // SOCMessageMulti
-
-                        int n = st.countTokens();  // remaining (== number of parameters after "data")
-                        multiData = new String[n+1];
-                        multiData[0] = data;
-                        for (int i = 1; st.hasMoreTokens(); ++i)
-                        {
-                                try {
-                                        multiData[i] = st.nextToken();
-                                } catch (NoSuchElementException e)
-                                {
-                                        multiData[i] = null;
-                                }
-                        }
-                }
-            }
-            catch (NoSuchElementException e)
+            /**
+             * convert the data part and create the message.
+             * The frequent types in this first switch read the data in place with a cursor.
+             * Their type IDs are densely packed, so the switch compiles to a jump table
+             * indexed by message type.
+             */
+            final SOCMessageCursor dc = new SOCMessageCursor(s, dataStart, dataEnd);
+            switch (msgId)
             {
-                data = "";
+            case PUTPIECE:
+                return SOCPutPiece.parseDataStr(dc);
+
+            case SITDOWN:
+                return SOCSitDown.parseDataStr(dc);
+
+            case BOARDLAYOUT:
+                return SOCBoardLayout.parseDataStr(dc);
+
+            case PLAYERELEMENT:
+                return SOCPlayerElement.parseDataStr(dc);
+
+            case GAMESTATE:
+                return SOCGameState.parseDataStr(dc);
+
+            case TURN:
+                return SOCTurn.parseDataStr(dc);
+
+            case DICERESULT:
+                return SOCDiceResult.parseDataStr(dc);
+
+            case DISCARDREQUEST:
+                return SOCDiscardRequest.parseDataStr(dc);
+
+            case DISCARD:
+                return SOCDiscard.parseDataStr(dc);
+
+            case MOVEROBBER:
+                return SOCMoveRobber.parseDataStr(dc);
+
+            case CHOOSEPLAYER:
+                return SOCChoosePlayer.parseDataStr(dc);
+
+            case CHOOSEPLAYERREQUEST:
+                return SOCChoosePlayerRequest.parseDataStr(dc);
+
+            case REJECTOFFER:
+                return SOCRejectOffer.parseDataStr(dc);
+
+            case CLEAROFFER:
+                return SOCClearOffer.parseDataStr(dc);
+
+            case ACCEPTOFFER:
+                return SOCAcceptOffer.parseDataStr(dc);
+
+            case BANKTRADE:
+                return SOCBankTrade.parseDataStr(dc);
+
+            case MAKEOFFER:
+                return SOCMakeOffer.parseDataStr(dc);
+
+            case CLEARTRADEMSG:
+                return SOCClearTradeMsg.parseDataStr(dc);
+
+            case BUILDREQUEST:
+                return SOCBuildRequest.parseDataStr(dc);
+
+            case CANCELBUILDREQUEST:
+                return SOCCancelBuildRequest.parseDataStr(dc);
+
+            case DEVCARD:
+                return SOCDevCard.parseDataStr(dc);
+
+            case DEVCARDCOUNT:
+                return SOCDevCardCount.parseDataStr(dc);
+
+            case SETPLAYEDDEVCARD:
+                return SOCSetPlayedDevCard.parseDataStr(dc);
+
+            case PLAYDEVCARDREQUEST:
+                return SOCPlayDevCardRequest.parseDataStr(dc);
+
+            case DISCOVERYPICK:
+                return SOCDiscoveryPick.parseDataStr(dc);
+
+            case MONOPOLYPICK:
+                return SOCMonopolyPick.parseDataStr(dc);
+
+            case FIRSTPLAYER:
+                return SOCFirstPlayer.parseDataStr(dc);
+
+            case SETTURN:
+                return SOCSetTurn.parseDataStr(dc);
+
+            case POTENTIALSETTLEMENTS:
+                return SOCPotentialSettlements.parseDataStr(dc);
+
+            case CHANGEFACE:
+                return SOCChangeFace.parseDataStr(dc);
+
+            case LASTSETTLEMENT:
+                return SOCLastSettlement.parseDataStr(dc);
+
+            case GAMESTATS:
+                return SOCGameStats.parseDataStr(dc);
+
+            case RESOURCECOUNT:
+                return SOCResourceCount.parseDataStr(dc);
+
+            case LONGESTROAD:
+                return SOCLongestRoad.parseDataStr(dc);
+
+            case LARGESTARMY:
+                return SOCLargestArmy.parseDataStr(dc);
+
+            case SETSEATLOCK:
+                return SOCSetSeatLock.parseDataStr(dc);
+
+            case ROLLDICEPROMPT:     // autoroll, 20071003, sf patch #1812254
+                return SOCRollDicePrompt.parseDataStr(dc);
+
+            case SIMPLEREQUEST:     // simple player requests, 20130217, v1.1.18
+                return SOCSimpleRequest.parseDataStr(dc);
+
+            case SIMPLEACTION:      // simple actions for players, 20141024, v1.1.19
+                return SOCSimpleAction.parseDataStr(dc);
+
+            default:
+                break;  // not a cursor type; see next switch
             }
 
             /**
-             * convert the data part and create the message
+             * other types: get the data as a String
              */
+            final String data = s.substring(dataStart, dataEnd);
             switch (msgId)
             {
             case AUTHREQUEST:        // authentication request, 20141106, v1.1.19
@@ -532,24 +665,15 @@ public abstract class SOCMessage implements Serializable, Cloneable
             case LEAVEALL:
                 return SOCLeaveAll.parseDataStr(data);
 
-            case PUTPIECE:
-                return SOCPutPiece.parseDataStr(data);
-
             case GAMETEXTMSG:
                 return SOCGameTextMsg.parseDataStr(data);
 
             case LEAVEGAME:
                 return SOCLeaveGame.parseDataStr(data);
 
-            case SITDOWN:
-                return SOCSitDown.parseDataStr(data);
-
             case JOINGAME:
                 return SOCJoinGame.parseDataStr(data);
 
-            case BOARDLAYOUT:
-                return SOCBoardLayout.parseDataStr(data);
-
             case GAMES:
                 return SOCGames.parseDataStr(data);
 
@@ -577,24 +701,9 @@ public abstract class SOCMessage implements Serializable, Cloneable
             case JOINGAMEREQUEST:
                 return SOCJoinGameRequest.parseDataStr(data);
 
-            case PLAYERELEMENT:
-                return SOCPlayerElement.parseDataStr(data);
-
-            case GAMESTATE:
-                return SOCGameState.parseDataStr(data);
-
-            case TURN:
-                return SOCTurn.parseDataStr(data);
-
             case SETUPDONE:
                 return SOCSetupDone.parseDataStr(data);
 
-            case DICERESULT:
-                return SOCDiceResult.parseDataStr(data);
-
-            case DISCARDREQUEST:
-                return SOCDiscardRequest.parseDataStr(data);
-
             case ROLLDICEREQUEST:
                 return SOCRollDiceRequest.parseDataStr(data);
 
@@ -604,108 +713,24 @@ public abstract class SOCMessage implements Serializable, Cloneable
             case ENDTURN:
                 return SOCEndTurn.parseDataStr(data);
 
-            case DISCARD:
-                return SOCDiscard.parseDataStr(data);
-
-            case MOVEROBBER:
-                return SOCMoveRobber.parseDataStr(data);
-
-            case CHOOSEPLAYER:
-                return SOCChoosePlayer.parseDataStr(data);
-
-            case CHOOSEPLAYERREQUEST:
-                return SOCChoosePlayerRequest.parseDataStr(data);
-
-            case REJECTOFFER:
-                return SOCRejectOffer.parseDataStr(data);
-
-            case CLEAROFFER:
-                return SOCClearOffer.parseDataStr(data);
-
-            case ACCEPTOFFER:
-                return SOCAcceptOffer.parseDataStr(data);
-
-            case BANKTRADE:
-                return SOCBankTrade.parseDataStr(data);
-
-            case MAKEOFFER:
-                return SOCMakeOffer.parseDataStr(data);
-
-            case CLEARTRADEMSG:
-                return SOCClearTradeMsg.parseDataStr(data);
-
-            case BUILDREQUEST:
-                return SOCBuildRequest.parseDataStr(data);
-
-            case CANCELBUILDREQUEST:
-                return SOCCancelBuildRequest.parseDataStr(data);
-
             case BUYCARDREQUEST:
                 return SOCBuyCardRequest.parseDataStr(data);
 
-            case DEVCARD:
-                return SOCDevCard.parseDataStr(data);
-
-            case DEVCARDCOUNT:
-                return SOCDevCardCount.parseDataStr(data);
-
-            case SETPLAYEDDEVCARD:
-                return SOCSetPlayedDevCard.parseDataStr(data);
-
-            case PLAYDEVCARDREQUEST:
-                return SOCPlayDevCardRequest.parseDataStr(data);
-
-            case DISCOVERYPICK:
-                return SOCDiscoveryPick.parseDataStr(data);
-
-            case MONOPOLYPICK:
-                return SOCMonopolyPick.parseDataStr(data);
-
-            case FIRSTPLAYER:
-                return SOCFirstPlayer.parseDataStr(data);
-
-            case SETTURN:
-                return SOCSetTurn.parseDataStr(data);
-
             case ROBOTDISMISS:
                 return SOCRobotDismiss.parseDataStr(data);
 
-            case POTENTIALSETTLEMENTS:
-                return SOCPotentialSettlements.parseDataStr(data);
-
-            case CHANGEFACE:
-                return SOCChangeFace.parseDataStr(data);
-
             case REJECTCONNECTION:
                 return SOCRejectConnection.parseDataStr(data);
 
-            case LASTSETTLEMENT:
-                return SOCLastSettlement.parseDataStr(data);
-
-            case GAMESTATS:
-                return SOCGameStats.parseDataStr(data);
-
             case BCASTTEXTMSG:
                 return SOCBCastTextMsg.parseDataStr(data);
 
-            case RESOURCECOUNT:
-                return SOCResourceCount.parseDataStr(data);
-
             case ADMINPING:
                 return SOCAdminPing.parseDataStr(data);
 
             case ADMINRESET:
                 return SOCAdminReset.parseDataStr(data);
 
-            case LONGESTROAD:
-                return SOCLongestRoad.parseDataStr(data);
-
-            case LARGESTARMY:
-                return SOCLargestArmy.parseDataStr(data);
-
-            case SETSEATLOCK:
-                return SOCSetSeatLock.parseDataStr(data);
-
             case STATUSMESSAGE:
                 return SOCStatusMessage.parseDataStr(data);
 
@@ -718,9 +743,6 @@ public abstract class SOCMessage implements Serializable, Cloneable
             case SERVERPING:
                 return SOCServerPing.parseDataStr(data);
 
-            case ROLLDICEPROMPT:     // autoroll, 20071003, sf patch #1812254
-                return SOCRollDicePrompt.parseDataStr(data);
-
             case RESETBOARDREQUEST:  // resetboard, 20080217, v1.1.00
                 return SOCResetBoardRequest.parseDataStr(data);
 
@@ -772,12 +794,6 @@ public abstract class SOCMessage implements Serializable, Cloneable
             case TIMINGPING:        // robot timing ping, 20111011, v1.1.13
                 return SOCTimingPing.parseDataStr(data);
 
-            case SIMPLEREQUEST:     // simple player requests, 20130217, v1.1.18
-                return SOCSimpleRequest.parseDataStr(data);
-
-            case SIMPLEACTION:      // simple actions for players, 20141024, v1.1.19
-                return SOCSimpleAction.parseDataStr(data);
-
             default:
                 System.err.println("Unhandled message type in SOCMessage.toMsg: " + msgId);
                 return null;
@@ -791,4 +807,48 @@ public abstract class SOCMessage implements Serializable, Cloneable
             return null;
         }
     }
+
+    /**
+     * Skip any {@link #sep_char} characters, for {@link #toMsg(String)}.
+     * @param s  Message string
+     * @param i  Index to start at
+     * @return  Index of the first non-SEP character at or after {@code i}, or {@code s.length()}
+     * @since 1.2.00
+     */
+    private static int skipSep(final String s, int i)
+    {
+        final int len = s.length();
+        while ((i < len) && (s.charAt(i) == sep_char))
+            ++i;
+
+        return i;
+    }
+
+    /**
+     * Split a {@link SOCMessageMulti} message's data into its non-empty parameters, for {@link #toMsg(String)}.
+     * Empty parameters (repeated SEP) are skipped, as {@link java.util.StringTokenizer} would.
+     * @param s  Message string
+     * @param i  Index of the first parameter, after the type id and SEP
+     * @return  The parameters, or null if there's only 1
+     * @since 1.2.00
+     */
+    private static String[] splitMultiData(final String s, int i)
+    {
+        final ArrayList<String> params = new ArrayList<String>();
+        final int len = s.length();
+        while (i < len)
+        {
+            int pe = s.indexOf(sep_char, i);
+            if (pe == -1)
+                pe = len;
+            if (pe > i)
+                params.add(s.substring(i, pe));
+            i = skipSep(s, pe);
+        }
+
+        if (params.size() < 2)
+            return null;
+
+        return params.toArray(new String[params.size()]);
+    }
 }
@@ -0,0 +1,428 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Optional compact binary format for some frequent or large message types,
+ * sent from server to clients which can read it.
+ *<P>
+ * On the network, each message is a frame: 2-byte length and then the message's data,
+ * the same framing as {@link java.io.DataOutputStream#writeUTF(String)}. A text frame's data is the
+ * message's {@link SOCMessage#toCmd()} in modified UTF-8, which never contains a 0 byte.
+ * A binary frame's data starts with a 0 byte ({@link #FRAME_MARKER}), then the message type ID
+ * and the message's fields in its type's binary schema. So text and binary frames can be mixed
+ * on the same connection, and each can be recognized without any other state.
+ *<P>
+ * Binary fields:
+ *<UL>
+ * <LI> int: Zigzag-encoded varint, so small negative values like -1 are also 1 byte
+ * <LI> boolean: 1 byte, 0 or 1
+ * <LI> String: varint byte length, then UTF-8 bytes
+ * <LI> int[]: varint length, then that many ints
+ *</UL>
+ * Each message type with a binary schema writes its fields in {@link SOCMessage#toBinary(Encoder)}
+ * and reads them in a package-level static {@code fromBinary(Decoder)} called from {@link #decode(byte[], int, int)},
+ * much like {@link SOCMessage#toCmd()} and {@code parseDataStr}. Types without a schema are always sent as text.
+ *<P>
+ * Negotiation: A client which can read binary frames includes {@link #FEAT_BINARY_FRAMES}
+ * in the feature list of the {@link SOCVersion} it sends to the server. If the server allows binary frames,
+ * it then sends binary frames to that client for types having a schema; older servers ignore the feature
+ * and send only text. The server never sends binary frames to clients which didn't ask for them.
+ * Clients always send text.
+ *<P>
+ * The set of types with schemas is fixed for each version, starting with {@link #VERSION_FOR_BINARY_FRAMES}.
+ * If a later version adds a schema to a type, the server must send that type's binary form only to clients
+ * of that version or newer, like any other new message feature.
+ *
+ * @since 1.2.00
+ */
+public final class SOCMessageBinary
+{
+    /** Minimum version (1.2.00) of client and server which can use binary frames. */
+    public static final int VERSION_FOR_BINARY_FRAMES = 1200;
+
+    /**
+     * Client feature name "bin" in {@link SOCVersion#feats}, for clients which can read binary frames.
+     * The feature list has the same format as {@link soc.util.SOCServerFeatures#getEncodedList()}.
+     */
+    public static final String FEAT_BINARY_FRAMES = "bin";
+
+    /** First byte of a binary frame's data. Modified UTF-8 never contains a 0 byte. */
+    public static final byte FRAME_MARKER = 0;
+
+    private SOCMessageBinary() {}
+
+    /**
+     * Get the client feature list to send in {@link SOCVersion} to ask the server for binary frames.
+     * {@link SOCVersion} can't send features without a build number, so a client without one
+     * doesn't ask and always gets text.
+     * @param verBuild  Client's version build, from {@link soc.util.Version#buildnum()}, or null
+     * @return  Feature list containing {@link #FEAT_BINARY_FRAMES}, or null if {@code verBuild} is null
+     */
+    public static String getClientFeatures(final String verBuild)
+    {
+        return (verBuild != null) ? (';' + FEAT_BINARY_FRAMES + ';') : null;
+    }
+
+    /**
+     * Encode a message as a binary frame, if its type has a binary schema.
+     * @param mes  Message to encode; not null
+     * @return  Frame bytes including the 2-byte length, or null if {@code mes}'s type
+     *     has no binary schema and must be sent as text
+     * @throws IllegalArgumentException if the frame would be longer than 65535 bytes
+     */
+    public static byte[] encodeFrame(final SOCMessage mes)
+        throws IllegalArgumentException
+    {
+        final Encoder enc = new Encoder();
+        enc.buf[2] = FRAME_MARKER;
+        enc.len = 3;
+        enc.writeInt(mes.getType());
+        if (! mes.toBinary(enc))
+            return null;
+
+        final int datalen = enc.len - 2;
+        if (datalen > 0xFFFF)
+            throw new IllegalArgumentException("frame too long: " + datalen);
+        enc.buf[0] = (byte) (datalen >>> 8);
+        enc.buf[1] = (byte) datalen;
+
+        if (enc.len == enc.buf.length)
+            return enc.buf;
+
+        final byte[] frame = new byte[enc.len];
+        System.arraycopy(enc.buf, 0, frame, 0, enc.len);
+        return frame;
+    }
+
+    /**
+     * Is this frame data a binary frame?
+     * @param data  Frame data, without the 2-byte length
+     * @param off  Offset of data within {@code data}
+     * @param len  Length of frame data
+     * @return  True if its first byte is {@link #FRAME_MARKER}
+     */
+    public static boolean isBinary(final byte[] data, final int off, final int len)
+    {
+        return (len > 0) && (data[off] == FRAME_MARKER);
+    }
+
+    /**
+     * Decode a binary frame's data into a message.
+     * If the message type is unknown or has no binary schema, this is printed to System.err.
+     * @param data  Frame data, without the 2-byte length, starting with {@link #FRAME_MARKER}
+     * @param off  Offset of data within {@code data}
+     * @param len  Length of frame data
+     * @return  The decoded message, or null if the data is garbled or is an unknown type, like {@link SOCMessage#toMsg(String)}
+     */
+    public static SOCMessage decode(final byte[] data, final int off, final int len)
+    {
+        try
+        {
+            final Decoder dec = new Decoder(data, off + 1, off + len);
+            final int msgId = dec.readInt();
+
+            switch (msgId)
+            {
+            case SOCMessage.PUTPIECE:
+                return SOCPutPiece.fromBinary(dec);
+
+            case SOCMessage.SITDOWN:
+                return SOCSitDown.fromBinary(dec);
+
+            case SOCMessage.BOARDLAYOUT:
+                return SOCBoardLayout.fromBinary(dec);
+
+            case SOCMessage.PLAYERELEMENT:
+                return SOCPlayerElement.fromBinary(dec);
+
+            case SOCMessage.GAMESTATE:
+                return SOCGameState.fromBinary(dec);
+
+            case SOCMessage.TURN:
+                return SOCTurn.fromBinary(dec);
+
+            case SOCMessage.DICERESULT:  // template types' fields are written by SOCMessageTemplate1i or 4i
+                return new SOCDiceResult(dec.readString(), dec.readInt());
+
+            case SOCMessage.DEVCARD:
+                return SOCDevCard.fromBinary(dec);
+
+            case SOCMessage.DEVCARDCOUNT:
+                return SOCDevCardCount.fromBinary(dec);
+
+            case SOCMessage.FIRSTPLAYER:
+                return SOCFirstPlayer.fromBinary(dec);
+
+            case SOCMessage.SETTURN:
+                return new SOCSetTurn(dec.readString(), dec.readInt());
+
+            case SOCMessage.POTENTIALSETTLEMENTS:
+                return SOCPotentialSettlements.fromBinary(dec);
+
+            case SOCMessage.CHANGEFACE:
+                return SOCChangeFace.fromBinary(dec);
+
+            case SOCMessage.LASTSETTLEMENT:
+                return SOCLastSettlement.fromBinary(dec);
+
+            case SOCMessage.RESOURCECOUNT:
+                return SOCResourceCount.fromBinary(dec);
+
+            case SOCMessage.LONGESTROAD:
+                return SOCLongestRoad.fromBinary(dec);
+
+            case SOCMessage.LARGESTARMY:
+                return SOCLargestArmy.fromBinary(dec);
+
+            case SOCMessage.SETSEATLOCK:
+                return SOCSetSeatLock.fromBinary(dec);
+
+            case SOCMessage.GAMESWITHOPTIONS:
+                return SOCGamesWithOptions.fromBinary(dec);
+
+            case SOCMessage.BOARDLAYOUT2:
+                return SOCBoardLayout2.fromBinary(dec);
+
+            case SOCMessage.RESETBOARDVOTEREQUEST:
+                return new SOCResetBoardVoteRequest(dec.readString(), dec.readInt());
+
+            case SOCMessage.SIMPLEREQUEST:
+                return new SOCSimpleRequest
+                    (dec.readString(), dec.readInt(), dec.readInt(), dec.readInt(), dec.readInt());
+
+            case SOCMessage.SIMPLEACTION:
+                return new SOCSimpleAction
+                    (dec.readString(), dec.readInt(), dec.readInt(), dec.readInt(), dec.readInt());
+
+            default:
+                System.err.println("Unhandled message type in SOCMessageBinary.decode: " + msgId);
+                return null;
+            }
+        }
+        catch (Exception e)
+        {
+            System.err.println("SOCMessageBinary.decode ERROR - " + e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Read the next message from a network stream, which may send text or binary frames.
+     * Used by clients instead of {@link DataInputStream#readUTF()} and {@link SOCMessage#toMsg(String)}.
+     * @param in  Stream to read a frame from
+     * @return  The message, or null if garbled or an unknown type
+     * @throws IOException if an I/O error occurs, such as end of stream
+     */
+    public static SOCMessage readMessage(final DataInputStream in)
+        throws IOException
+    {
+        final int datalen = in.readUnsignedShort();
+        final byte[] frame = new byte[datalen + 2];
+        frame[0] = (byte) (datalen >>> 8);
+        frame[1] = (byte) datalen;
+        in.readFully(frame, 2, datalen);
+
+        if (isBinary(frame, 2, datalen))
+            return decode(frame, 2, datalen);
+
+        // text: decode the modified UTF-8 the same way readUTF would
+        final String s = DataInputStream.readUTF
+            (new DataInputStream(new ByteArrayInputStream(frame)));
+        return SOCMessage.toMsg(s);
+    }
+
+    /**
+     * Writes a message's fields into a binary frame; see {@link SOCMessageBinary} for field formats.
+     * Used by {@link SOCMessage#toBinary(Encoder)}.
+     */
+    public static final class Encoder
+    {
+        /** Frame being written; grows as needed. Starts with room for the 2-byte length. */
+        byte[] buf = new byte[64];
+
+        /** Number of bytes written into {@link #buf} */
+        int len;
+
+        Encoder() {}
+
+        private void ensure(final int n)
+        {
+            if (len + n > buf.length)
+            {
+                final byte[] nb = new byte[Math.max(buf.length * 2, len + n)];
+                System.arraycopy(buf, 0, nb, 0, len);
+                buf = nb;
+            }
+        }
+
+        /** Write an int as a zigzag varint. */
+        public void writeInt(final int i)
+        {
+            ensure(5);
+            int v = (i << 1) ^ (i >> 31);
+            while ((v & ~0x7F) != 0)
+            {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        /** Write a boolean as 1 byte. */
+        public void writeBoolean(final boolean b)
+        {
+            ensure(1);
+            buf[len++] = (byte) (b ? 1 : 0);
+        }
+
+        /**
+         * Write a String as its UTF-8 byte length and bytes.
+         * @param s  String to write; not null
+         */
+        public void writeString(final String s)
+        {
+            final byte[] sb;
+            try
+            {
+                sb = s.getBytes("UTF-8");
+            }
+            catch (UnsupportedEncodingException e)
+            {
+                throw new IllegalStateException("UTF-8");  // every JVM supports UTF-8
+            }
+
+            writeInt(sb.length);
+            ensure(sb.length);
+            System.arraycopy(sb, 0, buf, len, sb.length);
+            len += sb.length;
+        }
+
+        /**
+         * Write an int array as its length and contents.
+         * @param ia  Array to write; not null
+         */
+        public void writeIntArray(final int[] ia)
+        {
+            writeInt(ia.length);
+            for (int i = 0; i < ia.length; ++i)
+                writeInt(ia[i]);
+        }
+    }
+
+    /**
+     * Reads a message's fields from a binary frame; see {@link SOCMessageBinary} for field formats.
+     * Used by each message type's {@code fromBinary} method. Each read method throws
+     * {@link IllegalArgumentException} if the frame is truncated or garbled.
+     */
+    public static final class Decoder
+    {
+        private final byte[] buf;
+
+        /** Position of the next byte to read, and end of the frame (exclusive) */
+        private int pos;
+        private final int end;
+
+        Decoder(final byte[] buf, final int start, final int end)
+        {
+            this.buf = buf;
+            pos = start;
+            this.end = end;
+        }
+
+        /** Are there more bytes to read? */
+        public boolean hasMore()
+        {
+            return (pos < end);
+        }
+
+        /** Read a zigzag varint. */
+        public int readInt()
+            throws IllegalArgumentException
+        {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7)
+            {
+                if (pos >= end)
+                    throw new IllegalArgumentException("truncated");
+                final int b = buf[pos++];
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return (v >>> 1) ^ -(v & 1);
+            }
+
+            throw new IllegalArgumentException("varint too long");
+        }
+
+        /** Read a 1-byte boolean. */
+        public boolean readBoolean()
+            throws IllegalArgumentException
+        {
+            if (pos >= end)
+                throw new IllegalArgumentException("truncated");
+
+            return (buf[pos++] != 0);
+        }
+
+        /** Read a String written by {@link Encoder#writeString(String)}. */
+        public String readString()
+            throws IllegalArgumentException
+        {
+            final int n = readInt();
+            if ((n < 0) || (n > end - pos))
+                throw new IllegalArgumentException("bad string length " + n);
+
+            final String s;
+            try
+            {
+                s = new String(buf, pos, n, "UTF-8");
+            }
+            catch (UnsupportedEncodingException e)
+            {
+                throw new IllegalStateException("UTF-8");
+            }
+            pos += n;
+
+            return s;
+        }
+
+        /** Read an int array written by {@link Encoder#writeIntArray(int[])}. */
+        public int[] readIntArray()
+            throws IllegalArgumentException
+        {
+            final int n = readInt();
+            if ((n < 0) || (n > end - pos))  // each element takes at least 1 byte
+                throw new IllegalArgumentException("bad array length " + n);
+
+            final int[] ia = new int[n];
+            for (int i = 0; i < n; ++i)
+                ia[i] = readInt();
+
+            return ia;
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.message;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a message's data fields in place, separated by {@link SOCMessage#sep2_char},
+ * without copying the data or allocating a tokenizer. Integers and booleans are read directly
+ * from the message's characters; only {@link #nextToken()} creates a String.
+ *<P>
+ * Field semantics are the same as a {@link java.util.StringTokenizer} over {@link SOCMessage#sep2}:
+ * Empty fields are skipped, and method names match, so a {@code parseDataStr} method can switch
+ * from one to the other with few changes. Used by {@link SOCMessage#toMsg(String)}, which gives each
+ * message type's parser a cursor over the data part of the received message.
+ *<P>
+ * Not thread-safe; each cursor is used by one parser.
+ *
+ * @since 1.2.00
+ */
+public final class SOCMessageCursor
+{
+    /** Message text being read */
+    private final String s;
+
+    /** Position of the next character to read, and end of the data (exclusive) */
+    private int pos;
+    private final int end;
+
+    /**
+     * Create a cursor over all of a message's data.
+     * @param s  Data part of a message, such as {@code "gamename,3,12"}; not null
+     */
+    public SOCMessageCursor(final String s)
+    {
+        this(s, 0, s.length());
+    }
+
+    /**
+     * Create a cursor over part of a message.
+     * @param s  Message text; not null
+     * @param start  Index where data starts
+     * @param end  Index where data ends (exclusive)
+     */
+    public SOCMessageCursor(final String s, final int start, final int end)
+    {
+        this.s = s;
+        pos = start;
+        this.end = end;
+    }
+
+    /**
+     * Skip any separators at the current position.
+     * @return  true if another field remains
+     */
+    private boolean skipSeparators()
+    {
+        while ((pos < end) && (s.charAt(pos) == SOCMessage.sep2_char))
+            ++pos;
+
+        return (pos < end);
+    }
+
+    /**
+     * Find the end of the field starting at {@link #pos}.
+     * @return  Index of the next separator, or {@link #end}
+     */
+    private int fieldEnd()
+    {
+        int i = pos;
+        while ((i < end) && (s.charAt(i) != SOCMessage.sep2_char))
+            ++i;
+
+        return i;
+    }
+
+    /**
+     * Are there more fields to read?
+     * @return  true if {@link #nextToken()} would return a field
+     */
+    public boolean hasMoreTokens()
+    {
+        return skipSeparators();
+    }
+
+    /**
+     * Count the fields not yet read, without reading them.
+     * @return  Number of fields remaining
+     */
+    public int countTokens()
+    {
+        int n = 0;
+        boolean inField = false;
+        for (int i = pos; i < end; ++i)
+        {
+            if (s.charAt(i) == SOCMessage.sep2_char)
+            {
+                inField = false;
+            }
+            else if (! inField)
+            {
+                inField = true;
+                ++n;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * Read the next field as a String.
+     * @return  Next field
+     * @throws NoSuchElementException if no fields remain
+     */
+    public String nextToken()
+        throws NoSuchElementException
+    {
+        if (! skipSeparators())
+            throw new NoSuchElementException();
+
+        final int start = pos;
+        pos = fieldEnd();
+
+        return s.substring(start, pos);
+    }
+
+    /**
+     * Read the next field as an int, in the same format as {@link Integer#parseInt(String)}.
+     * @return  Next field's value
+     * @throws NoSuchElementException if no fields remain
+     * @throws NumberFormatException if the field isn't an int
+     */
+    public int nextInt()
+        throws NoSuchElementException, NumberFormatException
+    {
+        if (! skipSeparators())
+            throw new NoSuchElementException();
+
+        final int start = pos;
+        pos = fieldEnd();
+
+        return parseInt(s, start, pos);
+    }
+
+    /**
+     * Parse an int from part of a string, in the same format as {@link Integer#parseInt(String)},
+     * without creating a substring in the usual case of a short ASCII number.
+     * @param s  String containing the number
+     * @param start  Index where the number starts
+     * @param end  Index where the number ends (exclusive)
+     * @return  The number's value
+     * @throws NumberFormatException if that part of {@code s} isn't an int
+     */
+    static int parseInt(final String s, final int start, final int end)
+        throws NumberFormatException
+    {
+        if (start >= end)
+            throw new NumberFormatException("empty");
+
+        int i = start;
+        final boolean neg = (s.charAt(i) == '-');
+        if (neg || (s.charAt(i) == '+'))
+            ++i;
+
+        // 9 digits always fit in an int; leave longer or unusual values to Integer.parseInt
+        if ((i == end) || (end - i > 9))
+            return Integer.parseInt(s.substring(start, end));
+
+        int val = 0;
+        for (; i < end; ++i)
+        {
+            final char c = s.charAt(i);
+            if ((c < '0') || (c > '9'))
+                return Integer.parseInt(s.substring(start, end));  // throws, or parses non-ASCII digits
+
+            val = (val * 10) + (c - '0');
+        }
+
+        return (neg) ? -val : val;
+    }
+
+    /**
+     * Read the next field as a boolean, in the same format as {@link Boolean#valueOf(String)}:
+     * true if the field is {@code "true"} ignoring case, otherwise false.
+     * @return  Next field's value
+     * @throws NoSuchElementException if no fields remain
+     */
+    public boolean nextBoolean()
+        throws NoSuchElementException
+    {
+        if (! skipSeparators())
+            throw new NoSuchElementException();
+
+        final int start = pos;
+        pos = fieldEnd();
+
+        return ((pos - start) == 4) && s.regionMatches(true, start, "true", 0, 4);
+    }
+
+}
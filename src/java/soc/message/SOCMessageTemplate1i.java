@@ -119,6 +119,20 @@ public abstract class SOCMessageTemplate1i extends SOCMessage
         return Integer.toString(messageType) + sep + ga + sep2 + param;
     }
 
+    /**
+     * Write this message's fields in binary format: game, param.
+     * Each subclass must have a case in {@link SOCMessageBinary#decode(byte[], int, int)}.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(p1);
+        return true;
+    }
+
     /**
      * Parse the command String into a MessageType message
      *
@@ -180,6 +180,23 @@ public abstract class SOCMessageTemplate4i extends SOCMessage
         return Integer.toString(messageType) + sep + ga + sep2 + p1 + sep2 + p2 + sep2 + p3 + sep2 + p4;
     }
 
+    /**
+     * Write this message's fields in binary format: game, param1, param2, param3, param4.
+     * Each subclass must have a case in {@link SOCMessageBinary#decode(byte[], int, int)}.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(p1);
+        enc.writeInt(p2);
+        enc.writeInt(p3);
+        enc.writeInt(p4);
+        return true;
+    }
+
     /**
      * Parse the command String into a MessageType message
      *
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message says what resource the current player wants to
@@ -100,16 +98,26 @@ public class SOCMonopolyPick extends SOCMessage
      * @return    a StartGame message, or null of the data is garbled
      */
     public static SOCMonopolyPick parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a StartGame message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a StartGame message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCMonopolyPick parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int rs; // the chosen resource
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            rs = Integer.parseInt(st.nextToken());
+            rs = st.nextInt();
         }
         catch (Exception e)
         {
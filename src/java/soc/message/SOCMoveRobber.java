@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that a player wants to move the robber
@@ -119,18 +117,28 @@ public class SOCMoveRobber extends SOCMessage
      * @return    a TextMsg message, or null of the data is garbled
      */
     public static SOCMoveRobber parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a MoveRobber message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a MoveRobber message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCMoveRobber parseDataStr(final SOCMessageCursor st)
     {
         String na; // name of the game
         int pn; // player number
         int co; // coordinates
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             na = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            co = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            co = st.nextInt();
         }
         catch (Exception e)
         {
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message from client means that a player wants to play a development card.
@@ -103,16 +101,26 @@ public class SOCPlayDevCardRequest extends SOCMessage
      * @return    a PlayDevCardRequest message, or null of the data is garbled
      */
     public static SOCPlayDevCardRequest parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a PlayDevCardRequest message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a PlayDevCardRequest message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCPlayDevCardRequest parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int dc; // the type of dev card
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            dc = Integer.parseInt(st.nextToken());
+            dc = st.nextInt();
         }
         catch (Exception e)
         {
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message conveys one part of the player's status, such as their number of
@@ -309,6 +307,18 @@ public class SOCPlayerElement extends SOCMessage
      * @return    a PlayerElement message, or null of the data is garbled
      */
     public static SOCPlayerElement parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a PlayerElement message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a PlayerElement message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCPlayerElement parseDataStr(final SOCMessageCursor st)
     {
         String ga;
         int pn;
@@ -317,15 +327,13 @@ public class SOCPlayerElement extends SOCMessage
         int va;
         boolean isNews = false;
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            ac = Integer.parseInt(st.nextToken());
-            et = Integer.parseInt(st.nextToken());
-            va = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            ac = st.nextInt();
+            et = st.nextInt();
+            va = st.nextInt();
             if (st.hasMoreTokens())
                 isNews = st.nextToken().equals("Y");
         }
@@ -337,6 +345,38 @@ public class SOCPlayerElement extends SOCMessage
         return new SOCPlayerElement(ga, pn, ac, et, va, isNews);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, actionType, elementType, value, news.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeInt(actionType);
+        enc.writeInt(elementType);
+        enc.writeInt(value);
+        enc.writeBoolean(news);
+        return true;
+    }
+
+    /**
+     * Read a PlayerElement message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a PlayerElement message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCPlayerElement fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCPlayerElement
+            (dec.readString(), dec.readInt(), dec.readInt(), dec.readInt(), dec.readInt(), dec.readBoolean());
+    }
+
     /**
      * @return a human readable form of the message
      */
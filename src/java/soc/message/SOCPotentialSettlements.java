@@ -21,7 +21,6 @@
 package soc.message;
 
 import java.util.Enumeration;
-import java.util.StringTokenizer;
 import java.util.Vector;
 
 
@@ -126,21 +125,31 @@ public class SOCPotentialSettlements extends SOCMessage
      * @return    a PotentialSettlements message, or null of the data is garbled
      */
     public static SOCPotentialSettlements parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a PotentialSettlements message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a PotentialSettlements message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCPotentialSettlements parseDataStr(final SOCMessageCursor st)
     {
         String ga;
         int pn;
         Vector ps = new Vector();
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
 
             while (st.hasMoreTokens())
             {
-                ps.addElement(new Integer(Integer.parseInt(st.nextToken())));
+                ps.addElement(new Integer(st.nextInt()));
             }
         }
         catch (Exception e)
@@ -151,6 +160,57 @@ public class SOCPotentialSettlements extends SOCMessage
         return new SOCPotentialSettlements(ga, pn, ps);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, the list's length,
+     * and the list with each node coordinate after the first written as its difference
+     * from the previous one. The list is usually in increasing order, so most differences fit in 1 byte.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeInt(psList.size());
+        int prev = 0;
+        for (int i = 0; i < psList.size(); ++i)
+        {
+            final int node = ((Integer) psList.elementAt(i)).intValue();
+            enc.writeInt(node - prev);
+            prev = node;
+        }
+        return true;
+    }
+
+    /**
+     * Read a PotentialSettlements message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a PotentialSettlements message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCPotentialSettlements fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        final String ga = dec.readString();
+        final int pn = dec.readInt();
+        final int n = dec.readInt();
+        if (n < 0)
+            throw new IllegalArgumentException("list length");
+
+        Vector ps = new Vector();
+        int node = 0;
+        for (int i = 0; i < n; ++i)
+        {
+            node += dec.readInt();
+            ps.addElement(new Integer(node));
+        }
+
+        return new SOCPotentialSettlements(ga, pn, ps);
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -20,7 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
 
 /**
  * This message means that a player is asking to place, or has placed, a piece on the board
@@ -134,20 +133,30 @@ public class SOCPutPiece extends SOCMessage
      * @return    a TextMsg message, or null of the data is garbled
      */
     public static SOCPutPiece parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a PutPiece message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a PutPiece message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCPutPiece parseDataStr(final SOCMessageCursor st)
     {
         String na; // name of the game
         int pn; // player number
         int pt; // type of piece
         int co; // coordinates
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             na = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            pt = Integer.parseInt(st.nextToken());
-            co = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            pt = st.nextInt();
+            co = st.nextInt();
         }
         catch (Exception e)
         {
@@ -157,6 +166,36 @@ public class SOCPutPiece extends SOCMessage
         return new SOCPutPiece(na, pn, pt, co);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, pieceType, coordinates.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeInt(pieceType);
+        enc.writeInt(coordinates);
+        return true;
+    }
+
+    /**
+     * Read a PutPiece message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a PutPiece message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCPutPiece fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCPutPiece
+            (dec.readString(), dec.readInt(), dec.readInt(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
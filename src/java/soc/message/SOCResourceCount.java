@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message has the total resource count for a player
@@ -115,18 +113,28 @@ public class SOCResourceCount extends SOCMessage
      * @return    a ResourceCount message, or null of the data is garbled
      */
     public static SOCResourceCount parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a ResourceCount message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a ResourceCount message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCResourceCount parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the seat number
         int rc; // the resource count
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            rc = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            rc = st.nextInt();
         }
         catch (Exception e)
         {
@@ -136,6 +144,35 @@ public class SOCResourceCount extends SOCMessage
         return new SOCResourceCount(ga, pn, rc);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, count.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeInt(count);
+        return true;
+    }
+
+    /**
+     * Read a ResourceCount message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a ResourceCount message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCResourceCount fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCResourceCount
+            (dec.readString(), dec.readInt(), dec.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -19,8 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message from server informs all players whose turn it is,
@@ -99,16 +97,26 @@ public class SOCRollDicePrompt extends SOCMessage
      * @return    a DiceResult message, or null of the data is garbled
      */
     public static SOCRollDicePrompt parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a RollDiceRequest message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a RollDiceRequest message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCRollDicePrompt parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn;    // the player number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
         }
         catch (Exception e)
         {
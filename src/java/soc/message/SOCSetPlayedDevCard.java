@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message sets the flag which says if a player has
@@ -116,18 +114,28 @@ public class SOCSetPlayedDevCard extends SOCMessage
      * @return    a StartGame message, or null of the data is garbled
      */
     public static SOCSetPlayedDevCard parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a StartGame message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a StartGame message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCSetPlayedDevCard parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the seat number
         boolean pd; // the value of the playedDevCard flag
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            pd = (Boolean.valueOf(st.nextToken())).booleanValue();
+            pn = st.nextInt();
+            pd = st.nextBoolean();
         }
         catch (Exception e)
         {
@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message sets the lock state of a seat.
@@ -119,18 +117,28 @@ public class SOCSetSeatLock extends SOCMessage
      * @return    a SetSeatLock message, or null of the data is garbled
      */
     public static SOCSetSeatLock parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a SetSeatLock message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a SetSeatLock message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCSetSeatLock parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the number of the changing player
         boolean ls; // the state of the lock
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            ls = (Boolean.valueOf(st.nextToken())).booleanValue();
+            pn = st.nextInt();
+            ls = st.nextBoolean();
         }
         catch (Exception e)
         {
@@ -140,6 +148,35 @@ public class SOCSetSeatLock extends SOCMessage
         return new SOCSetSeatLock(ga, pn, ls);
     }
 
+    /**
+     * Write this message's fields in binary format: game, playerNumber, state.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeInt(playerNumber);
+        enc.writeBoolean(state);
+        return true;
+    }
+
+    /**
+     * Read a SetSeatLock message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a SetSeatLock message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCSetSeatLock fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCSetSeatLock
+            (dec.readString(), dec.readInt(), dec.readBoolean());
+    }
+
     /**
      * @return a human readable form of the message
      */
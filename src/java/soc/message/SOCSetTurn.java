@@ -19,8 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message from server to client says whose turn it is.
@@ -70,16 +68,26 @@ public class SOCSetTurn extends SOCMessageTemplate1i
      * @return    a StartGame message, or null if the data is garbled
      */
     public static SOCSetTurn parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a SetTurn message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a SetTurn message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCSetTurn parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         int pn; // the seat number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
         }
         catch (Exception e)
         {
@@ -19,7 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
 
 /**
  * This generic message from the server to clients handles a simple action or event for a client player in a game.
@@ -172,6 +171,18 @@ public class SOCSimpleAction extends SOCMessageTemplate4i
      * @return    a SOCSimpleAction message, or <tt>null</tt> if the data is garbled
      */
     public static SOCSimpleAction parseDataStr(final String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a SOCSimpleAction message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a SOCSimpleAction message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCSimpleAction parseDataStr(final SOCMessageCursor st)
     {
         final String ga; // the game name
         final int pn;    // the player number
@@ -179,15 +190,13 @@ public class SOCSimpleAction extends SOCMessageTemplate4i
         final int v1;    // optional value1
         final int v2;    // optional value2
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            at = Integer.parseInt(st.nextToken());
-            v1 = Integer.parseInt(st.nextToken());
-            v2 = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            at = st.nextInt();
+            v1 = st.nextInt();
+            v2 = st.nextInt();
         }
         catch (Exception e)
         {
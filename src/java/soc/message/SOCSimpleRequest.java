@@ -19,7 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
 
 /**
  * This generic message handles a simple request from a client player in a game.
@@ -167,6 +166,18 @@ public class SOCSimpleRequest extends SOCMessageTemplate4i
      * @return    a SOCSimpleRequest message, or <tt>null</tt> if the data is garbled
      */
     public static SOCSimpleRequest parseDataStr(final String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a SOCSimpleRequest message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a SOCSimpleRequest message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCSimpleRequest parseDataStr(final SOCMessageCursor st)
     {
         final String ga; // the game name
         final int pn;    // the player number
@@ -174,15 +185,13 @@ public class SOCSimpleRequest extends SOCMessageTemplate4i
         final int v1;    // optional value1
         final int v2;    // optional value2
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            rt = Integer.parseInt(st.nextToken());
-            v1 = Integer.parseInt(st.nextToken());
-            v2 = Integer.parseInt(st.nextToken());
+            pn = st.nextInt();
+            rt = st.nextInt();
+            v1 = st.nextInt();
+            v2 = st.nextInt();
         }
         catch (Exception e)
         {
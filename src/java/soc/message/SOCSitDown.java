@@ -20,8 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 
 /**
  * This message means that a player wants to sit down to play
@@ -131,20 +129,30 @@ public class SOCSitDown extends SOCMessage
      * @return    a SitDown message, or null of the data is garbled
      */
     public static SOCSitDown parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageCursor(s));
+    }
+
+    /**
+     * Parse the command data into a SitDown message, reading its fields from a cursor
+     *
+     * @param st  cursor over the data, from {@link SOCMessage#toMsg(String)}
+     * @return    a SitDown message, or null if the data is garbled
+     * @since 1.2.00
+     */
+    static SOCSitDown parseDataStr(final SOCMessageCursor st)
     {
         String ga; // the game name
         String nk; // nickname of the player
         int pn; // the seat number
         boolean rf; // the value of the robot flag
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
             ga = st.nextToken();
             nk = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            rf = (Boolean.valueOf(st.nextToken())).booleanValue();
+            pn = st.nextInt();
+            rf = st.nextBoolean();
         }
         catch (Exception e)
         {
@@ -154,6 +162,36 @@ public class SOCSitDown extends SOCMessage
         return new SOCSitDown(ga, nk, pn, rf);
     }
 
+    /**
+     * Write this message's fields in binary format: game, nickname, playerNumber, robotFlag.
+     * @param enc  encoder to write to
+     * @return true
+     * @since 1.2.00
+     */
+    protected boolean toBinary(final SOCMessageBinary.Encoder enc)
+    {
+        enc.writeString(game);
+        enc.writeString(nickname);
+        enc.writeInt(playerNumber);
+        enc.writeBoolean(robotFlag);
+        return true;
+    }
+
+    /**
+     * Read a SitDown message from its binary format, for {@link SOCMessageBinary#decode(byte[], int, int)}
+     *
+     * @param dec  decoder positioned at the message's fields
+     * @return    a SitDown message
+     * @throws IllegalArgumentException if the data is truncated or garbled
+     * @since 1.2.00
+     */
+    static SOCSitDown fromBinary(final SOCMessageBinary.Decoder dec)
+        throws IllegalArgumentException
+    {
+        return new SOCSitDown
+            (dec.readString(), dec.readString(), dec.readInt(), dec.readBoolean());
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -64,7 +64,9 @@ public class SOCVersion extends SOCMessage
      * Server's active optional features, or null, as in {@link SOCServerFeatures#getEncodedList()}.
      * Features not sent from servers older than 1.1.19.
      * See class javadoc for handling older servers when this field is null.
-     * Null when <tt>SOCVersion</tt> is sent from clients.
+     * Null when <tt>SOCVersion</tt> is sent from clients older than 1.2.00;
+     * newer clients may send their requested features in the same format,
+     * such as {@link SOCMessageBinary#FEAT_BINARY_FRAMES}.
      * @since 1.1.19
      */
     public final String feats;
@@ -78,7 +80,8 @@ public class SOCVersion extends SOCMessage
      * @param verFeats  The server's active optional features, or null, as in
      *                  {@link SOCServerFeatures#getEncodedList()}; not sent by servers older than 1.1.19.
      *                  Server can send this to a client older than 1.1.19, it is safely ignored.
-     *                  Null when <tt>SOCVersion</tt> is sent from clients.
+     *                  Clients 1.2.00 and newer may send their requested features here,
+     *                  from {@link SOCMessageBinary#getClientFeatures(String)}.
      * @throws IllegalArgumentException if <tt>verBuild</tt> is null and <tt>verFeats</tt> != null;
      *     not supported by message encoding.
      */
@@ -138,7 +141,8 @@ public class SOCVersion extends SOCMessage
      * @param verFeats  the server's active optional features, or null, as in
      *                  {@link SOCServerFeatures#getEncodedList()}; not sent by servers older than 1.1.19.
      *                  Server can send this to a client older than 1.1.19, it is safely ignored.
-     *                  Null when <tt>SOCVersion</tt> is sent from clients.
+     *                  Clients 1.2.00 and newer may send their requested features here,
+     *                  from {@link SOCMessageBinary#getClientFeatures(String)}.
      * @return    the command string
      * @throws IllegalArgumentException if <tt>verBuild</tt> is null and <tt>verFeats</tt> != null;
      *     not supported by message encoding.
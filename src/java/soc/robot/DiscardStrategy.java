@@ -40,8 +40,32 @@ public class DiscardStrategy {
 	/** debug logging */
     // private transient Logger log = Logger.getLogger(this.getClass().getName());
 
+    /**
+     * Random number generator, for discarding when we have no building plan
+     * @since 1.2.00
+     */
+    protected Random rand;
+
+    /**
+     * Create a DiscardStrategy with its own random number generator.
+     */
+    public DiscardStrategy()
+    {
+        this(new Random());
+    }
+
+    /**
+     * Create a DiscardStrategy which uses a given random number generator,
+     * so that a seeded game's choices can be repeated.
+     * @param rand  Random number generator to use
+     * @since 1.2.00
+     */
+    public DiscardStrategy(Random rand)
+    {
+        this.rand = rand;
+    }
+
 	public SOCResourceSet discard(int numDiscards, Stack buildingPlan, SOCPlayer ourPlayerData, SOCRobotParameters robotParameters, SOCRobotDM decisionMaker, SOCRobotNegotiator negotiator){
-		Random rand = new Random();
 		//log.debug("DISCARDING...");
 
         /**
@@ -67,25 +91,12 @@ public class DiscardStrategy {
             SOCResourceSet targetResources = SOCPlayingPiece.getResourcesToBuild(targetPiece.getType());
 
             /**
-             * figure out what resources are NOT the ones we need
+             * figure out what resources are NOT the ones we need.
+             * Packed resource sets, so picking doesn't copy the hand.
              */
-            SOCResourceSet leftOvers = ourPlayerData.getResources().copy();
-
-            for (int rsrc = SOCResourceConstants.CLAY;
-                    rsrc <= SOCResourceConstants.WOOD; rsrc++)
-            {
-                if (leftOvers.getAmount(rsrc) > targetResources.getAmount(rsrc))
-                {
-                    leftOvers.subtract(targetResources.getAmount(rsrc), rsrc);
-                }
-                else
-                {
-                    leftOvers.setAmount(0, rsrc);
-                }
-            }
-
-            SOCResourceSet neededRsrcs = ourPlayerData.getResources().copy();
-            neededRsrcs.subtract(leftOvers);
+            final long ourResources = ourPlayerData.getResources().getPacked();
+            long leftOvers = SOCResourceSet.subtract(ourResources, targetResources.getPacked());
+            long neededRsrcs = SOCResourceSet.subtract(ourResources, leftOvers);
 
             /**
              * figure out the order of resources from
@@ -128,10 +139,11 @@ public class DiscardStrategy {
                 while ((discards.getTotal() < numDiscards) && (curRsrc < 5))
                 {
                     //log.debug("(1) dis.tot="+discards.getTotal()+" curRsrc="+curRsrc);
-                    if (leftOvers.getAmount(resourceOrder[curRsrc]) > 0)
+                    final int amt = SOCResourceSet.getAmount(leftOvers, resourceOrder[curRsrc]);
+                    if (amt > 0)
                     {
                         discards.add(1, resourceOrder[curRsrc]);
-                        leftOvers.subtract(1, resourceOrder[curRsrc]);
+                        leftOvers = SOCResourceSet.setAmount(leftOvers, amt - 1, resourceOrder[curRsrc]);
                     }
                     else
                     {
@@ -147,10 +159,11 @@ public class DiscardStrategy {
                 while ((discards.getTotal() < numDiscards) && (curRsrc < 5))
                 {
                     //log.debug("(2) dis.tot="+discards.getTotal()+" curRsrc="+curRsrc);
-                    if (neededRsrcs.getAmount(resourceOrder[curRsrc]) > 0)
+                    final int amt = SOCResourceSet.getAmount(neededRsrcs, resourceOrder[curRsrc]);
+                    if (amt > 0)
                     {
                         discards.add(1, resourceOrder[curRsrc]);
-                        neededRsrcs.subtract(1, resourceOrder[curRsrc]);
+                        neededRsrcs = SOCResourceSet.setAmount(neededRsrcs, amt - 1, resourceOrder[curRsrc]);
                     }
                     else
                     {
@@ -37,12 +37,36 @@ public class RobberStrategy {
     // private transient Logger log = Logger.getLogger(this.getClass().getName());
     private transient D log = new D();
 
+   /**
+    * Random number generator, for picking a hex when there's no clear best choice
+    * @since 1.2.00
+    */
+   protected Random rand;
+
+   /**
+    * Create a RobberStrategy with its own random number generator.
+    */
+   public RobberStrategy()
+   {
+       this(new Random());
+   }
+
+   /**
+    * Create a RobberStrategy which uses a given random number generator,
+    * so that a seeded game's choices can be repeated.
+    * @param rand  Random number generator to use
+    * @since 1.2.00
+    */
+   public RobberStrategy(Random rand)
+   {
+       this.rand = rand;
+   }
+
    /**
     * move the robber
     */
    public int getBestRobberHex(SOCGame game, SOCPlayer ourPlayerData, HashMap playerTrackers)
    {
-       Random rand = new Random();
        log.debug("%%% MOVEROBBER");
 
        final int[] hexes = game.getBoard().getHexLandCoords();
@@ -105,13 +129,13 @@ public class RobberStrategy {
        int bestHex = robberHex;
        int worstSpeed = 0;
 
-       for (int i = 0; i < 19; i++)
+       for (int i = 0; i < hexes.length; i++)
        {
            /**
             * only check hexes that we're not touching,
             * and not the robber hex
             */
-           if ((hexes[i] != robberHex) && (ourPlayerData.getNumbers().getNumberResourcePairsForHex(hexes[i]).isEmpty()))
+           if ((hexes[i] != robberHex) && (! ourPlayerData.getNumbers().hasNumbersForHex(hexes[i])))
            {
                estimate.recalculateEstimates(victim.getNumbers(), hexes[i]);
 
@@ -139,12 +163,16 @@ public class RobberStrategy {
        log.debug("%%% bestHex = " + Integer.toHexString(bestHex));
 
        /**
-        * pick a spot at random if we can't decide
+        * pick a spot at random if we can't decide,
+        * trying 30 times to avoid one of our own hexes
         */
-       while ((bestHex == robberHex) && (ourPlayerData.getNumbers().getNumberResourcePairsForHex(hexes[bestHex]).isEmpty()))
+       int numRand = 0;
+       while ((bestHex == robberHex)
+              || ((numRand < 30) && ourPlayerData.getNumbers().hasNumbersForHex(bestHex)))
        {
            bestHex = hexes[Math.abs(rand.nextInt() % hexes.length)];
            log.debug("%%% random pick = " + Integer.toHexString(bestHex));
+           ++numRand;
        }
        
        return bestHex;
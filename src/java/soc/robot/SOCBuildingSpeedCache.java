@@ -0,0 +1,314 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.robot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import soc.game.SOCBoard;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+
+/**
+ * A bounded least-recently-used cache of {@link SOCBuildingSpeedEstimate#calculateRollsFast}
+ * results, shared by all robot brains in the JVM; see {@link SOCBuildingSpeedEstimate#getCache()}.
+ *<P>
+ * That calculation depends only on the starting and target resources, the trade ratio of each
+ * resource type from the player's ports, and the estimate's <tt>rollsPerResource</tt>.
+ * The same inputs come up over and over: Each brain's trackers and decision maker make new
+ * estimates for the same players several times a turn, and hands and production change slowly.
+ * Each cache key packs those inputs into 4 <tt>long</tt>s; see {@link #makeKey}.
+ *<P>
+ * An entry remembers either the number of rolls and the final hand, which answers any cutoff
+ * at least that large, or the cutoff which was exceeded, which answers any smaller cutoff.
+ *<P>
+ * Thread-safe. Lookups and stores hold the cache's lock only briefly;
+ * the calculation itself is done by the caller without the lock.
+ *
+ * @since 1.2.00
+ */
+public class SOCBuildingSpeedCache
+{
+    /** Number of bits per resource type's <tt>rollsPerResource</tt> in a key */
+    private static final int ROLLS_BITS = 16;
+
+    /** Largest <tt>rollsPerResource</tt> which fits in a key; includes 55555, for resources the player doesn't get */
+    private static final int ROLLS_MAX = (1 << ROLLS_BITS) - 1;
+
+    /** Maximum number of entries */
+    private final int capacity;
+
+    /**
+     * Entries in least-recently-used order.
+     *<P>
+     * <B>Locks:</B> Synchronize on this map, which also guards the stats counters.
+     */
+    private final LinkedHashMap<Key, Result> map;
+
+    /** Stats: Lookups which found an entry that answered them, lookups which didn't, and entries evicted */
+    private long hits, misses, evictions;
+
+    /**
+     * Create an empty cache.
+     * @param capacity  Maximum number of entries; at least 1
+     * @throws IllegalArgumentException if <tt>capacity</tt> &lt; 1
+     */
+    public SOCBuildingSpeedCache(final int capacity)
+        throws IllegalArgumentException
+    {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity: " + capacity);
+
+        this.capacity = capacity;
+        map = new LinkedHashMap<Key, Result>(Math.min(capacity, 1 << 16), 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest)
+            {
+                if (size() <= SOCBuildingSpeedCache.this.capacity)
+                    return false;
+
+                ++evictions;
+                return true;
+            }
+        };
+    }
+
+    /** Get the maximum number of entries given to the constructor. */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /** Get the current number of entries. */
+    public int getSize()
+    {
+        synchronized (map)
+        {
+            return map.size();
+        }
+    }
+
+    /** Get the number of lookups which were answered from the cache. */
+    public long getHits()
+    {
+        synchronized (map)
+        {
+            return hits;
+        }
+    }
+
+    /** Get the number of lookups which had to be calculated. */
+    public long getMisses()
+    {
+        synchronized (map)
+        {
+            return misses;
+        }
+    }
+
+    /** Get the number of least-recently-used entries removed to stay within capacity. */
+    public long getEvictions()
+    {
+        synchronized (map)
+        {
+            return evictions;
+        }
+    }
+
+    /**
+     * Get the fraction of lookups answered from the cache.
+     * @return  Hit rate from 0.0 to 1.0, or 0.0 if there haven't been any lookups
+     */
+    public double getHitRate()
+    {
+        synchronized (map)
+        {
+            final long n = hits + misses;
+            return (n > 0) ? ((double) hits / n) : 0.0;
+        }
+    }
+
+    /**
+     * Remove all entries and reset the stats counters.
+     */
+    public void clear()
+    {
+        synchronized (map)
+        {
+            map.clear();
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+        }
+    }
+
+    /**
+     * Stats for display, such as in the server's <tt>*STATS*</tt> command.
+     * @return  A string such as "size 812/8192, hits 15012, misses 1210 (92.5% hits), evictions 0"
+     */
+    public String toString()
+    {
+        synchronized (map)
+        {
+            final long n = hits + misses;
+            final long permille = (n > 0) ? ((hits * 1000) / n) : 0;
+            return "size " + map.size() + "/" + capacity + ", hits " + hits + ", misses " + misses
+                + " (" + (permille / 10) + "." + (permille % 10) + "% hits), evictions " + evictions;
+        }
+    }
+
+    /**
+     * Make the cache key for a calculation's inputs.
+     * @param start  Starting resources
+     * @param target  Target resources
+     * @param ports  The player's port flags
+     * @param rollsPerResource  The estimate's rolls per resource, indexed by resource type
+     * @return  The key, or null if the inputs are outside the range a key can hold;
+     *     those calculations aren't cached
+     */
+    static Key makeKey
+        (final SOCResourceSet start, final SOCResourceSet target, final boolean[] ports, final int[] rollsPerResource)
+    {
+        if (! (start.isPackable() && target.isPackable()))
+            return null;
+
+        long rolls = 0, ratios = 0;
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+        {
+            final int r = rollsPerResource[rtype];
+            if ((r < 0) || (r > ROLLS_MAX))
+                return null;
+
+            if (rtype < SOCResourceConstants.WOOD)
+                rolls |= ((long) r) << (ROLLS_BITS * (rtype - SOCResourceConstants.CLAY));
+            else
+                ratios |= r;
+
+            // trade ratio 2, 3 or 4 is stored as 0, 1 or 2
+            final int ratio = (ports[rtype]) ? 0 : ((ports[SOCBoard.MISC_PORT]) ? 1 : 2);
+            ratios |= ((long) ratio) << (ROLLS_BITS + 2 * (rtype - SOCResourceConstants.CLAY));
+        }
+
+        return new Key(start.getPacked(), target.getPacked(), rolls, ratios);
+    }
+
+    /**
+     * Look up a calculation.
+     * @param key  Key from {@link #makeKey}; not null
+     * @param cutoff  The calculation's cutoff
+     * @return  The cached entry if it answers this cutoff, otherwise null. If the entry's
+     *     {@link Result#rolls} &gt; <tt>cutoff</tt>, the caller should throw CutoffExceededException.
+     */
+    Result get(final Key key, final int cutoff)
+    {
+        synchronized (map)
+        {
+            final Result e = map.get(key);
+            if ((e == null) || ((e.rolls < 0) && (cutoff > e.exceededCutoff)))
+            {
+                ++misses;
+                return null;
+            }
+
+            ++hits;
+            return e;
+        }
+    }
+
+    /**
+     * Remember a calculation's result.
+     * @param key  Key from {@link #makeKey}; not null
+     * @param rolls  Number of rolls, or -1 if the cutoff was exceeded
+     * @param hand  Final hand, if <tt>rolls</tt> &gt;= 0; must be {@link SOCResourceSet#isPackable()}
+     * @param cutoff  The calculation's cutoff, if <tt>rolls</tt> is -1
+     */
+    void put(final Key key, final int rolls, final SOCResourceSet hand, final int cutoff)
+    {
+        final Result e = (rolls >= 0) ? new Result(rolls, hand.getPacked(), 0) : new Result(-1, 0, cutoff);
+        synchronized (map)
+        {
+            map.put(key, e);
+        }
+    }
+
+    /**
+     * A calculation's inputs, packed.
+     * Resource sets are packed as in {@link SOCResourceSet#getPacked()}.
+     */
+    static final class Key
+    {
+        /** Starting and target resources, packed */
+        private final long start, target;
+
+        /** <tt>rollsPerResource</tt> of clay through wheat, {@link SOCBuildingSpeedCache#ROLLS_BITS} bits each */
+        private final long rolls;
+
+        /** <tt>rollsPerResource</tt> of wood in the low {@link SOCBuildingSpeedCache#ROLLS_BITS} bits, then 2 bits for each type's trade ratio */
+        private final long ratios;
+
+        Key(final long start, final long target, final long rolls, final long ratios)
+        {
+            this.start = start;
+            this.target = target;
+            this.rolls = rolls;
+            this.ratios = ratios;
+        }
+
+        public int hashCode()
+        {
+            long h = start * 31 + target;
+            h = h * 31 + rolls;
+            h = h * 31 + ratios;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        public boolean equals(final Object o)
+        {
+            if (! (o instanceof Key))
+                return false;
+
+            final Key k = (Key) o;
+            return (start == k.start) && (target == k.target) && (rolls == k.rolls) && (ratios == k.ratios);
+        }
+    }
+
+    /**
+     * A calculation's result. Immutable.
+     */
+    static final class Result
+    {
+        /** Number of rolls, or -1 if {@link #exceededCutoff} was exceeded */
+        final int rolls;
+
+        /** Final hand, packed, if {@link #rolls} &gt;= 0 */
+        final long hand;
+
+        /** If {@link #rolls} is -1, the cutoff which was exceeded */
+        final int exceededCutoff;
+
+        Result(final int rolls, final long hand, final int exceededCutoff)
+        {
+            this.rolls = rolls;
+            this.hand = hand;
+            this.exceededCutoff = exceededCutoff;
+        }
+    }
+
+}
@@ -2,6 +2,7 @@
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file copyright (C) 2012 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2017 JSettlers contributors
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -30,9 +31,7 @@ import soc.game.SOCResourceSet;
 
 import soc.util.CutoffExceededException;
 
-import java.util.Enumeration;
-import java.util.Hashtable;
-import java.util.Vector;
+import java.util.Arrays;
 
 
 /**
@@ -55,6 +54,55 @@ public class SOCBuildingSpeedEstimate
     int[] rollsPerResource;
     SOCResourceSet[] resourcesForRoll;
 
+    /**
+     * Tables of hands for {@link #calculateRollsAccurate(SOCResourceSet, SOCResourceSet, int, boolean[])},
+     * one per recent target; replaced round-robin at {@link #accurateTablesNext}.
+     * @since 1.2.00
+     */
+    private final AccurateRollsTable[] accurateTables = new AccurateRollsTable[MAXPLUSONE];
+    private int accurateTablesNext;
+
+    /**
+     * Default size of the {@link #getCache()} shared cache, in entries.
+     * @since 1.2.00
+     */
+    public static final int DEFAULT_CACHE_SIZE = 8192;
+
+    /**
+     * Results of {@link #calculateRollsFast(SOCResourceSet, SOCResourceSet, int, boolean[])}
+     * shared by all estimates in the JVM, or null if caching is off.
+     * @see #setCacheSize(int)
+     * @since 1.2.00
+     */
+    private static volatile SOCBuildingSpeedCache cache = new SOCBuildingSpeedCache(DEFAULT_CACHE_SIZE);
+
+    /**
+     * Get the cache of {@link #calculateRollsFast(SOCResourceSet, SOCResourceSet, int, boolean[])} results
+     * shared by all robot brains in this JVM, for its hit rate and other stats.
+     * @return  The cache, or null if {@link #setCacheSize(int)} turned it off
+     * @since 1.2.00
+     */
+    public static SOCBuildingSpeedCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * Replace the shared {@link #getCache()} with an empty one of a different size.
+     * The default is {@link #DEFAULT_CACHE_SIZE}.
+     * @param size  Maximum number of entries, or 0 to turn off caching
+     * @throws IllegalArgumentException if <tt>size</tt> &lt; 0
+     * @since 1.2.00
+     */
+    public static void setCacheSize(final int size)
+        throws IllegalArgumentException
+    {
+        if (size < 0)
+            throw new IllegalArgumentException("size: " + size);
+
+        cache = (size > 0) ? new SOCBuildingSpeedCache(size) : null;
+    }
+
     /**
      * this is a constructor
      *
@@ -272,12 +320,11 @@ public class SOCBuildingSpeedEstimate
             //D.ebugPrintln("resource: "+resource);
             float totalProbability = 0.0f;
 
-            Enumeration numbersEnum = numbers.getNumbersForResource(resource).elements();
-
-            while (numbersEnum.hasMoreElements())
+            for (int number = 2; number <= 12; ++number)
             {
-                Integer number = (Integer) numbersEnum.nextElement();
-                totalProbability += SOCNumberProbabilities.FLOAT_VALUES[number.intValue()];
+                final int count = numbers.getNumberResourceCount(number, resource);
+                for (int i = 0; i < count; ++i)
+                    totalProbability += SOCNumberProbabilities.FLOAT_VALUES[number];
             }
 
             //D.ebugPrintln("totalProbability: "+totalProbability);
@@ -302,9 +349,9 @@ public class SOCBuildingSpeedEstimate
      */
     public void recalculateRollsPerResource(SOCPlayerNumbers numbers, int robberHex)
     {
-        D.ebugPrintln("@@@@@@@@ recalculateRollsPerResource");
-        D.ebugPrintln("@@@@@@@@ numbers = " + numbers);
-        D.ebugPrintln("@@@@@@@@ robberHex = " + Integer.toHexString(robberHex));
+        //D.ebugPrintln("@@@@@@@@ recalculateRollsPerResource");
+        //D.ebugPrintln("@@@@@@@@ numbers = " + numbers);
+        //D.ebugPrintln("@@@@@@@@ robberHex = " + Integer.toHexString(robberHex));
         recalc = true;
 
         /**
@@ -313,19 +360,18 @@ public class SOCBuildingSpeedEstimate
         for (int resource = SOCResourceConstants.CLAY;
                 resource <= SOCResourceConstants.WOOD; resource++)
         {
-            D.ebugPrintln("resource: " + resource);
+            //D.ebugPrintln("resource: " + resource);
 
             float totalProbability = 0.0f;
 
-            Enumeration numbersEnum = numbers.getNumbersForResource(resource, robberHex).elements();
-
-            while (numbersEnum.hasMoreElements())
+            for (int number = 2; number <= 12; ++number)
             {
-                Integer number = (Integer) numbersEnum.nextElement();
-                totalProbability += SOCNumberProbabilities.FLOAT_VALUES[number.intValue()];
+                final int count = numbers.getNumberResourceCount(number, resource, robberHex);
+                for (int i = 0; i < count; ++i)
+                    totalProbability += SOCNumberProbabilities.FLOAT_VALUES[number];
             }
 
-            D.ebugPrintln("totalProbability: " + totalProbability);
+            //D.ebugPrintln("totalProbability: " + totalProbability);
 
             if (totalProbability != 0.0f)
             {
@@ -336,7 +382,7 @@ public class SOCBuildingSpeedEstimate
                 rollsPerResource[resource] = 55555;
             }
 
-            D.ebugPrintln("rollsPerResource: " + rollsPerResource[resource]);
+            //D.ebugPrintln("rollsPerResource: " + rollsPerResource[resource]);
         }
     }
 
@@ -354,33 +400,27 @@ public class SOCBuildingSpeedEstimate
 
         for (int diceResult = 2; diceResult <= 12; diceResult++)
         {
-            Vector resources = numbers.getResourcesForNumber(diceResult);
+            SOCResourceSet resourceSet;
 
-            if (resources != null)
+            if (resourcesForRoll[diceResult] == null)
             {
-                SOCResourceSet resourceSet;
-
-                if (resourcesForRoll[diceResult] == null)
-                {
-                    resourceSet = new SOCResourceSet();
-                    resourcesForRoll[diceResult] = resourceSet;
-                }
-                else
-                {
-                    resourceSet = resourcesForRoll[diceResult];
-                    resourceSet.clear();
-                }
-
-                Enumeration resourcesEnum = resources.elements();
-
-                while (resourcesEnum.hasMoreElements())
-                {
-                    Integer resourceInt = (Integer) resourcesEnum.nextElement();
-                    resourceSet.add(1, resourceInt.intValue());
-                }
+                resourceSet = new SOCResourceSet();
+                resourcesForRoll[diceResult] = resourceSet;
+            }
+            else
+            {
+                resourceSet = resourcesForRoll[diceResult];
+                resourceSet.clear();
+            }
 
-                //D.ebugPrintln("### resources for "+diceResult+" = "+resourceSet);
+            for (int resource = SOCResourceConstants.CLAY; resource <= SOCResourceConstants.WOOD; ++resource)
+            {
+                final int count = numbers.getNumberResourceCount(diceResult, resource);
+                if (count != 0)
+                    resourceSet.add(count, resource);
             }
+
+            //D.ebugPrintln("### resources for "+diceResult+" = "+resourceSet);
         }
     }
 
@@ -399,33 +439,27 @@ public class SOCBuildingSpeedEstimate
 
         for (int diceResult = 2; diceResult <= 12; diceResult++)
         {
-            Vector resources = numbers.getResourcesForNumber(diceResult, robberHex);
+            SOCResourceSet resourceSet;
 
-            if (resources != null)
+            if (resourcesForRoll[diceResult] == null)
             {
-                SOCResourceSet resourceSet;
-
-                if (resourcesForRoll[diceResult] == null)
-                {
-                    resourceSet = new SOCResourceSet();
-                    resourcesForRoll[diceResult] = resourceSet;
-                }
-                else
-                {
-                    resourceSet = resourcesForRoll[diceResult];
-                    resourceSet.clear();
-                }
-
-                Enumeration resourcesEnum = resources.elements();
-
-                while (resourcesEnum.hasMoreElements())
-                {
-                    Integer resourceInt = (Integer) resourcesEnum.nextElement();
-                    resourceSet.add(1, resourceInt.intValue());
-                }
+                resourceSet = new SOCResourceSet();
+                resourcesForRoll[diceResult] = resourceSet;
+            }
+            else
+            {
+                resourceSet = resourcesForRoll[diceResult];
+                resourceSet.clear();
+            }
 
-                //D.ebugPrintln("### resources for "+diceResult+" = "+resourceSet);
+            for (int resource = SOCResourceConstants.CLAY; resource <= SOCResourceConstants.WOOD; ++resource)
+            {
+                final int count = numbers.getNumberResourceCount(diceResult, resource, robberHex);
+                if (count != 0)
+                    resourceSet.add(count, resource);
             }
+
+            //D.ebugPrintln("### resources for "+diceResult+" = "+resourceSet);
         }
     }
 
@@ -441,6 +475,9 @@ public class SOCBuildingSpeedEstimate
      * this figures out how many rolls it would take this
      * player to get the target set of resources given
      * a starting set
+     *<P>
+     * Since v1.2.00 results are remembered in the shared {@link #getCache()},
+     * since the robots ask for the same estimates many times.
      *
      * @param startingResources   the starting resources
      * @param targetResources     the target resources
@@ -450,6 +487,53 @@ public class SOCBuildingSpeedEstimate
      * @return the number of rolls
      */
     protected SOCResSetBuildTimePair calculateRollsFast(SOCResourceSet startingResources, SOCResourceSet targetResources, int cutoff, boolean[] ports) throws CutoffExceededException
+    {
+        final SOCBuildingSpeedCache c = cache;
+        final SOCBuildingSpeedCache.Key key =
+            (c != null) ? SOCBuildingSpeedCache.makeKey(startingResources, targetResources, ports, rollsPerResource) : null;
+        if (key == null)
+        {
+            return calculateRollsFastUncached(startingResources, targetResources, cutoff, ports);
+        }
+
+        final SOCBuildingSpeedCache.Result e = c.get(key, cutoff);
+        if (e != null)
+        {
+            if ((e.rolls < 0) || (e.rolls > cutoff))
+            {
+                throw new CutoffExceededException();
+            }
+
+            return (new SOCResSetBuildTimePair(new SOCResourceSet(e.hand), e.rolls));
+        }
+
+        final SOCResSetBuildTimePair result;
+        try
+        {
+            result = calculateRollsFastUncached(startingResources, targetResources, cutoff, ports);
+        }
+        catch (CutoffExceededException ex)
+        {
+            c.put(key, -1, null, cutoff);
+            throw ex;
+        }
+
+        final SOCResourceSet hand = result.getResources();
+        if (hand.isPackable())
+        {
+            c.put(key, result.getRolls(), hand, cutoff);
+        }
+
+        return result;
+    }
+
+    /**
+     * The calculation for {@link #calculateRollsFast(SOCResourceSet, SOCResourceSet, int, boolean[])},
+     * without looking in or updating the shared {@link #getCache()}.
+     * Parameters and return value are the same as calculateRollsFast.
+     * @since 1.2.00
+     */
+    private SOCResSetBuildTimePair calculateRollsFastUncached(SOCResourceSet startingResources, SOCResourceSet targetResources, int cutoff, boolean[] ports) throws CutoffExceededException
     {
         //D.ebugPrintln("calculateRolls");
         //D.ebugPrintln("  start: "+startingResources);
@@ -698,13 +782,25 @@ public class SOCBuildingSpeedEstimate
      * this figures out how many rolls it would take this
      * player to get the target set of resources given
      * a starting set
+     *<P>
+     * Follows the probability of each hand we could be holding after each roll,
+     * trading with the bank or ports towards the target, until there's at least
+     * a 50% chance that the target's been reached.
+     *<P>
+     * Before v1.2.00 the hands were kept in a <tt>Hashtable</tt> of <tt>Float</tt> probabilities,
+     * copying a {@link SOCResourceSet} for each hand and dice result.
+     * Each hand is now an index into a dense probability vector. The hand it becomes after
+     * each dice result and any trades is calculated the first time it's needed, and kept in an
+     * {@link AccurateRollsTable} for later rolls and later calls with the same target, ports,
+     * and production. Rolling allocates no objects.
      *
      * @param startingResources   the starting resources
      * @param targetResources     the target resources
      * @param cutoff              throw an exception if the total speed is greater than this
      * @param ports               a list of port flags
      *
-     * @return the number of rolls
+     * @return the number of rolls, and the first hand found which reached the target
+     *     (<tt>null</tt> if <tt>startingResources</tt> already contains it)
      */
     protected SOCResSetBuildTimePair calculateRollsAccurate(SOCResourceSet startingResources, SOCResourceSet targetResources, int cutoff, boolean[] ports) throws CutoffExceededException
     {
@@ -712,257 +808,493 @@ public class SOCBuildingSpeedEstimate
         D.ebugPrintln("  start: " + startingResources);
         D.ebugPrintln("  target: " + targetResources);
 
-        SOCResourceSet ourResources = startingResources.copy();
-        int rolls = 0;
-        Hashtable[] resourcesOnRoll = new Hashtable[2];
-        resourcesOnRoll[0] = new Hashtable();
-        resourcesOnRoll[1] = new Hashtable();
+        if (startingResources.contains(targetResources))
+        {
+            return (new SOCResSetBuildTimePair(null, 0));
+        }
 
-        int lastRoll = 0;
-        int thisRoll = 1;
+        if (startingResources.getAmount(SOCResourceConstants.UNKNOWN) < targetResources.getAmount(SOCResourceConstants.UNKNOWN))
+        {
+            // unknown resources aren't rolled or traded for, so we'll never have enough
+            throw new CutoffExceededException();
+        }
 
-        resourcesOnRoll[lastRoll].put(ourResources, new Float(1.0));
+        //
+        //  find or make the table for this target and these ports
+        //
+        AccurateRollsTable table = null;
 
-        boolean targetReached = ourResources.contains(targetResources);
-        SOCResourceSet targetReachedResources = null;
-        float targetReachedProb = (float) 0.0;
+        for (int i = 0; i < accurateTables.length; i++)
+        {
+            if ((accurateTables[i] != null) && accurateTables[i].matches(startingResources, targetResources, ports, rollsPerResource, resourcesForRoll))
+            {
+                table = accurateTables[i];
 
-        while (!targetReached)
+                break;
+            }
+        }
+
+        if (table == null)
         {
-            if (D.ebugOn)
+            table = new AccurateRollsTable(startingResources, targetResources, ports, rollsPerResource, resourcesForRoll);
+            accurateTables[accurateTablesNext] = table;
+            accurateTablesNext = (accurateTablesNext + 1) % accurateTables.length;
+        }
+
+        final int rolls = table.calculateRolls(startingResources, cutoff);
+
+        return (new SOCResSetBuildTimePair(table.getFirstReachedHand(startingResources), rolls));
+    }
+
+    /**
+     * The hands a player could be holding while rolling for a target in
+     * {@link SOCBuildingSpeedEstimate#calculateRollsAccurate(SOCResourceSet, SOCResourceSet, int, boolean[])},
+     * and which hand each one becomes after each dice result and any bank or port trades.
+     *<P>
+     * After the first roll, a hand which hasn't reached the target has less than the trade ratio
+     * more than the target of each resource, because any more would have been traded.
+     * So each of those hands fits in a small index space: Amount of each resource type from
+     * {@link #lo} (0, unless the starting hand has a negative amount) to target + trade ratio - 1.
+     * The table is only valid for the same target, ports, {@link #lo},
+     * <tt>rollsPerResource</tt> and <tt>resourcesForRoll</tt>; see {@link #matches}.
+     *<P>
+     * Not thread-safe: {@link #calculateRolls(SOCResourceSet, int)} uses the table's work arrays.
+     * @since 1.2.00
+     */
+    private static final class AccurateRollsTable
+    {
+        /** {@link #next} value for a hand which hasn't been calculated yet */
+        private static final int NOT_CALCULATED = -2;
+
+        /** {@link #next} value for a hand which reaches the target */
+        private static final int TARGET_REACHED = -1;
+
+        /** Target amount of each resource, indexed by type {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD} */
+        private final int[] target = new int[SOCResourceConstants.WOOD + 1];
+
+        /** Trade ratio for each resource type, from the ports */
+        private final int[] tradeRatio = new int[SOCResourceConstants.WOOD + 1];
+
+        /** Copy of the estimate's <tt>rollsPerResource</tt>, which picks the most needed resource when trading */
+        private final int[] rollsPerResource = new int[SOCResourceConstants.WOOD + 1];
+
+        /** Lowest and highest amount of each resource type in the index space */
+        private final int[] lo = new int[SOCResourceConstants.WOOD + 1], hi = new int[SOCResourceConstants.WOOD + 1];
+
+        /** Index multiplier for each resource type's amount - {@link #lo} */
+        private final int[] stride = new int[SOCResourceConstants.WOOD + 1];
+
+        /** Resources gained on each dice result 2 to 12, from the estimate's <tt>resourcesForRoll</tt> */
+        private final int[][] diceGains = new int[13][SOCResourceConstants.WOOD + 1];
+
+        /**
+         * Dice results with the same gains are grouped together:
+         * Number of groups, the gains of each group, and the probability of rolling any dice result in it.
+         */
+        private final int groups;
+        private final int[][] groupGains;
+        private final double[] groupProb;
+
+        /**
+         * Index of the hand that hand <tt>s</tt> becomes after a roll in group <tt>g</tt> and any trades:
+         * <tt>next[(s * {@link #groups}) + g]</tt>, or {@link #TARGET_REACHED} or {@link #NOT_CALCULATED}.
+         */
+        private final int[] next;
+
+        /** Probability of each hand for the previous and current roll; all 0 between calls */
+        private double[] prob, probNext;
+
+        /** Indexes of the hands in {@link #prob} and {@link #probNext} with nonzero probability */
+        private int[] hands, handsNext;
+
+        /**
+         * First hand found which reached the target during the last call to {@link #calculateRolls}:
+         * Index, or -1 for the starting hand; the hand is calculated from this and {@link #firstReachedGroup}
+         * only if {@link #getFirstReachedHand(SOCResourceSet)} is called.
+         */
+        private int firstReachedFrom, firstReachedGroup;
+
+        /** Work area for one hand's amounts, indexed by resource type */
+        private final int[] work = new int[SOCResourceConstants.WOOD + 1];
+
+        /**
+         * Make an empty table. Hands are calculated as they're reached.
+         * Parameters are as in {@link SOCBuildingSpeedEstimate#calculateRollsAccurate}, plus the estimate's
+         * <tt>rollsPerResource</tt> and <tt>resourcesForRoll</tt>, which are copied.
+         */
+        AccurateRollsTable(SOCResourceSet start, SOCResourceSet targetResources, boolean[] ports, int[] rollsPerRsrc, SOCResourceSet[] resourcesForRoll)
+        {
+            int size = 1;
+
+            for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; rtype++)
             {
-                D.ebugPrintln("roll: " + rolls);
-                D.ebugPrintln("resourcesOnRoll[lastRoll]:");
+                target[rtype] = targetResources.getAmount(rtype);
+                tradeRatio[rtype] = tradeRatio(ports, rtype);
+                rollsPerResource[rtype] = rollsPerRsrc[rtype];
+                lo[rtype] = Math.min(0, start.getAmount(rtype));
+                hi[rtype] = Math.max(lo[rtype], target[rtype] + tradeRatio[rtype] - 1);
+                stride[rtype] = size;
+                size *= (hi[rtype] - lo[rtype] + 1);
+            }
+
+            int[][] gg = new int[11][];
+            double[] gp = new double[11];
+            int ng = 0;
+
+            for (int diceResult = 2; diceResult <= 12; diceResult++)
+            {
+                final int[] gains = diceGains[diceResult];
+                final SOCResourceSet rs = resourcesForRoll[diceResult];
+
+                if (rs != null)
+                {
+                    for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; rtype++)
+                    {
+                        gains[rtype] = rs.getAmount(rtype);
+                    }
+                }
 
-                Enumeration roltEnum = resourcesOnRoll[lastRoll].keys();
+                int g = 0;
 
-                while (roltEnum.hasMoreElements())
+                while ((g < ng) && ! Arrays.equals(gg[g], gains))
                 {
-                    SOCResourceSet rs = (SOCResourceSet) roltEnum.nextElement();
-                    Float prob = (Float) resourcesOnRoll[lastRoll].get(rs);
-                    D.ebugPrintln("---- prob:" + prob);
-                    D.ebugPrintln("---- rsrcs:" + rs);
-                    D.ebugPrintln();
+                    g++;
                 }
 
-                D.ebugPrintln("targetReachedProb: " + targetReachedProb);
-                D.ebugPrintln("===================================");
+                if (g == ng)
+                {
+                    gg[g] = gains;
+                    ng++;
+                }
+
+                gp[g] += SOCNumberProbabilities.FLOAT_VALUES[diceResult];
             }
 
-            rolls++;
+            groups = ng;
+            groupGains = gg;
+            groupProb = gp;
+            next = new int[size * ng];
+            Arrays.fill(next, NOT_CALCULATED);
+            prob = new double[size];
+            probNext = new double[size];
+            hands = new int[size];
+            handsNext = new int[size];
+        }
 
-            if (rolls > cutoff)
+        /**
+         * The trade ratio for a resource type: 2 with a port for that resource,
+         * 3 with a miscellaneous port, otherwise 4.
+         */
+        private static int tradeRatio(boolean[] ports, int rtype)
+        {
+            if (ports[rtype])
             {
-                D.ebugPrintln("startingResources=" + startingResources + "\ntargetResources=" + targetResources + "\ncutoff=" + cutoff + "\nourResources=" + ourResources);
-                throw new CutoffExceededException();
+                return 2;
+            }
+            else if (ports[SOCBoard.MISC_PORT])
+            {
+                return 3;
+            }
+            else
+            {
+                return 4;
             }
+        }
 
-            //
-            //  get our resources for the roll
-            //
-            for (int diceResult = 2; diceResult <= 12; diceResult++)
+        /**
+         * Can this table be used for this calculation?
+         * True if the target, trade ratios and index space are the same,
+         * and the estimate's production hasn't changed since the table was made.
+         */
+        boolean matches(SOCResourceSet start, SOCResourceSet targetResources, boolean[] ports, int[] rollsPerRsrc, SOCResourceSet[] resourcesForRoll)
+        {
+            for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; rtype++)
             {
-                SOCResourceSet gainedResources = resourcesForRoll[diceResult];
-                float diceProb = SOCNumberProbabilities.FLOAT_VALUES[diceResult];
+                if ((target[rtype] != targetResources.getAmount(rtype))
+                    || (tradeRatio[rtype] != tradeRatio(ports, rtype))
+                    || (rollsPerResource[rtype] != rollsPerRsrc[rtype])
+                    || (lo[rtype] != Math.min(0, start.getAmount(rtype))))
+                {
+                    return false;
+                }
+
+                for (int diceResult = 2; diceResult <= 12; diceResult++)
+                {
+                    final SOCResourceSet rs = resourcesForRoll[diceResult];
+
+                    if (diceGains[diceResult][rtype] != ((rs != null) ? rs.getAmount(rtype) : 0))
+                    {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Roll until there's at least a 50% chance of reaching the target.
+         * @param start  Starting hand; its unknown resources, if any, are ignored
+         * @param cutoff  Maximum number of rolls
+         * @return  the number of rolls
+         * @throws CutoffExceededException  if more than <tt>cutoff</tt> rolls would be needed
+         */
+        int calculateRolls(SOCResourceSet start, int cutoff) throws CutoffExceededException
+        {
+            int rolls = 1;
+            int nHands = 0;
+            double targetReachedProb = 0.0;
+            firstReachedFrom = -1;
+            firstReachedGroup = -1;
+
+            try
+            {
+                if (rolls > cutoff)
+                {
+                    throw new CutoffExceededException();
+                }
 
                 //
-                //  add the resources that we get on this roll to 
-                //  each set of resources that we got on the last
-                //  roll and multiply the probabilities
+                //  the first roll is from the starting hand,
+                //  which can be outside the index space
                 //
-                Enumeration lastResourcesEnum = resourcesOnRoll[lastRoll].keys();
+                for (int g = 0; g < groups; g++)
+                {
+                    final int s = rollFrom(start, -1, g);
+
+                    if (s == TARGET_REACHED)
+                    {
+                        targetReachedProb += groupProb[g];
+
+                        if (firstReachedGroup == -1)
+                        {
+                            firstReachedGroup = g;
+                        }
+                    }
+                    else
+                    {
+                        if (prob[s] == 0.0)
+                        {
+                            hands[nHands++] = s;
+                        }
 
-                while (lastResourcesEnum.hasMoreElements())
+                        prob[s] += groupProb[g];
+                    }
+                }
+
+                while (targetReachedProb < 0.5)
                 {
-                    SOCResourceSet lastResources = (SOCResourceSet) lastResourcesEnum.nextElement();
-                    Float lastProb = (Float) resourcesOnRoll[lastRoll].get(lastResources);
-                    SOCResourceSet newResources = lastResources.copy();
-                    newResources.add(gainedResources);
+                    rolls++;
+
+                    if (rolls > cutoff)
+                    {
+                        throw new CutoffExceededException();
+                    }
 
-                    float newProb = lastProb.floatValue() * diceProb;
+                    int nNext = 0;
 
-                    if (!newResources.contains(targetResources))
+                    for (int i = 0; i < nHands; i++)
                     {
-                        //
-                        // do any possible trading with the bank/ports
-                        //
-                        for (int giveResource = SOCResourceConstants.CLAY;
-                                giveResource <= SOCResourceConstants.WOOD;
-                                giveResource++)
+                        final int s = hands[i];
+                        final double p = prob[s];
+                        prob[s] = 0.0;
+
+                        for (int g = 0, ni = s * groups; g < groups; g++, ni++)
                         {
-                            if ((newResources.getAmount(giveResource) - targetResources.getAmount(giveResource)) > 1)
+                            int t = next[ni];
+
+                            if (t == NOT_CALCULATED)
                             {
-                                //
-                                // find the ratio at which we can trade
-                                //
-                                int tradeRatio;
+                                t = rollFrom(null, s, g);
+                                next[ni] = t;
+                            }
 
-                                if (ports[giveResource])
-                                {
-                                    tradeRatio = 2;
-                                }
-                                else if (ports[SOCBoard.MISC_PORT])
+                            final double pt = p * groupProb[g];
+
+                            if (t == TARGET_REACHED)
+                            {
+                                targetReachedProb += pt;
+
+                                if (firstReachedGroup == -1)
                                 {
-                                    tradeRatio = 3;
+                                    firstReachedFrom = s;
+                                    firstReachedGroup = g;
                                 }
-                                else
+                            }
+                            else
+                            {
+                                if (probNext[t] == 0.0)
                                 {
-                                    tradeRatio = 4;
+                                    handsNext[nNext++] = t;
                                 }
 
-                                //
-                                // get the target resources
-                                //
-                                int numTrades = (newResources.getAmount(giveResource) - targetResources.getAmount(giveResource)) / tradeRatio;
-
-                                //D.ebugPrintln("))) ***");
-                                //D.ebugPrintln("))) giveResource="+giveResource);
-                                //D.ebugPrintln("))) tradeRatio="+tradeRatio);
-                                //D.ebugPrintln("))) newResources="+newResources);
-                                //D.ebugPrintln("))) targetResources="+targetResources);
-                                //D.ebugPrintln("))) numTrades="+numTrades);
-                                for (int trades = 0; trades < numTrades;
-                                        trades++)
-                                {
-                                    // 
-                                    // find the most needed resource by looking at 
-                                    // which of the resources we still need takes the
-                                    // longest to aquire
-                                    //
-                                    int mostNeededResource = -1;
-
-                                    for (int resource = SOCResourceConstants.CLAY;
-                                            resource <= SOCResourceConstants.WOOD;
-                                            resource++)
-                                    {
-                                        if (newResources.getAmount(resource) < targetResources.getAmount(resource))
-                                        {
-                                            if (mostNeededResource < 0)
-                                            {
-                                                mostNeededResource = resource;
-                                            }
-                                            else
-                                            {
-                                                if (rollsPerResource[resource] > rollsPerResource[mostNeededResource])
-                                                {
-                                                    mostNeededResource = resource;
-                                                }
-                                            }
-                                        }
-                                    }
+                                probNext[t] += pt;
+                            }
+                        }
+                    }
 
-                                    //
-                                    // make the trade
-                                    //
-                                    //D.ebugPrintln("))) want to trade "+tradeRatio+" "+giveResource+" for a "+mostNeededResource);
-                                    if ((mostNeededResource != -1) && (newResources.getAmount(giveResource) >= tradeRatio))
-                                    {
-                                        //D.ebugPrintln("))) trading...");
-                                        newResources.add(1, mostNeededResource);
+                    double[] tmpProb = prob;
+                    prob = probNext;
+                    probNext = tmpProb;
+                    int[] tmpHands = hands;
+                    hands = handsNext;
+                    handsNext = tmpHands;
+                    nHands = nNext;
+                }
+            }
+            finally
+            {
+                // leave the vectors all 0 for next time
+                for (int i = 0; i < nHands; i++)
+                {
+                    prob[hands[i]] = 0.0;
+                }
+            }
 
-                                        if (newResources.getAmount(giveResource) < tradeRatio)
-                                        {
-                                            System.err.println("@@@ rsrcs=" + newResources);
-                                            System.err.println("@@@ tradeRatio=" + tradeRatio);
-                                            System.err.println("@@@ giveResource=" + giveResource);
-                                            System.err.println("@@@ target=" + targetResources);
-                                        }
+            return rolls;
+        }
 
-                                        newResources.subtract(tradeRatio, giveResource);
+        /**
+         * Get the first hand found by the last {@link #calculateRolls(SOCResourceSet, int)} which reached the target.
+         * @param start  Starting hand given to calculateRolls
+         * @return  a new resource set with that hand, including <tt>start</tt>'s unknown resources
+         */
+        SOCResourceSet getFirstReachedHand(SOCResourceSet start)
+        {
+            rollFrom(start, firstReachedFrom, firstReachedGroup);
 
-                                        //D.ebugPrintln("))) newResources="+newResources);
-                                    }
+            SOCResourceSet hand = new SOCResourceSet();
 
-                                    if (newResources.contains(targetResources))
-                                    {
-                                        break;
-                                    }
-                                }
+            for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; rtype++)
+            {
+                hand.add(work[rtype], rtype);
+            }
 
-                                if (newResources.contains(targetResources))
-                                {
-                                    break;
-                                }
-                            }
-                        }
-                    }
+            hand.add(start.getAmount(SOCResourceConstants.UNKNOWN), SOCResourceConstants.UNKNOWN);
 
-                    //
-                    //  if this set of resources is already in the list
-                    //  of possible outcomes, add this probability to
-                    //  that one, else just add this to the list
-                    //
-                    Float probFloat = (Float) resourcesOnRoll[thisRoll].get(newResources);
-                    float newProb2 = newProb;
+            return hand;
+        }
 
-                    if (probFloat != null)
-                    {
-                        newProb2 = probFloat.floatValue() + newProb;
-                    }
+        /**
+         * Calculate the hand after a roll and any trades, in {@link #work}.
+         * @param start  Starting hand, if <tt>s</tt> is -1
+         * @param s  Index of the hand before the roll, or -1 for <tt>start</tt>
+         * @param g  Group of the dice result rolled
+         * @return  Index of the new hand, or {@link #TARGET_REACHED}
+         */
+        private int rollFrom(SOCResourceSet start, int s, final int g)
+        {
+            final int[] gains = groupGains[g];
+
+            for (int rtype = SOCResourceConstants.WOOD; rtype >= SOCResourceConstants.CLAY; rtype--)
+            {
+                int amt;
 
-                    //
-                    //  check to see if we reached our target
-                    //
-                    if (newResources.contains(targetResources))
+                if (s == -1)
+                {
+                    amt = start.getAmount(rtype);
+                }
+                else
+                {
+                    amt = lo[rtype] + (s / stride[rtype]);
+                    s %= stride[rtype];
+                }
+
+                work[rtype] = amt + gains[rtype];
+            }
+
+            if (trade())
+            {
+                return TARGET_REACHED;
+            }
+
+            int t = 0;
+
+            for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; rtype++)
+            {
+                final int amt = work[rtype];
+
+                if ((amt < lo[rtype]) || (amt > hi[rtype]))
+                {
+                    throw new IllegalStateException("hand outside table: " + amt + " of type " + rtype);
+                }
+
+                t += (amt - lo[rtype]) * stride[rtype];
+            }
+
+            return t;
+        }
+
+        /**
+         * If {@link #work} doesn't contain the target, do any possible trading with the bank/ports,
+         * the same way as {@link SOCBuildingSpeedEstimate#calculateRollsFast}.
+         * @return true if the target's reached
+         */
+        private boolean trade()
+        {
+            if (containsTarget())
+            {
+                return true;
+            }
+
+            for (int giveResource = SOCResourceConstants.CLAY;
+                    giveResource <= SOCResourceConstants.WOOD;
+                    giveResource++)
+            {
+                if ((work[giveResource] - target[giveResource]) > 1)
+                {
+                    final int ratio = tradeRatio[giveResource];
+                    final int numTrades = (work[giveResource] - target[giveResource]) / ratio;
+
+                    for (int trades = 0; trades < numTrades; trades++)
                     {
-                        D.ebugPrintln("-----> TARGET HIT *");
-                        D.ebugPrintln("newResources: " + newResources);
-                        D.ebugPrintln("newProb: " + newProb);
-                        targetReachedProb += newProb;
+                        //
+                        // find the most needed resource by looking at
+                        // which of the resources we still need takes the
+                        // longest to aquire
+                        //
+                        int mostNeededResource = -1;
 
-                        if (targetReachedResources == null)
+                        for (int resource = SOCResourceConstants.CLAY;
+                                resource <= SOCResourceConstants.WOOD;
+                                resource++)
                         {
-                            targetReachedResources = newResources;
+                            if ((work[resource] < target[resource])
+                                && ((mostNeededResource < 0) || (rollsPerResource[resource] > rollsPerResource[mostNeededResource])))
+                            {
+                                mostNeededResource = resource;
+                            }
                         }
 
-                        if (targetReachedProb >= 0.5)
+                        if ((mostNeededResource != -1) && (work[giveResource] >= ratio))
                         {
-                            targetReached = true;
+                            work[mostNeededResource]++;
+                            work[giveResource] -= ratio;
+                        }
+
+                        if (containsTarget())
+                        {
+                            return true;
                         }
-                    }
-                    else
-                    {
-                        resourcesOnRoll[thisRoll].put(newResources, new Float(newProb2));
                     }
                 }
             }
 
-            //
-            //  copy the resourcesOnRoll[thisRoll] table to the
-            //  resourcesOnRoll[lastRoll] table and clear the
-            //  resourcesOnRoll[thisRoll] table
-            //
-            int tmp = lastRoll;
-            lastRoll = thisRoll;
-            thisRoll = tmp;
-            resourcesOnRoll[thisRoll].clear();
+            return false;
         }
 
-        if (D.ebugOn)
+        /** Does {@link #work} contain the target? */
+        private boolean containsTarget()
         {
-            float probSum = (float) 0.0;
-            D.ebugPrintln("**************** TARGET REACHED ************");
-            D.ebugPrintln("targetReachedResources: " + targetReachedResources);
-            D.ebugPrintln("targetReachedProb: " + targetReachedProb);
-            D.ebugPrintln("roll: " + rolls);
-            D.ebugPrintln("resourcesOnRoll[lastRoll]:");
-
-            Enumeration roltEnum = resourcesOnRoll[lastRoll].keys();
-
-            while (roltEnum.hasMoreElements())
+            for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; rtype++)
             {
-                SOCResourceSet rs = (SOCResourceSet) roltEnum.nextElement();
-                Float prob = (Float) resourcesOnRoll[lastRoll].get(rs);
-                probSum += prob.floatValue();
-                D.ebugPrintln("---- prob:" + prob);
-                D.ebugPrintln("---- rsrcs:" + rs);
-                D.ebugPrintln();
+                if (work[rtype] < target[rtype])
+                {
+                    return false;
+                }
             }
 
-            D.ebugPrintln("probSum = " + probSum);
-            D.ebugPrintln("===================================");
+            return true;
         }
-
-        return (new SOCResSetBuildTimePair(targetReachedResources, rolls));
     }
 }
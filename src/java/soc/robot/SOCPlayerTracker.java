@@ -131,10 +131,26 @@ public class SOCPlayerTracker
      * @param pt  the player tracker
      */
     public SOCPlayerTracker(SOCPlayerTracker pt)
+    {
+        this(pt, pt.getPlayer());
+    }
+
+    /**
+     * Copy constructor for a tracker of the same player in a copy of the game,
+     * such as from {@link SOCGame#snapshot()}. The copy and its possible pieces
+     * will refer to <tt>pl</tt> instead of <tt>pt</tt>'s player.
+     *
+     * Note: Does NOT copy connections between possible pieces
+     *
+     * @param pt  the player tracker
+     * @param pl  the player being tracked: <tt>pt</tt>'s player, or the same player number in a copy of the game
+     * @since 1.2.00
+     */
+    public SOCPlayerTracker(SOCPlayerTracker pt, SOCPlayer pl)
     {
         inUse = false;
         brain = pt.getBrain();
-        player = pt.getPlayer();
+        player = pl;
         possibleRoads = new TreeMap();
         possibleSettlements = new TreeMap();
         possibleCities = new TreeMap();
@@ -156,6 +172,7 @@ public class SOCPlayerTracker
         {
             SOCPossibleRoad posRoad = (SOCPossibleRoad) posRoadsIter.next();
             SOCPossibleRoad posRoadCopy = new SOCPossibleRoad(posRoad);
+            posRoadCopy.player = pl;
             possibleRoads.put(new Integer(posRoadCopy.getCoordinates()), posRoadCopy);
         }
 
@@ -165,6 +182,7 @@ public class SOCPlayerTracker
         {
             SOCPossibleSettlement posSettlement = (SOCPossibleSettlement) posSettlementsIter.next();
             SOCPossibleSettlement posSettlementCopy = new SOCPossibleSettlement(posSettlement);
+            posSettlementCopy.player = pl;
             possibleSettlements.put(new Integer(posSettlementCopy.getCoordinates()), posSettlementCopy);
         }
 
@@ -174,6 +192,7 @@ public class SOCPlayerTracker
         {
             SOCPossibleCity posCity = (SOCPossibleCity) posCitiesIter.next();
             SOCPossibleCity posCityCopy = new SOCPossibleCity(posCity);
+            posCityCopy.player = pl;
             possibleCities.put(new Integer(posCityCopy.getCoordinates()), posCityCopy);
         }
     }
@@ -187,6 +206,26 @@ public class SOCPlayerTracker
      * param trackers  player trackers for each player
      */
     public static HashMap copyPlayerTrackers(HashMap trackers)
+    {
+        return copyPlayerTrackers(trackers, null);
+    }
+
+    /**
+     * make copies of player trackers for a copy of their game,
+     * such as from {@link SOCGame#snapshot()}, and then
+     * make connections between copied pieces.
+     * The copies track <tt>gameCopy</tt>'s players, so trying pieces
+     * on them won't change or read the original game.
+     *<P>
+     * Note: not copying threats
+     *
+     * @param trackers  player trackers for each player
+     * @param gameCopy  copy of the trackers' game, or null to track the same players
+     *     like {@link #copyPlayerTrackers(HashMap)}
+     * @return the copies, keyed by player number
+     * @since 1.2.00
+     */
+    public static HashMap copyPlayerTrackers(HashMap trackers, final SOCGame gameCopy)
     {
         HashMap trackersCopy = new HashMap(trackers.size());  // == SOCGame.MAXPLAYERS
 
@@ -198,7 +237,9 @@ public class SOCPlayerTracker
         while (trackersIter.hasNext())
         {
             SOCPlayerTracker pt = (SOCPlayerTracker) trackersIter.next();
-            trackersCopy.put(new Integer(pt.getPlayer().getPlayerNumber()), new SOCPlayerTracker(pt));
+            final int pn = pt.getPlayer().getPlayerNumber();
+            trackersCopy.put(new Integer(pn),
+                new SOCPlayerTracker(pt, (gameCopy != null) ? gameCopy.getPlayer(pn) : pt.getPlayer()));
         }
 
         //
@@ -533,7 +574,7 @@ public class SOCPlayerTracker
                 // if so, remove it
                 //
                 //D.ebugPrintln("$$$ removing (wrong) "+Integer.toHexString(road.getCoordinates()));
-                possibleRoads.remove(new Integer(pr.getCoordinates()));
+                SOCPlayerTrackerJournal.remove(possibleRoads, new Integer(pr.getCoordinates()));
                 removeFromNecessaryRoads(pr);
 
                 break;
@@ -571,7 +612,7 @@ public class SOCPlayerTracker
                 // if so, remove it
                 //
                 //D.ebugPrintln("$$$ removing "+Integer.toHexString(road.getCoordinates()));
-                possibleRoads.remove(new Integer(pr.getCoordinates()));
+                SOCPlayerTrackerJournal.remove(possibleRoads, new Integer(pr.getCoordinates()));
                 removeFromNecessaryRoads(pr);
 
                 break;
@@ -606,7 +647,7 @@ public class SOCPlayerTracker
                     //
                     //D.ebugPrintln("$$$ found it");
                     removeFromNecessaryRoads(posSet);
-                    posSet.getNecessaryRoads().removeAllElements();
+                    posSet.clearNecessaryRoads();
                     posSet.setNumberOfNecessaryRoads(0);
                 }
                 else
@@ -617,7 +658,7 @@ public class SOCPlayerTracker
                     //D.ebugPrintln("$$$ adding new possible settlement at "+Integer.toHexString(adjNode.intValue()));
                     SOCPossibleSettlement newPosSet = new SOCPossibleSettlement(player, adjNode.intValue(), new Vector());
                     newPosSet.setNumberOfNecessaryRoads(0);
-                    possibleSettlements.put(adjNode, newPosSet);
+                    SOCPlayerTrackerJournal.put(possibleSettlements, adjNode, newPosSet);
                     updateSettlementConflicts(newPosSet, trackers);
                 }
             }
@@ -660,7 +701,7 @@ public class SOCPlayerTracker
                     {
                         //D.ebugPrintln("$$$    clearing nr list");
                         removeFromNecessaryRoads(pr);
-                        pr.getNecessaryRoads().removeAllElements();
+                        pr.clearNecessaryRoads();
                         pr.setNumberOfNecessaryRoads(0);
                     }
 
@@ -690,7 +731,7 @@ public class SOCPlayerTracker
         while (newPREnum.hasMoreElements())
         {
             SOCPossibleRoad newPR = (SOCPossibleRoad) newPREnum.nextElement();
-            possibleRoads.put(new Integer(newPR.getCoordinates()), newPR);
+            SOCPlayerTrackerJournal.put(possibleRoads, new Integer(newPR.getCoordinates()), newPR);
         }
 
         //
@@ -756,7 +797,7 @@ public class SOCPlayerTracker
                         // add target road to settlement's nr list and this settlement to the road's np list
                         //
                         //D.ebugPrintln("$$$ adding road "+Integer.toHexString(targetRoad.getCoordinates())+" to the settlement "+Integer.toHexString(posSet.getCoordinates()));
-                        posSet.getNecessaryRoads().addElement(targetRoad);
+                        posSet.addNecessaryRoad(targetRoad);
                         targetRoad.addNewPossibility(posSet);
 
                         //
@@ -779,7 +820,7 @@ public class SOCPlayerTracker
 
                     SOCPossibleSettlement newPosSet = new SOCPossibleSettlement(player, adjNode.intValue(), nr);
                     newPosSet.setNumberOfNecessaryRoads(targetRoad.getNumberOfNecessaryRoads() + 1);
-                    possibleSettlements.put(adjNode, newPosSet);
+                    SOCPlayerTrackerJournal.put(possibleSettlements, adjNode, newPosSet);
                     targetRoad.addNewPossibility(newPosSet);
                     updateSettlementConflicts(newPosSet, trackers);
                 }
@@ -829,7 +870,7 @@ public class SOCPlayerTracker
                             // add the target road to its nr list and the new road to the target road's np list
                             //
                             //D.ebugPrintln("$$$    adding "+Integer.toHexString(targetRoad.getCoordinates())+" to nr list");
-                            nr.addElement(targetRoad);
+                            pr.addNecessaryRoad(targetRoad);
                             targetRoad.addNewPossibility(pr);
 
                             //
@@ -874,7 +915,7 @@ public class SOCPlayerTracker
             while (newPREnum.hasMoreElements())
             {
                 SOCPossibleRoad newPR = (SOCPossibleRoad) newPREnum.nextElement();
-                possibleRoads.put(new Integer(newPR.getCoordinates()), newPR);
+                SOCPlayerTrackerJournal.put(possibleRoads, new Integer(newPR.getCoordinates()), newPR);
             }
 
             //
@@ -922,7 +963,7 @@ public class SOCPlayerTracker
         if (pr != null)
         {
             //D.ebugPrintln("$$$ removing road at "+Integer.toHexString(pr.getCoordinates()));
-            possibleRoads.remove(roadCoordinates);
+            SOCPlayerTrackerJournal.remove(possibleRoads, roadCoordinates);
             removeFromNecessaryRoads(pr);
             removeDependents(pr);
         }
@@ -1027,7 +1068,7 @@ public class SOCPlayerTracker
         Integer settlementCoords = new Integer(settlement.getCoordinates());
         SOCPossibleSettlement ps = (SOCPossibleSettlement) possibleSettlements.get(settlementCoords);
         D.ebugPrintln("$$$ removing (wrong) " + Integer.toHexString(settlement.getCoordinates()));
-        possibleSettlements.remove(settlementCoords);
+        SOCPlayerTrackerJournal.remove(possibleSettlements, settlementCoords);
         removeFromNecessaryRoads(ps);
 
     }
@@ -1049,7 +1090,7 @@ public class SOCPlayerTracker
         /**
          * add a new possible city
          */
-        possibleCities.put(settlementCoords, new SOCPossibleCity(player, settlement.getCoordinates()));
+        SOCPlayerTrackerJournal.put(possibleCities, settlementCoords, new SOCPossibleCity(player, settlement.getCoordinates()));
 
         /**
          * see if the new settlement was a possible settlement in
@@ -1070,7 +1111,7 @@ public class SOCPlayerTracker
              * remove the possible settlement that is now a real settlement
              */
             D.ebugPrintln("$$$ removing " + Integer.toHexString(settlement.getCoordinates()));
-            possibleSettlements.remove(settlementCoords);
+            SOCPlayerTrackerJournal.remove(possibleSettlements, settlementCoords);
             removeFromNecessaryRoads(ps);
 
             /**
@@ -1088,7 +1129,7 @@ public class SOCPlayerTracker
                 if (tracker != null)
                 {
                     D.ebugPrintln("$$$ removing " + Integer.toHexString(conflict.getCoordinates()));
-                    tracker.getPossibleSettlements().remove(new Integer(conflict.getCoordinates()));
+                    SOCPlayerTrackerJournal.remove(tracker.getPossibleSettlements(), new Integer(conflict.getCoordinates()));
                     removeFromNecessaryRoads(conflict);
 
                     /**
@@ -1187,7 +1228,7 @@ public class SOCPlayerTracker
                 {
                     SOCPossibleSettlement pset = (SOCPossibleSettlement) trashEnum.nextElement();
                     D.ebugPrintln("$$$ removing " + Integer.toHexString(pset.getCoordinates()) + " owned by " + pset.getPlayer().getPlayerNumber());
-                    tracker.getPossibleSettlements().remove(new Integer(pset.getCoordinates()));
+                    SOCPlayerTrackerJournal.remove(tracker.getPossibleSettlements(), new Integer(pset.getCoordinates()));
                     removeFromNecessaryRoads(pset);
                 }
 
@@ -1301,8 +1342,8 @@ public class SOCPlayerTracker
                         while (nrTrashEnum.hasMoreElements())
                         {
                             SOCPossibleRoad nrTrashRoad = (SOCPossibleRoad) nrTrashEnum.nextElement();
-                            pr.getNecessaryRoads().removeElement(nrTrashRoad);
-                            nrTrashRoad.getNewPossibilities().removeElement(pr);
+                            pr.removeNecessaryRoad(nrTrashRoad);
+                            nrTrashRoad.removeNewPossibility(pr);
                         }
 
                         if (pr.getNecessaryRoads().isEmpty())
@@ -1322,7 +1363,7 @@ public class SOCPlayerTracker
             while (prTrashEnum.hasMoreElements())
             {
                 SOCPossibleRoad prt = (SOCPossibleRoad) prTrashEnum.nextElement();
-                possibleRoads.remove(new Integer(prt.getCoordinates()));
+                SOCPlayerTrackerJournal.remove(possibleRoads, new Integer(prt.getCoordinates()));
                 removeFromNecessaryRoads(prt);
                 removeDependents(prt);
             }
@@ -1363,12 +1404,12 @@ public class SOCPlayerTracker
                 }
                 else
                 {
-                    nr.removeElement(road);
+                    ((SOCPossibleRoad) newPos).removeNecessaryRoad(road);
 
                     if (nr.isEmpty())
                     {
                         //D.ebugPrintln("$$$ removing this road");
-                        possibleRoads.remove(new Integer(newPos.getCoordinates()));
+                        SOCPlayerTrackerJournal.remove(possibleRoads, new Integer(newPos.getCoordinates()));
                         removeFromNecessaryRoads((SOCPossibleRoad) newPos);
                         removeDependents((SOCPossibleRoad) newPos);
                     }
@@ -1405,12 +1446,12 @@ public class SOCPlayerTracker
                 }
                 else
                 {
-                    nr.removeElement(road);
+                    ((SOCPossibleSettlement) newPos).removeNecessaryRoad(road);
 
                     if (nr.isEmpty())
                     {
                         //D.ebugPrintln("$$$ removing this settlement");
-                        possibleSettlements.remove(new Integer(newPos.getCoordinates()));
+                        SOCPlayerTrackerJournal.remove(possibleSettlements, new Integer(newPos.getCoordinates()));
                         removeFromNecessaryRoads((SOCPossibleSettlement) newPos);
 
                         /**
@@ -1450,7 +1491,7 @@ public class SOCPlayerTracker
             }
         }
 
-        road.getNewPossibilities().removeAllElements();
+        road.clearNewPossibilities();
     }
 
     /**
@@ -1468,7 +1509,7 @@ public class SOCPlayerTracker
             SOCPossibleRoad nr = (SOCPossibleRoad) nrEnum.nextElement();
 
             //D.ebugPrintln("%%% removing road at "+Integer.toHexString(pr.getCoordinates())+" from road at "+Integer.toHexString(nr.getCoordinates()));
-            nr.getNewPossibilities().removeElement(pr);
+            nr.removeNewPossibility(pr);
         }
     }
 
@@ -1490,7 +1531,7 @@ public class SOCPlayerTracker
             SOCPossibleRoad nr = (SOCPossibleRoad) nrEnum.nextElement();
 
             //D.ebugPrintln("%%% removing settlement at "+Integer.toHexString(ps.getCoordinates())+" from road at "+Integer.toHexString(nr.getCoordinates()));
-            nr.getNewPossibilities().removeElement(ps);
+            nr.removeNewPossibility(ps);
         }
     }
 
@@ -1513,7 +1554,7 @@ public class SOCPlayerTracker
          * Just remove our potential city, since it was wrongly placed.
          * remove the possible city from the list
          */
-        possibleCities.remove(new Integer(city.getCoordinates()));
+        SOCPlayerTrackerJournal.remove(possibleCities, new Integer(city.getCoordinates()));
     }
 
     /**
@@ -1527,7 +1568,7 @@ public class SOCPlayerTracker
         /**
          * remove the possible city from the list
          */
-        possibleCities.remove(new Integer(city.getCoordinates()));
+        SOCPlayerTrackerJournal.remove(possibleCities, new Integer(city.getCoordinates()));
     }
 
     /**
@@ -1540,7 +1581,7 @@ public class SOCPlayerTracker
         /**
          * add the possible city to the list
          */
-        possibleCities.put(new Integer(city.getCoordinates()), city);
+        SOCPlayerTrackerJournal.put(possibleCities, new Integer(city.getCoordinates()), city);
     }
 
     /**
@@ -0,0 +1,285 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.robot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An undo log for trying a move on the real player trackers, instead of on copies made by
+ * {@link SOCPlayerTracker#copyPlayerTrackers(HashMap)}.
+ *<P>
+ * Copying every tracker and all of its possible pieces for each candidate move was most of the
+ * work of scoring moves in {@link SOCRobotDM}, but a trial usually changes only a few pieces.
+ * So instead the journal remembers each tracker's ETA fields when the trial starts, the old value
+ * of each change to a tracker's possible-piece maps, and a before-image of each possible piece the
+ * first time it's used during the trial. {@link #rollback()} puts all of those back.
+ *<P>
+ * Usage:
+ *<pre>
+ *   journal.start(playerTrackers);
+ *   try
+ *   {
+ *       SOCPlayerTracker.tryPutPieceNoCopy(piece, game, playerTrackers);
+ *       SOCPlayerTracker.updateWinGameETAs(playerTrackers);
+ *       // ... look at the trackers' new ETAs ...
+ *   }
+ *   finally
+ *   {
+ *       journal.rollback();
+ *       SOCPlayerTracker.undoTryPutPiece(piece, game);
+ *   }
+ *</pre>
+ * During a trial, trackers and pieces look the way their copies would: Fields which the copy
+ * constructors don't copy, such as a piece's threats or {@link SOCPossiblePiece#hasBeenExpanded()},
+ * are reset when the trial starts using that tracker or piece. So a trial's results are
+ * the same as from <tt>tryPutPiece</tt> on a copy.
+ *<P>
+ * A journal is active only in the thread which called {@link #start(HashMap)}, and a thread can't
+ * have 2 active journals. No other thread should use the trackers during a trial. Between trials
+ * the journal keeps its lists' capacity, so a decision maker can reuse one journal for all its trials.
+ *
+ * @since 1.2.00
+ */
+public class SOCPlayerTrackerJournal
+{
+    /** Each thread's active journal, if any */
+    private static final ThreadLocal<SOCPlayerTrackerJournal> activeJournal
+        = new ThreadLocal<SOCPlayerTrackerJournal>();
+
+    /**
+     * Number of active journals in all threads. When 0, the hooks called by
+     * pieces and trackers return quickly without checking {@link #activeJournal}.
+     */
+    private static final AtomicInteger activeCount = new AtomicInteger();
+
+    /** Most recently used trial number; see {@link #epoch} */
+    private static final AtomicInteger lastEpoch = new AtomicInteger();
+
+    /** Number of tracker fields saved in {@link #trackerFields} per tracker */
+    private static final int TRACKER_FIELDS = 7;
+
+    /**
+     * This trial's number, unique among all journals' trials, or 0 if not active.
+     * A piece whose {@link SOCPossiblePiece#journalEpoch} equals this was either
+     * already saved or created during this trial.
+     */
+    private int epoch;
+
+    /** Trackers whose fields are saved in {@link #trackerFields} */
+    private final ArrayList<SOCPlayerTracker> trackers = new ArrayList<SOCPlayerTracker>();
+
+    /** Saved fields of each tracker in {@link #trackers}, {@link #TRACKER_FIELDS} per tracker */
+    private int[] trackerFields = new int[TRACKER_FIELDS * 4];
+
+    /** Pieces changed during this trial, in the same order as {@link #pieceImages} */
+    private final ArrayList<SOCPossiblePiece> pieces = new ArrayList<SOCPossiblePiece>();
+
+    /** Before-image of each piece in {@link #pieces}, from {@link SOCPossiblePiece#saveForTrial()} */
+    private final ArrayList<SOCPossiblePiece> pieceImages = new ArrayList<SOCPossiblePiece>();
+
+    /** Map changes during this trial, in order: 3 elements each, the map, its key, and the key's old value or null */
+    private final ArrayList<Object> mapChanges = new ArrayList<Object>();
+
+    /**
+     * Is this journal's trial active?
+     * @return true between {@link #start(HashMap)} and {@link #rollback()}
+     */
+    public boolean isActive()
+    {
+        return (epoch != 0);
+    }
+
+    /**
+     * Start a trial: Save the fields of these player trackers, then start journaling
+     * changes to them and their possible pieces in this thread.
+     * Be sure to call {@link #rollback()} afterwards, even if the trial throws an exception.
+     *
+     * @param playerTrackers  All player trackers which the trial will use
+     * @throws IllegalStateException if this thread already has an active journal
+     */
+    public void start(final HashMap playerTrackers)
+        throws IllegalStateException
+    {
+        if (activeJournal.get() != null)
+            throw new IllegalStateException("journal already active in this thread");
+
+        int ep;
+        do
+        {
+            ep = lastEpoch.incrementAndGet();
+        } while (ep == 0);  // 0 means not active; skip it if the counter wraps around
+        epoch = ep;
+
+        final int n = playerTrackers.size() * TRACKER_FIELDS;
+        if (trackerFields.length < n)
+            trackerFields = new int[n];
+
+        int i = 0;
+        Iterator trackersIter = playerTrackers.values().iterator();
+        while (trackersIter.hasNext())
+        {
+            SOCPlayerTracker pt = (SOCPlayerTracker) trackersIter.next();
+            trackers.add(pt);
+
+            trackerFields[i++] = pt.longestRoadETA;
+            trackerFields[i++] = pt.roadsToGo;
+            trackerFields[i++] = pt.largestArmyETA;
+            trackerFields[i++] = pt.winGameETA;
+            trackerFields[i++] = pt.knightsToBuy;
+            trackerFields[i++] = (pt.needLR) ? 1 : 0;
+            trackerFields[i++] = (pt.needLA) ? 1 : 0;
+
+            // as in the copy constructor, which doesn't copy these
+            pt.winGameETA = 0;
+            pt.needLR = false;
+            pt.needLA = false;
+        }
+
+        activeJournal.set(this);
+        activeCount.incrementAndGet();
+    }
+
+    /**
+     * End the trial by undoing all its changes to the player trackers and
+     * their possible pieces. Does nothing if not active.
+     * Doesn't undo any changes to the game; call {@link SOCPlayerTracker#undoTryPutPiece} for that.
+     */
+    public void rollback()
+    {
+        if (epoch == 0)
+            return;
+
+        activeJournal.remove();
+        activeCount.decrementAndGet();
+        epoch = 0;
+
+        for (int i = mapChanges.size() - 3; i >= 0; i -= 3)
+        {
+            final TreeMap map = (TreeMap) mapChanges.get(i);
+            final Object key = mapChanges.get(i + 1), oldValue = mapChanges.get(i + 2);
+            if (oldValue != null)
+                map.put(key, oldValue);
+            else
+                map.remove(key);
+        }
+        mapChanges.clear();
+
+        for (int i = pieces.size() - 1; i >= 0; --i)
+            pieces.get(i).restoreFromTrial(pieceImages.get(i));
+        pieces.clear();
+        pieceImages.clear();
+
+        int f = 0;
+        for (int i = 0; i < trackers.size(); ++i)
+        {
+            SOCPlayerTracker pt = trackers.get(i);
+            pt.longestRoadETA = trackerFields[f++];
+            pt.roadsToGo = trackerFields[f++];
+            pt.largestArmyETA = trackerFields[f++];
+            pt.winGameETA = trackerFields[f++];
+            pt.knightsToBuy = trackerFields[f++];
+            pt.needLR = (trackerFields[f++] != 0);
+            pt.needLA = (trackerFields[f++] != 0);
+        }
+        trackers.clear();
+    }
+
+    /**
+     * Get the trial number of this thread's active journal, for a new possible piece
+     * created during the trial, which won't need to be saved.
+     * @return  The active trial's number, or 0 if none
+     */
+    static int getActiveEpoch()
+    {
+        if (activeCount.get() == 0)
+            return 0;
+
+        final SOCPlayerTrackerJournal j = activeJournal.get();
+        return (j != null) ? j.epoch : 0;
+    }
+
+    /**
+     * A possible piece is about to be changed, or its fields are about to be read which a copy
+     * wouldn't have copied. If this thread has an active journal, save the piece's before-image
+     * unless already saved in this trial.
+     * @param pp  The piece
+     */
+    static void pieceUsed(final SOCPossiblePiece pp)
+    {
+        if (activeCount.get() == 0)
+            return;
+
+        final SOCPlayerTrackerJournal j = activeJournal.get();
+        if ((j == null) || (pp.journalEpoch == j.epoch))
+            return;
+
+        pp.journalEpoch = j.epoch;
+        j.pieceImages.add(pp.saveForTrial());
+        j.pieces.add(pp);
+    }
+
+    /**
+     * Put a value into one of a player tracker's possible-piece maps,
+     * journaling the change if this thread has an active journal.
+     * @param map  The map
+     * @param key  Key, such as the piece's coordinates
+     * @param value  Value to put
+     */
+    static void put(final TreeMap map, final Object key, final Object value)
+    {
+        final Object oldValue = map.put(key, value);
+        if (activeCount.get() == 0)
+            return;
+
+        final SOCPlayerTrackerJournal j = activeJournal.get();
+        if (j != null)
+        {
+            j.mapChanges.add(map);
+            j.mapChanges.add(key);
+            j.mapChanges.add(oldValue);
+        }
+    }
+
+    /**
+     * Remove a key from one of a player tracker's possible-piece maps,
+     * journaling the change if this thread has an active journal.
+     * @param map  The map
+     * @param key  Key to remove
+     */
+    static void remove(final TreeMap map, final Object key)
+    {
+        final Object oldValue = map.remove(key);
+        if ((oldValue == null) || (activeCount.get() == 0))
+            return;
+
+        final SOCPlayerTrackerJournal j = activeJournal.get();
+        if (j != null)
+        {
+            j.mapChanges.add(map);
+            j.mapChanges.add(key);
+            j.mapChanges.add(oldValue);
+        }
+    }
+
+}
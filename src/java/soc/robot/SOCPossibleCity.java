@@ -95,6 +95,7 @@ public class SOCPossibleCity extends SOCPossiblePiece
      */
     public void updateSpeedup()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         //D.ebugPrintln("****************************** (CITY) updateSpeedup at "+Integer.toHexString(coord));
         SOCBuildingSpeedEstimate bse1 = new SOCBuildingSpeedEstimate(player.getNumbers());
         int[] ourBuildingSpeed = bse1.getEstimatesFromNothingFast(player.getPortFlags());
@@ -137,4 +138,26 @@ public class SOCPossibleCity extends SOCPossiblePiece
 
         return sum;
     }
+
+    /**
+     * For {@link SOCPlayerTrackerJournal}, also copy this city's speedup into its before-image.
+     * @since 1.2.00
+     */
+    SOCPossiblePiece saveForTrial()
+    {
+        final SOCPossibleCity image = (SOCPossibleCity) super.saveForTrial();
+        image.speedup = (int[]) speedup.clone();
+
+        return image;
+    }
+
+    /**
+     * For {@link SOCPlayerTrackerJournal}, restore this city's fields from its before-image.
+     * @since 1.2.00
+     */
+    void restoreFromTrial(SOCPossiblePiece image)
+    {
+        super.restoreFromTrial(image);
+        System.arraycopy(((SOCPossibleCity) image).speedup, 0, speedup, 0, speedup.length);
+    }
 }
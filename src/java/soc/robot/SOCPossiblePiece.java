@@ -30,6 +30,7 @@ import java.util.Vector;
  * @author Robert S. Thomas
  */
 public abstract class SOCPossiblePiece
+    implements Cloneable
 {
     /**
      * Types of playing pieces
@@ -92,6 +93,23 @@ public abstract class SOCPossiblePiece
      */
     protected boolean hasBeenExpanded;
 
+    /**
+     * Number of the {@link SOCPlayerTrackerJournal} trial in which this piece was created or
+     * last saved, or 0. Updated by the journal.
+     * @since 1.2.00
+     */
+    int journalEpoch;
+
+    /**
+     * Common constructor code: If created during a {@link SOCPlayerTrackerJournal} trial,
+     * the journal won't need to save this new piece.
+     * @since 1.2.00
+     */
+    protected SOCPossiblePiece()
+    {
+        journalEpoch = SOCPlayerTrackerJournal.getActiveEpoch();
+    }
+
     /**
      * @return  the type of piece
      */
@@ -131,6 +149,7 @@ public abstract class SOCPossiblePiece
      */
     public void setETA(int e)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         eta = e;
         updated = true;
     }
@@ -140,6 +159,7 @@ public abstract class SOCPossiblePiece
      */
     public boolean isETAUpdated()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         return updated;
     }
 
@@ -148,6 +168,7 @@ public abstract class SOCPossiblePiece
      */
     public void clearUpdateFlag()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         updated = false;
     }
 
@@ -156,6 +177,7 @@ public abstract class SOCPossiblePiece
      */
     public void resetScore()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         score = 0;
     }
 
@@ -166,6 +188,7 @@ public abstract class SOCPossiblePiece
      */
     public void addToScore(float amt)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         score += amt;
     }
 
@@ -176,6 +199,7 @@ public abstract class SOCPossiblePiece
      */
     public void subtractFromScore(float amt)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         score -= amt;
     }
 
@@ -184,6 +208,7 @@ public abstract class SOCPossiblePiece
      */
     public float getScore()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         return score;
     }
 
@@ -192,6 +217,7 @@ public abstract class SOCPossiblePiece
      */
     public void clearBiggestThreats()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         biggestThreats.removeAllElements();
     }
 
@@ -202,6 +228,7 @@ public abstract class SOCPossiblePiece
      */
     public void addBiggestThreat(SOCPossiblePiece bt)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         biggestThreats.addElement(bt);
     }
 
@@ -210,6 +237,7 @@ public abstract class SOCPossiblePiece
      */
     public Vector getBiggestThreats()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         return biggestThreats;
     }
 
@@ -218,6 +246,7 @@ public abstract class SOCPossiblePiece
      */
     public Vector getThreats()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         return threats;
     }
 
@@ -228,6 +257,7 @@ public abstract class SOCPossiblePiece
      */
     public void addThreat(SOCPossiblePiece piece)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         if (!threats.contains(piece))
         {
             threats.addElement(piece);
@@ -239,6 +269,7 @@ public abstract class SOCPossiblePiece
      */
     public boolean isThreatUpdated()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         return threatUpdatedFlag;
     }
 
@@ -247,6 +278,7 @@ public abstract class SOCPossiblePiece
      */
     public void clearThreats()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         if (threatUpdatedFlag)
         {
             threats.removeAllElements();
@@ -259,6 +291,7 @@ public abstract class SOCPossiblePiece
      */
     public void threatUpdated()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         threatUpdatedFlag = true;
     }
 
@@ -267,6 +300,7 @@ public abstract class SOCPossiblePiece
      */
     public boolean hasBeenExpanded()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         return hasBeenExpanded;
     }
 
@@ -275,6 +309,7 @@ public abstract class SOCPossiblePiece
      */
     public void resetExpandedFlag()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         hasBeenExpanded = false;
     }
 
@@ -283,9 +318,73 @@ public abstract class SOCPossiblePiece
      */
     public void setExpandedFlag()
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         hasBeenExpanded = true;
     }
 
+    /**
+     * For {@link SOCPlayerTrackerJournal}, save this piece's fields into a before-image,
+     * then reset the fields which a copy constructor wouldn't copy, such as threats.
+     * Subclasses with other mutable fields should override to also copy those
+     * into the image, since the image is a shallow copy.
+     *
+     * @return  a before-image of this piece, for {@link #restoreFromTrial(SOCPossiblePiece)}
+     * @since 1.2.00
+     */
+    SOCPossiblePiece saveForTrial()
+    {
+        final SOCPossiblePiece image;
+        try
+        {
+            image = (SOCPossiblePiece) clone();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new IllegalStateException("clone");  // not possible, we're Cloneable
+        }
+
+        updated = false;
+        score = 0;
+        biggestThreats = new Vector();
+        threats = new Vector();
+        threatUpdatedFlag = false;
+        hasBeenExpanded = false;
+
+        return image;
+    }
+
+    /**
+     * For {@link SOCPlayerTrackerJournal}, restore this piece's fields from its before-image.
+     * Subclasses should override to also restore their own fields.
+     *
+     * @param image  the before-image from {@link #saveForTrial()}
+     * @since 1.2.00
+     */
+    void restoreFromTrial(SOCPossiblePiece image)
+    {
+        eta = image.eta;
+        updated = image.updated;
+        score = image.score;
+        biggestThreats = image.biggestThreats;
+        threats = image.threats;
+        threatUpdatedFlag = image.threatUpdatedFlag;
+        hasBeenExpanded = image.hasBeenExpanded;
+    }
+
+    /**
+     * For {@link #restoreFromTrial(SOCPossiblePiece)}, restore a vector's contents in place,
+     * since callers may have kept a reference to the vector.
+     *
+     * @param v  the vector to restore
+     * @param image  the vector's contents when saved
+     * @since 1.2.00
+     */
+    static void restoreVector(Vector v, Vector image)
+    {
+        v.removeAllElements();
+        v.addAll(image);
+    }
+
     /**
      * @return a human readable form of this object
      */
@@ -110,6 +110,7 @@ public class SOCPossibleRoad extends SOCPossiblePiece
      */
     public void setNumberOfNecessaryRoads(int num)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         numberOfNecessaryRoads = num;
     }
 
@@ -144,9 +145,32 @@ public class SOCPossibleRoad extends SOCPossiblePiece
      */
     public void addNecessaryRoad(SOCPossibleRoad rd)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         necessaryRoads.addElement(rd);
     }
 
+    /**
+     * remove a possible road from the list of necessary roads
+     *
+     * @param rd  the road
+     * @since 1.2.00
+     */
+    public void removeNecessaryRoad(SOCPossibleRoad rd)
+    {
+        SOCPlayerTrackerJournal.pieceUsed(this);
+        necessaryRoads.removeElement(rd);
+    }
+
+    /**
+     * clear the list of necessary roads
+     * @since 1.2.00
+     */
+    public void clearNecessaryRoads()
+    {
+        SOCPlayerTrackerJournal.pieceUsed(this);
+        necessaryRoads.removeAllElements();
+    }
+
     /**
      * add a new possibility to the list
      *
@@ -154,9 +178,32 @@ public class SOCPossibleRoad extends SOCPossiblePiece
      */
     public void addNewPossibility(SOCPossiblePiece piece)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         newPossibilities.addElement(piece);
     }
 
+    /**
+     * remove a possible piece from the list of new possibilities
+     *
+     * @param piece  the possible piece
+     * @since 1.2.00
+     */
+    public void removeNewPossibility(SOCPossiblePiece piece)
+    {
+        SOCPlayerTrackerJournal.pieceUsed(this);
+        newPossibilities.removeElement(piece);
+    }
+
+    /**
+     * clear the list of new possibilities
+     * @since 1.2.00
+     */
+    public void clearNewPossibilities()
+    {
+        SOCPlayerTrackerJournal.pieceUsed(this);
+        newPossibilities.removeAllElements();
+    }
+
     /**
      * set the longest road value
      *
@@ -164,6 +211,7 @@ public class SOCPossibleRoad extends SOCPossiblePiece
      */
     public void setLRValue(int value)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         longestRoadValue = value;
     }
 
@@ -174,6 +222,36 @@ public class SOCPossibleRoad extends SOCPossiblePiece
      */
     public void setLRPotential(int value)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         longestRoadPotential = value;
     }
+
+    /**
+     * For {@link SOCPlayerTrackerJournal}, also copy this road's vectors into its before-image.
+     * @since 1.2.00
+     */
+    SOCPossiblePiece saveForTrial()
+    {
+        final SOCPossibleRoad image = (SOCPossibleRoad) super.saveForTrial();
+        image.necessaryRoads = (Vector) necessaryRoads.clone();
+        image.newPossibilities = (Vector) newPossibilities.clone();
+
+        return image;
+    }
+
+    /**
+     * For {@link SOCPlayerTrackerJournal}, restore this road's fields from its before-image.
+     * @since 1.2.00
+     */
+    void restoreFromTrial(SOCPossiblePiece image)
+    {
+        super.restoreFromTrial(image);
+
+        final SOCPossibleRoad ri = (SOCPossibleRoad) image;
+        restoreVector(necessaryRoads, ri.necessaryRoads);
+        restoreVector(newPossibilities, ri.newPossibilities);
+        longestRoadValue = ri.longestRoadValue;
+        longestRoadPotential = ri.longestRoadPotential;
+        numberOfNecessaryRoads = ri.numberOfNecessaryRoads;
+    }
 }
@@ -128,6 +128,7 @@ public class SOCPossibleSettlement extends SOCPossiblePiece
      */
     void setRoadPath(Stack path)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         roadPath = path;
     }
 
@@ -154,6 +155,7 @@ public class SOCPossibleSettlement extends SOCPossiblePiece
      */
     public void setNumberOfNecessaryRoads(int num)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         numberOfNecessaryRoads = num;
     }
 
@@ -223,9 +225,32 @@ public class SOCPossibleSettlement extends SOCPossiblePiece
      */
     public void addNecessaryRoad(SOCPossibleRoad rd)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         necessaryRoads.addElement(rd);
     }
 
+    /**
+     * remove a possible road from the list of necessary roads
+     *
+     * @param rd  the road
+     * @since 1.2.00
+     */
+    public void removeNecessaryRoad(SOCPossibleRoad rd)
+    {
+        SOCPlayerTrackerJournal.pieceUsed(this);
+        necessaryRoads.removeElement(rd);
+    }
+
+    /**
+     * clear the list of necessary roads
+     * @since 1.2.00
+     */
+    public void clearNecessaryRoads()
+    {
+        SOCPlayerTrackerJournal.pieceUsed(this);
+        necessaryRoads.removeAllElements();
+    }
+
     /**
      * add a conflicting settlement
      *
@@ -233,6 +258,7 @@ public class SOCPossibleSettlement extends SOCPossiblePiece
      */
     public void addConflict(SOCPossibleSettlement s)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         conflicts.addElement(s);
     }
 
@@ -243,6 +269,7 @@ public class SOCPossibleSettlement extends SOCPossiblePiece
      */
     public void removeConflict(SOCPossibleSettlement s)
     {
+        SOCPlayerTrackerJournal.pieceUsed(this);
         conflicts.removeElement(s);
     }
 
@@ -270,4 +297,32 @@ public class SOCPossibleSettlement extends SOCPossiblePiece
 
         return sum;
     }
+
+    /**
+     * For {@link SOCPlayerTrackerJournal}, also copy this settlement's vectors into its before-image.
+     * @since 1.2.00
+     */
+    SOCPossiblePiece saveForTrial()
+    {
+        final SOCPossibleSettlement image = (SOCPossibleSettlement) super.saveForTrial();
+        image.necessaryRoads = (Vector) necessaryRoads.clone();
+        image.conflicts = (Vector) conflicts.clone();
+
+        return image;
+    }
+
+    /**
+     * For {@link SOCPlayerTrackerJournal}, restore this settlement's fields from its before-image.
+     * @since 1.2.00
+     */
+    void restoreFromTrial(SOCPossiblePiece image)
+    {
+        super.restoreFromTrial(image);
+
+        final SOCPossibleSettlement si = (SOCPossibleSettlement) image;
+        restoreVector(necessaryRoads, si.necessaryRoads);
+        restoreVector(conflicts, si.conflicts);
+        numberOfNecessaryRoads = si.numberOfNecessaryRoads;
+        roadPath = si.roadPath;
+    }
 }
@@ -70,9 +70,7 @@ public class SOCResSetBuildTimePair
      */
     public int hashCode()
     {
-        String tmp = resources.toString() + rolls;
-
-        return tmp.hashCode();
+        return (31 * resources.hashCode()) + rolls;
     }
 
     /**
@@ -70,9 +70,7 @@ public class SOCResSetBuildTypePair
      */
     public int hashCode()
     {
-        String tmp = resources.toString() + building;
-
-        return tmp.hashCode();
+        return (31 * resources.hashCode()) + building;
     }
 
     /**
@@ -104,7 +104,7 @@ public class SOCRobotBrain extends Thread
     /**
      * Flag for whether or not we're alive
      */
-    protected boolean alive;
+    protected volatile boolean alive;
 
     /**
      * Flag for whether or not it is our turn.
@@ -493,6 +493,13 @@ public class SOCRobotBrain extends Thread
      */
     protected SOCRobotPinger pinger;
 
+    /**
+     * If this brain runs on a {@link SOCRobotBrainScheduler} instead of as its own thread,
+     * its task there; set by {@link #startBrain()}. Otherwise null.
+     * @since 1.2.00
+     */
+    SOCRobotBrainScheduler.BrainTask schedulerTask;
+
     /**
      * an object for recording debug information that can
      * be accessed interactively
@@ -889,7 +896,8 @@ public class SOCRobotBrain extends Thread
      * time for other players before it decides whether to do something.
      *<P>
      * Nearly all bot actions start in this method; the overview of bot structures
-     * is in the class javadoc for prominence.  See comments within <tt>run()</tt> for minor details.
+     * is in the class javadoc for prominence.  See comments within {@link #handleGameEvent(SOCMessage)}
+     * for minor details.
      */
     public void run()
     {
@@ -906,770 +914,796 @@ public class SOCRobotBrain extends Thread
 
             while (alive)
             {
-                /** Our player number */
-                final int ourPN = ourPlayerData.getPlayerNumber();
+                //if (!gameEventQ.empty()) {
+                final SOCMessage mes = (SOCMessage) gameEventQ.get();  // Sleeps until message received
+
+                //} else {
+                //mes = null;
+                //}
+                handleGameEvent(mes);
+                yield();
+            }
+        }
+        else
+        {
+            System.out.println("AGG! NO PINGER!");
+        }
 
-                //
-                // Along with actual game events, the pinger sends a SOCGameTextMsg
-                // once per second, to aid the robot's timekeeping counter.
-                //
+        releaseGameData();
+    }
 
-                try
-                {
-                    SOCMessage mes;
+    /**
+     * Deal with one game event from {@link #gameEventQ}.
+     * Called from {@link #run()}, or from a {@link SOCRobotBrainScheduler} worker
+     * if our client uses one instead of a thread per brain.
+     * Catches and prints any exception, so that one bad message won't stop the brain.
+     *<P>
+     * Remember that we're sent a {@link SOCGameTextMsg} timing ping once per second,
+     * incrementing {@link #counter}.
+     *
+     * @param mes  The message, or null if sent by {@link #kill()}
+     * @since 1.2.00
+     */
+    protected void handleGameEvent(final SOCMessage mes)
+    {
+        /** Our player number */
+        final int ourPN = ourPlayerData.getPlayerNumber();
 
-                    //if (!gameEventQ.empty()) {
-                    mes = (SOCMessage) gameEventQ.get();  // Sleeps until message received
+        //
+        // Along with actual game events, the pinger sends a SOCGameTextMsg
+        // once per second, to aid the robot's timekeeping counter.
+        //
 
-                    //} else {
-                    //mes = null;
-                    //}
-                    final int mesType;
+        try
+        {
+            final int mesType;
 
-                    if (mes != null)
-                    {
-                        mesType = mes.getType();
-                        if ((mesType != SOCMessage.TIMINGPING) && (mesType != SOCMessage.GAMETEXTMSG))
-                            turnEventsCurrent.addElement(mes);
-                        if (D.ebugOn)
-                            D.ebugPrintln("mes - " + mes);
+            if (mes != null)
+            {
+                mesType = mes.getType();
+                if ((mesType != SOCMessage.TIMINGPING) && (mesType != SOCMessage.GAMETEXTMSG))
+                    turnEventsCurrent.addElement(mes);
+                if (D.ebugOn)
+                    D.ebugPrintln("mes - " + mes);
+
+                // Debug aid: when looking at message contents: avoid pings:
+                // check here for (mesType != SOCMessage.TIMINGPING).
+            }
+            else
+            {
+                mesType = -1;
+            }
 
-                        // Debug aid: when looking at message contents: avoid pings:
-                        // check here for (mesType != SOCMessage.TIMINGPING).
-                    }
-                    else
-                    {
-                        mesType = -1;
-                    }
+            if (waitingForTradeMsg && (counter > 10))
+            {
+                waitingForTradeMsg = false;
+                counter = 0;
+            }
 
-                    if (waitingForTradeMsg && (counter > 10))
-                    {
-                        waitingForTradeMsg = false;
-                        counter = 0;
-                    }
+            if (waitingForTradeResponse && (counter > 100))
+            {
+                // Remember other players' responses, call client.clearOffer,
+                // clear waitingForTradeResponse and counter.
+                tradeStopWaitingClearOffer();
+            }
 
-                    if (waitingForTradeResponse && (counter > 100))
-                    {
-                        // Remember other players' responses, call client.clearOffer,
-                        // clear waitingForTradeResponse and counter.
-                        tradeStopWaitingClearOffer();
-                    }
+            if (waitingForGameState && (counter > 10000))
+            {
+                //D.ebugPrintln("counter = "+counter);
+                //D.ebugPrintln("RESEND");
+                counter = 0;
+                client.resend();
+            }
 
-                    if (waitingForGameState && (counter > 10000))
-                    {
-                        //D.ebugPrintln("counter = "+counter);
-                        //D.ebugPrintln("RESEND");
-                        counter = 0;
-                        client.resend();
-                    }
+            if (mesType == SOCMessage.GAMESTATE)
+            {
+                waitingForGameState = false;
+                oldGameState = game.getGameState();
+                game.setGameState(((SOCGameState) mes).getState());
+            }
 
-                    if (mesType == SOCMessage.GAMESTATE)
-                    {
-                        waitingForGameState = false;
-                        oldGameState = game.getGameState();
-                        game.setGameState(((SOCGameState) mes).getState());
-                    }
+            else if (mesType == SOCMessage.FIRSTPLAYER)
+            {
+                game.setFirstPlayer(((SOCFirstPlayer) mes).getPlayerNumber());
+            }
 
-                    else if (mesType == SOCMessage.FIRSTPLAYER)
-                    {
-                        game.setFirstPlayer(((SOCFirstPlayer) mes).getPlayerNumber());
-                    }
+            else if (mesType == SOCMessage.SETTURN)
+            {
+                game.setCurrentPlayerNumber(((SOCSetTurn) mes).getPlayerNumber());
+            }
+
+            else if (mesType == SOCMessage.TURN)
+            {
+                // Start of a new player's turn.
+                // Update game and reset most of our state fields.
 
-                    else if (mesType == SOCMessage.SETTURN)
+                game.setCurrentPlayerNumber(((SOCTurn) mes).getPlayerNumber());
+                game.updateAtTurn();
+
+                //
+                // remove any expected states
+                //
+                expectPLAY = false;
+                expectPLAY1 = false;
+                expectPLACING_ROAD = false;
+                expectPLACING_SETTLEMENT = false;
+                expectPLACING_CITY = false;
+                expectPLACING_ROBBER = false;
+                expectPLACING_FREE_ROAD1 = false;
+                expectPLACING_FREE_ROAD2 = false;
+                expectDICERESULT = false;
+                expectDISCARD = false;
+                expectMOVEROBBER = false;
+                expectWAITING_FOR_DISCOVERY = false;
+                expectWAITING_FOR_MONOPOLY = false;
+
+                //
+                // reset the selling flags and offers history
+                //
+                if (robotParameters.getTradeFlag() == 1)
+                {
+                    doneTrading = false;
+                }
+                else
+                {
+                    doneTrading = true;
+                }
+
+                waitingForTradeMsg = false;
+                waitingForTradeResponse = false;
+                negotiator.resetIsSelling();
+                negotiator.resetOffersMade();
+
+                //
+                // check or reset any special-building-phase decisions
+                //
+                decidedIfSpecialBuild = false;
+                if (game.getGameState() == SOCGame.SPECIAL_BUILDING)
+                {
+                    if (waitingForSpecialBuild && ! buildingPlan.isEmpty())
                     {
-                        game.setCurrentPlayerNumber(((SOCSetTurn) mes).getPlayerNumber());
+                        // Keep the building plan.
+                        // Will ask during loop body to build.
+                    } else {
+                        // We have no plan, but will call planBuilding()
+                        // during the loop body.  If buildingPlan still empty,
+                        // bottom of loop will end our Special Building turn,
+                        // just as it would in gamestate PLAY1.  Otherwise,
+                        // will ask to build after planBuilding.
                     }
+                } else {
+                    //
+                    // reset any plans we had
+                    //
+                    buildingPlan.clear();
+                }
+                negotiator.resetTargetPieces();
 
-                    else if (mesType == SOCMessage.TURN)
-                    {
-                        // Start of a new player's turn.
-                        // Update game and reset most of our state fields.
+                //
+                // swap the message-history queues
+                //
+                {
+                    Vector tmp = turnEventsPrev;
+                    turnEventsPrev = turnEventsCurrent;
+                    tmp.clear();
+                    turnEventsCurrent = tmp;
+                }
 
-                        game.setCurrentPlayerNumber(((SOCTurn) mes).getPlayerNumber());
-                        game.updateAtTurn();
+                turnExceptionCount = 0;
+            }
 
-                        //
-                        // remove any expected states
-                        //
-                        expectPLAY = false;
-                        expectPLAY1 = false;
-                        expectPLACING_ROAD = false;
-                        expectPLACING_SETTLEMENT = false;
-                        expectPLACING_CITY = false;
-                        expectPLACING_ROBBER = false;
-                        expectPLACING_FREE_ROAD1 = false;
-                        expectPLACING_FREE_ROAD2 = false;
-                        expectDICERESULT = false;
-                        expectDISCARD = false;
-                        expectMOVEROBBER = false;
-                        expectWAITING_FOR_DISCOVERY = false;
-                        expectWAITING_FOR_MONOPOLY = false;
+            if (game.getCurrentPlayerNumber() == ourPN)
+            {
+                ourTurn = true;
+                waitingForSpecialBuild = false;
+            }
+            else
+            {
+                ourTurn = false;
+            }
 
-                        //
-                        // reset the selling flags and offers history
-                        //
-                        if (robotParameters.getTradeFlag() == 1)
-                        {
-                            doneTrading = false;
-                        }
-                        else
-                        {
-                            doneTrading = true;
-                        }
+            if ((mesType == SOCMessage.TURN) && (ourTurn))
+            {
+                waitingForOurTurn = false;
 
-                        waitingForTradeMsg = false;
-                        waitingForTradeResponse = false;
-                        negotiator.resetIsSelling();
-                        negotiator.resetOffersMade();
+                // Clear some per-turn variables.
+                // For others, find the code which calls game.updateAtTurn().
+                whatWeFailedToBuild = null;
+                failedBuildingAttempts = 0;
+                rejectedPlayDevCardType = -1;
+            }
 
-                        //
-                        // check or reset any special-building-phase decisions
-                        //
-                        decidedIfSpecialBuild = false;
-                        if (game.getGameState() == SOCGame.SPECIAL_BUILDING)
-                        {
-                            if (waitingForSpecialBuild && ! buildingPlan.isEmpty())
-                            {
-                                // Keep the building plan.
-                                // Will ask during loop body to build.
-                            } else {
-                                // We have no plan, but will call planBuilding()
-                                // during the loop body.  If buildingPlan still empty,
-                                // bottom of loop will end our Special Building turn,
-                                // just as it would in gamestate PLAY1.  Otherwise,
-                                // will ask to build after planBuilding.
-                            }
-                        } else {
-                            //
-                            // reset any plans we had
-                            //
-                            buildingPlan.clear();
-                        }
-                        negotiator.resetTargetPieces();
+            /**
+             * Handle some message types early.
+             */
+            switch (mesType)
+            {
+            case SOCMessage.PLAYERELEMENT:
+                {
+                handlePLAYERELEMENT((SOCPlayerElement) mes);
 
-                        //
-                        // swap the message-history queues
-                        //
-                        {
-                            Vector tmp = turnEventsPrev;
-                            turnEventsPrev = turnEventsCurrent;
-                            tmp.clear();
-                            turnEventsCurrent = tmp;
-                        }
+                // If this during the PLAY state, also updates the
+                // negotiator's is-selling flags.
 
-                        turnExceptionCount = 0;
-                    }
+                // If our player is losing a resource needed for the buildingPlan, 
+                // clear the plan if this is for the Special Building Phase (on the 6-player board).
+                // In normal game play, we clear the building plan at the start of each turn.
+                }
+                break;
+
+            case SOCMessage.RESOURCECOUNT:
+                {
+                SOCPlayer pl = game.getPlayer(((SOCResourceCount) mes).getPlayerNumber());
+
+                if (((SOCResourceCount) mes).getCount() != pl.getResources().getTotal())
+                {
+                    SOCResourceSet rsrcs = pl.getResources();
 
-                    if (game.getCurrentPlayerNumber() == ourPN)
+                    if (D.ebugOn)
                     {
-                        ourTurn = true;
-                        waitingForSpecialBuild = false;
+                        client.sendText(game, ">>> RESOURCE COUNT ERROR FOR PLAYER " + pl.getPlayerNumber() + ": " + ((SOCResourceCount) mes).getCount() + " != " + rsrcs.getTotal());
                     }
-                    else
+
+                    //
+                    //  fix it
+                    //
+                    if (pl.getPlayerNumber() != ourPN)
                     {
-                        ourTurn = false;
+                        rsrcs.clear();
+                        rsrcs.setAmount(((SOCResourceCount) mes).getCount(), SOCResourceConstants.UNKNOWN);
                     }
+                }
+                }
+                break;
 
-                    if ((mesType == SOCMessage.TURN) && (ourTurn))
-                    {
-                        waitingForOurTurn = false;
+            case SOCMessage.DICERESULT:
+                game.setCurrentDice(((SOCDiceResult) mes).getResult());
+                break;
 
-                        // Clear some per-turn variables.
-                        // For others, find the code which calls game.updateAtTurn().
-                        whatWeFailedToBuild = null;
-                        failedBuildingAttempts = 0;
-                        rejectedPlayDevCardType = -1;
-                    }
+            case SOCMessage.PUTPIECE:
+                handlePUTPIECE_updateGameData((SOCPutPiece) mes);
+                // For initial roads, also tracks their initial settlement in SOCPlayerTracker.
+                break;
 
-                    /**
-                     * Handle some message types early.
-                     */
-                    switch (mesType)
+            case SOCMessage.CANCELBUILDREQUEST:
+                handleCANCELBUILDREQUEST((SOCCancelBuildRequest) mes);
+                break;
+
+            case SOCMessage.MOVEROBBER:
+                {
+                //
+                // Note: Don't call ga.moveRobber() because that will call the 
+                // functions to do the stealing.  We just want to set where 
+                // the robber moved, without seeing if something was stolen.
+                // MOVEROBBER will be followed by PLAYERELEMENT messages to
+                // report the gain/loss of resources.
+                //
+                moveRobberOnSeven = false;
+                game.getBoard().setRobberHex(((SOCMoveRobber) mes).getCoordinates(), true);
+                }
+                break;
+
+            case SOCMessage.MAKEOFFER:
+                if (robotParameters.getTradeFlag() == 1)
+                    handleMAKEOFFER((SOCMakeOffer) mes);
+                break;
+
+            case SOCMessage.CLEAROFFER:
+                if (robotParameters.getTradeFlag() == 1)
+                {
+                    final int pn = ((SOCClearOffer) mes).getPlayerNumber();
+                    if (pn != -1)
                     {
-                    case SOCMessage.PLAYERELEMENT:
-                        {
-                        handlePLAYERELEMENT((SOCPlayerElement) mes);
+                        game.getPlayer(pn).setCurrentOffer(null);
+                    } else {
+                        for (int i = 0; i < game.maxPlayers; ++i)
+                            game.getPlayer(i).setCurrentOffer(null);
+                    }
+                }
+                break;
 
-                        // If this during the PLAY state, also updates the
-                        // negotiator's is-selling flags.
+            case SOCMessage.ACCEPTOFFER:
+                if (waitingForTradeResponse && (robotParameters.getTradeFlag() == 1))
+                {
+                    if ((ourPN == (((SOCAcceptOffer) mes).getOfferingNumber()))
+                        || (ourPN == ((SOCAcceptOffer) mes).getAcceptingNumber()))
+                    {
+                        waitingForTradeResponse = false;
+                    }
+                }
+                break;
 
-                        // If our player is losing a resource needed for the buildingPlan, 
-                        // clear the plan if this is for the Special Building Phase (on the 6-player board).
-                        // In normal game play, we clear the building plan at the start of each turn.
-                        }
-                        break;
+            case SOCMessage.REJECTOFFER:
+                if (robotParameters.getTradeFlag() == 1)
+                    handleREJECTOFFER((SOCRejectOffer) mes);
+                break;
 
-                    case SOCMessage.RESOURCECOUNT:
-                        {
-                        SOCPlayer pl = game.getPlayer(((SOCResourceCount) mes).getPlayerNumber());
+            case SOCMessage.DEVCARDCOUNT:
+                game.setNumDevCards(((SOCDevCardCount) mes).getNumDevCards());
+                break;
 
-                        if (((SOCResourceCount) mes).getCount() != pl.getResources().getTotal())
-                        {
-                            SOCResourceSet rsrcs = pl.getResources();
+            case SOCMessage.DEVCARD:
+                {
+                    SOCDevCard dcMes = (SOCDevCard) mes;
+                    if (dcMes.getAction() != SOCDevCard.CANNOT_PLAY)
+                    {
+                        handleDEVCARD(dcMes);
+                    } else {
+                        // rejected by server, can't play our requested card
+                        rejectedPlayDevCardType = dcMes.getCardType();
+                        waitingForGameState = false;
+                        expectPLACING_FREE_ROAD1 = false;
+                        expectWAITING_FOR_DISCOVERY = false;
+                        expectWAITING_FOR_MONOPOLY = false;
+                        expectPLACING_ROBBER = false;         
+                    }
+                }
+                break;
 
-                            if (D.ebugOn)
-                            {
-                                client.sendText(game, ">>> RESOURCE COUNT ERROR FOR PLAYER " + pl.getPlayerNumber() + ": " + ((SOCResourceCount) mes).getCount() + " != " + rsrcs.getTotal());
-                            }
+            case SOCMessage.SETPLAYEDDEVCARD:
+                {
+                SOCPlayer player = game.getPlayer(((SOCSetPlayedDevCard) mes).getPlayerNumber());
+                player.setPlayedDevCard(((SOCSetPlayedDevCard) mes).hasPlayedDevCard());
+                }
+                break;
 
-                            //
-                            //  fix it
-                            //
-                            if (pl.getPlayerNumber() != ourPN)
-                            {
-                                rsrcs.clear();
-                                rsrcs.setAmount(((SOCResourceCount) mes).getCount(), SOCResourceConstants.UNKNOWN);
-                            }
-                        }
-                        }
-                        break;
+            case SOCMessage.POTENTIALSETTLEMENTS:
+                {
+                SOCPlayer player = game.getPlayer(((SOCPotentialSettlements) mes).getPlayerNumber());
+                player.setPotentialSettlements(((SOCPotentialSettlements) mes).getPotentialSettlements());
+                }
+                break;
 
-                    case SOCMessage.DICERESULT:
-                        game.setCurrentDice(((SOCDiceResult) mes).getResult());
-                        break;
+            }  // switch(mesType)
 
-                    case SOCMessage.PUTPIECE:
-                        handlePUTPIECE_updateGameData((SOCPutPiece) mes);
-                        // For initial roads, also tracks their initial settlement in SOCPlayerTracker.
-                        break;
+            debugInfo();
 
-                    case SOCMessage.CANCELBUILDREQUEST:
-                        handleCANCELBUILDREQUEST((SOCCancelBuildRequest) mes);
-                        break;
+            if ((game.getGameState() == SOCGame.PLAY) && (!waitingForGameState))
+            {
+                rollOrPlayKnightOrExpectDice();
 
-                    case SOCMessage.MOVEROBBER:
-                        {
-                        //
-                        // Note: Don't call ga.moveRobber() because that will call the 
-                        // functions to do the stealing.  We just want to set where 
-                        // the robber moved, without seeing if something was stolen.
-                        // MOVEROBBER will be followed by PLAYERELEMENT messages to
-                        // report the gain/loss of resources.
-                        //
-                        moveRobberOnSeven = false;
-                        game.getBoard().setRobberHex(((SOCMoveRobber) mes).getCoordinates(), true);
-                        }
-                        break;
+                // On our turn, ask client to roll dice or play a knight;
+                // on other turns, update flags to expect dice result.
+                // Clears expectPLAY to false.
+                // Sets either expectDICERESULT, or expectPLACING_ROBBER and waitingForGameState.
+            }
 
-                    case SOCMessage.MAKEOFFER:
-                        if (robotParameters.getTradeFlag() == 1)
-                            handleMAKEOFFER((SOCMakeOffer) mes);
-                        break;
+            if ((game.getGameState() == SOCGame.PLACING_ROBBER) && (!waitingForGameState))
+            {
+                expectPLACING_ROBBER = false;
 
-                    case SOCMessage.CLEAROFFER:
-                        if (robotParameters.getTradeFlag() == 1)
+                if ((!waitingForOurTurn) && (ourTurn))
+                {
+                    if (!((expectPLAY || expectPLAY1) && (counter < 4000)))
+                    {
+                        if (moveRobberOnSeven == true)
                         {
-                            final int pn = ((SOCClearOffer) mes).getPlayerNumber();
-                            if (pn != -1)
-                            {
-                                game.getPlayer(pn).setCurrentOffer(null);
-                            } else {
-                                for (int i = 0; i < game.maxPlayers; ++i)
-                                    game.getPlayer(i).setCurrentOffer(null);
-                            }
+                            moveRobberOnSeven = false;
+                            waitingForGameState = true;
+                            counter = 0;
+                            expectPLAY1 = true;
                         }
-                        break;
-
-                    case SOCMessage.ACCEPTOFFER:
-                        if (waitingForTradeResponse && (robotParameters.getTradeFlag() == 1))
+                        else
                         {
-                            if ((ourPN == (((SOCAcceptOffer) mes).getOfferingNumber()))
-                                || (ourPN == ((SOCAcceptOffer) mes).getAcceptingNumber()))
+                            waitingForGameState = true;
+                            counter = 0;
+
+                            if (oldGameState == SOCGame.PLAY)
                             {
-                                waitingForTradeResponse = false;
+                                expectPLAY = true;
                             }
-                        }
-                        break;
-
-                    case SOCMessage.REJECTOFFER:
-                        if (robotParameters.getTradeFlag() == 1)
-                            handleREJECTOFFER((SOCRejectOffer) mes);
-                        break;
-
-                    case SOCMessage.DEVCARDCOUNT:
-                        game.setNumDevCards(((SOCDevCardCount) mes).getNumDevCards());
-                        break;
-
-                    case SOCMessage.DEVCARD:
-                        {
-                            SOCDevCard dcMes = (SOCDevCard) mes;
-                            if (dcMes.getAction() != SOCDevCard.CANNOT_PLAY)
+                            else if (oldGameState == SOCGame.PLAY1)
                             {
-                                handleDEVCARD(dcMes);
-                            } else {
-                                // rejected by server, can't play our requested card
-                                rejectedPlayDevCardType = dcMes.getCardType();
-                                waitingForGameState = false;
-                                expectPLACING_FREE_ROAD1 = false;
-                                expectWAITING_FOR_DISCOVERY = false;
-                                expectWAITING_FOR_MONOPOLY = false;
-                                expectPLACING_ROBBER = false;         
+                                expectPLAY1 = true;
                             }
                         }
-                        break;
 
-                    case SOCMessage.SETPLAYEDDEVCARD:
-                        {
-                        SOCPlayer player = game.getPlayer(((SOCSetPlayedDevCard) mes).getPlayerNumber());
-                        player.setPlayedDevCard(((SOCSetPlayedDevCard) mes).hasPlayedDevCard());
-                        }
-                        break;
+                        counter = 0;
+                        moveRobber();
+                    }
+                }
+            }
 
-                    case SOCMessage.POTENTIALSETTLEMENTS:
-                        {
-                        SOCPlayer player = game.getPlayer(((SOCPotentialSettlements) mes).getPlayerNumber());
-                        player.setPotentialSettlements(((SOCPotentialSettlements) mes).getPotentialSettlements());
-                        }
-                        break;
+            if ((game.getGameState() == SOCGame.WAITING_FOR_DISCOVERY) && (!waitingForGameState))
+            {
+                expectWAITING_FOR_DISCOVERY = false;
 
-                    }  // switch(mesType)
+                if ((!waitingForOurTurn) && (ourTurn))
+                {
+                    if (!(expectPLAY1) && (counter < 4000))
+                    {
+                        waitingForGameState = true;
+                        expectPLAY1 = true;
+                        counter = 0;
+                        client.discoveryPick(game, resourceChoices);
+                        pause(1500);
+                    }
+                }
+            }
 
-                    debugInfo();
+            if ((game.getGameState() == SOCGame.WAITING_FOR_MONOPOLY) && (!waitingForGameState))
+            {
+                expectWAITING_FOR_MONOPOLY = false;
 
-                    if ((game.getGameState() == SOCGame.PLAY) && (!waitingForGameState))
+                if ((!waitingForOurTurn) && (ourTurn))
+                {
+                    if (!(expectPLAY1) && (counter < 4000))
                     {
-                        rollOrPlayKnightOrExpectDice();
-
-                        // On our turn, ask client to roll dice or play a knight;
-                        // on other turns, update flags to expect dice result.
-                        // Clears expectPLAY to false.
-                        // Sets either expectDICERESULT, or expectPLACING_ROBBER and waitingForGameState.
+                        waitingForGameState = true;
+                        expectPLAY1 = true;
+                        counter = 0;
+                        client.monopolyPick(game, monopolyChoice);
+                        pause(1500);
                     }
+                }
+            }
 
-                    if ((game.getGameState() == SOCGame.PLACING_ROBBER) && (!waitingForGameState))
-                    {
-                        expectPLACING_ROBBER = false;
+            if (waitingForTradeMsg && (mesType == SOCMessage.SIMPLEACTION)
+                && (((SOCSimpleAction) mes).getActionType() == SOCSimpleAction.TRADE_SUCCESSFUL))
+            {
+                //
+                // This is the trade message we've been waiting for
+                //
+                waitingForTradeMsg = false;
+            }
 
-                        if ((!waitingForOurTurn) && (ourTurn))
-                        {
-                            if (!((expectPLAY || expectPLAY1) && (counter < 4000)))
-                            {
-                                if (moveRobberOnSeven == true)
-                                {
-                                    moveRobberOnSeven = false;
-                                    waitingForGameState = true;
-                                    counter = 0;
-                                    expectPLAY1 = true;
-                                }
-                                else
-                                {
-                                    waitingForGameState = true;
-                                    counter = 0;
+            if (waitingForDevCard && (mesType == SOCMessage.SIMPLEACTION)
+                && (((SOCSimpleAction) mes).getPlayerNumber() == ourPN)
+                && (((SOCSimpleAction) mes).getActionType() == SOCSimpleAction.DEVCARD_BOUGHT))
+            {
+                //
+                // This is the "dev card bought" message we've been waiting for
+                //
+                waitingForDevCard = false;
+            }
 
-                                    if (oldGameState == SOCGame.PLAY)
-                                    {
-                                        expectPLAY = true;
-                                    }
-                                    else if (oldGameState == SOCGame.PLAY1)
-                                    {
-                                        expectPLAY1 = true;
-                                    }
-                                }
+            if (((game.getGameState() == SOCGame.PLAY1) || (game.getGameState() == SOCGame.SPECIAL_BUILDING))
+                && (!waitingForGameState) && (!waitingForTradeMsg) && (!waitingForTradeResponse) && (!waitingForDevCard)
+                && (!expectPLACING_ROAD) && (!expectPLACING_SETTLEMENT) && (!expectPLACING_CITY) && (!expectPLACING_ROBBER) && (!expectPLACING_FREE_ROAD1) && (!expectPLACING_FREE_ROAD2) && (!expectWAITING_FOR_DISCOVERY) && (!expectWAITING_FOR_MONOPOLY))
+            {
+                // Time to decide to build, or take other normal actions.
 
-                                counter = 0;
-                                moveRobber();
-                            }
-                        }
-                    }
+                expectPLAY1 = false;
+
+                // 6-player: check Special Building Phase
+                // during other players' turns.
+                if ((! ourTurn) && waitingForOurTurn && gameIs6Player
+                     && (! decidedIfSpecialBuild) && (!expectPLACING_ROBBER))
+                {
+                    decidedIfSpecialBuild = true;
 
-                    if ((game.getGameState() == SOCGame.WAITING_FOR_DISCOVERY) && (!waitingForGameState))
+                    /**
+                     * It's not our turn.  We're not doing anything else right now.
+                     * Gamestate has passed PLAY, so we know what resources to expect.
+                     * Do we want to Special Build?  Check the same conditions as during our turn.
+                     * Make a plan if we don't have one,
+                     * and if we haven't given up building
+                     * attempts this turn.
+                     */
+
+                    if ((buildingPlan.empty()) && (ourPlayerData.getResources().getTotal() > 1) && (failedBuildingAttempts < MAX_DENIED_BUILDING_PER_TURN))
                     {
-                        expectWAITING_FOR_DISCOVERY = false;
+                        planBuilding();
+
+                        /*
+                         * planBuilding takes these actions:
+                         *
+                        decisionMaker.planStuff(robotParameters.getStrategyType());
 
-                        if ((!waitingForOurTurn) && (ourTurn))
+                        if (!buildingPlan.empty())
                         {
-                            if (!(expectPLAY1) && (counter < 4000))
-                            {
-                                waitingForGameState = true;
-                                expectPLAY1 = true;
-                                counter = 0;
-                                client.discoveryPick(game, resourceChoices);
-                                pause(1500);
-                            }
+                            lastTarget = (SOCPossiblePiece) buildingPlan.peek();
+                            negotiator.setTargetPiece(ourPlayerData.getPlayerNumber(), (SOCPossiblePiece) buildingPlan.peek());
                         }
-                    }
-
-                    if ((game.getGameState() == SOCGame.WAITING_FOR_MONOPOLY) && (!waitingForGameState))
-                    {
-                        expectWAITING_FOR_MONOPOLY = false;
+                         */
 
-                        if ((!waitingForOurTurn) && (ourTurn))
+                        if ( ! buildingPlan.empty())
                         {
-                            if (!(expectPLAY1) && (counter < 4000))
+                            // Do we have the resources right now?
+                            final SOCPossiblePiece targetPiece = (SOCPossiblePiece) buildingPlan.peek();
+                            final SOCResourceSet targetResources = SOCPlayingPiece.getResourcesToBuild(targetPiece.getType());
+
+                            if ((ourPlayerData.getResources().contains(targetResources)))
                             {
-                                waitingForGameState = true;
-                                expectPLAY1 = true;
-                                counter = 0;
-                                client.monopolyPick(game, monopolyChoice);
-                                pause(1500);
+                                // Ask server for the Special Building Phase.
+                                // (TODO) if FAST_STRATEGY: Maybe randomly don't ask?
+                                waitingForSpecialBuild = true;
+                                client.buildRequest(game, -1);
+                                pause(100);
                             }
                         }
                     }
+                }
 
-                    if (waitingForTradeMsg && (mesType == SOCMessage.SIMPLEACTION)
-                        && (((SOCSimpleAction) mes).getActionType() == SOCSimpleAction.TRADE_SUCCESSFUL))
-                    {
-                        //
-                        // This is the trade message we've been waiting for
-                        //
-                        waitingForTradeMsg = false;
-                    }
-
-                    if (waitingForDevCard && (mesType == SOCMessage.SIMPLEACTION)
-                        && (((SOCSimpleAction) mes).getPlayerNumber() == ourPN)
-                        && (((SOCSimpleAction) mes).getActionType() == SOCSimpleAction.DEVCARD_BOUGHT))
-                    {
-                        //
-                        // This is the "dev card bought" message we've been waiting for
-                        //
-                        waitingForDevCard = false;
-                    }
-
-                    if (((game.getGameState() == SOCGame.PLAY1) || (game.getGameState() == SOCGame.SPECIAL_BUILDING))
-                        && (!waitingForGameState) && (!waitingForTradeMsg) && (!waitingForTradeResponse) && (!waitingForDevCard)
-                        && (!expectPLACING_ROAD) && (!expectPLACING_SETTLEMENT) && (!expectPLACING_CITY) && (!expectPLACING_ROBBER) && (!expectPLACING_FREE_ROAD1) && (!expectPLACING_FREE_ROAD2) && (!expectWAITING_FOR_DISCOVERY) && (!expectWAITING_FOR_MONOPOLY))
+                if ((!waitingForOurTurn) && (ourTurn))
+                {
+                    if (!(expectPLAY && (counter < 4000)))
                     {
-                        // Time to decide to build, or take other normal actions.
-
-                        expectPLAY1 = false;
+                        counter = 0;
 
-                        // 6-player: check Special Building Phase
-                        // during other players' turns.
-                        if ((! ourTurn) && waitingForOurTurn && gameIs6Player
-                             && (! decidedIfSpecialBuild) && (!expectPLACING_ROBBER))
+                        //D.ebugPrintln("DOING PLAY1");
+                        if (D.ebugOn)
                         {
-                            decidedIfSpecialBuild = true;
-
-                            /**
-                             * It's not our turn.  We're not doing anything else right now.
-                             * Gamestate has passed PLAY, so we know what resources to expect.
-                             * Do we want to Special Build?  Check the same conditions as during our turn.
-                             * Make a plan if we don't have one,
-                             * and if we haven't given up building
-                             * attempts this turn.
-                             */
+                            client.sendText(game, "================================");
 
-                            if ((buildingPlan.empty()) && (ourPlayerData.getResources().getTotal() > 1) && (failedBuildingAttempts < MAX_DENIED_BUILDING_PER_TURN))
-                            {
-                                planBuilding();
-
-                                /*
-                                 * planBuilding takes these actions:
-                                 *
-                                decisionMaker.planStuff(robotParameters.getStrategyType());
-
-                                if (!buildingPlan.empty())
-                                {
-                                    lastTarget = (SOCPossiblePiece) buildingPlan.peek();
-                                    negotiator.setTargetPiece(ourPlayerData.getPlayerNumber(), (SOCPossiblePiece) buildingPlan.peek());
-                                }
-                                 */
-
-                                if ( ! buildingPlan.empty())
-                                {
-                                    // Do we have the resources right now?
-                                    final SOCPossiblePiece targetPiece = (SOCPossiblePiece) buildingPlan.peek();
-                                    final SOCResourceSet targetResources = SOCPlayingPiece.getResourcesToBuild(targetPiece.getType());
-
-                                    if ((ourPlayerData.getResources().contains(targetResources)))
-                                    {
-                                        // Ask server for the Special Building Phase.
-                                        // (TODO) if FAST_STRATEGY: Maybe randomly don't ask?
-                                        waitingForSpecialBuild = true;
-                                        client.buildRequest(game, -1);
-                                        pause(100);
-                                    }
-                                }
-                            }
+                            // for each player in game:
+                            //    sendText and debug-prn game.getPlayer(i).getResources()
+                            printResources();
                         }
 
-                        if ((!waitingForOurTurn) && (ourTurn))
+                        /**
+                         * if we haven't played a dev card yet,
+                         * and we have a knight, and we can get
+                         * largest army, play the knight.
+                         * If we're in SPECIAL_BUILDING (not PLAY1),
+                         * can't trade or play development cards.
+                         */
+                        if ((game.getGameState() == SOCGame.PLAY1) && ! ourPlayerData.hasPlayedDevCard())
                         {
-                            if (!(expectPLAY && (counter < 4000)))
+                            SOCPlayer laPlayer = game.getPlayerWithLargestArmy();
+
+                            if (((laPlayer != null) && (laPlayer.getPlayerNumber() != ourPN)) || (laPlayer == null))
                             {
-                                counter = 0;
+                                int larmySize;
 
-                                //D.ebugPrintln("DOING PLAY1");
-                                if (D.ebugOn)
+                                if (laPlayer == null)
                                 {
-                                    client.sendText(game, "================================");
-
-                                    // for each player in game:
-                                    //    sendText and debug-prn game.getPlayer(i).getResources()
-                                    printResources();
+                                    larmySize = 3;
                                 }
-
-                                /**
-                                 * if we haven't played a dev card yet,
-                                 * and we have a knight, and we can get
-                                 * largest army, play the knight.
-                                 * If we're in SPECIAL_BUILDING (not PLAY1),
-                                 * can't trade or play development cards.
-                                 */
-                                if ((game.getGameState() == SOCGame.PLAY1) && ! ourPlayerData.hasPlayedDevCard())
+                                else
                                 {
-                                    SOCPlayer laPlayer = game.getPlayerWithLargestArmy();
-
-                                    if (((laPlayer != null) && (laPlayer.getPlayerNumber() != ourPN)) || (laPlayer == null))
-                                    {
-                                        int larmySize;
-
-                                        if (laPlayer == null)
-                                        {
-                                            larmySize = 3;
-                                        }
-                                        else
-                                        {
-                                            larmySize = laPlayer.getNumKnights() + 1;
-                                        }
-
-                                        if ( ((ourPlayerData.getNumKnights()
-                                              + ourPlayerData.getDevCards().getAmount(SOCDevCardSet.NEW, SOCDevCardConstants.KNIGHT)
-                                              + ourPlayerData.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT))
-                                              >= larmySize)
-                                            && (ourPlayerData.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) > 0)
-                                            && (rejectedPlayDevCardType != SOCDevCardConstants.KNIGHT))
-                                        {
-                                            /**
-                                             * play a knight card
-                                             */
-                                            expectPLACING_ROBBER = true;
-                                            waitingForGameState = true;
-                                            counter = 0;
-                                            client.playDevCard(game, SOCDevCardConstants.KNIGHT);
-                                            pause(1500);
-                                        }
-                                    }
+                                    larmySize = laPlayer.getNumKnights() + 1;
                                 }
 
-                                /**
-                                 * make a plan if we don't have one,
-                                 * and if we haven't given up building
-                                 * attempts this turn.
-                                 */
-                                if (!expectPLACING_ROBBER && (buildingPlan.empty()) && (ourPlayerData.getResources().getTotal() > 1) && (failedBuildingAttempts < MAX_DENIED_BUILDING_PER_TURN))
+                                if ( ((ourPlayerData.getNumKnights()
+                                      + ourPlayerData.getDevCards().getAmount(SOCDevCardSet.NEW, SOCDevCardConstants.KNIGHT)
+                                      + ourPlayerData.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT))
+                                      >= larmySize)
+                                    && (ourPlayerData.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) > 0)
+                                    && (rejectedPlayDevCardType != SOCDevCardConstants.KNIGHT))
                                 {
-                                    planBuilding();
-
-                                    /*
-                                     * planBuilding takes these actions:
-                                     *
-                                    decisionMaker.planStuff(robotParameters.getStrategyType());
-
-                                    if (!buildingPlan.empty())
-                                    {
-                                        lastTarget = (SOCPossiblePiece) buildingPlan.peek();
-                                        negotiator.setTargetPiece(ourPlayerData.getPlayerNumber(), (SOCPossiblePiece) buildingPlan.peek());
-                                    }
+                                    /**
+                                     * play a knight card
                                      */
-                                }
-
-                                //D.ebugPrintln("DONE PLANNING");
-                                if (!expectPLACING_ROBBER && !buildingPlan.empty())
-                                {
-                                    // Time to build something.
-
-                                    // Either ask to build a piece, or use trading or development
-                                    // cards to get resources to build it.  See javadoc for flags set.
-                                    buildOrGetResourceByTradeOrCard();
-                                }
-
-                                /**
-                                 * see if we're done with our turn
-                                 */
-                                if (!(expectPLACING_SETTLEMENT || expectPLACING_FREE_ROAD1 || expectPLACING_FREE_ROAD2 || expectPLACING_ROAD || expectPLACING_CITY || expectWAITING_FOR_DISCOVERY || expectWAITING_FOR_MONOPOLY || expectPLACING_ROBBER || waitingForTradeMsg || waitingForTradeResponse || waitingForDevCard))
-                                {
+                                    expectPLACING_ROBBER = true;
                                     waitingForGameState = true;
                                     counter = 0;
-                                    expectPLAY = true;
-                                    waitingForOurTurn = true;
-
-                                    if (robotParameters.getTradeFlag() == 1)
-                                    {
-                                        doneTrading = false;
-                                    }
-                                    else
-                                    {
-                                        doneTrading = true;
-                                    }
-
-                                    //D.ebugPrintln("!!! ENDING TURN !!!");
-                                    negotiator.resetIsSelling();
-                                    negotiator.resetOffersMade();
-                                    buildingPlan.clear();
-                                    negotiator.resetTargetPieces();
+                                    client.playDevCard(game, SOCDevCardConstants.KNIGHT);
                                     pause(1500);
-                                    client.endTurn(game);
                                 }
                             }
                         }
-                    }
 
-                    /**
-                     * Placement: Make various putPiece calls; server has told us it's OK to buy them.
-                     * Call client.putPiece.
-                     * Works when it's our turn and we have an expect flag set
-                     * (such as expectPLACING_SETTLEMENT, in these game states:
-                     * START1A - START2B
-                     * PLACING_SETTLEMENT, PLACING_ROAD, PLACING_CITY
-                     * PLACING_FREE_ROAD1, PLACING_FREE_ROAD2
-                     */
-                    if (! waitingForGameState)
-                    {
-                        placeIfExpectPlacing();
-                    }
+                        /**
+                         * make a plan if we don't have one,
+                         * and if we haven't given up building
+                         * attempts this turn.
+                         */
+                        if (!expectPLACING_ROBBER && (buildingPlan.empty()) && (ourPlayerData.getResources().getTotal() > 1) && (failedBuildingAttempts < MAX_DENIED_BUILDING_PER_TURN))
+                        {
+                            planBuilding();
 
-                    /**
-                     * End of various putPiece placement calls.
-                     */
+                            /*
+                             * planBuilding takes these actions:
+                             *
+                            decisionMaker.planStuff(robotParameters.getStrategyType());
 
-                    /*
-                       if (game.getGameState() == SOCGame.OVER) {
-                       client.leaveGame(game);
-                       alive = false;
-                       }
-                     */
+                            if (!buildingPlan.empty())
+                            {
+                                lastTarget = (SOCPossiblePiece) buildingPlan.peek();
+                                negotiator.setTargetPiece(ourPlayerData.getPlayerNumber(), (SOCPossiblePiece) buildingPlan.peek());
+                            }
+                             */
+                        }
 
-                    /**
-                     * Handle various message types here at bottom of loop.
-                     */
-                    switch (mesType)
-                    {
-                    case SOCMessage.SETTURN:
-                        game.setCurrentPlayerNumber(((SOCSetTurn) mes).getPlayerNumber());
-                        break;
+                        //D.ebugPrintln("DONE PLANNING");
+                        if (!expectPLACING_ROBBER && !buildingPlan.empty())
+                        {
+                            // Time to build something.
+
+                            // Either ask to build a piece, or use trading or development
+                            // cards to get resources to build it.  See javadoc for flags set.
+                            buildOrGetResourceByTradeOrCard();
+                        }
 
-                    case SOCMessage.PUTPIECE:
                         /**
-                         * this is for player tracking
+                         * see if we're done with our turn
                          */
-                        handlePUTPIECE_updateTrackers((SOCPutPiece) mes);
-
-                        // For initial placement of our own pieces, also checks
-                        // and clears expectPUTPIECE_FROM_START1A,
-                        // and sets expectSTART1B, etc.  The final initial putpiece
-                        // clears expectPUTPIECE_FROM_START2B and sets expectPLAY.
-
-                        break;
-
-                    case SOCMessage.DICERESULT:
-                        if (expectDICERESULT)
+                        if (!(expectPLACING_SETTLEMENT || expectPLACING_FREE_ROAD1 || expectPLACING_FREE_ROAD2 || expectPLACING_ROAD || expectPLACING_CITY || expectWAITING_FOR_DISCOVERY || expectWAITING_FOR_MONOPOLY || expectPLACING_ROBBER || waitingForTradeMsg || waitingForTradeResponse || waitingForDevCard))
                         {
-                            expectDICERESULT = false;
-    
-                            if (((SOCDiceResult) mes).getResult() == 7)
-                            {
-                                moveRobberOnSeven = true;
-    
-                                if (ourPlayerData.getResources().getTotal() > 7)
-                                    expectDISCARD = true;
+                            waitingForGameState = true;
+                            counter = 0;
+                            expectPLAY = true;
+                            waitingForOurTurn = true;
 
-                                else if (ourTurn)
-                                    expectPLACING_ROBBER = true;
+                            if (robotParameters.getTradeFlag() == 1)
+                            {
+                                doneTrading = false;
                             }
                             else
                             {
-                                expectPLAY1 = true;
+                                doneTrading = true;
                             }
-                        }
-                        break;
-
-                    case SOCMessage.DISCARDREQUEST:
-                        expectDISCARD = false;
-
-                        /**
-                         * If we haven't recently discarded...
-                         */
 
-                        //	if (!((expectPLACING_ROBBER || expectPLAY1) &&
-                        //	      (counter < 4000))) {
-                        if ((game.getCurrentDice() == 7) && (ourTurn))
-                        {
-                            expectPLACING_ROBBER = true;
-                        }
-                        else
-                        {
-                            expectPLAY1 = true;
+                            //D.ebugPrintln("!!! ENDING TURN !!!");
+                            negotiator.resetIsSelling();
+                            negotiator.resetOffersMade();
+                            buildingPlan.clear();
+                            negotiator.resetTargetPieces();
+                            pause(1500);
+                            client.endTurn(game);
                         }
+                    }
+                }
+            }
 
-                        counter = 0;
-                        discard(((SOCDiscardRequest) mes).getNumberOfDiscards());
+            /**
+             * Placement: Make various putPiece calls; server has told us it's OK to buy them.
+             * Call client.putPiece.
+             * Works when it's our turn and we have an expect flag set
+             * (such as expectPLACING_SETTLEMENT, in these game states:
+             * START1A - START2B
+             * PLACING_SETTLEMENT, PLACING_ROAD, PLACING_CITY
+             * PLACING_FREE_ROAD1, PLACING_FREE_ROAD2
+             */
+            if (! waitingForGameState)
+            {
+                placeIfExpectPlacing();
+            }
 
-                        //	}
-                        break;
+            /**
+             * End of various putPiece placement calls.
+             */
 
-                    case SOCMessage.CHOOSEPLAYERREQUEST:
-                        chooseRobberVictim(((SOCChoosePlayerRequest) mes).getChoices());
-                        counter = 0;
-                        break;
+            /*
+               if (game.getGameState() == SOCGame.OVER) {
+               client.leaveGame(game);
+               alive = false;
+               }
+             */
 
-                    case SOCMessage.ROBOTDISMISS:
-                        if ((!expectDISCARD) && (!expectPLACING_ROBBER))
-                        {
-                            client.leaveGame(game, "dismiss msg", false, false);
-                            alive = false;
-                        }
-                        break;
+            /**
+             * Handle various message types here at bottom of loop.
+             */
+            switch (mesType)
+            {
+            case SOCMessage.SETTURN:
+                game.setCurrentPlayerNumber(((SOCSetTurn) mes).getPlayerNumber());
+                break;
 
-                    case SOCMessage.TIMINGPING:
-                        // Once-per-second message from the pinger thread
-                        counter++;
-                        break;
+            case SOCMessage.PUTPIECE:
+                /**
+                 * this is for player tracking
+                 */
+                handlePUTPIECE_updateTrackers((SOCPutPiece) mes);
 
-                    }  // switch (mesType) - for some types, at bottom of loop body
+                // For initial placement of our own pieces, also checks
+                // and clears expectPUTPIECE_FROM_START1A,
+                // and sets expectSTART1B, etc.  The final initial putpiece
+                // clears expectPUTPIECE_FROM_START2B and sets expectPLAY.
+
+                break;
 
-                    if (ourTurn && (counter > 15000))
+            case SOCMessage.DICERESULT:
+                if (expectDICERESULT)
+                {
+                    expectDICERESULT = false;
+    
+                    if (((SOCDiceResult) mes).getResult() == 7)
                     {
-                        // We've been waiting too long, must be a bug: Leave the game.
-                        // This is a fallback, server has SOCForceEndTurnThread which
-                        // should have already taken action.
-                        // Before v1.1.20, would leave game even during other (human) players' turns.
-                        client.leaveGame(game, "counter 15000", true, false);
-                        alive = false;
-                    }
+                        moveRobberOnSeven = true;
+    
+                        if (ourPlayerData.getResources().getTotal() > 7)
+                            expectDISCARD = true;
 
-                    if ((failedBuildingAttempts > (2 * MAX_DENIED_BUILDING_PER_TURN))
-                        && game.isInitialPlacement())
+                        else if (ourTurn)
+                            expectPLACING_ROBBER = true;
+                    }
+                    else
                     {
-                        // Apparently can't decide where we can initially place:
-                        // Leave the game.
-                        client.leaveGame(game, "failedBuildingAttempts at start", true, false);
-                        alive = false;
+                        expectPLAY1 = true;
                     }
+                }
+                break;
 
-                    /*
-                       if (D.ebugOn) {
-                       if (mes != null) {
-                       debugInfo();
-                       D.ebugPrintln("~~~~~~~~~~~~~~~~");
-                       }
-                       }
-                     */
-                    yield();
+            case SOCMessage.DISCARDREQUEST:
+                expectDISCARD = false;
+
+                /**
+                 * If we haven't recently discarded...
+                 */
+
+		//      if (!((expectPLACING_ROBBER || expectPLAY1) &&
+		//            (counter < 4000))) {
+                if ((game.getCurrentDice() == 7) && (ourTurn))
+                {
+                    expectPLACING_ROBBER = true;
+                }
+                else
+                {
+                    expectPLAY1 = true;
                 }
 
-                catch (Exception e)
+                counter = 0;
+                discard(((SOCDiscardRequest) mes).getNumberOfDiscards());
+
+		//      }
+                break;
+
+            case SOCMessage.CHOOSEPLAYERREQUEST:
+                chooseRobberVictim(((SOCChoosePlayerRequest) mes).getChoices());
+                counter = 0;
+                break;
+
+            case SOCMessage.ROBOTDISMISS:
+                if ((!expectDISCARD) && (!expectPLACING_ROBBER))
                 {
-                    // Print exception; ignore errors due to game reset in another thread
-                    if (alive && ((game == null) || (game.getGameState() != SOCGame.RESET_OLD)))
-                    {
-                        ++turnExceptionCount;  // TODO end our turn if too many
-
-                        String eMsg = (turnExceptionCount == 1)
-                            ? "*** Robot caught an exception - " + e
-                            : "*** Robot caught an exception (" + turnExceptionCount + " this turn) - " + e;
-                        D.ebugPrintln(eMsg);
-                        System.out.println(eMsg);
-                        e.printStackTrace();
-                    }
+                    client.leaveGame(game, "dismiss msg", false, false);
+                    alive = false;
                 }
+                break;
+
+            case SOCMessage.TIMINGPING:
+                // Once-per-second message from the pinger thread
+                counter++;
+                break;
+
+            }  // switch (mesType) - for some types, at bottom of loop body
+
+            if (ourTurn && (counter > 15000))
+            {
+                // We've been waiting too long, must be a bug: Leave the game.
+                // This is a fallback, server has SOCServer.ForceEndTurnTask which
+                // should have already taken action.
+                // Before v1.1.20, would leave game even during other (human) players' turns.
+                client.leaveGame(game, "counter 15000", true, false);
+                alive = false;
             }
+
+            if ((failedBuildingAttempts > (2 * MAX_DENIED_BUILDING_PER_TURN))
+                && game.isInitialPlacement())
+            {
+                // Apparently can't decide where we can initially place:
+                // Leave the game.
+                client.leaveGame(game, "failedBuildingAttempts at start", true, false);
+                alive = false;
+            }
+
+            /*
+               if (D.ebugOn) {
+               if (mes != null) {
+               debugInfo();
+               D.ebugPrintln("~~~~~~~~~~~~~~~~");
+               }
+               }
+             */
         }
-        else
+
+        catch (Exception e)
         {
-            System.out.println("AGG! NO PINGER!");
+            // Print exception; ignore errors due to game reset in another thread
+            if (alive && ((game == null) || (game.getGameState() != SOCGame.RESET_OLD)))
+            {
+                ++turnExceptionCount;  // TODO end our turn if too many
+
+                String eMsg = (turnExceptionCount == 1)
+                    ? "*** Robot caught an exception - " + e
+                    : "*** Robot caught an exception (" + turnExceptionCount + " this turn) - " + e;
+                D.ebugPrintln(eMsg);
+                System.out.println(eMsg);
+                e.printStackTrace();
+            }
         }
+    }
 
+    /**
+     * Release our references to the client, game and trackers after the brain stops.
+     * Called at the end of {@link #run()}, or by the {@link SOCRobotBrainScheduler}
+     * once the brain is no longer {@link #alive}.
+     * @since 1.2.00
+     */
+    void releaseGameData()
+    {
         //D.ebugPrintln("STOPPING AND DEALLOCATING");
         gameEventQ = null;
         client.addCleanKill();
@@ -1932,7 +1966,7 @@ public class SOCRobotBrain extends Thread
                  */
                 if ((ourPlayerData.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) > 0)
                     && (rejectedPlayDevCardType != SOCDevCardConstants.KNIGHT)
-                    && ! (ourPlayerData.getNumbers().getNumberResourcePairsForHex(game.getBoard().getRobberHex())).isEmpty())
+                    && ourPlayerData.getNumbers().hasNumbersForHex(game.getBoard().getRobberHex()))
                 {
                     expectPLACING_ROBBER = true;
                     waitingForGameState = true;
@@ -3105,7 +3139,7 @@ public class SOCRobotBrain extends Thread
      * @param isCancel Is this our own robot's city placement, rejected by the server?
      *     If so, this method call will cancel its placement within the game data / robot data. 
      */
-    private void trackNewCity(SOCCity newCity, final boolean isCancel)
+    protected void trackNewCity(SOCCity newCity, final boolean isCancel)
     {
         Iterator trackersIter = playerTrackers.values().iterator();
 
@@ -3483,6 +3517,31 @@ public class SOCRobotBrain extends Thread
         buildingPlan.clear();
     }
 
+    /**
+     * Start this brain: On a {@link SOCRobotBrainScheduler}'s worker threads if
+     * {@link #gameEventQ} came from {@link SOCRobotBrainScheduler#createGameEventQueue()},
+     * otherwise as its own thread by calling {@link #start()}.
+     * @since 1.2.00
+     */
+    public void startBrain()
+    {
+        if (gameEventQ instanceof SOCRobotBrainScheduler.BrainQueue)
+            ((SOCRobotBrainScheduler.BrainQueue) gameEventQ).sched.start(this);
+        else
+            start();
+    }
+
+    /**
+     * Is this brain still running, either as its own thread or on a {@link SOCRobotBrainScheduler}?
+     * @return  True if started by {@link #startBrain()} and not yet stopped
+     * @since 1.2.00
+     */
+    public boolean isRunning()
+    {
+        final SOCRobotBrainScheduler.BrainTask t = schedulerTask;
+        return (t != null) ? t.isRunning() : isAlive();
+    }
+
     /**
      * kill this brain
      */
@@ -3503,6 +3562,10 @@ public class SOCRobotBrain extends Thread
      * In a 6-player game, pause only 75% as long, to shorten the overall game delay,
      * except if {@link #waitingForTradeResponse}.
      * This is indicated by the {@link #pauseFaster} flag.
+     *<P>
+     * If this brain runs on a {@link SOCRobotBrainScheduler}, doesn't sleep: Instead the
+     * scheduler holds our client's messages to the server, and our next game event,
+     * until the pause ends. See {@link SOCRobotBrainScheduler#pause(SOCRobotBrain, int)}.
      *
      * @param msec  number of milliseconds to pause
      */
@@ -3511,6 +3574,13 @@ public class SOCRobotBrain extends Thread
         if (pauseFaster && ! waitingForTradeResponse)
             msec = (msec / 2) + (msec / 4);
 
+        final SOCRobotBrainScheduler.BrainTask t = schedulerTask;
+        if (t != null)
+        {
+            t.sched.pause(this, msec);
+            return;
+        }
+
         try
         {
             yield();
@@ -4607,7 +4677,7 @@ public class SOCRobotBrain extends Thread
              * and not the robber hex, and possibly not desert hexes
              */
             if ((hexes[i] != robberHex)
-                    && ourPlayerData.getNumbers().getNumberResourcePairsForHex(hexes[i]).isEmpty()
+                    && ! ourPlayerData.getNumbers().hasNumbersForHex(hexes[i])
                     && ! (skipDeserts && (gboard.getHexTypeFromCoord(hexes[i]) == SOCBoard.DESERT_HEX )))
             {
                 estimate.recalculateEstimates(victim.getNumbers(), hexes[i]);
@@ -4653,7 +4723,7 @@ public class SOCRobotBrain extends Thread
                     || (skipDeserts
                             && (gboard.getHexTypeFromCoord(bestHex) == SOCBoard.DESERT_HEX ))
                     || ((numRand < 30)
-                            && ourPlayerData.getNumbers().getNumberResourcePairsForHex(bestHex).isEmpty()))
+                            && ! ourPlayerData.getNumbers().hasNumbersForHex(bestHex)))
             {
                 bestHex = hexes[Math.abs(rand.nextInt()) % hexes.length];
                 // D.ebugPrintln("%%% random pick = " + Integer.toHexString(bestHex));
@@ -4699,25 +4769,12 @@ public class SOCRobotBrain extends Thread
             SOCResourceSet targetResources = SOCPlayingPiece.getResourcesToBuild(targetPiece.getType());
 
             /**
-             * figure out what resources are NOT the ones we need
+             * figure out what resources are NOT the ones we need.
+             * Packed resource sets, so picking doesn't copy the hand.
              */
-            SOCResourceSet leftOvers = ourPlayerData.getResources().copy();
-
-            for (int rsrc = SOCResourceConstants.CLAY;
-                    rsrc <= SOCResourceConstants.WOOD; rsrc++)
-            {
-                if (leftOvers.getAmount(rsrc) > targetResources.getAmount(rsrc))
-                {
-                    leftOvers.subtract(targetResources.getAmount(rsrc), rsrc);
-                }
-                else
-                {
-                    leftOvers.setAmount(0, rsrc);
-                }
-            }
-
-            SOCResourceSet neededRsrcs = ourPlayerData.getResources().copy();
-            neededRsrcs.subtract(leftOvers);
+            final long ourResources = ourPlayerData.getResources().getPacked();
+            long leftOvers = SOCResourceSet.subtract(ourResources, targetResources.getPacked());
+            long neededRsrcs = SOCResourceSet.subtract(ourResources, leftOvers);
 
             /**
              * figure out the order of resources from
@@ -4760,10 +4817,11 @@ public class SOCRobotBrain extends Thread
                 while ((discards.getTotal() < numDiscards) && (curRsrc < 5))
                 {
                     //D.ebugPrintln("(1) dis.tot="+discards.getTotal()+" curRsrc="+curRsrc);
-                    if (leftOvers.getAmount(resourceOrder[curRsrc]) > 0)
+                    final int amt = SOCResourceSet.getAmount(leftOvers, resourceOrder[curRsrc]);
+                    if (amt > 0)
                     {
                         discards.add(1, resourceOrder[curRsrc]);
-                        leftOvers.subtract(1, resourceOrder[curRsrc]);
+                        leftOvers = SOCResourceSet.setAmount(leftOvers, amt - 1, resourceOrder[curRsrc]);
                     }
                     else
                     {
@@ -4779,10 +4837,11 @@ public class SOCRobotBrain extends Thread
                 while ((discards.getTotal() < numDiscards) && (curRsrc < 5))
                 {
                     //D.ebugPrintln("(2) dis.tot="+discards.getTotal()+" curRsrc="+curRsrc);
-                    if (neededRsrcs.getAmount(resourceOrder[curRsrc]) > 0)
+                    final int amt = SOCResourceSet.getAmount(neededRsrcs, resourceOrder[curRsrc]);
+                    if (amt > 0)
                     {
                         discards.add(1, resourceOrder[curRsrc]);
-                        neededRsrcs.subtract(1, resourceOrder[curRsrc]);
+                        neededRsrcs = SOCResourceSet.setAmount(neededRsrcs, amt - 1, resourceOrder[curRsrc]);
                     }
                     else
                     {
@@ -0,0 +1,482 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.robot;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import soc.message.SOCMessage;
+import soc.message.SOCTimingPing;
+import soc.util.CappedQueue;
+import soc.util.CutoffExceededException;
+
+/**
+ * A fixed number of worker threads which run robot brains as event handlers, so that the number
+ * of threads doesn't grow with the number of games. Without a scheduler each {@link SOCRobotBrain}
+ * is its own thread, mostly waiting for its next message from {@link SOCRobotBrain#gameEventQ},
+ * plus a {@link SOCRobotPinger} thread to send it timing pings.
+ *<P>
+ * A scheduled brain's game event queue comes from {@link #createGameEventQueue()}; putting a message
+ * into it makes the brain runnable. A worker then calls {@link SOCRobotBrain#handleGameEvent(SOCMessage)}
+ * for each queued message. Only one worker at a time runs a given brain, so each game's messages
+ * are still handled one at a time in the order received. Timing pings come from this scheduler's
+ * timer thread instead of a pinger thread per brain.
+ *<P>
+ * The brain's {@link SOCRobotBrain#pause(int)} doesn't sleep on a worker thread, which would block
+ * other brains. Instead it calls {@link #pause(SOCRobotBrain, int)}, which extends the brain's pause
+ * to end that much later. Anything the brain sends to the server while paused is held until the
+ * pause ends, then sent in order by the timer thread; see {@link #deferPut(SOCRobotClient, String)}.
+ * The brain's next message is handled once the pause has ended, as a continuation scheduled on the timer.
+ * So the server sees the same delays between a robot's actions as from a brain thread's sleep.
+ *<P>
+ * To use a scheduler for all robot clients in the JVM, call {@link SOCRobotClient#setBrainThreads(int)}.
+ *
+ * @since 1.2.00
+ */
+public class SOCRobotBrainScheduler
+{
+    /** Milliseconds between timing pings to each brain, the same as {@link SOCRobotPinger} */
+    private static final int PING_MSEC = 1000;
+
+    /**
+     * Maximum number of messages a worker handles for one brain before
+     * letting other runnable brains have a turn.
+     */
+    private static final int MAX_BATCH = 20;
+
+    /** The brain being handled by the current worker thread, if any */
+    private static final ThreadLocal<BrainTask> currentTask = new ThreadLocal<BrainTask>();
+
+    /** Worker threads which run brains' {@link BrainTask}s */
+    private final ExecutorService workers;
+
+    /** Timer thread for pings, deferred sends, and resuming brains after a pause */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /** Number of threads in {@link #workers} */
+    private final int threadCount;
+
+    /** Number of brains started and not yet stopped */
+    private final AtomicInteger brainCount = new AtomicInteger();
+
+    /**
+     * Create a scheduler and its daemon threads, named "robotBrain-1" etc.
+     * @param nThreads  Number of worker threads; at least 1
+     * @throws IllegalArgumentException if <tt>nThreads</tt> &lt; 1
+     */
+    public SOCRobotBrainScheduler(final int nThreads)
+        throws IllegalArgumentException
+    {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads: " + nThreads);
+
+        threadCount = nThreads;
+        workers = Executors.newFixedThreadPool(nThreads, new NamedThreadFactory("robotBrain"));
+        timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("robotBrainTimer"));
+    }
+
+    /** Get the number of worker threads given to the constructor. */
+    public int getThreadCount()
+    {
+        return threadCount;
+    }
+
+    /** Get the number of brains started on this scheduler which haven't yet stopped. */
+    public int getBrainCount()
+    {
+        return brainCount.get();
+    }
+
+    /**
+     * Create a game event queue for a new brain; {@link SOCRobotBrain#startBrain()}
+     * will run that brain on this scheduler instead of as its own thread.
+     * @return  A new queue, to give to the {@link SOCRobotBrain} constructor
+     */
+    public CappedQueue createGameEventQueue()
+    {
+        return new BrainQueue(this);
+    }
+
+    /**
+     * Start running a brain on this scheduler's workers. Messages already in its queue will be handled.
+     * Called from {@link SOCRobotBrain#startBrain()}.
+     * @param brain  The brain, whose {@link SOCRobotBrain#gameEventQ} came from {@link #createGameEventQueue()}
+     */
+    void start(final SOCRobotBrain brain)
+    {
+        final BrainQueue q = (BrainQueue) brain.gameEventQ;
+        final BrainTask t = new BrainTask(this, brain, q);
+        brain.schedulerTask = t;
+        brainCount.incrementAndGet();
+
+        final SOCTimingPing ping = new SOCTimingPing(brain.getGame().getName());
+        t.pingFuture = timer.scheduleAtFixedRate(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    q.put(ping);
+                }
+                catch (CutoffExceededException e) {}
+            }
+        }, PING_MSEC, PING_MSEC, TimeUnit.MILLISECONDS);
+
+        q.task = t;  // from now on, put() wakes the brain
+        t.wake();
+    }
+
+    /**
+     * Pause a brain for a while without blocking a worker thread: Its next message won't be handled,
+     * and its client's messages to the server will be held, until <tt>msec</tt> milliseconds after
+     * any pause already in progress ends.
+     * Called from {@link SOCRobotBrain#pause(int)}.
+     * @param brain  The brain, started on this scheduler
+     * @param msec  Number of milliseconds to pause
+     */
+    void pause(final SOCRobotBrain brain, final int msec)
+    {
+        final BrainTask t = brain.schedulerTask;
+        synchronized (t)
+        {
+            final long now = System.nanoTime();
+            if (t.resumeAt - now < 0)
+                t.resumeAt = now;
+            t.resumeAt += msec * 1000000L;
+        }
+    }
+
+    /**
+     * If the current thread is handling a brain whose pause hasn't ended, or which still
+     * has messages held from an earlier pause, hold this message to send in order afterwards.
+     * Called from {@link SOCRobotClient#put(String)}.
+     * @param cli  Client sending the message
+     * @param s  Message to send
+     * @return  True if the message will be sent later by the timer thread,
+     *     false if the caller should send it now
+     */
+    static boolean deferPut(final SOCRobotClient cli, final String s)
+    {
+        final BrainTask t = currentTask.get();
+        if (t == null)
+            return false;
+
+        synchronized (t)
+        {
+            final long now = System.nanoTime();
+            final long wait = t.resumeAt - now;
+            if ((wait <= 0) && t.outbox.isEmpty() && ! t.sending)
+                return false;
+
+            t.outbox.addLast(new DeferredPut(cli, s, (wait > 0) ? t.resumeAt : now));
+            t.sched.timer.schedule(t.flusher, Math.max(wait, 0), TimeUnit.NANOSECONDS);
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop the worker and timer threads.
+     * Brains still running on this scheduler won't handle any more messages.
+     */
+    public void shutdown()
+    {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * A {@link SOCRobotBrain#gameEventQ} which wakes its brain's {@link BrainTask} when a message is put.
+     */
+    static final class BrainQueue extends CappedQueue
+    {
+        /** Scheduler which created this queue */
+        final SOCRobotBrainScheduler sched;
+
+        /** The brain's task, or null until {@link SOCRobotBrainScheduler#start(SOCRobotBrain)} */
+        volatile BrainTask task;
+
+        BrainQueue(final SOCRobotBrainScheduler sched)
+        {
+            this.sched = sched;
+        }
+
+        public void put(final Object o)
+            throws CutoffExceededException
+        {
+            try
+            {
+                super.put(o);
+            }
+            finally
+            {
+                final BrainTask t = task;
+                if (t != null)
+                    t.wake();
+            }
+        }
+    }
+
+    /**
+     * Runs one brain on the scheduler's workers: Handles its queued messages one at a time,
+     * and holds its client's messages during a pause.
+     *<P>
+     * <B>Locks:</B> Synchronize on this task for its fields other than {@link #pingFuture}.
+     * Holding that lock, {@link BrainQueue}'s lock may also be taken, but not the other way around.
+     */
+    static final class BrainTask implements Runnable
+    {
+        final SOCRobotBrainScheduler sched;
+        final SOCRobotBrain brain;
+        final BrainQueue queue;
+
+        /** Sends the brain's timing pings; set in {@link SOCRobotBrainScheduler#start(SOCRobotBrain)} */
+        ScheduledFuture<?> pingFuture;
+
+        /**
+         * True while this task is waiting for or running on a worker, or waiting on the timer
+         * for a pause to end. Ensures only one worker at a time runs the brain.
+         */
+        private boolean scheduled;
+
+        /** True once the brain has stopped and released its game data */
+        private boolean finished;
+
+        /** {@link System#nanoTime()} when the brain's current pause ends, or earlier if not paused */
+        private long resumeAt;
+
+        /** Messages held during a pause, in the order sent */
+        private final LinkedList<DeferredPut> outbox = new LinkedList<DeferredPut>();
+
+        /** True while the timer thread is sending a message taken from {@link #outbox} */
+        private boolean sending;
+
+        /** Timer task which sends the held messages whose pause has ended */
+        final Runnable flusher = new Runnable()
+        {
+            public void run()
+            {
+                flush();
+            }
+        };
+
+        /** Timer task which gives this task back to the workers when the brain's pause ends */
+        private final Runnable resumer = new Runnable()
+        {
+            public void run()
+            {
+                sched.workers.execute(BrainTask.this);
+            }
+        };
+
+        BrainTask(final SOCRobotBrainScheduler sched, final SOCRobotBrain brain, final BrainQueue queue)
+        {
+            this.sched = sched;
+            this.brain = brain;
+            this.queue = queue;
+            resumeAt = System.nanoTime();
+        }
+
+        /**
+         * Is the brain still running on the scheduler?
+         * @return  False once the brain has stopped
+         */
+        synchronized boolean isRunning()
+        {
+            return ! finished;
+        }
+
+        /**
+         * A message was put into the brain's queue: Give this task
+         * to the workers, unless it's already scheduled.
+         */
+        void wake()
+        {
+            synchronized (this)
+            {
+                if (scheduled || finished)
+                    return;
+                scheduled = true;
+            }
+
+            sched.workers.execute(this);
+        }
+
+        /**
+         * Handle the brain's queued messages on a worker thread until the queue is empty,
+         * the brain pauses or stops, or {@link SOCRobotBrainScheduler#MAX_BATCH} messages have been handled.
+         */
+        public void run()
+        {
+            try
+            {
+                for (int n = 0; ; ++n)
+                {
+                    if (! brain.alive)
+                    {
+                        finish();
+                        return;
+                    }
+
+                    synchronized (this)
+                    {
+                        final long wait = resumeAt - System.nanoTime();
+                        if (wait > 0)
+                        {
+                            sched.timer.schedule(resumer, wait, TimeUnit.NANOSECONDS);
+                            return;
+                        }
+
+                        if (queue.empty())
+                        {
+                            scheduled = false;
+                            return;
+                        }
+                    }
+
+                    if (n == MAX_BATCH)
+                    {
+                        sched.workers.execute(this);  // still scheduled; go to the back of the line
+                        return;
+                    }
+
+                    final SOCMessage mes = (SOCMessage) queue.get();
+                    currentTask.set(this);
+                    try
+                    {
+                        brain.handleGameEvent(mes);
+                    }
+                    finally
+                    {
+                        currentTask.remove();
+                    }
+                }
+            }
+            catch (Error e)
+            {
+                // Would have ended the brain's own thread; stop the brain instead of the worker
+                System.err.println("*** Robot brain stopped by " + e);
+                e.printStackTrace();
+                brain.alive = false;
+                finish();
+            }
+        }
+
+        /**
+         * The brain has stopped: Stop its pings and release its game data.
+         * Messages held from its last pause are still sent.
+         */
+        private void finish()
+        {
+            synchronized (this)
+            {
+                if (finished)
+                    return;
+                finished = true;
+            }
+
+            pingFuture.cancel(false);
+            sched.brainCount.decrementAndGet();
+            brain.releaseGameData();
+        }
+
+        /**
+         * On the timer thread, send the held messages whose pause has ended, in order.
+         * Doesn't hold this task's lock while sending, but sets {@link #sending} so that
+         * the brain's newer messages won't be sent before these.
+         */
+        private void flush()
+        {
+            while (true)
+            {
+                final DeferredPut d;
+                synchronized (this)
+                {
+                    d = outbox.isEmpty() ? null : outbox.getFirst();
+                    if ((d == null) || (d.sendAt - System.nanoTime() > 0) || sending)
+                        return;
+
+                    outbox.removeFirst();
+                    sending = true;
+                }
+
+                try
+                {
+                    d.cli.putNow(d.text);
+                }
+                finally
+                {
+                    synchronized (this)
+                    {
+                        sending = false;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A message to the server held during its brain's pause.
+     */
+    private static final class DeferredPut
+    {
+        final SOCRobotClient cli;
+        final String text;
+
+        /** {@link System#nanoTime()} when the message can be sent */
+        final long sendAt;
+
+        DeferredPut(final SOCRobotClient cli, final String text, final long sendAt)
+        {
+            this.cli = cli;
+            this.text = text;
+            this.sendAt = sendAt;
+        }
+    }
+
+    /**
+     * Makes daemon threads named <tt>prefix-1</tt>, <tt>prefix-2</tt>, etc.
+     */
+    private static final class NamedThreadFactory implements ThreadFactory
+    {
+        private final String prefix;
+        private int n;
+
+        NamedThreadFactory(final String prefix)
+        {
+            this.prefix = prefix;
+        }
+
+        public synchronized Thread newThread(final Runnable r)
+        {
+            ++n;
+            final Thread th = new Thread(r, prefix + "-" + n);
+            th.setDaemon(true);
+            return th;
+        }
+    }
+
+}
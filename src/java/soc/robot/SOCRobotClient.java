@@ -116,6 +116,14 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
      */
     private static final int DEBUGRANDOMPAUSE_SECONDS = 12;
 
+    /**
+     * Scheduler shared by all robot clients in this JVM to run their brains,
+     * or null to run each brain as its own thread.
+     * @see #setBrainThreads(int)
+     * @since 1.2.00
+     */
+    private static volatile SOCRobotBrainScheduler brainScheduler;
+
     /**
      * The security cookie value; required by server v1.1.19 and higher.
      * @since 1.1.19
@@ -258,7 +266,9 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
 
             //resetThread = new SOCRobotResetThread(this);
             //resetThread.start();
-            put(SOCVersion.toCmd(Version.versionNumber(), Version.version(), Version.buildnum(), null));
+            final String vBuild = Version.buildnum();
+            put(SOCVersion.toCmd
+                (Version.versionNumber(), Version.version(), vBuild, SOCMessageBinary.getClientFeatures(vBuild)));
             put(SOCImARobot.toCmd(nickname, cookie, SOCImARobot.RBCLASS_BUILTIN)); 
         }
         catch (Exception e)
@@ -298,7 +308,9 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
 
             //resetThread = new SOCRobotResetThread(this);
             //resetThread.start();
-            put(SOCVersion.toCmd(Version.versionNumber(), Version.version(), Version.buildnum(), null));
+            final String vBuild = Version.buildnum();
+            put(SOCVersion.toCmd
+                (Version.versionNumber(), Version.version(), vBuild, SOCMessageBinary.getClientFeatures(vBuild)));
             put(SOCImARobot.toCmd(nickname, cookie, SOCImARobot.RBCLASS_BUILTIN));
         }
         catch (Exception e)
@@ -894,7 +906,8 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
 	SOCGame ga = new SOCGame(gaName, true, (Hashtable) gameOptions.get(gaName));
         games.put(gaName, ga);
 
-        CappedQueue brainQ = new CappedQueue();
+        final SOCRobotBrainScheduler sched = brainScheduler;
+        CappedQueue brainQ = (sched != null) ? sched.createGameEventQueue() : new CappedQueue();
         brainQs.put(gaName, brainQ);
 
         SOCRobotBrain rb = new SOCRobotBrain(this, currentRobotParameters, ga, brainQ);
@@ -1315,7 +1328,7 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
                 }
 
                 brain.setOurPlayerData();
-                brain.start();
+                brain.startBrain();
 
                 /**
                  * change our face to the robot face
@@ -1842,7 +1855,7 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
              */
             SOCRobotBrain brain = (SOCRobotBrain) robotBrains.get(mes.getGame());
 
-            if ((brain == null) || (! brain.isAlive()))
+            if ((brain == null) || (! brain.isRunning()))
             {
                 leaveGame((SOCGame) games.get(mes.getGame()), "brain not alive", true, false);
             }
@@ -2040,6 +2053,69 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
         }
     }
 
+    /**
+     * Send a message to the server, unless it's from a brain paused on our {@link SOCRobotBrainScheduler};
+     * that scheduler will send it after the pause.
+     * See {@link SOCDisplaylessPlayerClient#put(String)}.
+     *
+     * @param s  the message
+     * @return true if the message was sent or will be sent after the pause, false if not
+     * @since 1.2.00
+     */
+    public boolean put(String s)
+    {
+        if (SOCRobotBrainScheduler.deferPut(this, s))
+            return true;
+
+        return super.put(s);
+    }
+
+    /**
+     * Send a message to the server now, without checking for a paused brain.
+     * Called by {@link SOCRobotBrainScheduler} after the pause ends.
+     * @param s  the message
+     * @return true if the message was sent, false if not
+     * @since 1.2.00
+     */
+    boolean putNow(String s)
+    {
+        return super.put(s);
+    }
+
+    /**
+     * Get the number of worker threads which all robot clients in this JVM share to run their brains.
+     * @return  Number of threads, or 0 if each brain runs as its own thread
+     * @see #setBrainThreads(int)
+     * @since 1.2.00
+     */
+    public static int getBrainThreads()
+    {
+        final SOCRobotBrainScheduler sched = brainScheduler;
+        return (sched != null) ? sched.getThreadCount() : 0;
+    }
+
+    /**
+     * Set the number of worker threads which all robot clients in this JVM share to run the
+     * brains of games they join afterwards, on a {@link SOCRobotBrainScheduler}, so the number of
+     * threads doesn't grow with the number of games. The default is 0, running each brain as its
+     * own thread with a {@link SOCRobotPinger} thread.
+     *<P>
+     * Call this before starting the robots. Brains already started keep running as before;
+     * a previous scheduler's threads aren't stopped, since its brains may still be using them.
+     *
+     * @param nThreads  Number of daemon worker threads, or 0 for a thread per brain
+     * @throws IllegalArgumentException if <tt>nThreads</tt> &lt; 0
+     * @since 1.2.00
+     */
+    public static synchronized void setBrainThreads(final int nThreads)
+        throws IllegalArgumentException
+    {
+        if (nThreads < 0)
+            throw new IllegalArgumentException("nThreads: " + nThreads);
+
+        brainScheduler = (nThreads > 0) ? new SOCRobotBrainScheduler(nThreads) : null;
+    }
+
     /**
      * add one the the number of clean brain kills
      */
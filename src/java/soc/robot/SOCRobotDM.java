@@ -26,6 +26,12 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Stack;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 
 import soc.disableDebug.D;
 import soc.game.SOCBoard;
@@ -97,6 +103,29 @@ public class SOCRobotDM {
   public static final int SMART_STRATEGY = 0;
   public static final int FAST_STRATEGY = 1;
 
+  /**
+   * types of trial for {@link #trialWGETABonus(int, int, HashMap)}
+   * @since 1.2.00
+   */
+  protected static final int TRIAL_SETTLEMENT = 0;
+  protected static final int TRIAL_CITY = 1;
+  protected static final int TRIAL_ROAD = 2;
+
+  /**
+   * Threads shared by all decision makers in this JVM for
+   * {@link #scoreTrialsConcurrently(int, Vector)}, or null to try
+   * each candidate in turn on the robot brain's own thread.
+   * @see #setScoringThreads(int)
+   * @since 1.2.00
+   */
+  private static volatile ExecutorService scoringPool;
+
+  /**
+   * Number of threads in {@link #scoringPool}, or 0.
+   * @since 1.2.00
+   */
+  private static volatile int scoringThreadCount;
+
   protected SOCRobotBrain brain;
   protected HashMap playerTrackers;
   protected SOCPlayerTracker ourPlayerTracker;
@@ -125,6 +154,13 @@ public class SOCRobotDM {
   protected SOCPossibleCity favoriteCity;
   protected SOCPossibleCard possibleCard;
 
+  /**
+   * Undo log for trying pieces on {@link #playerTrackers} without copying them;
+   * used for each trial in turn.
+   * @since 1.2.00
+   */
+  protected final SOCPlayerTrackerJournal trialJournal = new SOCPlayerTrackerJournal();
+
 
   /**
    * constructor
@@ -191,6 +227,102 @@ public class SOCRobotDM {
     goodSettlements = new Vector();
   }
 
+  /**
+   * constructor for a decision maker which tries pieces on its own copies of
+   * the game and player trackers, for {@link #scoreTrialsConcurrently(int, Vector)}.
+   * Has no brain, so it won't record anything to a {@link soc.util.DebugRecorder}.
+   *
+   * @param dm  the decision maker to copy parameters and player trackers from
+   * @param gameCopy  a copy of <tt>dm</tt>'s game, from {@link SOCGame#snapshot()}
+   * @since 1.2.00
+   */
+  protected SOCRobotDM(SOCRobotDM dm, SOCGame gameCopy) {
+    brain = null;
+    game = gameCopy;
+    ourPlayerData = gameCopy.getPlayer(dm.ourPlayerData.getPlayerNumber());
+    playerTrackers = SOCPlayerTracker.copyPlayerTrackers(dm.playerTrackers, gameCopy);
+    ourPlayerTracker = (SOCPlayerTracker)playerTrackers.get(new Integer(ourPlayerData.getPlayerNumber()));
+    buildingPlan = new Stack();
+
+    // the trials read the current win game ETAs, which the tracker copy constructor doesn't copy
+    Iterator trackersIter = dm.playerTrackers.values().iterator();
+    while (trackersIter.hasNext()) {
+      SOCPlayerTracker pt = (SOCPlayerTracker)trackersIter.next();
+      SOCPlayerTracker ptCopy = (SOCPlayerTracker)playerTrackers.get(new Integer(pt.getPlayer().getPlayerNumber()));
+      ptCopy.winGameETA = pt.winGameETA;
+      ptCopy.needLR = pt.needLR;
+      ptCopy.needLA = pt.needLA;
+    }
+
+    maxGameLength = dm.maxGameLength;
+    maxETA = dm.maxETA;
+    etaBonusFactor = dm.etaBonusFactor;
+    adversarialFactor = dm.adversarialFactor;
+    leaderAdversarialFactor = dm.leaderAdversarialFactor;
+    devCardMultiplier = dm.devCardMultiplier;
+    threatMultiplier = dm.threatMultiplier;
+
+    threatenedRoads = new Vector();
+    goodRoads = new Vector();
+    threatenedSettlements = new Vector();
+    goodSettlements = new Vector();
+  }
+
+  /**
+   * Get the number of threads which all decision makers in this JVM share
+   * to score candidate pieces concurrently in {@link #smartGameStrategy(int[])}.
+   * @return  Number of threads, or 0 if each robot scores them in turn on its own thread
+   * @see #setScoringThreads(int)
+   * @since 1.2.00
+   */
+  public static int getScoringThreads() {
+    return scoringThreadCount;
+  }
+
+  /**
+   * Set the number of threads which all decision makers in this JVM share to score
+   * candidate pieces concurrently in {@link #smartGameStrategy(int[])}; see
+   * {@link #scoreTrialsConcurrently(int, Vector)}.  The robot brain's thread also
+   * scores some of each decision's candidates.  The pieces chosen are the same
+   * with or without concurrent scoring; only the time taken changes.
+   * The default is 0, scoring each candidate in turn on the brain's thread.
+   *<P>
+   * Replaces any previous pool of scoring threads, which will stop
+   * after finishing its current tasks.
+   *
+   * @param nThreads  Number of daemon threads to start as needed, or 0 for none
+   * @throws IllegalArgumentException if <tt>nThreads</tt> &lt; 0
+   * @since 1.2.00
+   */
+  public static synchronized void setScoringThreads(final int nThreads)
+    throws IllegalArgumentException
+  {
+    if (nThreads < 0) {
+      throw new IllegalArgumentException("nThreads: "+nThreads);
+    }
+
+    final ExecutorService oldPool = scoringPool;
+    if (nThreads > 0) {
+      scoringPool = Executors.newFixedThreadPool(nThreads, new ThreadFactory() {
+	private int n;
+
+	public synchronized Thread newThread(final Runnable r) {
+	  final Thread t = new Thread(r, "robotScoring-"+n);  // Thread name for debug
+	  ++n;
+	  t.setDaemon(true);
+	  return t;
+	}
+      });
+    } else {
+      scoringPool = null;
+    }
+    scoringThreadCount = nThreads;
+
+    if (oldPool != null) {
+      oldPool.shutdown();
+    }
+  }
+
 
   /**
    * @return favorite settlement
@@ -340,22 +472,27 @@ public class SOCRobotDM {
 	//
 	SOCRoad tmpRoad = new SOCRoad(ourPlayerData, favoriteRoad.getCoordinates(), null);
 	
-	HashMap trackersCopy = SOCPlayerTracker.tryPutPiece(tmpRoad, game, playerTrackers);
-	SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-				
-	SOCPlayerTracker ourPlayerTrackerCopy = (SOCPlayerTracker)trackersCopy.get(new Integer(ourPlayerData.getPlayerNumber()));
-
-	int ourCurrentWGETACopy = ourPlayerTrackerCopy.getWinGameETA();
-	D.ebugPrintln("ourCurrentWGETACopy = "+ourCurrentWGETACopy);
-				
-	int leadersCurrentWGETACopy = ourCurrentWGETACopy;
-	Iterator trackersCopyIter = trackersCopy.values().iterator();
-	while (trackersCopyIter.hasNext()) {
-	  SOCPlayerTracker tracker = (SOCPlayerTracker)trackersCopyIter.next();
-	  int wgeta = tracker.getWinGameETA();
-	  if (wgeta < leadersCurrentWGETACopy) {
-	    leadersCurrentWGETACopy = wgeta;
+	int ourCurrentWGETACopy, leadersCurrentWGETACopy;
+	trialJournal.start(playerTrackers);
+	try {
+	  SOCPlayerTracker.tryPutPieceNoCopy(tmpRoad, game, playerTrackers);
+	  SOCPlayerTracker.updateWinGameETAs(playerTrackers);
+
+	  ourCurrentWGETACopy = ourPlayerTracker.getWinGameETA();
+	  D.ebugPrintln("ourCurrentWGETACopy = "+ourCurrentWGETACopy);
+
+	  leadersCurrentWGETACopy = ourCurrentWGETACopy;
+	  Iterator trackersTrialIter = playerTrackers.values().iterator();
+	  while (trackersTrialIter.hasNext()) {
+	    SOCPlayerTracker tracker = (SOCPlayerTracker)trackersTrialIter.next();
+	    int wgeta = tracker.getWinGameETA();
+	    if (wgeta < leadersCurrentWGETACopy) {
+	      leadersCurrentWGETACopy = wgeta;
+	    }
 	  }
+	} finally {
+	  // scoring below uses only the real pieces, so the trackers can be rolled back now
+	  trialJournal.rollback();
 	}
 
 	Enumeration newPosEnum = favoriteRoad.getNewPossibilities().elements();
@@ -974,20 +1111,11 @@ public class SOCRobotDM {
       //
       if (len > 0)
       {
-          final int pn = pl.getPlayerNumber();
-          Enumeration pEnum = board.getPieces().elements();
-
-          while (pEnum.hasMoreElements())
+          final SOCPlayingPiece p = board.settlementAtNode(coord);
+          if ((p != null) && (p.getPlayer().getPlayerNumber() != pl.getPlayerNumber()))
           {
-              SOCPlayingPiece p = (SOCPlayingPiece) pEnum.nextElement();
-              if ((p.getCoordinates() == coord)
-                  && (p.getPlayer().getPlayerNumber() != pn)
-                  && ((p.getType() == SOCPlayingPiece.SETTLEMENT) || (p.getType() == SOCPlayingPiece.CITY)))
-              {
-                  pathEnd = true;
-                  //D.ebugPrintln("^^^ path end at "+Integer.toHexString(coord));
-                  break;
-              }
+              pathEnd = true;
+              //D.ebugPrintln("^^^ path end at "+Integer.toHexString(coord));
           }
       }
 
@@ -1299,6 +1427,10 @@ public class SOCRobotDM {
     /// pick a road that can be built now
     ///
     if (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0) {
+      Vector roadCandidates = new Vector(threatenedRoads);
+      roadCandidates.addAll(goodRoads);
+      float[] roadTrials = scoreTrialsConcurrently(TRIAL_ROAD, roadCandidates);
+      int roadTrialIdx = 0;
       Iterator threatenedRoadIter = threatenedRoads.iterator();
       while (threatenedRoadIter.hasNext()) {
 	SOCPossibleRoad threatenedRoad = (SOCPossibleRoad)threatenedRoadIter.next();
@@ -1313,7 +1445,13 @@ public class SOCRobotDM {
 	// see how building this piece impacts our winETA
 	//
 	threatenedRoad.resetScore();
-	float wgetaScore = getWinGameETABonusForRoad(threatenedRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, playerTrackers);
+	float wgetaScore;
+	if (roadTrials != null) {
+	  wgetaScore = addWinGameETABonusForRoad(threatenedRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, roadTrials[roadTrialIdx]);
+	} else {
+	  wgetaScore = getWinGameETABonusForRoad(threatenedRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, playerTrackers);
+	}
+	roadTrialIdx++;
 	if ((brain != null) && (brain.getDRecorder().isOn())) {	  
 	  brain.getDRecorder().stopRecording();
 	} 
@@ -1342,7 +1480,13 @@ public class SOCRobotDM {
 	// see how building this piece impacts our winETA
 	//
 	goodRoad.resetScore();
-	float wgetaScore = getWinGameETABonusForRoad(goodRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, playerTrackers);
+	float wgetaScore;
+	if (roadTrials != null) {
+	  wgetaScore = addWinGameETABonusForRoad(goodRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, roadTrials[roadTrialIdx]);
+	} else {
+	  wgetaScore = getWinGameETABonusForRoad(goodRoad, buildingETAs[SOCBuildingSpeedEstimate.ROAD], leadersCurrentWGETA, playerTrackers);
+	}
+	roadTrialIdx++;
 	if ((brain != null) && (brain.getDRecorder().isOn())) {
 	  brain.getDRecorder().stopRecording();
 	} 
@@ -1371,17 +1515,11 @@ public class SOCRobotDM {
     /// pick a city that can be built now
     ///
     if (ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0) {
-      HashMap trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
-      SOCPlayerTracker ourTrackerCopy = (SOCPlayerTracker)trackersCopy.get(new Integer(ourPlayerData.getPlayerNumber()));
-      int originalWGETAs[] = new int[game.maxPlayers];	 
-      int WGETAdiffs[] = new int[game.maxPlayers];	 
-      Vector leaders = new Vector();
-      int bestWGETA = 1000;
-      // int bonus = 0;
-				
-      Iterator posCitiesIter = ourPlayerTracker.getPossibleCities().values().iterator();
-      while (posCitiesIter.hasNext()) {
-	SOCPossibleCity posCity = (SOCPossibleCity)posCitiesIter.next();
+      // not an iterator: each trial changes the trackers' maps until trialJournal's rollback
+      Vector posCities = new Vector(ourPlayerTracker.getPossibleCities().values());
+      float[] cityTrials = scoreTrialsConcurrently(TRIAL_CITY, posCities);
+      for (int i = 0; i < posCities.size(); i++) {
+	SOCPossibleCity posCity = (SOCPossibleCity)posCities.elementAt(i);
 	if ((brain != null) && (brain.getDRecorder().isOn())) {
 	  brain.getDRecorder().startRecording("CITY"+posCity.getCoordinates());
 	  brain.getDRecorder().record("Estimate value of city at "+game.getBoard().nodeCoordToString(posCity.getCoordinates()));
@@ -1390,46 +1528,12 @@ public class SOCRobotDM {
 	//
 	// see how building this piece impacts our winETA
 	//
-	leaders.clear();
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().suspend();
-	}
-	SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-	Iterator trackersBeforeIter = trackersCopy.values().iterator();
-	while (trackersBeforeIter.hasNext()) {
-	  SOCPlayerTracker trackerBefore = (SOCPlayerTracker)trackersBeforeIter.next();
-	  D.ebugPrintln("$$$ win game ETA for player "+trackerBefore.getPlayer().getPlayerNumber()+" = "+trackerBefore.getWinGameETA());
-	  originalWGETAs[trackerBefore.getPlayer().getPlayerNumber()] = trackerBefore.getWinGameETA();
-	  WGETAdiffs[trackerBefore.getPlayer().getPlayerNumber()] = trackerBefore.getWinGameETA();
-	  if (trackerBefore.getWinGameETA() < bestWGETA) {
-	    bestWGETA = trackerBefore.getWinGameETA();
-	    leaders.removeAllElements();
-	    leaders.addElement(trackerBefore);
-	  } else if (trackerBefore.getWinGameETA() == bestWGETA) {
-	    leaders.addElement(trackerBefore);
-	  }
-	}		
-	D.ebugPrintln("^^^^ bestWGETA = "+bestWGETA);
-	if ((brain != null) && (brain.getDRecorder().isOn())) {
-	  brain.getDRecorder().resume();
+	float wgetaScore;
+	if (cityTrials != null) {
+	  wgetaScore = cityTrials[i];
+	} else {
+	  wgetaScore = trialWGETABonus(TRIAL_CITY, posCity.getCoordinates(), playerTrackers);
 	}
-	//
-	// place the city
-	//
-	SOCCity tmpCity = new SOCCity(ourPlayerData, posCity.getCoordinates(), null);
-	game.putTempPiece(tmpCity);
-
-	ourTrackerCopy.addOurNewCity(tmpCity);
-				
-	SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-
-	float wgetaScore = calcWGETABonusAux(originalWGETAs, trackersCopy, leaders);
-
-	//
-	// remove the city
-	//
-	ourTrackerCopy.undoAddOurNewCity(posCity);
-	game.undoPutTempPiece(tmpCity);
 
 	D.ebugPrintln("*** ETA for city = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
 	if ((brain != null) && (brain.getDRecorder().isOn())) {
@@ -1581,9 +1685,21 @@ public class SOCRobotDM {
     }
     */
 
-    Iterator posSetsIter = ourPlayerTracker.getPossibleSettlements().values().iterator();
-    while (posSetsIter.hasNext()) {
-      SOCPossibleSettlement posSet = (SOCPossibleSettlement)posSetsIter.next();
+    // not an iterator: each trial changes the trackers' maps until trialJournal's rollback
+    Object[] posSets = ourPlayerTracker.getPossibleSettlements().values().toArray();
+
+    // the ones we can build now, which will be tried
+    Vector setCandidates = new Vector();
+    for (int i = 0; i < posSets.length; i++) {
+      if (((SOCPossibleSettlement)posSets[i]).getNecessaryRoads().isEmpty()) {
+	setCandidates.addElement(posSets[i]);
+      }
+    }
+    float[] setTrials = scoreTrialsConcurrently(TRIAL_SETTLEMENT, setCandidates);
+    int setTrialIdx = 0;
+
+    for (int i = 0; i < posSets.length; i++) {
+      SOCPossibleSettlement posSet = (SOCPossibleSettlement)posSets[i];
       D.ebugPrintln("*** scoring possible settlement at "+Integer.toHexString(posSet.getCoordinates()));
       if (!threatenedSettlements.contains(posSet)) {
 	threatenedSettlements.addElement(posSet);
@@ -1603,15 +1719,18 @@ public class SOCRobotDM {
 	//  get wgeta score
 	//
         SOCBoard board = game.getBoard();
-	SOCSettlement tmpSet = new SOCSettlement(ourPlayerData, posSet.getCoordinates(), board);
 	if ((brain != null) && (brain.getDRecorder().isOn())) {
 	  brain.getDRecorder().startRecording("SETTLEMENT"+posSet.getCoordinates());
 	  brain.getDRecorder().record("Estimate value of settlement at "+board.nodeCoordToString(posSet.getCoordinates()));
 	} 
 	
-	HashMap trackersCopy = SOCPlayerTracker.tryPutPiece(tmpSet, game, playerTrackers);
-	SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-	float wgetaScore = calcWGETABonus(playerTrackers, trackersCopy);
+	float wgetaScore;
+	if (setTrials != null) {
+	  wgetaScore = setTrials[setTrialIdx];
+	} else {
+	  wgetaScore = trialWGETABonus(TRIAL_SETTLEMENT, posSet.getCoordinates(), playerTrackers);
+	}
+	setTrialIdx++;
 	D.ebugPrintln("***  wgetaScore = "+wgetaScore);
 
 	D.ebugPrintln("*** ETA for settlement = "+settlementETA);
@@ -1630,8 +1749,6 @@ public class SOCRobotDM {
 	  brain.getDRecorder().record("Total settlement score = "+df1.format(etaBonus));
 	  brain.getDRecorder().stopRecording();
 	} 
-	
-	SOCPlayerTracker.undoTryPutPiece(tmpSet, game);
       }
     }
   }
@@ -1643,7 +1760,6 @@ public class SOCRobotDM {
    * @param posPiece  the possible piece that we're scoring
    */
   protected float getWinGameETABonus(SOCPossiblePiece posPiece) {
-    HashMap trackersCopy = null;
     SOCSettlement tmpSet = null;
     SOCCity tmpCity = null;
     SOCRoad tmpRoad = null;
@@ -1654,62 +1770,59 @@ public class SOCRobotDM {
     //SOCPlayerTracker.playerTrackersDebug(playerTrackers);
     D.ebugPrintln("our player numbers = "+ourPlayerData.getNumbers());
     D.ebugPrintln("--- before [end] ---");
-    switch (posPiece.getType()) {
-    case SOCPossiblePiece.SETTLEMENT:
-      tmpSet = new SOCSettlement(ourPlayerData, 
-				 posPiece.getCoordinates(), null);
-      trackersCopy = SOCPlayerTracker.tryPutPiece(tmpSet, game, playerTrackers);
-      break;
+    int originalWGETAs[] = new int[game.maxPlayers];
+    Vector leaders = getWGETAsAndLeaders(playerTrackers, originalWGETAs);
+    trialJournal.start(playerTrackers);
+    try {
+      switch (posPiece.getType()) {
+      case SOCPossiblePiece.SETTLEMENT:
+	tmpSet = new SOCSettlement(ourPlayerData, 
+				   posPiece.getCoordinates(), null);
+	SOCPlayerTracker.tryPutPieceNoCopy(tmpSet, game, playerTrackers);
+	break;
 
-    case SOCPossiblePiece.CITY:
-      trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
-      tmpCity = new SOCCity(ourPlayerData, 
-			    posPiece.getCoordinates(), null);
-      game.putTempPiece(tmpCity);
-      SOCPlayerTracker trackerCopy = (SOCPlayerTracker)trackersCopy.get(new Integer(ourPlayerData.getPlayerNumber()));
-      if (trackerCopy != null) {
-	trackerCopy.addOurNewCity(tmpCity);
-      }
-      break;
-			
-    case SOCPossiblePiece.ROAD:
-      tmpRoad = new SOCRoad(ourPlayerData, 
-			    posPiece.getCoordinates(), null);
-      trackersCopy = SOCPlayerTracker.tryPutPiece(tmpRoad, game, playerTrackers);
-      break;
-    }
+      case SOCPossiblePiece.CITY:
+	tmpCity = new SOCCity(ourPlayerData, 
+			      posPiece.getCoordinates(), null);
+	game.putTempPiece(tmpCity);
+	ourPlayerTracker.addOurNewCity(tmpCity);
+	break;
 
-    //trackersCopyIter = trackersCopy.iterator();
-    //while (trackersCopyIter.hasNext()) {
-    //	SOCPlayerTracker trackerCopy = (SOCPlayerTracker)trackersCopyIter.next();
-    //	trackerCopy.updateThreats(trackersCopy);
-    //}
+      case SOCPossiblePiece.ROAD:
+	tmpRoad = new SOCRoad(ourPlayerData, 
+			      posPiece.getCoordinates(), null);
+	SOCPlayerTracker.tryPutPieceNoCopy(tmpRoad, game, playerTrackers);
+	break;
+      }
 
-    D.ebugPrintln("--- after [start] ---");
-    //SOCPlayerTracker.playerTrackersDebug(trackersCopy);
-    SOCPlayerTracker.updateWinGameETAs(trackersCopy);
+      D.ebugPrintln("--- after [start] ---");
+      //SOCPlayerTracker.playerTrackersDebug(playerTrackers);
+      SOCPlayerTracker.updateWinGameETAs(playerTrackers);
 
-    float WGETABonus = calcWGETABonus(playerTrackers, trackersCopy);
-    D.ebugPrintln("$$$ win game ETA bonus : +"+WGETABonus);
-    bonus = WGETABonus;
-		
-    D.ebugPrintln("our player numbers = "+ourPlayerData.getNumbers());
-    D.ebugPrintln("--- after [end] ---");
-    switch (posPiece.getType()) {
-    case SOCPossiblePiece.SETTLEMENT:			
-      SOCPlayerTracker.undoTryPutPiece(tmpSet, game);
-      break;
+      float WGETABonus = calcWGETABonusAux(originalWGETAs, playerTrackers, leaders);
+      D.ebugPrintln("$$$ win game ETA bonus : +"+WGETABonus);
+      bonus = WGETABonus;
+    } finally {
+      trialJournal.rollback();
+      switch (posPiece.getType()) {
+      case SOCPossiblePiece.SETTLEMENT:
+	SOCPlayerTracker.undoTryPutPiece(tmpSet, game);
+	break;
 
-    case SOCPossiblePiece.CITY:
-      game.undoPutTempPiece(tmpCity);
-      break;
+      case SOCPossiblePiece.CITY:
+	if (tmpCity != null) {
+	  game.undoPutTempPiece(tmpCity);
+	}
+	break;
 
-    case SOCPossiblePiece.ROAD:
-      SOCPlayerTracker.undoTryPutPiece(tmpRoad, game);
-      break;
+      case SOCPossiblePiece.ROAD:
+	SOCPlayerTracker.undoTryPutPiece(tmpRoad, game);
+	break;
+      }
     }
-
+		
     D.ebugPrintln("our player numbers = "+ourPlayerData.getNumbers());
+    D.ebugPrintln("--- after [end] ---");
     D.ebugPrintln("--- cleanup done ---");
 		
     return bonus;
@@ -1730,27 +1843,23 @@ public class SOCRobotDM {
     int ourCurrentWGETA = ourPlayerTracker.getWinGameETA();
     D.ebugPrintln("ourCurrentWGETA = "+ourCurrentWGETA);
 
+    float score = trialWGETABonus(TRIAL_ROAD, posRoad.getCoordinates(), playerTrackers);
+    return addWinGameETABonusForRoad(posRoad, roadETA, leadersCurrentWGETA, score);
+  }
 
-    HashMap trackersCopy = null;
-    SOCRoad tmpRoad1 = null;
-
-    D.ebugPrintln("--- before [start] ---");
-    SOCResourceSet originalResources = ourPlayerData.getResources().copy();
-    SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate(ourPlayerData.getNumbers());
-    //SOCPlayerTracker.playerTrackersDebug(playerTrackers);
-    D.ebugPrintln("--- before [end] ---");
-    try {
-      SOCResSetBuildTimePair btp = estimate.calculateRollsFast(ourPlayerData.getResources(), SOCGame.ROAD_SET, 50, ourPlayerData.getPortFlags());
-      btp.getResources().subtract(SOCGame.ROAD_SET);
-      ourPlayerData.getResources().setAmounts(btp.getResources());
-    } catch (CutoffExceededException e) {
-      D.ebugPrintln("crap in getWinGameETABonusForRoad - "+e);
-    }
-    tmpRoad1 = new SOCRoad(ourPlayerData, posRoad.getCoordinates(), null);
-    trackersCopy = SOCPlayerTracker.tryPutPiece(tmpRoad1, game, playerTrackers);
-    SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-    float score = calcWGETABonus(playerTrackers, trackersCopy);
-
+  /**
+   * add a bonus to the road score, given the change in
+   * win game ETA for this one road
+   * from {@link #trialWGETABonus(int, int, HashMap) trialWGETABonus(TRIAL_ROAD, ...)}
+   *
+   * @param posRoad  the possible piece that we're scoring
+   * @param roadETA  the eta for the road
+   * @param leadersCurrentWGETA  the leaders current WGETA
+   * @param score  the road's win game ETA bonus from its trial
+   * @return the road's added score
+   * @since 1.2.00
+   */
+  protected float addWinGameETABonusForRoad(SOCPossibleRoad posRoad, int roadETA, int leadersCurrentWGETA, float score) {
     if (!posRoad.getThreats().isEmpty()) {
       score *= threatMultiplier;
       D.ebugPrintln("***  (THREAT MULTIPLIER) score * "+threatMultiplier+" = "+score);
@@ -1768,14 +1877,174 @@ public class SOCRobotDM {
     } 
     
     D.ebugPrintln("--- after [end] ---");
-    SOCPlayerTracker.undoTryPutPiece(tmpRoad1, game);
-    ourPlayerData.getResources().clear();
-    ourPlayerData.getResources().add(originalResources);
     D.ebugPrintln("--- cleanup done ---");
 		
     return etaBonus;
   }
 
+  /**
+   * try placing one of our settlements, cities or roads, and see how
+   * it changes each player's win game ETA.  The trial's changes to the
+   * game and player trackers are undone with {@link #trialJournal} before returning.
+   *<P>
+   * For a city, the win game ETAs before the trial are calculated during it.
+   * For a road, our resources during the trial are what we'd have left
+   * after waiting to get a road's resources.
+   *
+   * @param trialType  {@link #TRIAL_SETTLEMENT}, {@link #TRIAL_CITY} or {@link #TRIAL_ROAD}
+   * @param coord  the piece's coordinates
+   * @param playerTrackers  the player trackers to try it on, usually {@link #playerTrackers}
+   * @return the win game ETA bonus, from {@link #calcWGETABonusAux(int[], HashMap, Vector)}
+   * @since 1.2.00
+   */
+  protected float trialWGETABonus(int trialType, int coord, HashMap playerTrackers) {
+    int originalWGETAs[] = new int[game.maxPlayers];
+    Vector leaders = null;
+    SOCResourceSet originalResources = null;
+    SOCPlayingPiece tmpPiece = null;
+    float bonus;
+
+    if (trialType == TRIAL_ROAD) {
+      originalResources = ourPlayerData.getResources().copy();
+      SOCBuildingSpeedEstimate estimate = new SOCBuildingSpeedEstimate(ourPlayerData.getNumbers());
+      try {
+	SOCResSetBuildTimePair btp = estimate.calculateRollsFast(ourPlayerData.getResources(), SOCGame.ROAD_SET, 50, ourPlayerData.getPortFlags());
+	btp.getResources().subtract(SOCGame.ROAD_SET);
+	ourPlayerData.getResources().setAmounts(btp.getResources());
+      } catch (CutoffExceededException e) {
+	D.ebugPrintln("crap in trialWGETABonus - "+e);
+      }
+    }
+    if (trialType != TRIAL_CITY) {
+      leaders = getWGETAsAndLeaders(playerTrackers, originalWGETAs);
+    }
+
+    trialJournal.start(playerTrackers);
+    try {
+      switch (trialType) {
+      case TRIAL_SETTLEMENT:
+	tmpPiece = new SOCSettlement(ourPlayerData, coord, game.getBoard());
+	SOCPlayerTracker.tryPutPieceNoCopy(tmpPiece, game, playerTrackers);
+	break;
+
+      case TRIAL_CITY:
+	if ((brain != null) && (brain.getDRecorder().isOn())) {
+	  brain.getDRecorder().suspend();
+	}
+	SOCPlayerTracker.updateWinGameETAs(playerTrackers);
+	leaders = getWGETAsAndLeaders(playerTrackers, originalWGETAs);
+	if ((brain != null) && (brain.getDRecorder().isOn())) {
+	  brain.getDRecorder().resume();
+	}
+	tmpPiece = new SOCCity(ourPlayerData, coord, null);
+	game.putTempPiece(tmpPiece);
+	ourPlayerTracker.addOurNewCity((SOCCity)tmpPiece);
+	break;
+
+      case TRIAL_ROAD:
+	tmpPiece = new SOCRoad(ourPlayerData, coord, null);
+	SOCPlayerTracker.tryPutPieceNoCopy(tmpPiece, game, playerTrackers);
+	break;
+
+      default:
+	throw new IllegalArgumentException("trialType: "+trialType);
+      }
+
+      SOCPlayerTracker.updateWinGameETAs(playerTrackers);
+      bonus = calcWGETABonusAux(originalWGETAs, playerTrackers, leaders);
+    } finally {
+      trialJournal.rollback();
+      SOCPlayerTracker.undoTryPutPiece(tmpPiece, game);
+      if (originalResources != null) {
+	ourPlayerData.getResources().clear();
+	ourPlayerData.getResources().add(originalResources);
+      }
+    }
+
+    D.ebugPrintln("$$$ win game ETA bonus : +"+bonus);
+    return bonus;
+  }
+
+  /**
+   * if {@link #setScoringThreads(int) concurrent scoring} is on, get the
+   * {@link #trialWGETABonus(int, int, HashMap)} of each of these candidates
+   * using the shared scoring threads.
+   *<P>
+   * The candidates are split among several tasks.  Each task tries its share
+   * in turn, on its own copy of the game and player trackers made here by
+   * {@link SOCGame#snapshot()} and {@link SOCPlayerTracker#copyPlayerTrackers(HashMap, SOCGame)}.
+   * This thread runs one of the tasks itself, then waits for the others.
+   * Since every trial starts from the same state, a trial's result doesn't
+   * depend on which task runs it: The results, and so the piece we choose,
+   * are the same as trying each candidate in turn on this thread.
+   *<P>
+   * Not concurrent while the brain's {@link soc.util.DebugRecorder} is on,
+   * because the trials' records would be out of order.
+   *
+   * @param trialType  {@link #TRIAL_SETTLEMENT}, {@link #TRIAL_CITY} or {@link #TRIAL_ROAD}
+   * @param candidates  the {@link SOCPossiblePiece}s to try, all of that type
+   * @return each candidate's win game ETA bonus, in the same order as <tt>candidates</tt>;
+   *     or null if not scoring concurrently, or if there are fewer than 2 candidates:
+   *     call <tt>trialWGETABonus</tt> for each one instead
+   * @since 1.2.00
+   */
+  protected float[] scoreTrialsConcurrently(int trialType, Vector candidates) {
+    final ExecutorService pool = scoringPool;
+    final int n = candidates.size();
+    if ((pool == null) || (n < 2) || ((brain != null) && brain.getDRecorder().isOn())) {
+      return null;
+    }
+
+    final int[] coords = new int[n];
+    for (int i = 0; i < n; i++) {
+      coords[i] = ((SOCPossiblePiece)candidates.elementAt(i)).getCoordinates();
+    }
+    final float[] scores = new float[n];
+
+    //
+    // Copy the game and trackers here, while nothing's changing them.
+    // Task t tries every nTasks'th candidate, starting with candidate t.
+    //
+    final int nTasks = Math.min(n, scoringThreadCount + 1);
+    Future[] futures = new Future[nTasks];
+    for (int t = 1; t < nTasks; t++) {
+      ScoringTask task = new ScoringTask(new SOCRobotDM(this, game.snapshot()), trialType, coords, t, nTasks, scores);
+      try {
+	futures[t] = pool.submit(task);
+      } catch (RejectedExecutionException e) {
+	// pool was shut down by setScoringThreads since we started
+	task.run();
+      }
+    }
+    new ScoringTask(new SOCRobotDM(this, game.snapshot()), trialType, coords, 0, nTasks, scores).run();
+
+    boolean interrupted = false;
+    for (int t = 1; t < nTasks; t++) {
+      while (futures[t] != null) {
+	try {
+	  futures[t].get();
+	  futures[t] = null;
+	} catch (InterruptedException e) {
+	  interrupted = true;  // the task will finish soon; keep waiting for its results
+	} catch (ExecutionException e) {
+	  Throwable cause = e.getCause();
+	  if (cause instanceof RuntimeException) {
+	    throw (RuntimeException)cause;
+	  } else if (cause instanceof Error) {
+	    throw (Error)cause;
+	  }
+	  throw new IllegalStateException("scoring task: "+cause);
+	}
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    return scores;
+  }
+
+
   /**
    * calc the win game eta bonus
    *
@@ -1785,17 +2054,32 @@ public class SOCRobotDM {
   protected float calcWGETABonus(HashMap trackersBefore, HashMap trackersAfter) {
     D.ebugPrintln("^^^^^ calcWGETABonus");
     int originalWGETAs[] = new int[game.maxPlayers];	 
-    int WGETAdiffs[] = new int[game.maxPlayers];	 
+    Vector leaders = getWGETAsAndLeaders(trackersBefore, originalWGETAs);
+    float bonus = calcWGETABonusAux(originalWGETAs, trackersAfter, leaders);
+
+    D.ebugPrintln("^^^^ final bonus = "+bonus);
+
+    return bonus;
+  }
+
+  /**
+   * get each player's win game ETA and the leaders,
+   * for {@link #calcWGETABonusAux(int[], HashMap, Vector)}
+   *
+   * @param  trackers         list of player trackers before move
+   * @param  originalWGETAs   array to fill with each player's win game ETA, indexed by player number
+   * @return the leaders: trackers of the players with the lowest win game ETA
+   * @since 1.2.00
+   */
+  protected Vector getWGETAsAndLeaders(HashMap trackers, int[] originalWGETAs) {
     Vector leaders = new Vector();
     int bestWGETA = 1000;
-    float bonus = 0;
 
-    Iterator trackersBeforeIter = trackersBefore.values().iterator();
+    Iterator trackersBeforeIter = trackers.values().iterator();
     while (trackersBeforeIter.hasNext()) {
       SOCPlayerTracker trackerBefore = (SOCPlayerTracker)trackersBeforeIter.next();
       D.ebugPrintln("$$$ win game ETA for player "+trackerBefore.getPlayer().getPlayerNumber()+" = "+trackerBefore.getWinGameETA());
       originalWGETAs[trackerBefore.getPlayer().getPlayerNumber()] = trackerBefore.getWinGameETA();
-      WGETAdiffs[trackerBefore.getPlayer().getPlayerNumber()] = trackerBefore.getWinGameETA();
 
       if (trackerBefore.getWinGameETA() < bestWGETA) {
 	bestWGETA = trackerBefore.getWinGameETA();
@@ -1808,11 +2092,7 @@ public class SOCRobotDM {
 		
     D.ebugPrintln("^^^^ bestWGETA = "+bestWGETA);
 
-    bonus = calcWGETABonusAux(originalWGETAs, trackersAfter, leaders);
-
-    D.ebugPrintln("^^^^ final bonus = "+bonus);
-
-    return bonus;
+    return leaders;
   }
 
   /**
@@ -2089,6 +2369,36 @@ public class SOCRobotDM {
 
     //return (bonus * (float)Math.pow(etaBonusFactor, ((float)(eta*eta*eta)/(float)1000.0)));
   }
+
+  /**
+   * A task for {@link SOCRobotDM#scoreTrialsConcurrently(int, Vector)}: Try every
+   * <tt>step</tt>'th candidate, starting with candidate number <tt>first</tt>,
+   * with a decision maker which has its own copy of the game and player trackers.
+   * @since 1.2.00
+   */
+  private static class ScoringTask implements Runnable {
+    private final SOCRobotDM dm;
+    private final int trialType, first, step;
+    private final int[] coords;
+
+    /** each candidate's score; this task sets only its own candidates' */
+    private final float[] scores;
+
+    ScoringTask(SOCRobotDM dm, int trialType, int[] coords, int first, int step, float[] scores) {
+      this.dm = dm;
+      this.trialType = trialType;
+      this.coords = coords;
+      this.first = first;
+      this.step = step;
+      this.scores = scores;
+    }
+
+    public void run() {
+      for (int i = first; i < coords.length; i += step) {
+	scores[i] = dm.trialWGETABonus(trialType, coords[i], dm.playerTrackers);
+      }
+    }
+  }
  
 
 
@@ -0,0 +1,1709 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.robot;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Stack;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import soc.game.SOCBoard;
+import soc.game.SOCCity;
+import soc.game.SOCDevCardConstants;
+import soc.game.SOCDevCardSet;
+import soc.game.SOCGame;
+import soc.game.SOCGameJournal;
+import soc.game.SOCLRPathData;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.game.SOCTradeOffer;
+import soc.util.CappedQueue;
+import soc.util.SOCRobotParameters;
+
+/**
+ * Headless game simulator for tuning robot parameters: Plays complete 4-player games in-process
+ * between robots, calling {@link SOCGame}'s action methods directly, with no server, network,
+ * messages, or pauses. Many games can run at once on a pool of threads.
+ *<P>
+ * Each seat has a {@link SOCRobotBrain} for its {@link SOCPlayerTracker}s, {@link SOCRobotDM}
+ * and {@link SOCRobotNegotiator}, but the brain's thread isn't started: Instead, the simulator
+ * runs a turn loop modeled on the brain's, and makes its decisions with
+ * {@link OpeningBuildStrategy}, {@link DiscardStrategy}, {@link RobberStrategy},
+ * {@link MonopolyStrategy} and {@link SOCRobotDM#planStuff(int)}.
+ * All the brains share the one game object; its pieces are run through every brain's trackers
+ * as they're placed, like {@link SOCRobotBrain} does for a PUTPIECE message.
+ *<P>
+ * Differences from robots in a server game:
+ *<UL>
+ *<LI> Each trade offer goes to the other robots once; the first to accept makes the trade.
+ *     Counter-offers are treated as rejections.
+ *<LI> A planned piece which can't be built clears the building plan, as if the server had
+ *     rejected it, up to {@link SOCRobotBrain#MAX_DENIED_BUILDING_PER_TURN} times per turn.
+ *<LI> There's no 6-player Special Building Phase, and no game options.
+ *</UL>
+ *<P>
+ * A game depends only on its seed: The same seed and robot parameters play the same game,
+ * with any number of threads.
+ *<P>
+ * To run from the command line:
+ *<pre>
+ *   java soc.robot.SOCRobotSimulator [-check] [games [threads [seed [strategies [scoringThreads]]]]]</pre>
+ * Strategies is 4 letters, one per seat: <tt>f</tt> for {@link SOCRobotDM#FAST_STRATEGY fast},
+ * <tt>s</tt> for {@link SOCRobotDM#SMART_STRATEGY smart}. If scoringThreads is more than 0,
+ * smart robots score their candidate pieces concurrently on that many shared threads;
+ * see {@link SOCRobotDM#setScoringThreads(int)}. Prints the win rate per seat,
+ * the time taken and memory allocated by each type of decision, the same for building plans
+ * and trade offers in each {@link #PHASE_NAMES game phase}, percentiles of building plan
+ * latency for each strategy, and the garbage collectors' work.
+ *<P>
+ * With <tt>-check</tt> as the first argument, also checks each game with {@link #setCheckGames(boolean)},
+ * and exits with status 1 if any game failed.
+ *
+ * @since 1.2.00
+ */
+public class SOCRobotSimulator
+{
+    /**
+     * Decision types timed by the simulator, as indexes into {@link Results#getDecisionNanos()}
+     * and {@link Results#getDecisionCounts()}; see {@link #DECISION_NAMES}.
+     */
+    public static final int DECIDE_INIT_SETTLEMENT = 0, DECIDE_INIT_ROAD = 1, DECIDE_PLAN = 2,
+        DECIDE_TRADE_OFFER = 3, DECIDE_BANK_TRADE = 4, DECIDE_DISCARD = 5, DECIDE_ROBBER_HEX = 6,
+        DECIDE_ROBBER_VICTIM = 7, DECIDE_MONOPOLY = 8, DECIDE_DISCOVERY = 9, DECIDE_TRACK_PIECE = 10;
+
+    /** Names of the decision types, indexed by {@link #DECIDE_INIT_SETTLEMENT} etc. */
+    public static final String[] DECISION_NAMES =
+    {
+        "init settlement", "init road", "plan building", "trade offer", "bank trade", "discard",
+        "robber hex", "robber victim", "monopoly", "discovery", "track piece"
+    };
+
+    /**
+     * Game phases for timing decisions, as indexes into {@link Results#getPhaseNanos()} etc;
+     * see {@link #PHASE_NAMES}. The phase depends on the highest total VP of any player:
+     * Mid-game from {@link #PHASE_MID_VP}, late game from {@link #PHASE_LATE_VP}.
+     */
+    public static final int PHASE_EARLY = 0, PHASE_MID = 1, PHASE_LATE = 2;
+
+    /** Names of the game phases, indexed by {@link #PHASE_EARLY} etc. */
+    public static final String[] PHASE_NAMES = { "early", "mid", "late" };
+
+    /** Highest total VP at which the game is in {@link #PHASE_MID} or {@link #PHASE_LATE} */
+    public static final int PHASE_MID_VP = 5, PHASE_LATE_VP = 8;
+
+    /**
+     * Default parameters for fast robots, same as {@code SOCServer.ROBOT_PARAMS_DEFAULT}.
+     */
+    public static final SOCRobotParameters PARAMS_FAST
+        = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.FAST_STRATEGY, 1);
+
+    /**
+     * Default parameters for smart robots, same as {@code SOCServer.ROBOT_PARAMS_SMARTER}.
+     */
+    public static final SOCRobotParameters PARAMS_SMART
+        = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1);
+
+    /** Number of seats in each simulated game */
+    public static final int PLAYERS = SOCGame.MAXPLAYERS_STANDARD;
+
+    /**
+     * Most actions a robot can take in one turn before the simulator ends it,
+     * in case its plans and trades go around in a circle.
+     */
+    private static final int MAX_ACTIONS_PER_TURN = 40;
+
+    /** Each seat's robot parameters; length {@link #PLAYERS} */
+    private final SOCRobotParameters[] seatParams;
+
+    /** Rounds to play before giving up on a game without a winner */
+    private final int maxRounds;
+
+    /** If true, check each game after it's played; see {@link #setCheckGames(boolean)} */
+    private boolean checkGames;
+
+    /** The JVM's thread MX bean, if {@link #allocatedBytesMethod} is available */
+    private static final Object threadBean;
+
+    /**
+     * <tt>com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long)</tt>, if this JVM has it
+     * and it's enabled, otherwise null; see {@link #getAllocatedBytes()}.
+     * Not all JVMs have that interface, so it's called by reflection.
+     */
+    private static final Method allocatedBytesMethod;
+
+    static
+    {
+        Object bean = null;
+        Method m = null;
+        try
+        {
+            bean = ManagementFactory.getThreadMXBean();
+            final Class c = Class.forName("com.sun.management.ThreadMXBean");
+            if (c.isInstance(bean)
+                && ((Boolean) c.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean)).booleanValue())
+                m = c.getMethod("getThreadAllocatedBytes", new Class[]{ long.class });
+        }
+        catch (Throwable th) {}
+
+        threadBean = bean;
+        allocatedBytesMethod = m;
+    }
+
+    /**
+     * Create a simulator.
+     * @param seatParams  Robot parameters for each seat, length {@link #PLAYERS}; not copied
+     * @param maxRounds  Rounds to play before giving up on a game without a winner, such as 200
+     * @throws IllegalArgumentException if <tt>seatParams.length</tt> != {@link #PLAYERS},
+     *     or <tt>maxRounds</tt> &lt; 1
+     */
+    public SOCRobotSimulator(final SOCRobotParameters[] seatParams, final int maxRounds)
+        throws IllegalArgumentException
+    {
+        if (seatParams.length != PLAYERS)
+            throw new IllegalArgumentException("seatParams.length: " + seatParams.length);
+        if (maxRounds < 1)
+            throw new IllegalArgumentException("maxRounds: " + maxRounds);
+
+        this.seatParams = seatParams;
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Check each game after it's played: Its {@link SOCGame#startJournal() journal} must
+     * {@link SOCGameJournal#replay() replay} to the same state, as shown by {@link #describeGame(SOCGame, boolean)}.
+     * Also at the start of each turn and at the end of the game, a {@link SOCGame#snapshot()} of the game
+     * must have the same state as the game, and making random changes to the snapshot mustn't change the game.
+     * Each player's longest road in the game and in the changed snapshot must match a depth-first search
+     * of their roads; see {@link #checkLongestRoads(SOCGame, boolean)}.
+     * A game which fails the check throws {@link IllegalStateException}, which
+     * {@link #playGames(int, long, int)} counts in {@link Results#getErrorCount()}.
+     * The robots play the same games with or without checking.
+     * Call before playing any games.
+     * @param check  True to check games
+     */
+    public void setCheckGames(final boolean check)
+    {
+        checkGames = check;
+    }
+
+    /**
+     * Play one game in the calling thread.
+     * Thread-safe: Each call has its own game and robots.
+     * @param seed  Random seed for the board, dice, and the robots' random choices
+     * @return  The game's results
+     */
+    public Results playGame(final long seed)
+    {
+        final SimGame sg = new SimGame(seed);
+        sg.play();
+        if (checkGames)
+        {
+            sg.checkReplay();
+            sg.checkGameOverSnapshot();
+        }
+
+        final Results res = new Results();
+        res.add(sg);
+        return res;
+    }
+
+    /**
+     * Play a number of games on a pool of threads, and wait for them all to finish.
+     * Game <tt>i</tt> uses seed <tt>firstSeed + i</tt>.
+     * A game which throws an exception is printed to {@link System#err} and counted in
+     * {@link Results#getErrorCount()}, and the others continue.
+     * @param games  Number of games to play
+     * @param firstSeed  Seed for the first game
+     * @param nThreads  Number of threads, such as {@link Runtime#availableProcessors()}
+     * @return  Totals for all games
+     * @throws InterruptedException if interrupted while waiting for the games
+     */
+    public Results playGames(final int games, final long firstSeed, final int nThreads)
+        throws InterruptedException
+    {
+        final long startNanos = System.nanoTime();
+        final ExecutorService exec = Executors.newFixedThreadPool(nThreads, new ThreadFactory()
+        {
+            private int n;
+
+            public synchronized Thread newThread(final Runnable r)
+            {
+                final Thread t = new Thread(r, "robotSimulator-" + n);  // Thread name for debug
+                ++n;
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        final Results total = new Results();
+        try
+        {
+            final Vector futures = new Vector(games);  // of Future<Results>
+            for (int i = 0; i < games; ++i)
+            {
+                final long seed = firstSeed + i;
+                futures.addElement(exec.submit(new Callable()
+                {
+                    public Object call()
+                    {
+                        return playGame(seed);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < games; ++i)
+            {
+                try
+                {
+                    total.add((Results) ((Future) futures.elementAt(i)).get());
+                }
+                catch (ExecutionException e)
+                {
+                    System.err.println("Simulated game with seed " + (firstSeed + i) + " failed: " + e.getCause());
+                    e.getCause().printStackTrace();
+                    ++total.errors;
+                }
+            }
+        }
+        finally
+        {
+            exec.shutdownNow();
+        }
+
+        total.elapsedNanos = System.nanoTime() - startNanos;
+        return total;
+    }
+
+    /**
+     * Get the number of bytes allocated so far by the current thread, if the JVM can tell us.
+     * Used to measure each decision's garbage.
+     * @return  Bytes allocated by this thread, or -1 if not available
+     */
+    public static long getAllocatedBytes()
+    {
+        if (allocatedBytesMethod == null)
+            return -1;
+
+        try
+        {
+            return ((Long) allocatedBytesMethod.invoke
+                (threadBean, new Object[]{ new Long(Thread.currentThread().getId()) })).longValue();
+        }
+        catch (Exception e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Describe a game's state for comparing two games: The board layout and pieces, robber, dice,
+     * game state, current player and round, dev card deck, and each player's name, resources,
+     * dev cards, VP, longest road, knights, and roll numbers.
+     * Two games with the same description are in the same state as far as their players can tell.
+     *<P>
+     * Players' potential and legal piece locations are optional: A robot's temporary pieces
+     * ({@link SOCGame#putTempPiece(SOCPlayingPiece)}) can leave some potential settlements and cities
+     * behind when undone, so the shared game of a simulation may differ from a replay there.
+     * @param ga  Game to describe
+     * @param withPotentials  If true, also describe each player's potential and legal pieces
+     * @return  A description of the game, several lines long
+     */
+    public static String describeGame(final SOCGame ga, final boolean withPotentials)
+    {
+        final SOCBoard bd = ga.getBoard();
+        final StringBuffer sb = new StringBuffer();
+        final SOCPlayer lrPlayer = ga.getPlayerWithLongestRoad(), laPlayer = ga.getPlayerWithLargestArmy();
+        sb.append("state ").append(ga.getGameState()).append(", dice ").append(ga.getCurrentDice())
+          .append(", player ").append(ga.getCurrentPlayerNumber()).append(", round ").append(ga.getRoundCount())
+          .append(", dev cards ").append(ga.getNumDevCards())
+          .append(", longest road ").append((lrPlayer != null) ? lrPlayer.getPlayerNumber() : -1)
+          .append(", largest army ").append((laPlayer != null) ? laPlayer.getPlayerNumber() : -1)
+          .append(", robber ").append(bd.getRobberHex()).append('\n');
+        sb.append(Arrays.toString(bd.getHexLayout())).append(Arrays.toString(bd.getNumberLayout()))
+          .append(Arrays.toString(bd.getPortsLayout())).append('\n');
+        final Vector pieces = bd.getPieces();
+        final int[] pieceKeys = new int[pieces.size()];  // sorted, because undoing a temp piece can reorder them
+        for (int i = 0; i < pieceKeys.length; ++i)
+        {
+            final SOCPlayingPiece pp = (SOCPlayingPiece) pieces.elementAt(i);
+            pieceKeys[i] = (pp.getType() << 12) | (pp.getCoordinates() << 4) | pp.getPlayer().getPlayerNumber();
+        }
+        Arrays.sort(pieceKeys);
+        for (int i = 0; i < pieceKeys.length; ++i)
+            sb.append(Integer.toHexString(pieceKeys[i])).append(' ');
+        sb.append('\n');
+
+        for (int pn = 0; pn < ga.maxPlayers; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            sb.append(pn).append(' ').append(pl.getName()).append(": ").append(pl.getResources())
+              .append(", VP ").append(pl.getPublicVP()).append('/').append(pl.getTotalVP())
+              .append(", road ").append(pl.getLongestRoadLength()).append(", knights ").append(pl.getNumKnights())
+              .append(", pieces ").append(pl.getNumPieces(SOCPlayingPiece.ROAD))
+              .append('/').append(pl.getNumPieces(SOCPlayingPiece.SETTLEMENT))
+              .append('/').append(pl.getNumPieces(SOCPlayingPiece.CITY))
+              .append(", dev cards");
+            final SOCDevCardSet dc = pl.getDevCards();
+            for (int ctype = SOCDevCardConstants.MIN; ctype < SOCDevCardConstants.MAXPLUSONE; ++ctype)
+                sb.append(' ').append(dc.getAmount(SOCDevCardSet.OLD, ctype))
+                  .append('/').append(dc.getAmount(SOCDevCardSet.NEW, ctype));
+            sb.append(pl.hasPlayedDevCard() ? ", played" : "").append(pl.getNeedToDiscard() ? ", discard" : "")
+              .append('\n');
+
+            if (withPotentials)
+            {
+                for (int coord = 0; coord <= SOCBoard.MAXNODE; ++coord)  // edge coordinates are all below MAXNODE
+                    sb.append((char) ('0' + (pl.isPotentialRoad(coord) ? 1 : 0) + (pl.isLegalRoad(coord) ? 2 : 0)
+                        + (pl.isPotentialSettlement(coord) ? 4 : 0) + (pl.isPotentialCity(coord) ? 8 : 0)));
+                sb.append('\n');
+            }
+            for (int num = 2; num <= 12; ++num)
+                sb.append(' ').append(pl.getNumbers().getResourcesForNumber(num));
+            sb.append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Check each player's longest road length against a depth-first search of their roads,
+     * the same search which {@link SOCPlayer#calcLongestRoad2()} made before v1.2.00.
+     * @param ga  Game to check
+     * @param withPaths  If true, also check that the longest of each player's
+     *     {@link SOCPlayer#getLRPaths()} is that long. False for a game where temporary pieces
+     *     may have been placed and undone without restoring the paths.
+     * @throws IllegalStateException if a player's length or paths differ from the search
+     */
+    public static void checkLongestRoads(final SOCGame ga, final boolean withPaths)
+        throws IllegalStateException
+    {
+        for (int pn = 0; pn < ga.maxPlayers; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final int searched = calcLongestRoadByDFS(pl);
+            if (pl.getLongestRoadLength() != searched)
+                throw new IllegalStateException("game " + ga.getName() + " player " + pn
+                    + ": longest road " + pl.getLongestRoadLength() + ", search found " + searched);
+
+            if (withPaths)
+            {
+                int pathsLongest = 0;
+                final Vector paths = pl.getLRPaths();
+                for (int i = 0; i < paths.size(); ++i)
+                    pathsLongest = Math.max(pathsLongest, ((SOCLRPathData) paths.elementAt(i)).getLength());
+                if (pathsLongest != searched)
+                    throw new IllegalStateException("game " + ga.getName() + " player " + pn
+                        + ": longest road path " + pathsLongest + ", search found " + searched);
+            }
+        }
+    }
+
+    /**
+     * Find a player's longest road by searching every path of their roads from each road node,
+     * as {@link #checkLongestRoads(SOCGame, boolean)}'s reference.
+     * A path ends at another player's settlement or city.
+     * @param pl  Player to check; the board's pieces and this player's {@link SOCPlayer#getRoads()} are searched
+     * @return  Length of the player's longest road
+     */
+    static int calcLongestRoadByDFS(final SOCPlayer pl)
+    {
+        final SOCBoard bd = pl.getGame().getBoard();
+        final boolean[] ourRoads = new boolean[0x100];
+        final Vector roads = pl.getRoads();
+        for (int i = 0; i < roads.size(); ++i)
+            ourRoads[((SOCRoad) roads.elementAt(i)).getCoordinates()] = true;
+
+        int longest = 0;
+        final Vector roadNodes = pl.getRoadNodes();
+        for (int i = 0; i < roadNodes.size(); ++i)
+            longest = Math.max(longest, calcLongestRoadByDFS
+                (pl, bd, ((Integer) roadNodes.elementAt(i)).intValue(), 0, ourRoads, new boolean[0x100]));
+
+        return longest;
+    }
+
+    /**
+     * Recursive part of {@link #calcLongestRoadByDFS(SOCPlayer)}: Find the longest path from this node.
+     * @param node  Node to continue from
+     * @param len  Length of the path so far
+     * @param ourRoads  Edges which have the player's roads
+     * @param usedEdges  Edges already in the path so far; restored before returning
+     * @return  Length of the longest path through here
+     */
+    private static int calcLongestRoadByDFS
+        (final SOCPlayer pl, final SOCBoard bd, final int node, final int len,
+         final boolean[] ourRoads, final boolean[] usedEdges)
+    {
+        if (len > 0)
+        {
+            final Vector pieces = bd.getPieces();
+            for (int i = 0; i < pieces.size(); ++i)
+            {
+                final SOCPlayingPiece pp = (SOCPlayingPiece) pieces.elementAt(i);
+                if ((pp.getCoordinates() == node) && (pp.getType() != SOCPlayingPiece.ROAD)
+                    && (pp.getPlayer().getPlayerNumber() != pl.getPlayerNumber()))
+                    return len;  // blocked by another player's settlement or city
+            }
+        }
+
+        int longest = len;
+        final int[] adjNodes = bd.getAdjacentNodesToNode_arr(node);
+        for (int i = 0; i < adjNodes.length; ++i)
+        {
+            final int adj = adjNodes[i];
+            if ((adj == -9) || ! bd.isNodeOnBoard(adj))
+                continue;
+
+            final int edge = bd.getEdgeBetweenAdjacentNodes(node, adj);
+            if ((edge < 0) || (edge >= ourRoads.length) || ! ourRoads[edge] || usedEdges[edge])
+                continue;
+
+            usedEdges[edge] = true;
+            longest = Math.max(longest, calcLongestRoadByDFS(pl, bd, adj, len + 1, ourRoads, usedEdges));
+            usedEdges[edge] = false;
+        }
+
+        return longest;
+    }
+
+    /**
+     * Results of one or more simulated games: Wins per seat, and the number of calls,
+     * total time and memory allocated of each type of decision, in total and per game phase.
+     * Not thread-safe.
+     */
+    public static class Results
+    {
+        int games, unfinished, errors;
+        long rounds;
+        final int[] wins = new int[PLAYERS];
+        final long[] decisionNanos = new long[DECISION_NAMES.length];
+        final long[] decisionCounts = new long[DECISION_NAMES.length];
+        final long[] decisionBytes = new long[DECISION_NAMES.length];
+        final long[][] phaseNanos = new long[PHASE_NAMES.length][DECISION_NAMES.length];
+        final long[][] phaseCounts = new long[PHASE_NAMES.length][DECISION_NAMES.length];
+        final long[][] phaseBytes = new long[PHASE_NAMES.length][DECISION_NAMES.length];
+
+        /** Latency of each building plan, indexed by {@link SOCRobotDM#SMART_STRATEGY} or {@link SOCRobotDM#FAST_STRATEGY} */
+        final LatencySamples[] planLatency = { new LatencySamples(), new LatencySamples() };
+
+        /** Wall-clock time from {@link SOCRobotSimulator#playGames(int, long, int)}, or 0 */
+        long elapsedNanos;
+
+        /** Number of games played, including unfinished ones but not errors */
+        public int getGameCount()
+        {
+            return games;
+        }
+
+        /**
+         * Get how many games each seat won.
+         * @return  Win counts, indexed by player number; not a copy
+         */
+        public int[] getWins()
+        {
+            return wins;
+        }
+
+        /** Number of games with no winner after the maximum number of rounds */
+        public int getUnfinishedCount()
+        {
+            return unfinished;
+        }
+
+        /** Number of games which threw an exception */
+        public int getErrorCount()
+        {
+            return errors;
+        }
+
+        /** Total rounds played in all games */
+        public long getRoundCount()
+        {
+            return rounds;
+        }
+
+        /**
+         * Get the total time taken by each decision type.
+         * @return  Nanoseconds, indexed by {@link SOCRobotSimulator#DECIDE_INIT_SETTLEMENT} etc; not a copy
+         */
+        public long[] getDecisionNanos()
+        {
+            return decisionNanos;
+        }
+
+        /**
+         * Get the number of decisions of each type.
+         * @return  Counts, indexed by {@link SOCRobotSimulator#DECIDE_INIT_SETTLEMENT} etc; not a copy
+         */
+        public long[] getDecisionCounts()
+        {
+            return decisionCounts;
+        }
+
+        /**
+         * Get the total memory allocated by each decision type.
+         * @return  Bytes, indexed by {@link SOCRobotSimulator#DECIDE_INIT_SETTLEMENT} etc, or all 0
+         *     if {@link SOCRobotSimulator#getAllocatedBytes()} isn't available; not a copy
+         */
+        public long[] getDecisionBytes()
+        {
+            return decisionBytes;
+        }
+
+        /**
+         * Get the total time taken by each decision type in each game phase.
+         * @return  Nanoseconds, indexed by {@link SOCRobotSimulator#PHASE_EARLY} etc and
+         *     then by {@link SOCRobotSimulator#DECIDE_INIT_SETTLEMENT} etc; not a copy
+         */
+        public long[][] getPhaseNanos()
+        {
+            return phaseNanos;
+        }
+
+        /**
+         * Get the number of decisions of each type in each game phase.
+         * @return  Counts, indexed like {@link #getPhaseNanos()}; not a copy
+         */
+        public long[][] getPhaseCounts()
+        {
+            return phaseCounts;
+        }
+
+        /**
+         * Get the total memory allocated by each decision type in each game phase.
+         * @return  Bytes, indexed like {@link #getPhaseNanos()}; not a copy
+         */
+        public long[][] getPhaseBytes()
+        {
+            return phaseBytes;
+        }
+
+        /**
+         * Get the latency of each building plan by one strategy's robots.
+         * @param strategy  {@link SOCRobotDM#SMART_STRATEGY} or {@link SOCRobotDM#FAST_STRATEGY}
+         * @return  Latency samples of {@link SOCRobotSimulator#DECIDE_PLAN}; not a copy
+         */
+        public LatencySamples getPlanLatency(final int strategy)
+        {
+            return planLatency[strategy];
+        }
+
+        /** Add one finished game's results */
+        void add(final SimGame sg)
+        {
+            ++games;
+            rounds += sg.ga.getRoundCount();
+            final SOCPlayer winner = sg.ga.getPlayerWithWin();
+            if (winner != null)
+                ++wins[winner.getPlayerNumber()];
+            else
+                ++unfinished;
+            for (int st = 0; st < planLatency.length; ++st)
+                planLatency[st].addAll(sg.planLatency[st]);
+            for (int ph = 0; ph < PHASE_NAMES.length; ++ph)
+            {
+                for (int i = 0; i < decisionNanos.length; ++i)
+                {
+                    decisionNanos[i] += sg.nanos[ph][i];
+                    decisionCounts[i] += sg.counts[ph][i];
+                    decisionBytes[i] += sg.bytes[ph][i];
+                    phaseNanos[ph][i] += sg.nanos[ph][i];
+                    phaseCounts[ph][i] += sg.counts[ph][i];
+                    phaseBytes[ph][i] += sg.bytes[ph][i];
+                }
+            }
+        }
+
+        /** Add another set of results to these */
+        void add(final Results r)
+        {
+            games += r.games;
+            unfinished += r.unfinished;
+            errors += r.errors;
+            rounds += r.rounds;
+            for (int pn = 0; pn < PLAYERS; ++pn)
+                wins[pn] += r.wins[pn];
+            for (int st = 0; st < planLatency.length; ++st)
+                planLatency[st].addAll(r.planLatency[st]);
+            for (int i = 0; i < decisionNanos.length; ++i)
+            {
+                decisionNanos[i] += r.decisionNanos[i];
+                decisionCounts[i] += r.decisionCounts[i];
+                decisionBytes[i] += r.decisionBytes[i];
+                for (int ph = 0; ph < PHASE_NAMES.length; ++ph)
+                {
+                    phaseNanos[ph][i] += r.phaseNanos[ph][i];
+                    phaseCounts[ph][i] += r.phaseCounts[ph][i];
+                    phaseBytes[ph][i] += r.phaseBytes[ph][i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Latencies of one type of decision, for percentiles.
+     * Keeps every sample, which is fine for the few thousand decisions of a simulator run.
+     * Not thread-safe.
+     */
+    public static class LatencySamples
+    {
+        /** Samples in nanoseconds; the first {@link #size} are used */
+        private long[] nanos = new long[256];
+
+        private int size;
+
+        /** Are {@link #nanos} in order? */
+        private boolean sorted = true;
+
+        /** Add a sample, in nanoseconds. */
+        public void add(final long dt)
+        {
+            if (size == nanos.length)
+            {
+                final long[] grown = new long[2 * size];
+                System.arraycopy(nanos, 0, grown, 0, size);
+                nanos = grown;
+            }
+            nanos[size++] = dt;
+            sorted = false;
+        }
+
+        /** Add all of another set's samples to this one. */
+        public void addAll(final LatencySamples ls)
+        {
+            for (int i = 0; i < ls.size; ++i)
+                add(ls.nanos[i]);
+        }
+
+        /** Get the number of samples. */
+        public int getCount()
+        {
+            return size;
+        }
+
+        /**
+         * Get a percentile of the samples, by the nearest-rank method.
+         * @param pct  Percentile, from 0 to 100; 100 is the maximum
+         * @return  The sample in nanoseconds at that percentile, or 0 if there are no samples
+         */
+        public long getPercentile(final double pct)
+        {
+            if (size == 0)
+                return 0;
+
+            if (! sorted)
+            {
+                Arrays.sort(nanos, 0, size);
+                sorted = true;
+            }
+
+            final int rank = (int) Math.ceil(pct / 100.0 * size);
+            return nanos[Math.max(0, Math.min(size, rank) - 1)];
+        }
+    }
+
+    /**
+     * One simulated game: The game, each seat's robot brain and strategies,
+     * and the decision timings.
+     */
+    private class SimGame
+    {
+        final SOCGame ga;
+        final SOCBoard board;
+
+        /** For the simulator's own random choices when a robot's choice can't be used */
+        final Random rand;
+
+        /** For {@link #changeSnapshot(SOCGame)}, separate from {@link #rand} so that checks don't change the game */
+        final Random checkRand;
+
+        final SOCRobotBrain[] brains = new SOCRobotBrain[PLAYERS];
+        final OpeningBuildStrategy[] openings = new OpeningBuildStrategy[PLAYERS];
+        final DiscardStrategy[] discards = new DiscardStrategy[PLAYERS];
+        final RobberStrategy[] robbers = new RobberStrategy[PLAYERS];
+        final MonopolyStrategy[] monopolies = new MonopolyStrategy[PLAYERS];
+
+        /**
+         * Time spent, number of calls and bytes allocated per decision type,
+         * indexed by {@link #PHASE_EARLY} etc and then by {@link #DECIDE_INIT_SETTLEMENT} etc
+         */
+        final long[][] nanos = new long[PHASE_NAMES.length][DECISION_NAMES.length];
+        final int[][] counts = new int[PHASE_NAMES.length][DECISION_NAMES.length];
+        final long[][] bytes = new long[PHASE_NAMES.length][DECISION_NAMES.length];
+
+        /** Latency of each building plan, indexed by {@link SOCRobotDM#SMART_STRATEGY} or {@link SOCRobotDM#FAST_STRATEGY} */
+        final LatencySamples[] planLatency = { new LatencySamples(), new LatencySamples() };
+
+        /** Start time of the decision being timed; see {@link #timed(int)} */
+        long startNanos;
+
+        /** Bytes allocated by this thread before the decision being timed, or -1; see {@link #timed(int)} */
+        long startBytes;
+
+        /** Planned pieces which couldn't be built this turn */
+        int failedBuildingAttempts;
+
+        /** True when the current player shouldn't make more trade offers this turn */
+        boolean doneTrading;
+
+        SimGame(final long seed)
+        {
+            ga = new SOCGame("sim-" + seed);
+            ga.setRandomSeed(seed);
+            if (checkGames)
+                ga.startJournal();
+            board = ga.getBoard();
+            rand = new Random(seed);
+            checkRand = new Random(~seed);
+
+            for (int pn = 0; pn < PLAYERS; ++pn)
+            {
+                final String name = "robot" + pn;
+                ga.addPlayer(name, pn);
+                ga.getPlayer(pn).setRobotFlag(true, true);
+
+                // The client is never connected: It's only the brain's source of our player name.
+                final SOCRobotClient cli = new SOCRobotClient(null, 0, name, null, null);
+                brains[pn] = new SOCRobotBrain(cli, seatParams[pn], ga, new CappedQueue());
+
+                final Random seatRand = new Random(rand.nextLong());
+                openings[pn] = new OpeningBuildStrategy();
+                discards[pn] = new DiscardStrategy(seatRand);
+                robbers[pn] = new RobberStrategy(seatRand);
+                monopolies[pn] = new MonopolyStrategy();
+            }
+
+            for (int pn = 0; pn < PLAYERS; ++pn)
+                brains[pn].setOurPlayerData();  // needs all players seated, to track them
+        }
+
+        /** Play until someone wins or the game runs out of rounds. */
+        void play()
+        {
+            ga.startGame();
+
+            while ((ga.getGameState() < SOCGame.OVER) && (ga.getRoundCount() <= maxRounds))
+            {
+                final int gs = ga.getGameState();
+                final int cpn = ga.getCurrentPlayerNumber();
+
+                switch (gs)
+                {
+                case SOCGame.START1A:
+                case SOCGame.START2A:
+                    placeInitSettlement(cpn, (gs == SOCGame.START1A));
+                    break;
+
+                case SOCGame.START1B:
+                case SOCGame.START2B:
+                    placeInitRoad(cpn);
+                    break;
+
+                case SOCGame.PLAY:
+                    if (checkGames)
+                        checkSnapshot();
+                    playTurn(cpn);
+                    break;
+
+                default:
+                    throw new IllegalStateException("game state " + gs);
+                }
+            }
+        }
+
+        /**
+         * Replay this game from its journal, and check that the replay reached the same state.
+         * @throws IllegalStateException if the replay's state or journal differs
+         */
+        void checkReplay()
+            throws IllegalStateException
+        {
+            final SOCGameJournal journal = ga.getJournal();
+            final SOCGame replayed = journal.replay();
+            final String desc = describeGame(ga, false), replayDesc = describeGame(replayed, false);
+            if (! replayDesc.equals(desc))
+                throw new IllegalStateException
+                    ("replay differs: game " + ga.getName() + "\n" + desc + "replay:\n" + replayDesc);
+            if (! replayed.getJournal().toString().equals(journal.toString()))
+                throw new IllegalStateException("replay's journal differs: game " + ga.getName());
+        }
+
+        /**
+         * Check that a {@link SOCGame#snapshot()} of this game has the same state as the game,
+         * and that changing the snapshot with {@link #changeSnapshot(SOCGame)} doesn't change the game.
+         * Also checks both games' longest roads with {@link SOCRobotSimulator#checkLongestRoads(SOCGame, boolean)}.
+         * @throws IllegalStateException if the snapshot differs, or changing it changed the game,
+         *     or a longest road differs from the search
+         */
+        void checkSnapshot()
+            throws IllegalStateException
+        {
+            checkLongestRoads(ga, true);
+            final String desc = describeGame(ga, true);
+            final SOCGame snap = ga.snapshot();
+            final String snapDesc = describeGame(snap, true);
+            if (! snapDesc.equals(desc))
+                throw new IllegalStateException
+                    ("snapshot differs: game " + ga.getName() + "\n" + desc + "snapshot:\n" + snapDesc);
+
+            changeSnapshot(snap);
+            checkLongestRoads(snap, false);
+            if (! describeGame(ga, true).equals(desc))
+                throw new IllegalStateException("changing a snapshot changed game " + ga.getName());
+        }
+
+        /**
+         * If the game is over, set each player's final score like a client does at the end of a game
+         * ({@link SOCPlayer#forceFinalVP(int)}), then {@link #checkSnapshot()}.
+         * @throws IllegalStateException if the snapshot differs, or changing it changed the game
+         */
+        void checkGameOverSnapshot()
+            throws IllegalStateException
+        {
+            if (ga.getGameState() != SOCGame.OVER)
+                return;
+
+            for (int pn = 0; pn < PLAYERS; ++pn)
+            {
+                final SOCPlayer pl = ga.getPlayer(pn);
+                pl.forceFinalVP(pl.getTotalVP());
+            }
+            checkSnapshot();
+        }
+
+        /**
+         * Make random changes to a snapshot of this game, for {@link #checkSnapshot()}:
+         * Give resources, place pieces and temporary pieces, undo some of the temporary ones,
+         * buy dev cards, and move the robber and change the dice.
+         * @param snap  Snapshot of {@link #ga}
+         */
+        void changeSnapshot(final SOCGame snap)
+        {
+            final SOCBoard sb = snap.getBoard();
+            final int[] landHexes = sb.getHexLandCoords();
+            for (int i = 0; i < 20; ++i)
+            {
+                final SOCPlayer pl = snap.getPlayer(checkRand.nextInt(PLAYERS));
+                pl.getResources().add(1 + checkRand.nextInt(3), SOCResourceConstants.CLAY + checkRand.nextInt(5));
+
+                final int ptype = checkRand.nextInt(3);  // SOCPlayingPiece.ROAD, SETTLEMENT or CITY
+                final Vector coords = new Vector();
+                for (int coord = 0; coord <= SOCBoard.MAXNODE; ++coord)
+                    if (((ptype == SOCPlayingPiece.ROAD) && pl.isPotentialRoad(coord))
+                        || ((ptype == SOCPlayingPiece.SETTLEMENT) && pl.isPotentialSettlement(coord))
+                        || ((ptype == SOCPlayingPiece.CITY) && pl.isPotentialCity(coord)
+                            && isSettlementOf(pl, sb.settlementAtNode(coord))))
+                        coords.addElement(new Integer(coord));
+                if (! coords.isEmpty())
+                {
+                    final int coord = ((Integer) coords.elementAt(checkRand.nextInt(coords.size()))).intValue();
+                    final SOCPlayingPiece pp;
+                    switch (ptype)
+                    {
+                    case SOCPlayingPiece.ROAD:
+                        pp = new SOCRoad(pl, coord, sb);
+                        break;
+
+                    case SOCPlayingPiece.SETTLEMENT:
+                        pp = new SOCSettlement(pl, coord, sb);
+                        break;
+
+                    default:
+                        pp = new SOCCity(pl, coord, sb);
+                    }
+
+                    if (checkRand.nextInt(4) == 0)
+                    {
+                        snap.putTempPiece(pp);
+                        if (checkRand.nextBoolean())
+                            snap.undoPutTempPiece(pp);
+                    } else {
+                        snap.putPiece(pp);
+                    }
+                }
+
+                if ((checkRand.nextInt(5) == 0) && (snap.getNumDevCards() > 0))
+                    snap.buyDevCard();
+                if (checkRand.nextInt(5) == 0)
+                    sb.setRobberHex(landHexes[checkRand.nextInt(landHexes.length)], true);
+                if (checkRand.nextInt(3) == 0)
+                    snap.setCurrentDice(2 + checkRand.nextInt(11));
+            }
+        }
+
+        /**
+         * Is this piece the player's settlement?
+         * {@link SOCPlayer#isPotentialCity(int)} isn't enough for {@link #changeSnapshot(SOCGame)}:
+         * Undoing a temporary settlement doesn't clear its potential city.
+         */
+        private boolean isSettlementOf(final SOCPlayer pl, final SOCPlayingPiece pp)
+        {
+            return (pp != null) && (pp.getType() == SOCPlayingPiece.SETTLEMENT)
+                && (pp.getPlayer().getPlayerNumber() == pl.getPlayerNumber());
+        }
+
+        /** Start timing a decision; call {@link #timed(int)} when it's made. */
+        final void startTimer()
+        {
+            startBytes = getAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * Record the time and memory since {@link #startTimer()} for a decision type in the current game phase.
+         * @return  The decision's time in nanoseconds
+         */
+        final long timed(final int decision)
+        {
+            final long dt = System.nanoTime() - startNanos;
+
+            int maxVP = 0;
+            for (int pn = 0; pn < PLAYERS; ++pn)
+                maxVP = Math.max(maxVP, ga.getPlayer(pn).getTotalVP());
+            final int ph = (maxVP >= PHASE_LATE_VP) ? PHASE_LATE : ((maxVP >= PHASE_MID_VP) ? PHASE_MID : PHASE_EARLY);
+
+            nanos[ph][decision] += dt;
+            ++counts[ph][decision];
+            if (startBytes >= 0)
+                bytes[ph][decision] += getAllocatedBytes() - startBytes;
+
+            return dt;
+        }
+
+        /**
+         * Place a player's first or second settlement, as planned by their {@link OpeningBuildStrategy}.
+         * Like the brain, the trackers see it only when the road is placed.
+         */
+        void placeInitSettlement(final int pn, final boolean isFirst)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+
+            startTimer();
+            int node = (isFirst)
+                ? openings[pn].planInitialSettlements(ga, pl)
+                : openings[pn].planSecondSettlement(ga, pl);
+            timed(DECIDE_INIT_SETTLEMENT);
+
+            if ((node == -1) || ! pl.isPotentialSettlement(node))
+                node = randomNode(pl);
+            if (node == -1)
+                throw new IllegalStateException("no potential settlement for player " + pn);
+            ga.putPiece(new SOCSettlement(pl, node, board));
+        }
+
+        /**
+         * Place a player's initial road, as planned by their {@link OpeningBuildStrategy},
+         * and track it and its settlement.
+         */
+        void placeInitRoad(final int pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final int node = pl.getLastSettlementCoord();
+
+            startTimer();
+            int edge = openings[pn].planInitRoad(ga, pl, brains[pn].getClient());
+            timed(DECIDE_INIT_ROAD);
+
+            if (! (pl.isPotentialRoad(edge) && board.getAdjacentEdgesToNode(node).contains(new Integer(edge))))
+            {
+                final Vector edges = board.getAdjacentEdgesToNode(node);
+                do
+                {
+                    edge = ((Integer) edges.elementAt(rand.nextInt(edges.size()))).intValue();
+                } while (! pl.isPotentialRoad(edge));
+            }
+
+            final SOCSettlement se = new SOCSettlement(pl, node, board);
+            startTimer();
+            for (int i = 0; i < PLAYERS; ++i)
+                brains[i].trackNewSettlement(se, false);
+            timed(DECIDE_TRACK_PIECE);
+
+            putPiece(new SOCRoad(pl, edge, board));
+        }
+
+        /**
+         * Place a piece in the game, then run it through each robot's player trackers.
+         */
+        void putPiece(final SOCPlayingPiece pp)
+        {
+            ga.putPiece(pp);
+
+            startTimer();
+            for (int i = 0; i < PLAYERS; ++i)
+            {
+                switch (pp.getType())
+                {
+                case SOCPlayingPiece.ROAD:
+                    brains[i].trackNewRoad((SOCRoad) pp, false);
+                    break;
+
+                case SOCPlayingPiece.SETTLEMENT:
+                    brains[i].trackNewSettlement((SOCSettlement) pp, false);
+                    break;
+
+                case SOCPlayingPiece.CITY:
+                    brains[i].trackNewCity((SOCCity) pp, false);
+                    break;
+                }
+            }
+            timed(DECIDE_TRACK_PIECE);
+        }
+
+        /**
+         * Play the current player's turn: Roll or play a knight, then build and trade
+         * while their plans allow it, then end the turn.
+         * @param pn  Current player number
+         */
+        void playTurn(final int pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final SOCRobotBrain br = brains[pn];
+            final Stack buildingPlan = br.getBuildingPlan();
+
+            // New turn: Each brain resets its plans, like for a TURN message
+            for (int i = 0; i < PLAYERS; ++i)
+            {
+                final SOCRobotBrain b = brains[i];
+                b.getBuildingPlan().clear();
+                b.negotiator.resetIsSelling();
+                b.negotiator.resetOffersMade();
+                b.negotiator.resetTargetPieces();
+            }
+            failedBuildingAttempts = 0;
+            doneTrading = (br.getRobotParameters().getTradeFlag() != 1);
+
+            // If the robber's on one of our hexes, play a knight before rolling
+            if ((pl.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) > 0)
+                && pl.getNumbers().hasNumbersForHex(board.getRobberHex())
+                && ga.canPlayKnight(pn))
+            {
+                ga.playKnight();
+                resolveRobber(pn);
+            }
+
+            ga.rollDice();
+            resolveRobber(pn);
+
+            for (int actions = 0;
+                 (ga.getGameState() == SOCGame.PLAY1) && (actions < MAX_ACTIONS_PER_TURN);
+                 ++actions)
+            {
+                if (! pl.hasPlayedDevCard() && wantsKnightForLargestArmy(pl) && ga.canPlayKnight(pn))
+                {
+                    ga.playKnight();
+                    resolveRobber(pn);
+                    continue;
+                }
+
+                if (buildingPlan.empty() && (pl.getResources().getTotal() > 1)
+                    && (failedBuildingAttempts < SOCRobotBrain.MAX_DENIED_BUILDING_PER_TURN))
+                {
+                    final int strategy = br.getRobotParameters().getStrategyType();
+                    startTimer();
+                    br.getDecisionMaker().planStuff(strategy);
+                    planLatency[strategy].add(timed(DECIDE_PLAN));
+
+                    if (! buildingPlan.empty())
+                        br.negotiator.setTargetPiece(pn, (SOCPossiblePiece) buildingPlan.peek());
+                }
+
+                if (buildingPlan.empty() || ! buildOrGetResourceByTradeOrCard(pn))
+                    break;
+            }
+
+            if (ga.getGameState() == SOCGame.PLAY1)
+                ga.endTurn();
+        }
+
+        /**
+         * Should this player play a knight card to take or contest Largest Army?
+         * Same test as the brain's before it plans building.
+         */
+        boolean wantsKnightForLargestArmy(final SOCPlayer pl)
+        {
+            final SOCDevCardSet cards = pl.getDevCards();
+            if (cards.getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT) == 0)
+                return false;
+
+            final SOCPlayer laPlayer = ga.getPlayerWithLargestArmy();
+            if (laPlayer == pl)
+                return false;
+
+            final int larmySize = (laPlayer == null) ? 3 : (laPlayer.getNumKnights() + 1);
+            return (pl.getNumKnights()
+                    + cards.getAmount(SOCDevCardSet.NEW, SOCDevCardConstants.KNIGHT)
+                    + cards.getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.KNIGHT)
+                    >= larmySize);
+        }
+
+        /**
+         * After a roll or a knight, handle any discards, robber move and robbery,
+         * until the game is back to {@link SOCGame#PLAY} or {@link SOCGame#PLAY1}.
+         * @param pn  Current player number, who moves the robber
+         */
+        void resolveRobber(final int pn)
+        {
+            while (true)
+            {
+                switch (ga.getGameState())
+                {
+                case SOCGame.WAITING_FOR_DISCARDS:
+                    for (int i = 0; i < PLAYERS; ++i)
+                        if (ga.getPlayer(i).getNeedToDiscard())
+                            discard(i);
+                    break;
+
+                case SOCGame.PLACING_ROBBER:
+                    moveRobber(pn);
+                    break;
+
+                case SOCGame.WAITING_FOR_CHOICE:
+                    chooseRobberVictim(pn);
+                    break;
+
+                default:
+                    return;  // <--- Early return: Nothing else to resolve ---
+                }
+            }
+        }
+
+        /** A player discards half their resources, chosen by their {@link DiscardStrategy}. */
+        void discard(final int pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final SOCRobotBrain br = brains[pn];
+
+            startTimer();
+            final SOCResourceSet disc = discards[pn].discard
+                (pl.getResources().getTotal() / 2, br.getBuildingPlan(), pl,
+                 br.getRobotParameters(), br.getDecisionMaker(), br.negotiator);
+            timed(DECIDE_DISCARD);
+
+            if (ga.canDiscard(pn, disc))
+                ga.discard(pn, disc);
+            else
+                ga.playerDiscardRandom(pn);
+        }
+
+        /** The current player moves the robber to the hex chosen by their {@link RobberStrategy}. */
+        void moveRobber(final int pn)
+        {
+            startTimer();
+            int hex = robbers[pn].getBestRobberHex(ga, ga.getPlayer(pn), brains[pn].getPlayerTrackers());
+            timed(DECIDE_ROBBER_HEX);
+
+            if (! ga.canMoveRobber(pn, hex))
+            {
+                final int[] hexes = board.getHexLandCoords();
+                do
+                {
+                    hex = hexes[rand.nextInt(hexes.length)];
+                } while (! ga.canMoveRobber(pn, hex));
+            }
+
+            ga.moveRobber(pn, hex);
+        }
+
+        /** The current player robs the victim chosen by their {@link RobberStrategy}. */
+        void chooseRobberVictim(final int pn)
+        {
+            final boolean[] choices = new boolean[ga.maxPlayers];
+            final Vector victims = ga.getPossibleVictims();
+            for (int i = 0; i < victims.size(); ++i)
+                choices[((SOCPlayer) victims.elementAt(i)).getPlayerNumber()] = true;
+
+            startTimer();
+            int choice = robbers[pn].chooseRobberVictim(choices, ga, brains[pn].getPlayerTrackers());
+            timed(DECIDE_ROBBER_VICTIM);
+
+            if ((choice < 0) || ! ga.canChoosePlayer(choice))
+                choice = ((SOCPlayer) victims.elementAt(0)).getPlayerNumber();
+            ga.stealFromPlayer(choice);
+        }
+
+        /**
+         * Work towards the current player's top planned piece, like the brain's method of the same name:
+         * Play a Road Building, Discovery or Monopoly card, offer a trade to the other robots,
+         * trade with the bank or a port, or build the piece.
+         * @param pn  Current player number
+         * @return  True if an action was taken, false if the player is done for this turn
+         */
+        boolean buildOrGetResourceByTradeOrCard(final int pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final SOCRobotBrain br = brains[pn];
+            final Stack buildingPlan = br.getBuildingPlan();
+            final SOCResourceSet ourResources = pl.getResources();
+            final boolean canPlayCard = ! pl.hasPlayedDevCard();
+
+            final SOCPossiblePiece targetPiece = (SOCPossiblePiece) buildingPlan.peek();
+
+            // Road Building plan: two roads on top of the plan
+            if (canPlayCard && (targetPiece.getType() == SOCPossiblePiece.ROAD)
+                && (buildingPlan.size() >= 2)
+                && (((SOCPossiblePiece) buildingPlan.elementAt(buildingPlan.size() - 2)).getType() == SOCPossiblePiece.ROAD)
+                && (pl.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.ROADS) > 0)
+                && ga.canPlayRoadBuilding(pn))
+            {
+                ga.playRoadBuilding();
+                while ((ga.getGameState() == SOCGame.PLACING_FREE_ROAD1)
+                       || (ga.getGameState() == SOCGame.PLACING_FREE_ROAD2))
+                    placeRoad(pl, buildingPlan.empty() ? null : (SOCPossiblePiece) buildingPlan.pop());
+
+                return true;
+            }
+
+            final SOCResourceSet targetResources = SOCPlayingPiece.getResourcesToBuild(targetPiece.getType());
+            br.negotiator.setTargetPiece(pn, targetPiece);
+
+            // Discovery: if we need exactly 2 more resources
+            if (canPlayCard && (pl.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.DISC) > 0))
+            {
+                int numNeededResources = 0;
+                for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+                {
+                    final int diff = targetResources.getAmount(rtype) - ourResources.getAmount(rtype);
+                    if (diff > 0)
+                        numNeededResources += diff;
+                }
+
+                if ((numNeededResources == 2) && ga.canPlayDiscovery(pn))
+                {
+                    startTimer();
+                    br.chooseFreeResources(targetResources);
+                    timed(DECIDE_DISCOVERY);
+
+                    ga.playDiscovery();
+                    if (ga.canDoDiscoveryAction(br.resourceChoices))
+                        ga.doDiscoveryAction(br.resourceChoices);
+                    return true;
+                }
+            }
+
+            // Monopoly
+            if (canPlayCard && (pl.getDevCards().getAmount(SOCDevCardSet.OLD, SOCDevCardConstants.MONO) > 0)
+                && ga.canPlayMonopoly(pn))
+            {
+                startTimer();
+                final boolean wantsMono = monopolies[pn].decidePlayMonopoly(ga, pl);
+                timed(DECIDE_MONOPOLY);
+
+                if (wantsMono)
+                {
+                    ga.playMonopoly();
+                    ga.doMonopolyAction(monopolies[pn].getMonopolyChoice());
+                    return true;
+                }
+            }
+
+            if (! ourResources.contains(targetResources))
+            {
+                if (! doneTrading)
+                {
+                    if (offerTrade(pn, targetPiece))
+                        return true;
+                }
+
+                startTimer();
+                final SOCTradeOffer bankTrade = br.negotiator.getOfferToBank(targetResources, ourResources);
+                timed(DECIDE_BANK_TRADE);
+
+                if ((bankTrade != null) && ga.canMakeBankTrade(bankTrade.getGiveSet(), bankTrade.getGetSet()))
+                {
+                    ga.makeBankTrade(bankTrade.getGiveSet(), bankTrade.getGetSet());
+                    return true;
+                }
+
+                return false;
+            }
+
+            buildingPlan.pop();
+            buildPlannedPiece(pl, targetPiece);
+            return true;
+        }
+
+        /**
+         * The current player offers a trade to the other robots for their target piece.
+         * The first robot (in seat order after the offering player) to accept it makes the trade.
+         * If nobody accepts, the robots who rejected it are marked as not selling what was asked for,
+         * so the next offer will be different.
+         * @param pn  Current player number
+         * @param targetPiece  Piece that the player wants resources for
+         * @return  True if a trade was made; false if no offer, or nobody accepted it
+         */
+        boolean offerTrade(final int pn, final SOCPossiblePiece targetPiece)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final SOCRobotNegotiator neg = brains[pn].negotiator;
+
+            startTimer();
+            final SOCTradeOffer offer = neg.makeOffer(targetPiece);
+            neg.resetWantsAnotherOffer();
+            timed(DECIDE_TRADE_OFFER);
+
+            if (offer == null)
+            {
+                doneTrading = true;
+                return false;
+            }
+
+            final boolean[] offeredTo = offer.getTo();
+            final SOCResourceSet getSet = offer.getGetSet();
+            pl.setCurrentOffer(offer);
+            try
+            {
+                for (int i = 1; i < PLAYERS; ++i)
+                {
+                    final int to = (pn + i) % PLAYERS;
+                    if (! offeredTo[to])
+                        continue;
+
+                    startTimer();
+                    final int response = brains[to].negotiator.considerOffer2(offer, to);
+                    timed(DECIDE_TRADE_OFFER);
+
+                    if ((response == SOCRobotNegotiator.ACCEPT_OFFER) && ga.canMakeTrade(pn, to))
+                    {
+                        ga.makeTrade(pn, to);
+                        return true;  // <--- Early return: Accepted ---
+                    }
+
+                    for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+                        if ((getSet.getAmount(rtype) > 0) && ! neg.wantsAnotherOffer(to, rtype))
+                            neg.markAsNotSelling(to, rtype);
+                }
+
+                neg.addToOffersMade(offer);
+                return false;
+            }
+            finally
+            {
+                pl.setCurrentOffer(null);
+            }
+        }
+
+        /**
+         * Buy and place a planned piece which the player has the resources for.
+         * If it can't be built, clear the building plan so they'll make a new one.
+         */
+        void buildPlannedPiece(final SOCPlayer pl, final SOCPossiblePiece targetPiece)
+        {
+            final int pn = pl.getPlayerNumber();
+            final int coord = targetPiece.getCoordinates();
+            boolean built = false;
+
+            switch (targetPiece.getType())
+            {
+            case SOCPossiblePiece.CARD:
+                if (ga.couldBuyDevCard(pn))
+                {
+                    ga.buyDevCard();
+                    built = true;
+                }
+                break;
+
+            case SOCPossiblePiece.ROAD:
+                if (ga.couldBuildRoad(pn) && pl.isPotentialRoad(coord))
+                {
+                    ga.buyRoad(pn);
+                    putPiece(new SOCRoad(pl, coord, board));
+                    built = true;
+                }
+                break;
+
+            case SOCPossiblePiece.SETTLEMENT:
+                if (ga.couldBuildSettlement(pn) && pl.isPotentialSettlement(coord))
+                {
+                    ga.buySettlement(pn);
+                    putPiece(new SOCSettlement(pl, coord, board));
+                    built = true;
+                }
+                break;
+
+            case SOCPossiblePiece.CITY:
+                if (ga.couldBuildCity(pn) && pl.isPotentialCity(coord))
+                {
+                    ga.buyCity(pn);
+                    putPiece(new SOCCity(pl, coord, board));
+                    built = true;
+                }
+                break;
+            }
+
+            if (! built)
+            {
+                ++failedBuildingAttempts;
+                brains[pn].getBuildingPlan().clear();
+            }
+        }
+
+        /**
+         * Place a free road from the Road Building card at its planned location,
+         * or if that's not possible, at a random potential road.
+         * If there's nowhere to build a road, skips the rest of the free roads
+         * without returning any resources, since none were paid.
+         * @param pl  Current player
+         * @param planned  Planned road, or null
+         * @throws IllegalStateException if game state isn't
+         *     {@link SOCGame#PLACING_FREE_ROAD1} or {@link SOCGame#PLACING_FREE_ROAD2}
+         */
+        void placeRoad(final SOCPlayer pl, final SOCPossiblePiece planned)
+        {
+            int edge = -1;
+            if ((planned != null) && (planned.getType() == SOCPossiblePiece.ROAD)
+                && pl.isPotentialRoad(planned.getCoordinates()))
+                edge = planned.getCoordinates();
+
+            if (edge == -1)
+            {
+                final Vector edges = new Vector();
+                for (int e = board.getMinEdge(); e <= board.getMaxEdge(); ++e)
+                    if (pl.isPotentialRoad(e))
+                        edges.addElement(new Integer(e));
+
+                if (edges.isEmpty())
+                {
+                    // As the server does when a client skips its free road:
+                    // cancelBuildRoad in PLACING_FREE_ROAD2 ends the placement without a refund.
+                    // From PLACING_FREE_ROAD1, the second road can't be built either.
+                    switch (ga.getGameState())
+                    {
+                    case SOCGame.PLACING_FREE_ROAD1:
+                        ga.setGameState(SOCGame.PLACING_FREE_ROAD2);
+                        // fall through
+                    case SOCGame.PLACING_FREE_ROAD2:
+                        ga.cancelBuildRoad(pl.getPlayerNumber());
+                        break;
+                    default:
+                        throw new IllegalStateException("placeRoad: game state " + ga.getGameState());
+                    }
+
+                    return;  // <--- Early return: Nowhere to build ---
+                }
+
+                edge = ((Integer) edges.elementAt(rand.nextInt(edges.size()))).intValue();
+            }
+
+            putPiece(new SOCRoad(pl, edge, board));
+        }
+
+        /**
+         * Pick a random potential settlement node, if the opening strategy's can't be used.
+         * @return  A potential settlement node, or -1 if there are none
+         */
+        int randomNode(final SOCPlayer pl)
+        {
+            final Vector nodes = new Vector();
+            for (int n = board.getMinNode(); n <= SOCBoard.MAXNODE; ++n)
+                if (pl.isPotentialSettlement(n))
+                    nodes.addElement(new Integer(n));
+
+            if (nodes.isEmpty())
+                return -1;
+
+            return ((Integer) nodes.elementAt(rand.nextInt(nodes.size()))).intValue();
+        }
+    }
+
+    /**
+     * Run games from the command line and print the results.
+     * @param args  [-check] [games [threads [seed [strategies [scoringThreads]]]]]; see class javadoc
+     */
+    public static void main(String[] args)
+        throws InterruptedException
+    {
+        int games = 100, nThreads = Runtime.getRuntime().availableProcessors();
+        long seed = System.currentTimeMillis();
+        String strategies = "fsfs";
+        int scoringThreads = 0;
+        final boolean check = (args.length > 0) && args[0].equals("-check");
+        if (check)
+        {
+            final String[] rest = new String[args.length - 1];
+            System.arraycopy(args, 1, rest, 0, rest.length);
+            args = rest;
+        }
+        try
+        {
+            if (args.length > 0)
+                games = Integer.parseInt(args[0]);
+            if (args.length > 1)
+                nThreads = Integer.parseInt(args[1]);
+            if (args.length > 2)
+                seed = Long.parseLong(args[2]);
+            if (args.length > 3)
+                strategies = args[3];
+            if (args.length > 4)
+                scoringThreads = Integer.parseInt(args[4]);
+        }
+        catch (NumberFormatException e)
+        {
+            strategies = "";
+        }
+        if ((games < 1) || (nThreads < 1) || (scoringThreads < 0) || (strategies.length() != PLAYERS)
+            || (strategies.replace('f', ' ').replace('s', ' ').trim().length() > 0))
+        {
+            System.err.println("usage: java soc.robot.SOCRobotSimulator [-check] [games [threads [seed [strategies [scoringThreads]]]]]");
+            System.err.println("  -check: replay each game from its journal and compare, and check snapshots of it;");
+            System.err.println("    exit status 1 if any game fails");
+            System.err.println("  strategies: one letter per seat, f = fast or s = smart, default fsfs");
+            System.err.println("  scoringThreads: threads shared by smart robots to score pieces, default 0 for none");
+            return;
+        }
+
+        final SOCRobotParameters[] params = new SOCRobotParameters[PLAYERS];
+        for (int pn = 0; pn < PLAYERS; ++pn)
+            params[pn] = (strategies.charAt(pn) == 's') ? PARAMS_SMART : PARAMS_FAST;
+
+        SOCRobotDM.setScoringThreads(scoringThreads);
+        System.out.println("Simulating " + games + " games with " + nThreads + " threads, first seed " + seed
+            + ((scoringThreads > 0) ? (", " + scoringThreads + " scoring threads") : ""));
+        final long[] gcStart = getGCCountAndMillis();
+        final SOCRobotSimulator sim = new SOCRobotSimulator(params, 200);
+        sim.setCheckGames(check);
+        final Results res = sim.playGames(games, seed, nThreads);
+        final long[] gcEnd = getGCCountAndMillis();
+
+        final double secs = res.elapsedNanos / 1e9;
+        System.out.println("Played " + res.games + " games in " + ((int) (secs * 10)) / 10.0 + " seconds: "
+            + (int) (res.games * 60 / secs) + " games per minute, average "
+            + ((res.games > 0) ? (res.rounds / res.games) : 0) + " rounds");
+        if (res.unfinished > 0)
+            System.out.println("  " + res.unfinished + " games had no winner after 200 rounds");
+        if (res.errors > 0)
+            System.out.println("  " + res.errors + " games failed with exceptions");
+
+        System.out.println();
+        System.out.println("Seat  Strategy  Wins    Win%");
+        for (int pn = 0; pn < PLAYERS; ++pn)
+            System.out.println(pad(Integer.toString(pn), 6)
+                + pad((strategies.charAt(pn) == 's') ? "smart" : "fast", 10)
+                + pad(Integer.toString(res.wins[pn]), 8)
+                + ((res.games > 0) ? ((1000 * res.wins[pn] / res.games) / 10.0) : 0.0));
+
+        System.out.println();
+        System.out.println("Decision          Count       Avg us    Total ms  Avg KB");
+        for (int i = 0; i < DECISION_NAMES.length; ++i)
+        {
+            final long n = res.decisionCounts[i];
+            System.out.println(pad(DECISION_NAMES[i], 18) + pad(Long.toString(n), 12)
+                + pad(Long.toString((n > 0) ? (res.decisionNanos[i] / n / 1000) : 0), 10)
+                + pad(Long.toString(res.decisionNanos[i] / 1000000), 10)
+                + ((n > 0) ? (res.decisionBytes[i] / n / 1024) : 0));
+        }
+
+        System.out.println();
+        System.out.println("By game phase         Count       Avg us    Total ms  Avg KB");
+        final int[] phaseDecisions = { DECIDE_PLAN, DECIDE_TRADE_OFFER };
+        for (int d = 0; d < phaseDecisions.length; ++d)
+        {
+            final int i = phaseDecisions[d];
+            for (int ph = 0; ph < PHASE_NAMES.length; ++ph)
+            {
+                final long n = res.phaseCounts[ph][i];
+                System.out.println(pad(DECISION_NAMES[i] + ", " + PHASE_NAMES[ph], 22) + pad(Long.toString(n), 12)
+                    + pad(Long.toString((n > 0) ? (res.phaseNanos[ph][i] / n / 1000) : 0), 10)
+                    + pad(Long.toString(res.phaseNanos[ph][i] / 1000000), 10)
+                    + ((n > 0) ? (res.phaseBytes[ph][i] / n / 1024) : 0));
+            }
+        }
+        if (allocatedBytesMethod == null)
+            System.out.println("  (This JVM can't report memory allocated per thread)");
+
+        System.out.println();
+        System.out.println("Plan latency      Count       p50 us    p90 us    p99 us    Max us");
+        final int[] strategyTypes = { SOCRobotDM.FAST_STRATEGY, SOCRobotDM.SMART_STRATEGY };
+        for (int s = 0; s < strategyTypes.length; ++s)
+        {
+            final LatencySamples ls = res.planLatency[strategyTypes[s]];
+            if (ls.getCount() == 0)
+                continue;
+
+            System.out.println(pad((strategyTypes[s] == SOCRobotDM.SMART_STRATEGY) ? "smart" : "fast", 18)
+                + pad(Integer.toString(ls.getCount()), 12)
+                + pad(Long.toString(ls.getPercentile(50) / 1000), 10)
+                + pad(Long.toString(ls.getPercentile(90) / 1000), 10)
+                + pad(Long.toString(ls.getPercentile(99) / 1000), 10)
+                + (ls.getPercentile(100) / 1000));
+        }
+
+        System.out.println();
+        System.out.println("Garbage collection: " + (gcEnd[0] - gcStart[0]) + " collections, "
+            + (gcEnd[1] - gcStart[1]) + " ms");
+
+        final SOCBuildingSpeedCache cache = SOCBuildingSpeedEstimate.getCache();
+        if (cache != null)
+        {
+            System.out.println();
+            System.out.println("Estimate cache: " + cache);
+        }
+
+        if (check)
+        {
+            System.out.println();
+            System.out.println("Checked " + res.games + " games, " + res.errors + " failed");
+            if (res.errors > 0)
+                System.exit(1);
+        }
+    }
+
+    /**
+     * Get the total number of garbage collections and their total time, for {@link #main(String[])}.
+     * @return  Array with the number of collections and the milliseconds spent
+     */
+    private static long[] getGCCountAndMillis()
+    {
+        final long[] ret = new long[2];
+        final Iterator gcIter = ManagementFactory.getGarbageCollectorMXBeans().iterator();
+        while (gcIter.hasNext())
+        {
+            final GarbageCollectorMXBean gc = (GarbageCollectorMXBean) gcIter.next();
+            ret[0] += Math.max(0, gc.getCollectionCount());  // -1 if undefined
+            ret[1] += Math.max(0, gc.getCollectionTime());
+        }
+
+        return ret;
+    }
+
+    /** Pad a string with spaces on the right to a given width, for {@link #main(String[])}'s columns. */
+    private static String pad(final String s, final int width)
+    {
+        final StringBuffer sb = new StringBuffer(s);
+        while (sb.length() < width)
+            sb.append(' ');
+        return sb.toString();
+    }
+
+}
@@ -18,79 +18,182 @@
  **/
 package soc.server;
 
+import java.util.Hashtable;
+
+import soc.game.SOCGame;
+import soc.server.genericServer.TimerWheel;
 
 /**
- * Wakes up every few seconds to check for turns that have expired
- * by calling {@link SOCServer#checkForExpiredTurns(long)},
- * and every 5 minutes to check for games that have expired
- * with {@link SOCServer#checkForExpiredGames(long)}.
+ * Keeps two timers for each game on a {@link TimerWheel}: One checks for a robot turn that has expired
+ * by calling {@link SOCServer#checkForExpiredTurn(SOCGame, long)}, and the other checks for game
+ * expiration with {@link SOCServer#checkForExpiredGame(SOCGame, long)}. Each check returns the time
+ * for that game's next check, such as 8 seconds after its last action, so a timer fires only when
+ * something might be due.
+ *<P>
+ * The server calls {@link #addGame(SOCGame)} when a game is created or its board is reset,
+ * and {@link #removeGame(String)} when it's destroyed.
+ *<P>
+ * Before v1.2.00 this was a thread which woke every few seconds to check every game's turn,
+ * and every 5 minutes to check every game's expiration, while holding the game list's monitor.
  *
  * @author Robert S Thomas
  */
-public class SOCGameTimeoutChecker extends Thread
+public class SOCGameTimeoutChecker
 {
+    /**
+     * Length of each {@link TimerWheel} tick, in milliseconds; the timers' precision.
+     * @since 1.2.00
+     */
+    public static final int TICK_MILLIS = 100;
+
     private SOCServer server;
-    private boolean alive;
+
+    /** @since 1.2.00 */
+    private final TimerWheel wheel;
+
+    /**
+     * Each current game's timers, keyed by game name.
+     * @since 1.2.00
+     */
+    private final Hashtable<String, GameTimers> games = new Hashtable<String, GameTimers>();
 
     /**
-     * Create a game timeout checker
+     * Create a game timeout checker; call {@link #start()} to start its thread.
      *
      * @param srv  the game server
      */
     public SOCGameTimeoutChecker(SOCServer srv)
     {
         server = srv;
-        alive = true;
-        setName ("timeoutChecker");  // Thread name for debug
-        try { setDaemon(true); } catch (Exception e) {}  // Don't wait on us to exit program
+        wheel = new TimerWheel("timeoutChecker", TICK_MILLIS);  // Thread name for debug
     }
 
     /**
-     * Wakes up every few seconds to check for turns that have expired,
-     * and every 5 minutes to check for games that have expired.
-     * See {@link SOCGameTimeoutChecker class javadoc}.
+     * Start the timers' thread.
+     * @since 1.2.00
      */
-    public void run()
+    public void start()
     {
-        // check every few seconds; should be about half of ROBOT_FORCE_ENDTURN_SECONDS
-        final int sleepMillis = SOCServer.ROBOT_FORCE_ENDTURN_SECONDS * 600;
+        wheel.start();
+    }
 
-        // Holds time of next check for game expiry, not just turn expiry
-        long gameExpireCheckTime = 0L;
+    /**
+     * Start checking a new game's turns, and its expiration unless it's a practice game
+     * ({@link SOCGame#isPractice}). If the game replaces one with the same name, as with a
+     * board reset, stops checking the old game.
+     * @param ga  Game to check; its {@link SOCGame#isPractice} flag should already be set
+     * @since 1.2.00
+     */
+    public void addGame(final SOCGame ga)
+    {
+        final GameTimers gt = new GameTimers(ga);
+        final GameTimers old = games.put(ga.getName(), gt);
+        if (old != null)
+            old.cancel();
 
-        while (alive)
-        {
-            long now = System.currentTimeMillis();
-            if (gameExpireCheckTime == 0L)
-                gameExpireCheckTime = now;
+        final long now = System.currentTimeMillis();
+        gt.scheduleTurnCheck(now + (1000L * SOCServer.ROBOT_FORCE_ENDTURN_SECONDS));
+        if (! ga.isPractice)
+            gt.scheduleExpireCheck(now);
+    }
 
-            if (now >= gameExpireCheckTime)
+    /**
+     * Stop checking a game, because it's being destroyed.
+     * @param gaName  Game name; does nothing if not found
+     * @since 1.2.00
+     */
+    public void removeGame(final String gaName)
+    {
+        final GameTimers gt = games.remove(gaName);
+        if (gt != null)
+            gt.cancel();
+    }
+
+    /**
+     * Get the number of games being checked.
+     * @since 1.2.00
+     */
+    public int getGameCount()
+    {
+        return games.size();
+    }
+
+    /**
+     * Stop checking all games, and stop the timers' thread.
+     */
+    public void stopChecking()
+    {
+        wheel.stop();
+        games.clear();
+    }
+
+    /**
+     * One game's timers. The timer tasks run on the {@link TimerWheel}'s thread,
+     * and each reschedules itself for the time returned by its check.
+     * @since 1.2.00
+     */
+    private final class GameTimers
+    {
+        final SOCGame ga;
+
+        /** Current timers, or null; synchronize on this object when changing them or {@link #cancelled} */
+        private TimerWheel.Timeout turnTimeout, expireTimeout;
+
+        private volatile boolean cancelled;
+
+        private final Runnable turnTask = new Runnable()
+        {
+            public void run()
             {
-                server.checkForExpiredGames(now);
+                if (cancelled)
+                    return;
 
-                // check every 5 minutes
-                gameExpireCheckTime = now + (SOCServer.GAME_TIME_EXPIRE_CHECK_MINUTES * 60 * 1000);
-                yield();
+                scheduleTurnCheck(server.checkForExpiredTurn(ga, System.currentTimeMillis()));
             }
 
-            server.checkForExpiredTurns(now);
-            yield();
+            public String toString() { return "turnTimeout(" + ga.getName() + ")"; }
+        };
 
-            try
+        private final Runnable expireTask = new Runnable()
+        {
+            public void run()
             {
-                sleep(sleepMillis);
+                if (cancelled)
+                    return;
+
+                final long next = server.checkForExpiredGame(ga, System.currentTimeMillis());
+                if (next != 0)
+                    scheduleExpireCheck(next);
             }
-            catch (InterruptedException exc) {}
+
+            public String toString() { return "expireTimeout(" + ga.getName() + ")"; }
+        };
+
+        GameTimers(final SOCGame ga)
+        {
+            this.ga = ga;
         }
 
-        server = null;
-    }
+        synchronized void scheduleTurnCheck(final long when)
+        {
+            if (! cancelled)
+                turnTimeout = wheel.schedule(turnTask, when);
+        }
 
-    /**
-     * DOCUMENT ME!
-     */
-    public void stopChecking()
-    {
-        alive = false;
+        synchronized void scheduleExpireCheck(final long when)
+        {
+            if (! cancelled)
+                expireTimeout = wheel.schedule(expireTask, when);
+        }
+
+        synchronized void cancel()
+        {
+            cancelled = true;
+            if (turnTimeout != null)
+                turnTimeout.cancel();
+            if (expireTimeout != null)
+                expireTimeout.cancel();
+        }
     }
+
 }
@@ -26,12 +26,20 @@ import soc.debug.D;  // JM
 import soc.game.*;
 import soc.message.*;
 
+import soc.robot.SOCBuildingSpeedCache;
+import soc.robot.SOCBuildingSpeedEstimate;
 import soc.robot.SOCRobotClient;
+import soc.robot.SOCRobotDM;
 import soc.server.database.DBSettingMismatchException;
 import soc.server.database.SOCDBHelper;
 
+import soc.server.genericServer.CommandLanes;
+import soc.server.genericServer.EncodedMessage;
+import soc.server.genericServer.InboundQueueStats;
 import soc.server.genericServer.LocalStringConnection;
+import soc.server.genericServer.OutboundQueue;
 import soc.server.genericServer.Server;
+import soc.server.genericServer.ServerTaskExecutor;
 import soc.server.genericServer.StringConnection;
 
 import soc.util.IntPair;
@@ -69,6 +77,7 @@ import java.util.StringTokenizer;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A server for Settlers of Catan
@@ -185,6 +194,35 @@ public class SOCServer extends Server
      */
     public static final String PROP_JSETTLERS_BOTS_SHOWCOOKIE = "jsettlers.bots.showcookie";
 
+    /**
+     * Integer property <tt>jsettlers.bots.estimatecache</tt>: Number of building-speed estimates
+     * which robots in this JVM remember and share, or 0 to turn off that cache.
+     * (The default is {@link SOCBuildingSpeedEstimate#DEFAULT_CACHE_SIZE}.)
+     * Admins can see its hit rate with {@code *STATS*}.
+     * @see SOCBuildingSpeedEstimate#setCacheSize(int)
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_ESTIMATECACHE = "jsettlers.bots.estimatecache";
+
+    /**
+     * Integer property <tt>jsettlers.bots.scoringthreads</tt>: Number of threads which robots
+     * in this JVM share to score their candidate pieces concurrently when planning what to build
+     * with the smart strategy. The pieces chosen are the same either way.
+     * (The default is 0: Each robot scores its candidates on its own thread.)
+     * @see soc.robot.SOCRobotDM#setScoringThreads(int)
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_SCORINGTHREADS = "jsettlers.bots.scoringthreads";
+
+    /**
+     * Integer property <tt>jsettlers.bots.brainthreads</tt>: Number of worker threads which robots
+     * in this JVM share to run their brains, so the number of threads doesn't grow with the number
+     * of games robots are playing. (The default is 0: Each robot brain is its own thread.)
+     * @see soc.robot.SOCRobotClient#setBrainThreads(int)
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_BRAINTHREADS = "jsettlers.bots.brainthreads";
+
     /**
      * Property <tt>jsettlers.startrobots</tt> to start some robots when the server starts.
      * (The default is {@link #SOC_STARTROBOTS_DEFAULT}.)
@@ -281,6 +319,88 @@ public class SOCServer extends Server
      */
     public static final String PROP_JSETTLERS_CLI_MAXCREATECHANNELS = "jsettlers.client.maxcreatechannels";
 
+    /**
+     * Integer property <tt>jsettlers.net.nio.threads</tt> to use non-blocking network I/O
+     * with this many shared I/O threads, instead of a reader and writer thread for each client.
+     * (The default is 0, a thread pair per client.) Busy servers with many connected clients
+     * can set this to 2 or 4 to greatly reduce the server's thread count and memory use.
+     * Clients can't tell the difference; both use the same wire format.
+     * @see soc.server.genericServer.NioStringServerSocket
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_NET_NIO_THREADS = "jsettlers.net.nio.threads";
+
+    /**
+     * Integer property <tt>jsettlers.game.lanes</tt> to process most game messages on this many
+     * worker threads ("lanes") instead of only the single Treater thread, so one busy game
+     * can't stall the others. Each game's messages always run in order on the same lane;
+     * lobby and channel messages stay on the Treater.
+     * (The default is 0, all messages processed by the Treater.)
+     * @see soc.server.genericServer.CommandLanes
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_GAME_LANES = "jsettlers.game.lanes";
+
+    /**
+     * Boolean property <tt>jsettlers.game.journal</tt>: Record each new game's actions in a
+     * {@link SOCGameJournal}, so a game can be replayed from its random seed to reproduce a problem.
+     * The server prints each new game's name and random seed.
+     * A journal uses about 12 KB of memory per game; set this to false to save that.
+     * (The default is true.)
+     * @see SOCGame#startJournal()
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_GAME_JOURNAL = "jsettlers.game.journal";
+
+    /**
+     * Integer property <tt>jsettlers.net.outqueue.high</tt>: High watermark, in bytes, of each network client's
+     * queue of messages not yet sent. Above this, the client is marked lagging and
+     * {@link #PROP_JSETTLERS_NET_OUTQUEUE_POLICY} applies, so a client on a stalled network
+     * can't use up the server's memory. 0 means no limit.
+     * (The default is {@link #OUTQUEUE_HIGH_DEFAULT}.)
+     * @see soc.server.genericServer.OutboundQueue
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_NET_OUTQUEUE_HIGH = "jsettlers.net.outqueue.high";
+
+    /**
+     * Integer property <tt>jsettlers.net.outqueue.low</tt>: Low watermark, in bytes, of each network client's
+     * queue of messages not yet sent. A lagging client is no longer lagging once its queue drains to this size.
+     * (The default is 1/4 of {@link #PROP_JSETTLERS_NET_OUTQUEUE_HIGH}.)
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_NET_OUTQUEUE_LOW = "jsettlers.net.outqueue.low";
+
+    /**
+     * String property <tt>jsettlers.net.outqueue.policy</tt>: What to do when a network client's queue of
+     * unsent messages goes above {@link #PROP_JSETTLERS_NET_OUTQUEUE_HIGH}:
+     * {@code coalesce} (the default) to drop game state updates which newer ones make redundant,
+     * {@code lagging} to only mark the client lagging, or {@code disconnect} to drop the client's connection.
+     * With {@code coalesce} or {@code lagging}, the client is disconnected if its queue reaches
+     * {@link soc.server.genericServer.OutboundQueue#HARD_LIMIT_FACTOR} times the high watermark.
+     * Admins can list the clients with the most unsent bytes with the {@code *OUTQUEUES*} command.
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_NET_OUTQUEUE_POLICY = "jsettlers.net.outqueue.policy";
+
+    /**
+     * Boolean property <tt>jsettlers.net.binary</tt>: Send game messages as compact binary frames
+     * to clients which ask for them in their {@link SOCVersion} message's features.
+     * Clients which don't ask, including all clients older than
+     * {@link SOCMessageBinary#VERSION_FOR_BINARY_FRAMES}, always get text.
+     * (The default is true.)
+     * @see SOCMessageBinary
+     * @since 1.2.00
+     */
+    public static final String PROP_JSETTLERS_NET_BINARY = "jsettlers.net.binary";
+
+    /**
+     * Default high watermark for {@link #PROP_JSETTLERS_NET_OUTQUEUE_HIGH}: 512 KB,
+     * enough for many games' worth of messages.
+     * @since 1.2.00
+     */
+    public static final int OUTQUEUE_HIGH_DEFAULT = 512 * 1024;
+
     /**
      * Property prefix <tt>jsettlers.gameopt.</tt> to specify game option defaults in a server properties file.
      * Option names are case-insensitive past this prefix. Syntax for default value is the same as on the
@@ -315,9 +435,20 @@ public class SOCServer extends Server
         PROP_JSETTLERS_ALLOW_DEBUG,   "Allow remote debug commands? (if Y)",
         PROP_JSETTLERS_CLI_MAXCREATECHANNELS,   "Maximum simultaneous channels that a client can create",
         PROP_JSETTLERS_CLI_MAXCREATEGAMES,      "Maximum simultaneous games that a client can create",
+        PROP_JSETTLERS_NET_NIO_THREADS,         "Use non-blocking network I/O with this many threads (default 0: 2 threads per client)",
+        PROP_JSETTLERS_GAME_LANES,              "Process game messages on this many threads (default 0: on the single message thread)",
+        PROP_JSETTLERS_GAME_JOURNAL,            "Record each game's actions so it can be replayed (default Y)",
+        PROP_JSETTLERS_NET_OUTQUEUE_HIGH,       "Client's max bytes of unsent messages before it's lagging (default " + OUTQUEUE_HIGH_DEFAULT + "; 0 for no limit)",
+        PROP_JSETTLERS_NET_OUTQUEUE_LOW,        "Client's bytes of unsent messages when no longer lagging (default 1/4 of high)",
+        PROP_JSETTLERS_NET_OUTQUEUE_POLICY,     "Policy for lagging clients: coalesce, lagging, or disconnect (default coalesce)",
+        PROP_JSETTLERS_NET_BINARY,              "Send binary game messages to clients which ask for them (default Y)",
         PROP_JSETTLERS_GAMEOPT_PREFIX + "*",    "Game option defaults, case-insensitive: jsettlers.gameopt.RD=y",
         PROP_JSETTLERS_BOTS_COOKIE,             "Robot cookie value (default is random generated each startup)",
         PROP_JSETTLERS_BOTS_SHOWCOOKIE,         "Flag to show the robot cookie value at startup",
+        PROP_JSETTLERS_BOTS_ESTIMATECACHE,      "Number of building-speed estimates robots share in a cache (default "
+            + SOCBuildingSpeedEstimate.DEFAULT_CACHE_SIZE + "; 0 for none)",
+        PROP_JSETTLERS_BOTS_SCORINGTHREADS,     "Threads robots share to score pieces when planning (default 0: each robot's own thread)",
+        PROP_JSETTLERS_BOTS_BRAINTHREADS,       "Threads robots share to run their brains (default 0: a thread per game per robot)",
         SOCDBHelper.PROP_JSETTLERS_DB_BCRYPT_WORK__FACTOR, "For user accounts in DB, password encryption Work Factor (see README) (9 to "
             + soc.server.database.BCrypt.GENSALT_MAX_LOG2_ROUNDS + ')',
         SOCDBHelper.PROP_JSETTLERS_DB_SAVE_GAMES,  "Flag to save all games in DB (if 1 or Y)",
@@ -369,20 +500,20 @@ public class SOCServer extends Server
 
     /**
      * If game will expire in this or fewer minutes, warn the players. Default is 10.
-     * Must be at least twice the sleep-time in {@link SOCGameTimeoutChecker#run()}.
+     * Must be at least twice {@link #GAME_TIME_EXPIRE_CHECK_MINUTES}.
      * The game expiry time is set at game creation in {@link SOCGameListAtServer#createGame(String, String, Hashtable)}.
      *<P>
      * If you update this field, also update {@link #GAME_TIME_EXPIRE_CHECK_MINUTES}.
      *
-     * @see #checkForExpiredGames(long)
-     * @see SOCGameTimeoutChecker#run()
+     * @see #checkForExpiredGame(SOCGame, long)
      * @see SOCGameListAtServer#GAME_EXPIRE_MINUTES
      * @see #GAME_TIME_EXPIRE_ADDTIME_MINUTES
      */
     public static int GAME_EXPIRE_WARN_MINUTES = 10;
 
     /**
-     * Sleep time (minutes) between checks for expired games in {@link SOCGameTimeoutChecker#run()}.
+     * Time (minutes) between each game's expiration warnings, and between keepalive pings to its
+     * members if it's idle, from {@link #checkForExpiredGame(SOCGame, long)}.
      * Default is 5 minutes. Must be at most half of {@link #GAME_EXPIRE_WARN_MINUTES}
      * so the user has time to react after seeing the warning.
      * @since 1.2.00
@@ -401,15 +532,27 @@ public class SOCServer extends Server
     /**
      * Force robot to end their turn after this many seconds
      * of inactivity. Default is 8.
-     * @see #checkForExpiredTurns(long)
+     * @see #checkForExpiredTurn(SOCGame, long)
      * @since 1.1.11
      */
     public static int ROBOT_FORCE_ENDTURN_SECONDS = 8;
 
+    /**
+     * Number of threads in the {@link #serverTasks} pool. Default is 2.
+     * @since 1.2.00
+     */
+    public static final int SERVER_TASK_THREADS = 2;
+
+    /**
+     * Maximum number of tasks waiting to run in the {@link #serverTasks} pool. Default is 100.
+     * @since 1.2.00
+     */
+    public static final int SERVER_TASK_MAX_QUEUED = 100;
+
     /**
      * Force robot to end their turn after this much inactivity,
      * while they've made a trade offer. Default is 60 seconds.
-     * @see #checkForExpiredTurns(long)
+     * @see #checkForExpiredTurn(SOCGame, long)
      * @since 1.1.11
      */
     public static int ROBOT_FORCE_ENDTURN_TRADEOFFER_SECONDS = 60;
@@ -735,13 +878,43 @@ public class SOCServer extends Server
      */
     protected long startTime;
 
+    /**
+     * Worker threads for game messages, or null if {@link #PROP_JSETTLERS_GAME_LANES} isn't used.
+     * @see #processCommand(String, StringConnection)
+     * @since 1.2.00
+     */
+    private CommandLanes gameLanes;
+
+    /**
+     * Small bounded thread pool for the server's own occasional tasks, such as {@link ForceEndTurnTask}:
+     * {@link #SERVER_TASK_THREADS} threads, at most {@link #SERVER_TASK_MAX_QUEUED} tasks waiting.
+     * Created in the constructor, shut down in {@link #stopServer(String)}.
+     * Admins can see its stats with {@code *STATS*}.
+     * @since 1.2.00
+     */
+    private ServerTaskExecutor serverTasks;
+
+    /**
+     * True if clients may ask for binary frames; false if {@link #PROP_JSETTLERS_NET_BINARY} is false.
+     * @see #handleVERSION(StringConnection, SOCVersion)
+     * @since 1.2.00
+     */
+    private boolean binaryFramesEnabled = true;
+
+    /**
+     * True if new games record a {@link SOCGameJournal}; false if {@link #PROP_JSETTLERS_GAME_JOURNAL} is false.
+     * @see #startGameJournal(SOCGame)
+     * @since 1.2.00
+     */
+    private boolean gameJournalsEnabled = true;
+
     /**
      * The total number of games that have been started:
      * {@link GameHandler#startGame(SOCGame)} has been called
      * and game play has begun. Game state became {@link SOCGame#READY}
      * or higher from an earlier/lower state.
      */
-    protected int numberOfGamesStarted;
+    protected final AtomicInteger numberOfGamesStarted = new AtomicInteger();
 
     /**
      * The total number of games finished: Game state became {@link SOCGame#OVER} or higher
@@ -750,12 +923,12 @@ public class SOCServer extends Server
      * Before v1.1.20 this was the number of games destroyed, and <tt>*STATS*</tt>
      * wouldn't reflect a newly finished game until all players had left that game.
      */
-    protected int numberOfGamesFinished;
+    protected final AtomicInteger numberOfGamesFinished = new AtomicInteger();
 
     /**
      * total number of users
      */
-    protected int numberOfUsers;
+    protected final AtomicInteger numberOfUsers = new AtomicInteger();
 
     /**
      * Client version count stats since startup (includes bots).
@@ -780,7 +953,7 @@ public class SOCServer extends Server
     SOCServerRobotPinger serverRobotPinger;
 
     /**
-     * game timeout checker
+     * game timeout checker, with timers for each game's turn and expiration
      */
     SOCGameTimeoutChecker gameTimeoutChecker;
 
@@ -895,12 +1068,13 @@ public class SOCServer extends Server
      *       with bad syntax. See {@link #PROP_JSETTLERS_GAMEOPT_PREFIX} for expected syntax.
      *       See {@link #parseCmdline_DashedArgs(String[])} for how game option properties are checked.
      *       {@link Throwable#getMessage()} will have problem details.
+     *       Also thrown if {@link #PROP_JSETTLERS_NET_NIO_THREADS} is negative.
      * @throws IllegalStateException  If {@link Version#versionNumber()} returns 0 (packaging error)
      */
     public SOCServer(final int p, Properties props)
         throws SocketException, EOFException, SQLException, IllegalArgumentException, IllegalStateException
     {
-        super(p);
+        super(p, init_getIntProperty(props, PROP_JSETTLERS_NET_NIO_THREADS, 0));
 
         maxConnections = init_getIntProperty(props, PROP_JSETTLERS_CONNECTIONS, 15);
         allowDebugUser = init_getBoolProperty(props, PROP_JSETTLERS_ALLOW_DEBUG, false);
@@ -998,7 +1172,8 @@ public class SOCServer extends Server
      *       with bad syntax. See {@link #PROP_JSETTLERS_GAMEOPT_PREFIX} for expected syntax.
      *       See {@link #parseCmdline_DashedArgs(String[])} for how game option properties are checked.
      *       Also thrown if {@link SOCDBHelper#PROP_JSETTLERS_DB_UPGRADE__SCHEMA} flag
-     *       is set, but {@link SOCDBHelper#isSchemaLatestVersion()}. {@link Throwable#getMessage()} will have
+     *       is set, but {@link SOCDBHelper#isSchemaLatestVersion()},
+     *       or if the {@link #PROP_JSETTLERS_NET_OUTQUEUE_POLICY} properties are out of range. {@link Throwable#getMessage()} will have
      *       problem details for any {@code IllegalArgumentException} thrown here.
      * @throws IllegalStateException  If {@link Version#versionNumber()} returns 0 (packaging error)
      */
@@ -1307,9 +1482,59 @@ public class SOCServer extends Server
         }
 
         startTime = System.currentTimeMillis();
-        numberOfGamesStarted = 0;
-        numberOfGamesFinished = 0;
-        numberOfUsers = 0;
+        {
+            final int nLanes = init_getIntProperty(props, PROP_JSETTLERS_GAME_LANES, 0);
+            if (nLanes > 0)
+                gameLanes = new CommandLanes(this, nLanes, "game-lane");
+
+            binaryFramesEnabled = init_getBoolProperty(props, PROP_JSETTLERS_NET_BINARY, true);
+            gameJournalsEnabled = init_getBoolProperty(props, PROP_JSETTLERS_GAME_JOURNAL, true);
+
+            if (props.containsKey(PROP_JSETTLERS_BOTS_ESTIMATECACHE))
+            {
+                final int cacheSize = init_getIntProperty(props, PROP_JSETTLERS_BOTS_ESTIMATECACHE, -1);
+                if (cacheSize < 0)
+                    throw new IllegalArgumentException
+                        ("Bad " + PROP_JSETTLERS_BOTS_ESTIMATECACHE + ": " + props.getProperty(PROP_JSETTLERS_BOTS_ESTIMATECACHE));
+                SOCBuildingSpeedEstimate.setCacheSize(cacheSize);
+            }
+
+            if (props.containsKey(PROP_JSETTLERS_BOTS_SCORINGTHREADS))
+            {
+                final int scoringThreads = init_getIntProperty(props, PROP_JSETTLERS_BOTS_SCORINGTHREADS, -1);
+                if (scoringThreads < 0)
+                    throw new IllegalArgumentException
+                        ("Bad " + PROP_JSETTLERS_BOTS_SCORINGTHREADS + ": " + props.getProperty(PROP_JSETTLERS_BOTS_SCORINGTHREADS));
+                SOCRobotDM.setScoringThreads(scoringThreads);
+            }
+
+            if (props.containsKey(PROP_JSETTLERS_BOTS_BRAINTHREADS))
+            {
+                final int brainThreads = init_getIntProperty(props, PROP_JSETTLERS_BOTS_BRAINTHREADS, -1);
+                if (brainThreads < 0)
+                    throw new IllegalArgumentException
+                        ("Bad " + PROP_JSETTLERS_BOTS_BRAINTHREADS + ": " + props.getProperty(PROP_JSETTLERS_BOTS_BRAINTHREADS));
+                SOCRobotClient.setBrainThreads(brainThreads);
+            }
+
+            final int oqHigh = init_getIntProperty(props, PROP_JSETTLERS_NET_OUTQUEUE_HIGH, OUTQUEUE_HIGH_DEFAULT),
+                      oqLow = init_getIntProperty(props, PROP_JSETTLERS_NET_OUTQUEUE_LOW, oqHigh / 4);
+            final String oqPolicyName = props.getProperty(PROP_JSETTLERS_NET_OUTQUEUE_POLICY, "coalesce").trim();
+            final int oqPolicy = OutboundQueue.parsePolicy(oqPolicyName);
+            if (oqPolicy == 0)
+                throw new IllegalArgumentException
+                    ("Unknown " + PROP_JSETTLERS_NET_OUTQUEUE_POLICY + ": " + oqPolicyName);
+            try
+            {
+                setOutboundQueueLimits(oqHigh, oqLow, oqPolicy);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IllegalArgumentException
+                    ("Bad " + PROP_JSETTLERS_NET_OUTQUEUE_HIGH + " or " + PROP_JSETTLERS_NET_OUTQUEUE_LOW
+                     + ": " + oqHigh + ", " + oqLow);
+            }
+        }
         clientPastVersionStats = new HashMap();
 
         if (CLIENT_MAX_CREATE_CHANNELS != 0)
@@ -1322,6 +1547,7 @@ public class SOCServer extends Server
         serverRobotPinger.start();
         gameTimeoutChecker = new SOCGameTimeoutChecker(this);
         gameTimeoutChecker.start();
+        serverTasks = new ServerTaskExecutor("server-task", SERVER_TASK_THREADS, SERVER_TASK_MAX_QUEUED);
         this.databaseUserName = databaseUserName;
         this.databasePassword = databasePassword;
 
@@ -1530,16 +1756,13 @@ public class SOCServer extends Server
                 }
                 else if ((hcount < 6) || (hcount < rcount))
                 {
-                    new Thread() {
+                    serverTasks.schedule("startupWarning", new Runnable() {
                         public void run()
                         {
-                            try {
-                                Thread.sleep(1600);  // wait for bot-connect messages to print
-                            } catch (InterruptedException e) {}
                             System.err.println("** Warning: Only " + hcount
                                 + " player connections available, because of the robot connections.");
                         }
-                    }.start();
+                    }, 1600);  // wait for bot-connect messages to print
                 }
             }
             catch (NumberFormatException e)
@@ -1811,11 +2034,13 @@ public class SOCServer extends Server
             try
             {
                 // Create new game, expiring in SOCGameListAtServer.GAME_EXPIRE_MINUTES .
-                gameList.createGame(gaName, c.getData(), gaOpts);
+                final SOCGame newGame = gameList.createGame(gaName, c.getData(), gaOpts);
                 if ((strSocketName != null) && (strSocketName.equals(PRACTICE_STRINGPORT)))
                 {
-                    gameList.getGameData(gaName).isPractice = true;  // flag if practice game (set since 1.1.09)
+                    newGame.isPractice = true;  // flag if practice game (set since 1.1.09)
                 }
+                gameTimeoutChecker.addGame(newGame);
+                startGameJournal(newGame);
 
                 // Add this (creating) player to the game
                 gameList.addMember(c, gaName);
@@ -2651,6 +2876,7 @@ public class SOCServer extends Server
             members = gameList.getMembers(gm);
 
             gameList.deleteGame(gm);  // also calls SOCGame.destroyGame
+            gameTimeoutChecker.removeGame(gm);
 
             if (members != null)
             {
@@ -2893,6 +3119,7 @@ public class SOCServer extends Server
 
             if (v != null)
             {
+                final EncodedMessage em = encodeMessage(mes);
                 Enumeration menum = v.elements();
 
                 while (menum.hasMoreElements())
@@ -2901,7 +3128,7 @@ public class SOCServer extends Server
 
                     if (c != null)
                     {
-                        c.put(mes.toCmd());
+                        c.put(em);
                     }
                 }
             }
@@ -2929,6 +3156,7 @@ public class SOCServer extends Server
 
         if (v != null)
         {
+            final EncodedMessage em = encodeMessage(mes);
             Enumeration menum = v.elements();
 
             while (menum.hasMoreElements())
@@ -2937,14 +3165,15 @@ public class SOCServer extends Server
 
                 if (c != null)
                 {
-                    c.put(mes.toCmd());
+                    c.put(em);
                 }
             }
         }
     }
 
     /**
-     * Send a message to a player and record it
+     * Send a message to a player and record it.
+     * If the client accepts binary frames and the message type has a binary form, sends that instead of text.
      *
      * @param c   the player connection
      * @param mes the message to send
@@ -2954,6 +3183,25 @@ public class SOCServer extends Server
         if ((c != null) && (mes != null))
         {
             //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", c.getData()));
+            if (c.isBinaryFrames())
+            {
+                byte[] bf;
+                try
+                {
+                    bf = SOCMessageBinary.encodeFrame(mes);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    bf = null;  // too long; send as text
+                }
+
+                if (bf != null)
+                {
+                    c.put(new EncodedMessage(null, getCoalesceKey(mes), bf));
+                    return;  // <--- Early return: Sent binary ---
+                }
+            }
+
             c.put(mes.toCmd());
         }
     }
@@ -2974,8 +3222,76 @@ public class SOCServer extends Server
         c.put(SOCGameTextMsg.toCmd(ga, SERVERNAME, txt));
     }
 
+    /**
+     * Serialize a message to send to all members of a game or channel,
+     * with a coalesce key if it's a state update which a newer one of the same kind makes redundant.
+     * If binary frames are enabled and the message type has a binary form, also encodes that
+     * the first time it's sent to a member whose client accepts binary frames;
+     * if that encoding fails, those members are sent the text instead.
+     * @param mes  Message to send
+     * @return  {@code mes} as an {@link EncodedMessage}, with its {@link #getCoalesceKey(SOCMessage)}
+     * @since 1.2.00
+     */
+    private EncodedMessage encodeMessage(final SOCMessage mes)
+    {
+        if (! binaryFramesEnabled)
+            return new EncodedMessage(mes.toCmd(), getCoalesceKey(mes));
+
+        return new EncodedMessage(mes.toCmd(), getCoalesceKey(mes))
+        {
+            protected byte[] encodeBinFrame()
+            {
+                return SOCMessageBinary.encodeFrame(mes);
+            }
+        };
+    }
+
+    /**
+     * Get a message's key for coalescing in a lagging client's outbound queue, if it's a
+     * game state update which makes any older update with the same key redundant.
+     * These messages set a value instead of changing it, so the client needs only the newest one:
+     * {@link SOCGameState}, {@link SOCLongestRoad}, {@link SOCLargestArmy}, {@link SOCDevCardCount},
+     * {@link SOCResourceCount}, and {@link SOCPlayerElement} with action {@link SOCPlayerElement#SET}.
+     * @param mes  Message to check
+     * @return  Coalesce key, or null if {@code mes} can't be coalesced
+     * @see OutboundQueue#POLICY_COALESCE
+     * @since 1.2.00
+     */
+    private static String getCoalesceKey(final SOCMessage mes)
+    {
+        switch (mes.getType())
+        {
+        case SOCMessage.GAMESTATE:
+        case SOCMessage.LONGESTROAD:
+        case SOCMessage.LARGESTARMY:
+        case SOCMessage.DEVCARDCOUNT:
+            return mes.getType() + "|" + ((SOCMessageForGame) mes).getGame();
+
+        case SOCMessage.RESOURCECOUNT:
+            {
+                final SOCResourceCount rc = (SOCResourceCount) mes;
+                return mes.getType() + "|" + rc.getGame() + "|" + rc.getPlayerNumber();
+            }
+
+        case SOCMessage.PLAYERELEMENT:
+            {
+                final SOCPlayerElement pe = (SOCPlayerElement) mes;
+                if (pe.getAction() != SOCPlayerElement.SET)
+                    return null;
+                return mes.getType() + "|" + pe.getGame() + "|" + pe.getPlayerNumber() + "|" + pe.getElementType();
+            }
+
+        default:
+            return null;
+        }
+    }
+
     /**
      * Send a message to the given game.
+     * The message is serialized with {@link SOCMessage#toCmd()} and encoded once
+     * as an {@link EncodedMessage}, which all members' connections share.
+     * The other {@code messageToGame*} and {@code messageToChannel*} methods do the same.
+     *<P>
      * <b>Locks:</b> Takes, releases {@link SOCGameList#takeMonitorForGame(String)}.
      *
      * @param ga  the name of the game
@@ -2998,6 +3314,7 @@ public class SOCServer extends Server
             if (v != null)
             {
                 //D.ebugPrintln("M2G - "+mes);
+                final EncodedMessage em = encodeMessage(mes);
                 Enumeration menum = v.elements();
 
                 while (menum.hasMoreElements())
@@ -3007,7 +3324,7 @@ public class SOCServer extends Server
                     if (c != null)
                     {
                         //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", c.getData()));
-                        c.put(mes.toCmd());
+                        c.put(em);
                     }
                 }
             }
@@ -3048,7 +3365,7 @@ public class SOCServer extends Server
 
             if (v != null)
             {
-                final String gameTextMsg = SOCGameTextMsg.toCmd(ga, SERVERNAME, txt);
+                final EncodedMessage gameTextMsg = new EncodedMessage(SOCGameTextMsg.toCmd(ga, SERVERNAME, txt));
                 Enumeration menum = v.elements();
 
                 while (menum.hasMoreElements())
@@ -3086,6 +3403,7 @@ public class SOCServer extends Server
         if (v != null)
         {
             //D.ebugPrintln("M2G - "+mes);
+            final EncodedMessage em = encodeMessage(mes);
             Enumeration menum = v.elements();
 
             while (menum.hasMoreElements())
@@ -3095,7 +3413,7 @@ public class SOCServer extends Server
                 if (c != null)
                 {
                     //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", c.getData()));
-                    c.put(mes.toCmd());
+                    c.put(em);
                 }
             }
         }
@@ -3124,6 +3442,7 @@ public class SOCServer extends Server
             if (v != null)
             {
                 //D.ebugPrintln("M2GE - "+mes);
+                final EncodedMessage em = encodeMessage(mes);
                 Enumeration menum = v.elements();
 
                 while (menum.hasMoreElements())
@@ -3133,7 +3452,7 @@ public class SOCServer extends Server
                     if ((con != null) && (!ex.contains(con)))
                     {
                         //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", con.getData()));
-                        con.put(mes.toCmd());
+                        con.put(em);
                     }
                 }
             }
@@ -3171,6 +3490,7 @@ public class SOCServer extends Server
             if (v != null)
             {
                 //D.ebugPrintln("M2GE - "+mes);
+                final EncodedMessage em = encodeMessage(mes);
                 Enumeration menum = v.elements();
 
                 while (menum.hasMoreElements())
@@ -3179,7 +3499,7 @@ public class SOCServer extends Server
                     if ((con != null) && (con != ex))
                     {
                         //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", con.getData()));
-                        con.put(mes.toCmd());
+                        con.put(em);
                     }
                 }
             }
@@ -3248,7 +3568,7 @@ public class SOCServer extends Server
             Vector v = gameList.getMembers(gn);
             if (v != null)
             {
-                String mesCmd = null;  // lazy init, will be mes.toCmd()
+                EncodedMessage mesCmd = null;  // lazy init, will be mes.toCmd()
                 Enumeration menum = v.elements();
 
                 while (menum.hasMoreElements())
@@ -3262,7 +3582,7 @@ public class SOCServer extends Server
                         continue;
 
                     if (mesCmd == null)
-                        mesCmd = mes.toCmd();
+                        mesCmd = encodeMessage(mes);
                     con.put(mesCmd);
                 }
             }
@@ -3534,7 +3854,7 @@ public class SOCServer extends Server
                 oldConn.put(SOCServerPing.toCmd(-1));
         }
 
-        numberOfUsers++;
+        numberOfUsers.incrementAndGet();
     }
 
     /**
@@ -3677,7 +3997,7 @@ public class SOCServer extends Server
             {
                 // send the full list as 1 message
                 if (cliVers >= SOCNewGameWithOptions.VERSION_FOR_NEWGAMEWITHOPTIONS)
-                    c.put(SOCGamesWithOptions.toCmd(gl, cliVers));
+                    messageToPlayer(c, new SOCGamesWithOptions(gl, cliVers));
                 else
                     c.put(SOCGames.toCmd(gl));
             } else {
@@ -3948,6 +4268,11 @@ public class SOCServer extends Server
      * The first message from a client is treated by
      * {@link #processFirstCommand(String, StringConnection)} instead.
      *<P>
+     * If {@link #PROP_JSETTLERS_GAME_LANES} is used, most game messages are handed off
+     * to their game's lane thread; see {@link #getGameLaneName(SOCMessage, StringConnection)}.
+     * The others are processed on the Treater after the client's earlier game-lane messages,
+     * without waiting for them: see {@link CommandLanes#runInOrder(StringConnection, Runnable)}.
+     *<P>
      * Note: When there is a choice, always use local information
      *       over information from the message.  For example, use
      *       the nickname from the connection to get the player
@@ -3960,12 +4285,121 @@ public class SOCServer extends Server
      *       Will be parsed with {@link SOCMessage#toMsg(String)}.
      * @param c    Connection (client) sending this message.
      */
-    public void processCommand(String s, StringConnection c)
+    public void processCommand(String s, final StringConnection c)
     {
+        final SOCMessage mes;
         try
         {
-            SOCMessage mes = (SOCMessage) SOCMessage.toMsg(s);
+            mes = (SOCMessage) SOCMessage.toMsg(s);
+        }
+        catch (Throwable e)
+        {
+            D.ebugPrintStackTrace(e, "ERROR -> processCommand");
+            return;
+        }
+
+        if (mes == null)
+            return;
+
+        if (gameLanes != null)
+        {
+            final String gaName = getGameLaneName(mes, c);
+            if (gaName != null)
+            {
+                gameLanes.submit(gaName, c, Integer.toString(mes.getType()), new Runnable()
+                {
+                    public void run()
+                    {
+                        processCommand_dispatch(mes, c);
+                    }
+                });
+
+                return;  // <--- Early return: Will be processed on the game's lane ---
+            }
+
+            // Keep this client's messages in order, after any it sent to game lanes;
+            // if it has some, this message is posted back to the Treater when they're done
+            gameLanes.runInOrder(c, new Runnable()
+            {
+                public void run()
+                {
+                    processCommand_dispatch(mes, c);
+                }
+            });
+        } else {
+            processCommand_dispatch(mes, c);
+        }
+    }
+
+    /**
+     * Get the game lane for a message, if {@link #PROP_JSETTLERS_GAME_LANES} is used.
+     * Messages about a game ({@link SOCMessageForGame}) run on their game's lane, except
+     * {@link SOCGameTextMsg} (whose debug commands can affect other games or the whole server),
+     * and {@link SOCJoinGame} and {@link SOCNewGameWithOptionsRequest}, which can name the client
+     * and create games, so they stay on the Treater with all other messages.
+     * Messages from a client which doesn't have a name yet also stay on the Treater.
+     * @param mes  Message from a client; not null
+     * @param c  Connection (client) sending this message
+     * @return  Game name to use as the lane key, or null to process on the Treater
+     * @since 1.2.00
+     */
+    private static String getGameLaneName(final SOCMessage mes, final StringConnection c)
+    {
+        if ((! (mes instanceof SOCMessageForGame)) || (c.getData() == null))
+            return null;
+
+        switch (mes.getType())
+        {
+        case SOCMessage.GAMETEXTMSG:
+        case SOCMessage.JOINGAME:
+        case SOCMessage.NEWGAMEWITHOPTIONSREQUEST:
+            return null;
+        }
+
+        return ((SOCMessageForGame) mes).getGame();
+    }
+
+    /**
+     * Get a client message's type, to group processing time stats: Its numeric message type
+     * such as "1013" for {@link SOCMessage#JOINGAME}, or "(unknown)" if the message doesn't
+     * start with a number of at most 5 digits. Since clients can send anything, this keeps
+     * junk out of the stats instead of using the raw text as the type.
+     * @param str  Contents of message from the client; not null
+     * @return  Message type; not null
+     * @since 1.2.00
+     */
+    protected String getCommandType(final String str)
+    {
+        final int L = str.length();
+        int type = 0, i = 0;
+        for (; (i < L) && (i <= 5); ++i)
+        {
+            final char ch = str.charAt(i);
+            if ((ch < '0') || (ch > '9'))
+                break;
+            type = (type * 10) + (ch - '0');
+        }
 
+        if ((i == 0) || (i > 5) || ((i < L) && (str.charAt(i) != SOCMessage.sep_char)))
+            return "(unknown)";
+
+        return Integer.toString(type);
+    }
+
+    /**
+     * Process a parsed message from {@link #processCommand(String, StringConnection)} by calling its handler.
+     * Called from the Treater thread, or from a game lane thread if {@link #PROP_JSETTLERS_GAME_LANES} is used;
+     * see {@link #getGameLaneName(SOCMessage, StringConnection)}.
+     * Handlers must take {@link SOCGameList#takeMonitorForGame(String) gameList.takeMonitorForGame}
+     * as usual before changing game data.
+     * @param mes  Message from the client; not null
+     * @param c  Connection (client) sending this message
+     * @since 1.2.00
+     */
+    private void processCommand_dispatch(final SOCMessage mes, final StringConnection c)
+    {
+        try
+        {
             // D.ebugPrintln(c.getData()+" - "+mes);
             if (mes != null)
             {
@@ -4359,7 +4793,7 @@ public class SOCServer extends Server
             D.ebugPrintStackTrace(e, "ERROR -> processCommand");
         }
 
-    }  // processCommand
+    }  // processCommand_dispatch
 
     /**
      * Used by {@link #DEBUG_COMMANDS_HELP}, etc.
@@ -4432,6 +4866,7 @@ public class SOCServer extends Server
         "*WHO* gameName   show players and observers of gameName",
         "*WHO* *  show all connected clients",
         "*DBSETTINGS*  show current database settings, if any",
+        "*OUTQUEUES*  show clients with the most unsent message bytes",
         };
 
     /**
@@ -4653,6 +5088,11 @@ public class SOCServer extends Server
         catch (SQLException x) { }
         
         super.stopServer();
+        if (gameLanes != null)
+            gameLanes.stop();
+        gameTimeoutChecker.stopChecking();
+        if (! serverTasks.shutdown(2000))
+            System.err.println("stopServer: Server tasks still running after 2 seconds");
 
         System.out.println("Server shutdown completed.");
     }
@@ -4849,7 +5289,8 @@ public class SOCServer extends Server
                     {
                         // If no DB: If msgPass is "" returns msgUser, else returns null
 
-                        if (isCurrentThreadTreater())
+                        if (isCurrentThreadTreater()
+                            || ((gameLanes != null) && gameLanes.isCurrentThreadLane()))
                             authOrRejectClientUser_postDBAuth
                                 (c, msgUserName, dbUserName, cliVers,
                                  doNameConnection, takingOver, authCallback, hadDelay);
@@ -4881,7 +5322,8 @@ public class SOCServer extends Server
      * {@link #authOrRejectClientUser(StringConnection, String, String, int, boolean, boolean, AuthSuccessRunnable)}.
      * See that method's javadoc for most parameters.
      *<P>
-     * That method also ensures this method and {@code authCallback} run in the Treater thread; see
+     * That method also ensures this method and {@code authCallback} run in the Treater thread
+     * (or the game lane thread which called it, if {@link #PROP_JSETTLERS_GAME_LANES} is used); see
      * {@link Server#isCurrentThreadTreater() isCurrentThreadTreater()}.
      *
      * @param hadDelay  If true, this callback has been delayed by {@code BCrypt} calculations;
@@ -5005,6 +5447,16 @@ public class SOCServer extends Server
         if (c == null)
             return;
 
+        if (binaryFramesEnabled && (mes.feats != null))
+        {
+            try
+            {
+                if (new SOCServerFeatures(mes.feats).isActive(SOCMessageBinary.FEAT_BINARY_FRAMES))
+                    c.setBinaryFrames(true);
+            }
+            catch (IllegalArgumentException e) {}  // malformed feats: stay with text
+        }
+
         setClientVersSendGamesOrReject(c, mes.getVersionNumber(), true);
     }
 
@@ -5546,7 +5998,7 @@ public class SOCServer extends Server
         ///
         /// command to add time to a game
         /// If the command text changes from '*ADDTIME*' to something else,
-        /// please update the warning text sent in checkForExpiredGames().
+        /// please update the warning text sent in checkForExpiredGame(SOCGame, long).
         ///
         final String cmdText = gameTextMsgMes.getText();
         final String cmdTxtUC = cmdText.toUpperCase();
@@ -5555,7 +6007,7 @@ public class SOCServer extends Server
             // Unless this is a practice game, if reasonable
             // add 30 minutes to the expiration time.  If this
             // changes to another timespan, please update the
-            // warning text sent in checkForExpiredGames().
+            // warning text sent in checkForExpiredGame(SOCGame, long).
             // Use ">>>" in message text to mark as urgent.
 
             if (ga.isPractice)
@@ -5615,11 +6067,15 @@ public class SOCServer extends Server
             messageToPlayer(c, gaName, "> Connections since startup: " + numberOfConnections);
             messageToPlayer(c, gaName, "> Current named connections: " + getNamedConnectionCount());
             messageToPlayer(c, gaName, "> Current connections including unnamed: " + getCurrentConnectionCount());
-            messageToPlayer(c, gaName, "> Total Users: " + numberOfUsers);
-            messageToPlayer(c, gaName, "> Games started: " + numberOfGamesStarted);
-            messageToPlayer(c, gaName, "> Games finished: " + numberOfGamesFinished);
+            messageToPlayer(c, gaName, "> Total Users: " + numberOfUsers.get());
+            messageToPlayer(c, gaName, "> Games started: " + numberOfGamesStarted.get());
+            messageToPlayer(c, gaName, "> Games finished: " + numberOfGamesFinished.get());
             messageToPlayer(c, gaName, "> Total Memory: " + rt.totalMemory());
             messageToPlayer(c, gaName, "> Free Memory: " + rt.freeMemory());
+            processDebugCommand_queueStats(c, gaName);
+            final SOCBuildingSpeedCache estCache = SOCBuildingSpeedEstimate.getCache();
+            if (estCache != null)
+                messageToPlayer(c, gaName, "> Robot estimate cache: " + estCache);
             final int vers = Version.versionNumber();
             messageToPlayer(c, gaName, "> Version: "
                 + vers + " (" + Version.version() + ") build " + Version.buildnum());
@@ -5658,6 +6114,10 @@ public class SOCServer extends Server
         {
             processDebugCommand_dbSettings(c, ga);
         }
+        else if (cmdTxtUC.startsWith("*OUTQUEUES*"))
+        {
+            processDebugCommand_outQueues(c, ga);
+        }
 
         //
         // check for admin/debugging commands
@@ -5753,6 +6213,97 @@ public class SOCServer extends Server
             messageToPlayer(c, gaName, "> " + it.next() + ": " + it.next());
     }
 
+    /**
+     * Process the {@code *OUTQUEUES*} admin command: List the clients with the most bytes
+     * of messages waiting in their outbound queues, with their highest queued bytes,
+     * lagging status, and number of messages coalesced.
+     * Clients which aren't keeping up are listed first.
+     * Requires user to be an admin or the debug user.
+     * @param c  Client sending the command
+     * @param ga  Game in which the command was sent
+     * @see Server#getOutboundQueueWorst(int)
+     * @see #PROP_JSETTLERS_NET_OUTQUEUE_POLICY
+     * @since 1.2.00
+     */
+    private void processDebugCommand_outQueues(final StringConnection c, final SOCGame ga)
+    {
+        final String msgUser = c.getData();
+        if (! (isUserDBUserAdmin(msgUser)
+               || (allowDebugUser && msgUser.equals("debug"))))
+        {
+            return;
+        }
+
+        final String gaName = ga.getName();
+        final List<StringConnection> worst = getOutboundQueueWorst(10);
+        if (worst.isEmpty())
+        {
+            messageToPlayer(c, gaName, "No network clients are connected.");
+            return;
+        }
+
+        messageToPlayer(c, gaName, "Outbound queues: (client: queued bytes, max bytes, times lagging, coalesced)");
+        for (Iterator<StringConnection> it = worst.iterator(); it.hasNext(); )
+        {
+            final StringConnection sc = it.next();
+            final OutboundQueue oq = sc.getOutboundQueue();
+            final String name = sc.getData();
+            messageToPlayer(c, gaName, "> " + ((name != null) ? name : ("(unnamed) " + sc.host()))
+                + ": " + oq.getQueuedBytes() + ", " + oq.getQueuedBytesMax() + ", " + oq.getLaggingCount()
+                + ", " + oq.getCoalescedCount() + (oq.isLagging() ? " LAGGING" : ""));
+        }
+    }
+
+    /**
+     * Print inbound message queue stats for {@code *STATS*}: Queue depth, enqueue-to-dispatch latency,
+     * and the message types which have taken the most total processing time.
+     * Also prints the game lanes' stats if {@link #PROP_JSETTLERS_GAME_LANES} is used,
+     * and the {@link #serverTasks} pool's stats.
+     * Times are shown in microseconds.
+     * @param c  Client requesting the stats
+     * @param gaName  Game in which to reply
+     * @see Server#getInboundQueueStats()
+     * @since 1.2.00
+     */
+    private void processDebugCommand_queueStats(final StringConnection c, final String gaName)
+    {
+        processDebugCommand_queueStats(c, gaName, "Message queue", getInboundQueueStats());
+        if (gameLanes != null)
+            processDebugCommand_queueStats
+                (c, gaName, "Game lanes (" + gameLanes.getLaneCount() + ")", gameLanes.getStats());
+        processDebugCommand_queueStats
+            (c, gaName, "Server tasks (" + serverTasks.getThreadCount() + ")", serverTasks.getStats());
+    }
+
+    /**
+     * Print one queue's stats for {@link #processDebugCommand_queueStats(StringConnection, String)}.
+     * @param c  Client requesting the stats
+     * @param gaName  Game in which to reply
+     * @param qName  Queue name to show
+     * @param qs  Queue's stats
+     * @since 1.2.00
+     */
+    private void processDebugCommand_queueStats
+        (final StringConnection c, final String gaName, final String qName, final InboundQueueStats qs)
+    {
+        messageToPlayer(c, gaName, "> " + qName + ": depth " + qs.getDepth() + ", max " + qs.getDepthMax()
+            + "; dispatched " + qs.getDispatchedCount() + ", wait avg " + (qs.getWaitAverage() / 1000)
+            + "us, max " + (qs.getWaitMax() / 1000) + "us");
+
+        final List<InboundQueueStats.TypeStats> tstats = qs.getTypeStats();
+        final int n = Math.min(5, tstats.size());
+        if (n == 0)
+            return;
+
+        messageToPlayer(c, gaName, "> Message types by total processing time: (type: count, avg us, max us)");
+        for (int i = 0; i < n; ++i)
+        {
+            final InboundQueueStats.TypeStats ts = tstats.get(i);
+            messageToPlayer(c, gaName, ">   " + ts.type + ": " + ts.count + ", "
+                + (ts.nanosTotal / ts.count / 1000) + ", " + (ts.nanosMax / 1000));
+        }
+    }
+
     /**
      * Print time-remaining and other game stats.
      * Includes more detail beyond the end-game stats sent in {@link #sendGameStateOVER(SOCGame)}.
@@ -9533,7 +10084,7 @@ public class SOCServer extends Server
                     final boolean isRobot = pl.isRobot();
                     if (isRobot)
                         hasRobot = true;
-                    c.put(SOCSitDown.toCmd(gameName, plName, i, isRobot));
+                    messageToPlayer(c, new SOCSitDown(gameName, plName, i, isRobot));
                 }
             }
 
@@ -9543,7 +10094,7 @@ public class SOCServer extends Server
             messageToPlayer(c, new SOCSetSeatLock(gameName, i, gameData.isSeatLocked(i)));
         }
 
-        c.put(getBoardLayoutMessage(gameData).toCmd());
+        messageToPlayer(c, getBoardLayoutMessage(gameData));
 
         for (int i = 0; i < gameData.maxPlayers; i++)
         {
@@ -9560,58 +10111,47 @@ public class SOCServer extends Server
 
                 if (piece.getType() == SOCPlayingPiece.CITY)
                 {
-                    c.put(SOCPutPiece.toCmd(gameName, i, SOCPlayingPiece.SETTLEMENT, piece.getCoordinates()));
+                    messageToPlayer(c, new SOCPutPiece(gameName, i, SOCPlayingPiece.SETTLEMENT, piece.getCoordinates()));
                 }
 
-                c.put(SOCPutPiece.toCmd(gameName, i, piece.getType(), piece.getCoordinates()));
+                messageToPlayer(c, new SOCPutPiece(gameName, i, piece.getType(), piece.getCoordinates()));
             }
 
             /**
              * send potential settlement list
              */
-            Vector psList = new Vector();
-            {
-                for (int j = gameData.getBoard().getMinNode(); j <= SOCBoard.MAXNODE; j++)
-                {
-                    if (pl.isPotentialSettlement(j))
-                    {
-                        psList.addElement(new Integer(j));
-                    }
-                }
-            }
-
-            c.put(SOCPotentialSettlements.toCmd(gameName, i, psList));
+            messageToPlayer(c, new SOCPotentialSettlements(gameName, i, pl.getPotentialSettlements()));
 
             /**
              * send coords of the last settlement
              */
-            c.put(SOCLastSettlement.toCmd(gameName, i, pl.getLastSettlementCoord()));
+            messageToPlayer(c, new SOCLastSettlement(gameName, i, pl.getLastSettlementCoord()));
 
             /**
              * send number of playing pieces in hand
              */
-            c.put(SOCPlayerElement.toCmd(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.ROADS, pl.getNumPieces(SOCPlayingPiece.ROAD)));
-            c.put(SOCPlayerElement.toCmd(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.SETTLEMENTS, pl.getNumPieces(SOCPlayingPiece.SETTLEMENT)));
-            c.put(SOCPlayerElement.toCmd(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.CITIES, pl.getNumPieces(SOCPlayingPiece.CITY)));
+            messageToPlayer(c, new SOCPlayerElement(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.ROADS, pl.getNumPieces(SOCPlayingPiece.ROAD)));
+            messageToPlayer(c, new SOCPlayerElement(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.SETTLEMENTS, pl.getNumPieces(SOCPlayingPiece.SETTLEMENT)));
+            messageToPlayer(c, new SOCPlayerElement(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.CITIES, pl.getNumPieces(SOCPlayingPiece.CITY)));
 
-            c.put(SOCPlayerElement.toCmd(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.UNKNOWN, pl.getResources().getTotal()));
+            messageToPlayer(c, new SOCPlayerElement(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.UNKNOWN, pl.getResources().getTotal()));
 
-            c.put(SOCPlayerElement.toCmd(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.NUMKNIGHTS, pl.getNumKnights()));
+            messageToPlayer(c, new SOCPlayerElement(gameName, i, SOCPlayerElement.SET, SOCPlayerElement.NUMKNIGHTS, pl.getNumKnights()));
 
             int numDevCards = pl.getDevCards().getTotal();
 
             for (int j = 0; j < numDevCards; j++)
             {
-                c.put(SOCDevCard.toCmd(gameName, i, SOCDevCard.ADDOLD, SOCDevCardConstants.UNKNOWN));
+                messageToPlayer(c, new SOCDevCard(gameName, i, SOCDevCard.ADDOLD, SOCDevCardConstants.UNKNOWN));
             }
 
-            c.put(SOCFirstPlayer.toCmd(gameName, gameData.getFirstPlayer()));
+            messageToPlayer(c, new SOCFirstPlayer(gameName, gameData.getFirstPlayer()));
 
-            c.put(SOCDevCardCount.toCmd(gameName, gameData.getNumDevCards()));
+            messageToPlayer(c, new SOCDevCardCount(gameName, gameData.getNumDevCards()));
 
-            c.put(SOCChangeFace.toCmd(gameName, i, pl.getFaceId()));
+            messageToPlayer(c, new SOCChangeFace(gameName, i, pl.getFaceId()));
 
-            c.put(SOCDiceResult.toCmd(gameName, gameData.getCurrentDice()));
+            messageToPlayer(c, new SOCDiceResult(gameName, gameData.getCurrentDice()));
         }
 
         ///
@@ -9625,7 +10165,7 @@ public class SOCServer extends Server
             lrPlayerNum = lrPlayer.getPlayerNumber();
         }
 
-        c.put(SOCLongestRoad.toCmd(gameName, lrPlayerNum));
+        messageToPlayer(c, new SOCLongestRoad(gameName, lrPlayerNum));
 
         ///
         /// send who has largest army
@@ -9641,7 +10181,7 @@ public class SOCServer extends Server
             laPlayerNum = -1;
         }
 
-        c.put(SOCLargestArmy.toCmd(gameName, laPlayerNum));
+        messageToPlayer(c, new SOCLargestArmy(gameName, laPlayerNum));
 
         /**
          * If we're rejoining and taking over a seat after a network problem,
@@ -9678,8 +10218,8 @@ public class SOCServer extends Server
 
         gameList.releaseMonitorForGame(gameName);
         c.put(membersCommand);
-        c.put(SOCSetTurn.toCmd(gameName, gameData.getCurrentPlayerNumber()));
-        c.put(SOCGameState.toCmd(gameName, gameData.getGameState()));
+        messageToPlayer(c, new SOCSetTurn(gameName, gameData.getCurrentPlayerNumber()));
+        messageToPlayer(c, new SOCGameState(gameName, gameData.getGameState()));
 
         if (D.ebugOn)
             D.ebugPrintln("*** " + c.getData() + " joined the game " + gameName + " at "
@@ -10349,7 +10889,7 @@ public class SOCServer extends Server
 
         }  // send game timing stats, win-loss stats
 
-        ++numberOfGamesFinished;
+        numberOfGamesFinished.incrementAndGet();
 
         //
         // Save game stats in the database,
@@ -10559,7 +11099,7 @@ public class SOCServer extends Server
         {
             final String gaName = ga.getName();
 
-            numberOfGamesStarted++;
+            numberOfGamesStarted.incrementAndGet();
             ga.startGame();
             gameList.takeMonitorForGame(gaName);
 
@@ -10661,6 +11201,8 @@ public class SOCServer extends Server
             return;  // <---- Early return: reset failed ----
         }
         SOCGame reGame = reBoard.newGame;
+        gameTimeoutChecker.addGame(reGame);  // replaces old game's timers
+        startGameJournal(reGame);
 
         // Announce who asked for this reset
         {
@@ -10717,6 +11259,21 @@ public class SOCServer extends Server
 
     }  // resetBoardAndNotify
 
+    /**
+     * Print a new or reset game's name and random seed, and start its {@link SOCGameJournal}
+     * if {@link #PROP_JSETTLERS_GAME_JOURNAL} is set. Call before anyone sits down in the new game.
+     * With the seed and journal, {@link SOCGameJournal#replay()} can reproduce the game.
+     * @param ga  Newly created game, in state {@link SOCGame#NEW} or
+     *     (after a board reset) {@link SOCGame#READY_RESET_WAIT_ROBOT_DISMISS}
+     * @since 1.2.00
+     */
+    private void startGameJournal(final SOCGame ga)
+    {
+        System.err.println("Game " + ga.getName() + ": random seed " + ga.getRandomSeed());
+        if (gameJournalsEnabled)
+            ga.startJournal();
+    }
+
     /**
      * Complete steps 3 - n of the board-reset process
      * outlined in {@link #resetBoardAndNotify(String, int)},
@@ -11040,211 +11597,182 @@ public class SOCServer extends Server
     }
 
     /**
-     * check for games that have expired and destroy them.
-     * If games are about to expire, send a warning.
-     * As of version 1.1.09, practice games ({@link SOCGame#isPractice} flag set) don't expire.
-     * Is callback method every few minutes from {@link SOCGameTimeoutChecker#run()}.
+     * Check whether a game has expired, and if so destroy it.
+     * If it's about to expire, send a warning. If it's been idle for {@link #GAME_TIME_EXPIRE_CHECK_MINUTES},
+     * send its members a keepalive ping so the network doesn't disconnect while all players are taking a break.
+     * Practice games ({@link SOCGame#isPractice} flag set) don't expire and aren't checked.
+     *<P>
+     * Is callback method from each game's timer in {@link SOCGameTimeoutChecker}.
+     * Before v1.2.00 this was {@code checkForExpiredGames(long)}, which checked all games every 5 minutes.
      *
+     * @param ga  Game to check
      * @param currentTimeMillis  The time when called, from {@link System#currentTimeMillis()}
+     * @return  Time to check this game again, or 0 if it was destroyed
      * @see #GAME_EXPIRE_WARN_MINUTES
-     * @see #checkForExpiredTurns(long)
+     * @see #checkForExpiredTurn(SOCGame, long)
+     * @since 1.2.00
      */
-    public void checkForExpiredGames(final long currentTimeMillis)
+    long checkForExpiredGame(final SOCGame ga, final long currentTimeMillis)
     {
-        // Take the gameList monitor, build arrays of expired and
-        // expiring-soon games, then release it.
-        ArrayList expiredGameNames = new ArrayList(), expiringSoonGames = new ArrayList(), pingIdle = new ArrayList();
-
-        // Add 2 minutes because of coarse 5-minute granularity in SOCGameTimeoutChecker.run()
-        long warn_ms = (2 + GAME_EXPIRE_WARN_MINUTES) * 60L * 1000L; 
-
-        gameList.takeMonitor();
-
-        try
-        {
-            for (Enumeration k = gameList.getGamesData(); k.hasMoreElements();)
-            {
-                SOCGame gameData = (SOCGame) k.nextElement();
-                if (gameData.isPractice)
-                    continue;  // <--- Skip practice games, they don't expire ---
-
-                long gameExpir = gameData.getExpiration();
-
-                if (gameExpir <= currentTimeMillis)
-                    expiredGameNames.add(gameData.getName());
-                else if ((gameExpir - warn_ms) <= currentTimeMillis)
-                    expiringSoonGames.add(gameData);
-                else if ((currentTimeMillis - gameData.lastActionTime) > (GAME_TIME_EXPIRE_CHECK_MINUTES * 60 * 1000))
-                    pingIdle.add(gameData);
-            }
-        }
-        catch (Exception e)
-        {
-            D.ebugPrintln("Exception in checkForExpiredGames - " + e);
-        }
-
-        gameList.releaseMonitor();
+        final String gaName = ga.getName();
+        final long gameExpir = ga.getExpiration(),
+            warn_ms = GAME_EXPIRE_WARN_MINUTES * 60L * 1000L,
+            check_ms = GAME_TIME_EXPIRE_CHECK_MINUTES * 60L * 1000L;
 
-        //
-        // give warning on the expiring-soon games
-        // Start our text messages with ">>>" to mark as urgent to the client.
-        //
-        if (! expiringSoonGames.isEmpty())
+        if (gameExpir > currentTimeMillis)
         {
-            for (Iterator esoon = expiringSoonGames.iterator(); esoon.hasNext(); )
+            if ((gameExpir - warn_ms) <= currentTimeMillis)
             {
                 //
                 //  Give people a few minutes' warning (they may have a few warnings)
+                //  Start our text messages with ">>>" to mark as urgent to the client.
                 //
-                SOCGame gameData = (SOCGame) esoon.next();
-                long minutes = ((gameData.getExpiration() - currentTimeMillis) / 60000);
+                long minutes = ((gameExpir - currentTimeMillis + 59999L) / 60000);
                 if (minutes < 1L)
-                    minutes = 1;  // in case of rounding down
+                    minutes = 1;
 
-                messageToGameUrgent(gameData.getName(), ">>> Less than "
+                messageToGameUrgent(gaName, ">>> Less than "
                     + minutes + " minutes remaining.  Type *ADDTIME* to extend this game another 30 minutes.");
+
+                return Math.min(gameExpir, currentTimeMillis + check_ms);
             }
-        }
 
-        //
-        // If games are idle since previous check, send keepalive ping to their clients
-        // so the network doesn't disconnect while all players are taking a break
-        //
-        if (! pingIdle.isEmpty())
-        {
-            final SOCServerPing pmsg = new SOCServerPing(GAME_TIME_EXPIRE_CHECK_MINUTES * 60);
+            if ((currentTimeMillis - ga.lastActionTime) > check_ms)
+                messageToGame(gaName, new SOCServerPing(GAME_TIME_EXPIRE_CHECK_MINUTES * 60));
 
-            for (Iterator esoon = pingIdle.iterator(); esoon.hasNext(); )
-                messageToGame(((SOCGame) esoon.next()).getName(), pmsg);
+            return Math.min(gameExpir - warn_ms, currentTimeMillis + check_ms);
         }
 
         //
-        // destroy the expired games
+        // destroy the expired game
         //
-        if (expiredGameNames.isEmpty())
-        {
-            return;  // <--- Early return ---
-        }
-        for (Iterator eg = expiredGameNames.iterator(); eg.hasNext(); )
-        {
-            String ga = (String) eg.next();
-            messageToGameUrgent(ga, ">>> The time limit on this game has expired and will now be destroyed.");
+        messageToGameUrgent(gaName, ">>> The time limit on this game has expired and will now be destroyed.");
 
-            gameList.takeMonitor();
+        boolean destroyed = false;
+        gameList.takeMonitor();
 
-            try
-            {
-                destroyGame(ga);
-            }
-            catch (Exception e)
-            {
-                D.ebugPrintln("Exception in checkForExpired - " + e);
-            }
-            finally
+        try
+        {
+            if (gameList.getGameData(gaName) == ga)  // not replaced by a board reset
             {
-                gameList.releaseMonitor();
+                destroyGame(gaName);
+                destroyed = true;
             }
-
-            broadcast(SOCDeleteGame.toCmd(ga));
         }
+        catch (Exception e)
+        {
+            D.ebugPrintln("Exception in checkForExpiredGame - " + e);
+        }
+        finally
+        {
+            gameList.releaseMonitor();
+        }
+
+        if (destroyed)
+            broadcast(SOCDeleteGame.toCmd(gaName));
+
+        return 0;
     }
 
     /**
-     * Check all games for robot turns that have expired, and end that turn,
+     * Check a game for a robot turn that has expired, and end that turn,
      * or stop waiting for non-current-player robot actions (discard picks, etc).
      * Robot turns may end from inactivity or from an illegal placement.
-     * Checks each game's {@link SOCGame#lastActionTime} field, and starts
-     * a {@link ForceEndTurnThread} if the last action is older than
+     * Checks the game's {@link SOCGame#lastActionTime} field, and starts
+     * a {@link ForceEndTurnTask} if the last action is older than
      * {@link #ROBOT_FORCE_ENDTURN_SECONDS}.
      *<P>
-     * Is callback method every few seconds from {@link SOCGameTimeoutChecker#run()}.
+     * Is callback method from each game's timer in {@link SOCGameTimeoutChecker}.
+     * Before v1.2.00 this was {@code checkForExpiredTurns(long)}, which checked all games every few seconds.
      *
+     * @param ga  Game to check
      * @param currentTimeMillis  The time when called, from {@link System#currentTimeMillis()}
+     * @return  Time to check this game again: {@link #ROBOT_FORCE_ENDTURN_SECONDS} after its last action,
+     *     or after now if the game isn't waiting for a robot
      * @see #ROBOT_FORCE_ENDTURN_SECONDS
-     * @see #checkForExpiredGames(long)
-     * @since 1.1.11
+     * @see #checkForExpiredGame(SOCGame, long)
+     * @since 1.2.00
      */
-    public void checkForExpiredTurns(final long currentTimeMillis)
+    long checkForExpiredTurn(final SOCGame ga, final long currentTimeMillis)
     {
         // Because nothing's currently happening in such a turn,
         // and we force the end in another thread,
         // we shouldn't need to worry about locking.
         // So, we don't need gameList.takeMonitor().
 
-        final long inactiveTime = currentTimeMillis - (1000L * ROBOT_FORCE_ENDTURN_SECONDS); 
+        final long endTurn_ms = 1000L * ROBOT_FORCE_ENDTURN_SECONDS;
+        final long recheckTime = currentTimeMillis + endTurn_ms;
 
         try
         {
-            for (Enumeration k = gameList.getGamesData(); k.hasMoreElements();)
+            // lastActionTime is a recent time, or might be 0 to force end
+            final long lastActionTime = ga.lastActionTime;
+            if (lastActionTime > (currentTimeMillis - endTurn_ms))
+                return lastActionTime + endTurn_ms;  // <--- Not inactive yet ---
+
+            final int gameState = ga.getGameState();
+            if (gameState >= SOCGame.OVER)
             {
-                SOCGame ga = (SOCGame) k.nextElement();
-                final int gameState = ga.getGameState();
+                // nothing to do.
+                // bump out that time, so we don't see it again for a while
+                ga.lastActionTime
+                    += (SOCGameListAtServer.GAME_EXPIRE_MINUTES * 60 * 1000);
+                return ga.lastActionTime + endTurn_ms;
+            }
 
-                // lastActionTime is a recent time, or might be 0 to force end
-                long lastActionTime = ga.lastActionTime;
-                if (lastActionTime > inactiveTime)
-                    continue;
+            final int cpn = ga.getCurrentPlayerNumber();
+            if (cpn == -1)
+                return recheckTime;  // not started yet
+            SOCPlayer pl = ga.getPlayer(cpn);
 
-                if (gameState >= SOCGame.OVER)
-                {
-                    // nothing to do.
-                    // bump out that time, so we don't see
-                    // it again every few seconds
-                    ga.lastActionTime
-                        += (SOCGameListAtServer.GAME_EXPIRE_MINUTES * 60 * 1000);
-                    continue;
-                }
-                final int cpn = ga.getCurrentPlayerNumber();
-                if (cpn == -1)
-                    continue;  // not started yet
-                SOCPlayer pl = ga.getPlayer(cpn);
+            if (gameState == SOCGame.WAITING_FOR_DISCARDS)
+            {
+                // Check if we're waiting on any humans too, not on robots only
 
-                if (gameState == SOCGame.WAITING_FOR_DISCARDS)
+                SOCPlayer plEnd = null;  // bot the game is waiting to hear from
+                for (int i = 0; i < ga.maxPlayers; ++i)
                 {
-                    // Check if we're waiting on any humans too, not on robots only
+                    final SOCPlayer pli = ga.getPlayer(i);
+                    if (! pli.getNeedToDiscard())
+                        continue;
 
-                    SOCPlayer plEnd = null;  // bot the game is waiting to hear from
-                    for (int i = 0; i < ga.maxPlayers; ++i)
+                    if (pli.isRobot())
                     {
-                        final SOCPlayer pli = ga.getPlayer(i);
-                        if (! pli.getNeedToDiscard())
-                            continue;
-
-                        if (pli.isRobot())
-                        {
-                            if (plEnd == null)
-                                plEnd = pli;
-                        } else {
-                            return;  // <--- Waiting on humans, don't end bot's turn ---
-                        }
+                        if (plEnd == null)
+                            plEnd = pli;
+                    } else {
+                        return recheckTime;  // <--- Waiting on humans, don't end bot's turn ---
                     }
-
-                    if (plEnd == null)
-                        return;  // <--- Not waiting on any bot ---
-
-                    pl = plEnd;
-                } else {
-                    if (! pl.isRobot())
-                        return;  // <--- not a robot's turn, and not WAITING_FOR_DISCARDS ---
                 }
 
-                if (pl.getCurrentOffer() != null)
-                {
-                    // Robot is waiting for response to a trade offer;
-                    // check against that longer timeout.
-                    final long tradeInactiveTime
-                        = currentTimeMillis - (1000L * ROBOT_FORCE_ENDTURN_TRADEOFFER_SECONDS);
-                    if (lastActionTime > tradeInactiveTime)
-                        continue;
-                }
+                if (plEnd == null)
+                    return recheckTime;  // <--- Not waiting on any bot ---
+
+                pl = plEnd;
+            } else {
+                if (! pl.isRobot())
+                    return recheckTime;  // <--- not a robot's turn, and not WAITING_FOR_DISCARDS ---
+            }
 
-                new ForceEndTurnThread(ga, pl).start();
+            if (pl.getCurrentOffer() != null)
+            {
+                // Robot is waiting for response to a trade offer;
+                // check against that longer timeout.
+                final long trade_ms = 1000L * ROBOT_FORCE_ENDTURN_TRADEOFFER_SECONDS;
+                if (lastActionTime > (currentTimeMillis - trade_ms))
+                    return lastActionTime + trade_ms;
             }
+
+            if (! serverTasks.execute("forceEndTurn", new ForceEndTurnTask(ga, pl)))
+                System.err.println
+                    ("checkForExpiredTurn: Server task queue full, can't force-end turn in game " + ga.getName());
         }
         catch (Exception e)
         {
-            D.ebugPrintln("Exception in checkForExpiredTurns - " + e);
+            D.ebugPrintln("Exception in checkForExpiredTurn - " + e);
         }
+
+        return recheckTime;
     }
 
     /** this is a debugging command that gives a dev card to a player.
@@ -12409,19 +12937,20 @@ public class SOCServer extends Server
 
     /**
      * Force-end this robot's turn.
-     * Done in a separate thread in case of deadlocks.
-     * Created from {@link SOCGameTimeoutChecker#run()}.
+     * Run on a {@link SOCServer#serverTasks} thread, not the timer's, in case of deadlocks.
+     * Created from {@link #checkForExpiredTurn(SOCGame, long)}.
+     *<P>
+     * Before v1.2.00 this was {@code ForceEndTurnThread}, which started a new thread for each turn.
      * @author Jeremy D Monin
      * @since 1.1.11
      */
-    private class ForceEndTurnThread extends Thread
+    private class ForceEndTurnTask implements Runnable
     {
         private SOCGame ga;
         private SOCPlayer pl;
 
-        public ForceEndTurnThread(SOCGame g, SOCPlayer p)
+        public ForceEndTurnTask(SOCGame g, SOCPlayer p)
         {
-            setDaemon(true);
             ga = g;
             pl = p;
         }
@@ -12475,7 +13004,7 @@ public class SOCServer extends Server
             endGameTurnOrForce(ga, plNum, rname, rconn, false);
         }
 
-    }  // inner class ForceEndTurnThread
+    }  // inner class ForceEndTurnTask
 
     /**
      * Interface for asynchronous callbacks from
@@ -0,0 +1,349 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed set of worker threads ("lanes") which run client commands handed off by
+ * the {@link Server}'s Treater, keyed so that all commands with the same key
+ * (such as a game name) run in order on the same lane. Commands with different keys
+ * may run at the same time on different lanes, so one busy key can't stall the others.
+ *<P>
+ * Commands which don't belong to any key should still run on the Treater, through
+ * {@link #runInOrder(StringConnection, Runnable)} so that each client's commands are processed
+ * in the order they were sent. The Treater never waits for a lane: If the client still has
+ * commands on the lanes, its later commands are held and then posted back to the Treater
+ * once those lane commands are done.
+ *<P>
+ * Code run on a lane must do its own locking of any state shared with other keys;
+ * for games, that's the existing {@link soc.util.SOCGameList#takeMonitorForGame(String)}.
+ *
+ * @since 1.2.00
+ */
+public class CommandLanes
+{
+    /** Our lane threads; a key's lane is chosen by its hashCode */
+    private final Lane[] lanes;
+
+    /** Queue and processing stats for all lanes combined */
+    private final InboundQueueStats stats = new InboundQueueStats();
+
+    /** Server whose Treater runs the commands held by {@link #runInOrder(StringConnection, Runnable)} */
+    private final Server srv;
+
+    /**
+     * Each client's commands queued or running on any lane, and commands held until those are done.
+     * Clients with neither aren't in the map.
+     *<P>
+     * <B>Locks:</B> Synchronize on this map.
+     */
+    private final HashMap<StringConnection, ConnState> pendingByConn = new HashMap<StringConnection, ConnState>();
+
+    /** Has {@link #stop()} been called? */
+    private volatile boolean stopped;
+
+    /**
+     * Create and start the lane threads.
+     * @param srv  Server whose Treater submits commands to the lanes; not null
+     * @param n  Number of lanes; at least 1
+     * @param name  Prefix for lane thread names, for debugging: {@code name + "-" + laneNumber}
+     * @throws IllegalArgumentException if {@code n} &lt; 1
+     */
+    public CommandLanes(final Server srv, final int n, final String name)
+        throws IllegalArgumentException
+    {
+        if (n < 1)
+            throw new IllegalArgumentException("n: " + n);
+
+        this.srv = srv;
+        lanes = new Lane[n];
+        for (int i = 0; i < n; ++i)
+        {
+            lanes[i] = new Lane(name + "-" + i);
+            lanes[i].start();
+        }
+    }
+
+    /** Get the number of lanes. */
+    public int getLaneCount()
+    {
+        return lanes.length;
+    }
+
+    /**
+     * Get the metrics for all lanes combined: Total queue depth, enqueue-to-dispatch latency,
+     * and processing time per message type.
+     * @return  Stats; updated as commands are processed, not a copy
+     */
+    public InboundQueueStats getStats()
+    {
+        return stats;
+    }
+
+    /**
+     * Queue a command to run on its key's lane, after any commands already queued for that key.
+     * If {@code c} has commands held by {@link #runInOrder(StringConnection, Runnable)},
+     * this one is held after them. Returns immediately.
+     *<P>
+     * <B>Threads:</B> Call only from the Treater.
+     * @param key  Key such as a game name; not null
+     * @param c  Client which sent the command, for {@link #runInOrder(StringConnection, Runnable)}; not null
+     * @param type  Message type for {@link #getStats()}
+     * @param run  Code to run
+     */
+    public void submit(final String key, final StringConnection c, final String type, final Runnable run)
+    {
+        final LaneCommand lc = new LaneCommand
+            (lanes[(key.hashCode() & 0x7FFFFFFF) % lanes.length], c, type, run);
+
+        synchronized (pendingByConn)
+        {
+            ConnState st = pendingByConn.get(c);
+            if (st == null)
+            {
+                st = new ConnState();
+                pendingByConn.put(c, st);
+            }
+
+            if (st.held != null)
+            {
+                st.held.add(lc);
+                return;
+            }
+
+            ++st.pending;
+        }
+
+        stats.enqueued();
+        lc.lane.queue.add(lc);
+    }
+
+    /**
+     * Run a command from {@code c} outside of the lanes, after any of its commands already on the lanes.
+     * If {@code c} has none, runs {@code run} now on the calling thread. Otherwise holds it without waiting:
+     * When the client's lane commands are done, it's posted to the Treater with {@link Server#postToTreater(Runnable)}.
+     * Any commands {@code c} sends after this one are held behind it.
+     *<P>
+     * <B>Threads:</B> Call only from the Treater.
+     * @param c  Client which sent the command; not null
+     * @param run  Code to run
+     */
+    public void runInOrder(final StringConnection c, final Runnable run)
+    {
+        synchronized (pendingByConn)
+        {
+            final ConnState st = pendingByConn.get(c);
+            if (st != null)
+            {
+                if (st.held == null)
+                    st.held = new ArrayList<LaneCommand>();
+                st.held.add(new LaneCommand(null, c, null, run));
+
+                return;  // <--- Early return: Will run when its earlier commands are done ---
+            }
+        }
+
+        run.run();
+    }
+
+    /**
+     * Release a client's held commands now that it has nothing on the lanes:
+     * Queue held lane commands, and run held Treater commands, in order until
+     * the next Treater command must wait for lane commands queued here.
+     * Called on the Treater from a task posted when a lane finishes the client's last command.
+     * @param c  Client connection
+     */
+    private void releaseHeld(final StringConnection c)
+    {
+        for (;;)
+        {
+            LaneCommand toRun = null;
+
+            synchronized (pendingByConn)
+            {
+                final ConnState st = pendingByConn.get(c);
+                if (st == null)
+                    return;
+
+                while ((st.held != null) && (toRun == null))
+                {
+                    final LaneCommand lc = st.held.get(0);
+                    if (lc.lane == null)
+                    {
+                        if (st.pending > 0)
+                            return;  // lane commands queued here will post another release
+
+                        toRun = lc;
+                    } else {
+                        ++st.pending;
+                        stats.enqueued();
+                        lc.lane.queue.add(lc);
+                    }
+
+                    st.held.remove(0);
+                    if (st.held.isEmpty())
+                        st.held = null;
+                }
+
+                if ((st.held == null) && (st.pending == 0))
+                    pendingByConn.remove(c);
+            }
+
+            if (toRun == null)
+                return;
+
+            toRun.run.run();
+        }
+    }
+
+    /**
+     * Is the currently executing thread one of our lanes?
+     * @return true if {@link Thread#currentThread()} is a lane thread
+     */
+    public boolean isCurrentThreadLane()
+    {
+        final Thread t = Thread.currentThread();
+        for (int i = 0; i < lanes.length; ++i)
+            if (t == lanes[i])
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Stop the lane threads. Any commands still queued are discarded.
+     */
+    public void stop()
+    {
+        stopped = true;
+        for (int i = 0; i < lanes.length; ++i)
+            lanes[i].interrupt();
+    }
+
+    /**
+     * A client's commands on the lanes and held for later, in {@link CommandLanes#pendingByConn}.
+     */
+    private static class ConnState
+    {
+        /** Number of commands queued or running on any lane */
+        int pending;
+
+        /**
+         * Commands held until {@link #pending} is 0, in the order sent, or null if none.
+         * Held lane commands are queued then, in order, until reaching a held Treater command.
+         */
+        ArrayList<LaneCommand> held;
+    }
+
+    /**
+     * One command queued for a {@link Lane}, or held for the Treater.
+     */
+    private static class LaneCommand
+    {
+        /** Lane to run on, or null to run on the Treater */
+        final Lane lane;
+        final StringConnection con;
+        final String type;
+        final Runnable run;
+        final long enqueuedAt = System.nanoTime();
+
+        LaneCommand(final Lane lane, final StringConnection c, final String type, final Runnable run)
+        {
+            this.lane = lane;
+            con = c;
+            this.type = type;
+            this.run = run;
+        }
+    }
+
+    /**
+     * One lane thread, running its queued commands in order.
+     */
+    private class Lane extends Thread
+    {
+        final LinkedBlockingQueue<LaneCommand> queue = new LinkedBlockingQueue<LaneCommand>();
+
+        Lane(final String name)
+        {
+            super(name);  // Thread name for debug
+            setDaemon(true);
+        }
+
+        public void run()
+        {
+            while (! stopped)
+            {
+                final LaneCommand lc;
+                try
+                {
+                    lc = queue.poll(1, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    continue;
+                }
+
+                if (lc == null)
+                    continue;
+
+                final long dispatchedAt = System.nanoTime();
+                stats.dispatched(dispatchedAt - lc.enqueuedAt);
+
+                try
+                {
+                    lc.run.run();
+                }
+                catch (Throwable th)
+                {
+                    System.out.println("Exception in " + getName() + " - " + th);
+                }
+
+                stats.processed(lc.type, System.nanoTime() - dispatchedAt);
+
+                boolean release = false;
+                synchronized (pendingByConn)
+                {
+                    final ConnState st = pendingByConn.get(lc.con);
+                    if ((st != null) && (--st.pending <= 0))
+                    {
+                        if (st.held == null)
+                            pendingByConn.remove(lc.con);
+                        else
+                            release = true;
+                    }
+                }
+
+                if (release)
+                    srv.postToTreater(new Runnable()
+                    {
+                        public void run()
+                        {
+                            releaseHeld(lc.con);
+                        }
+                    });
+            }
+        }
+
+    }  // Lane
+
+}
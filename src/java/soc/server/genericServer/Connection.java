@@ -30,7 +30,6 @@ import java.io.Serializable;
 import java.net.Socket;
 
 import java.util.Date;
-import java.util.Vector;
 
 
 /** A client's connection at a server.
@@ -83,7 +82,21 @@ public final class Connection
     protected boolean connected = false;
     /** @see #disconnectSoft() */
     protected boolean inputConnected = false;
-    public Vector outQueue = new Vector();
+
+    /**
+     * Messages waiting to be sent by the Putter thread:
+     * Each item is a {@link String} or an {@link EncodedMessage}.
+     * Before v1.2.00 this was an unbounded {@link java.util.Vector}.
+     * @see #getOutboundQueue()
+     */
+    public final OutboundQueue outQueue = new OutboundQueue();
+
+    /**
+     * Does the client accept binary frames? Set during the app's version handshake.
+     * @see #setBinaryFrames(boolean)
+     * @since 1.2.00
+     */
+    private volatile boolean binaryFrames;
 
     /** initialize the connection data */
     Connection(Socket so, Server sve)
@@ -248,18 +261,56 @@ public final class Connection
     /**
      * Send this data over the connection.  Adds it to the {@link #outQueue}
      * to be sent by the Putter thread.
+     * If the client isn't keeping up, the queue's limits and policy apply: See {@link OutboundQueue}.
      *<P>
      * <B>Threads:</B> Safe to call from any thread; synchronizes on internal {@code outQueue}.
      *
      * @param str Data to send
+     * @see #put(EncodedMessage)
      */
     public final void put(String str)
     {
-        synchronized (outQueue)
+        // D.ebugPrintln("Adding " + str + " to outQueue for " + data);
+        enqueue(str, str.length() + 2, null);
+    }
+
+    /**
+     * Send a pre-encoded message over the connection.  Adds it to the {@link #outQueue}
+     * to be sent by the Putter thread, which writes its shared frame bytes
+     * instead of encoding the text again.
+     *<P>
+     * <B>Threads:</B> Safe to call from any thread; synchronizes on internal {@code outQueue}.
+     *
+     * @param msg Message to send
+     * @since 1.2.00
+     */
+    public final void put(EncodedMessage msg)
+    {
+        final byte[] bf = (binaryFrames) ? msg.getBinFrame() : null;
+        final int nbytes = ((bf != null) ? bf.length : msg.str.length() + 2);
+        enqueue(msg, nbytes, msg.coalesceKey);
+    }
+
+    /**
+     * Add a message to {@link #outQueue}, and tell the server if it's now lagging or has overflowed.
+     * @param item  {@link String} or {@link EncodedMessage} to send
+     * @param nbytes  Estimated size in bytes: Text length + 2-byte frame header, or binary frame length
+     * @param coalesceKey  Message's {@link EncodedMessage#coalesceKey}, or null
+     * @since 1.2.00
+     */
+    private void enqueue(final Object item, final int nbytes, final String coalesceKey)
+    {
+        switch (outQueue.add(item, nbytes, coalesceKey))
         {
-            // D.ebugPrintln("Adding " + str + " to outQueue for " + data);
-            outQueue.addElement(str);
-            outQueue.notify();
+        case OutboundQueue.ADD_NOW_LAGGING:
+            sv.outboundQueueLagging(this);
+            break;
+
+        case OutboundQueue.ADD_OVERFLOW:
+            if (error == null)
+                error = new IOException("Outbound queue overflow");
+            sv.outboundQueueOverflowed(this);
+            break;
         }
     }
 
@@ -275,7 +326,19 @@ public final class Connection
      */
     public boolean putForReal(String str)
     {
-        boolean rv = putAux(str);
+        return putForReal(str, null);
+    }
+
+    /**
+     * Send a message, either text or pre-encoded, when dequeued from {@link #outQueue}.
+     * @param str Data to send, or null if {@code msg} is given
+     * @param msg Pre-encoded message to send, or null to send {@code str}
+     * @return True if sent, false if error (and sets {@link #error})
+     * @since 1.2.00
+     */
+    private boolean putForReal(final String str, final EncodedMessage msg)
+    {
+        boolean rv = putAux(str, msg);
 
         if (!rv)
         {
@@ -301,6 +364,18 @@ public final class Connection
      *         (and sets {@link #error})
      */
     public final boolean putAux(String str)
+    {
+        return putAux(str, null);
+    }
+
+    /** put a message on the net, either text or pre-encoded.
+     * @param str Data to send, or null if {@code msg} is given
+     * @param msg Pre-encoded message to send, or null to send {@code str}
+     * @return true for success, false and disconnects on failure
+     *         (and sets {@link #error})
+     * @since 1.2.00
+     */
+    private boolean putAux(final String str, final EncodedMessage msg)
     {
         if ((error != null) || !connected)
         {
@@ -310,7 +385,10 @@ public final class Connection
         try
         {
             //D.ebugPrintln("trying to put "+str+" to "+data);
-            out.writeUTF(str);
+            if (msg != null)
+                out.write(msg.getFrame(binaryFrames));  // encoded once for all recipients
+            else
+                out.writeUTF(str);
         }
         catch (IOException e)
         {
@@ -516,6 +594,34 @@ public final class Connection
         remoteVersionTrack = doTracking;
     }
 
+    /**
+     * {@inheritDoc}
+     * @return  {@link #outQueue}
+     * @since 1.2.00
+     */
+    public OutboundQueue getOutboundQueue()
+    {
+        return outQueue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.2.00
+     */
+    public boolean isBinaryFrames()
+    {
+        return binaryFrames;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.2.00
+     */
+    public void setBinaryFrames(final boolean accepts)
+    {
+        binaryFrames = accepts;
+    }
+
     /**
      * For debugging, toString includes data.toString and {@link #getName()}.
      * @since 1.0.5.2
@@ -555,30 +661,26 @@ public final class Connection
         {
             while (con.connected)
             {
-                String c = null;
+                Object c = null;  // String or EncodedMessage
 
                 if (D.ebugIsEnabled())
                     D.ebugPrintln("** " + data + " is at the top of the putter loop");
 
-                synchronized (outQueue)
-                {
-                    if (outQueue.size() > 0)
-                    {
-                        c = (String) outQueue.elementAt(0);
-                        outQueue.removeElementAt(0);
-                    }
-                }
+                c = outQueue.remove();
 
                 if (c != null)
                 {
-                    /* boolean rv = */ con.putForReal(c);
+                    if (c instanceof EncodedMessage)
+                        /* boolean rv = */ con.putForReal(null, (EncodedMessage) c);
+                    else
+                        /* boolean rv = */ con.putForReal((String) c);
 
                     // rv ignored because handled by putForReal
                 }
 
                 synchronized (outQueue)
                 {
-                    if (outQueue.size() == 0)
+                    if (outQueue.isEmpty())
                     {
                         try
                         {
@@ -0,0 +1,206 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A message's text, along with its network frame bytes encoded at most once,
+ * for sending the same message to many connections. Immutable once encoded;
+ * a single instance can be given to any number of {@link StringConnection#put(EncodedMessage)}
+ * calls, from any thread.
+ *<P>
+ * The frame format is the same as {@link DataOutputStream#writeUTF(String)}:
+ * 2-byte length, then the text in modified UTF-8. Local connections use {@link #str} and never encode it.
+ *<P>
+ * The app may also give a binary frame, encoded in its own format, to send instead of the text
+ * to connections which accept binary frames: See {@link StringConnection#isBinaryFrames()}.
+ * To encode that frame only if such a connection is sent the message, a subclass can
+ * override {@link #encodeBinFrame()} instead.
+ *
+ * @see Server#broadcast(String)
+ * @since 1.2.00
+ */
+public class EncodedMessage
+{
+    /** Value of {@link #binFrame} once {@link #encodeBinFrame()} has found there's no binary frame */
+    private static final byte[] NO_BIN_FRAME = new byte[0];
+
+    /** Message data contents in text format, as passed to {@link StringConnection#put(String)} */
+    public final String str;
+
+    /**
+     * Optional key for coalescing redundant state updates, or null.
+     * A message with a key makes any older message with the same key redundant:
+     * For example, a game state message for a game replaces that game's previous state message.
+     * Used by a lagging client's {@link OutboundQueue} with {@link OutboundQueue#POLICY_COALESCE}.
+     */
+    public final String coalesceKey;
+
+    /**
+     * Optional binary frame, including its 2-byte length, to send instead of the text to connections which
+     * accept binary frames ({@link StringConnection#isBinaryFrames()}). The data's first byte
+     * must be 0, which never starts a text frame. Shared by all recipients: Do not change its contents.
+     *<P>
+     * Null if not encoded yet, or {@link #NO_BIN_FRAME} if there isn't one. Like {@link #frame},
+     * if two threads encode at the same time either result may be kept.
+     * @see #getBinFrame()
+     */
+    private volatile byte[] binFrame;
+
+    /**
+     * Network frame bytes, or null if not encoded yet. If two threads encode at the same time,
+     * both get identical contents and either one may be kept; never changed after encoding.
+     */
+    private volatile byte[] frame;
+
+    /**
+     * Create a message to send; doesn't encode it yet.
+     * @param str  Message data contents in text format; not null
+     */
+    public EncodedMessage(final String str)
+    {
+        this(str, null);
+    }
+
+    /**
+     * Create a message to send, which can be coalesced by a lagging client's outbound queue;
+     * doesn't encode it yet. A subclass's {@link #encodeBinFrame()} can give its binary frame when first needed.
+     * @param str  Message data contents in text format; not null
+     * @param coalesceKey  Key for coalescing redundant messages, or null; see {@link #coalesceKey}
+     */
+    public EncodedMessage(final String str, final String coalesceKey)
+    {
+        this.str = str;
+        this.coalesceKey = coalesceKey;
+    }
+
+    /**
+     * Create a message to send, with an optional binary frame for connections which accept binary frames.
+     * @param str  Message data contents in text format; not null, unless the message will only be
+     *     sent to connections which accept binary frames and {@code binFrame} isn't null
+     * @param coalesceKey  Key for coalescing redundant messages, or null; see {@link #coalesceKey}
+     * @param binFrame  Binary frame, or null if none; see {@link #getBinFrame()}
+     */
+    public EncodedMessage(final String str, final String coalesceKey, final byte[] binFrame)
+    {
+        this.str = str;
+        this.coalesceKey = coalesceKey;
+        this.binFrame = (binFrame != null) ? binFrame : NO_BIN_FRAME;
+    }
+
+    /**
+     * Encode this message's binary frame, if its type has one.
+     * Called at most once per message (or rarely twice, by 2 threads at the same time)
+     * from {@link #getBinFrame()}, unless a binary frame was given to the constructor.
+     * This default implementation returns null.
+     * @return  Binary frame, or null to send the text to all connections
+     * @throws RuntimeException if encoding fails; the text will be sent instead
+     */
+    protected byte[] encodeBinFrame()
+    {
+        return null;
+    }
+
+    /**
+     * Get the binary frame to send instead of the text to connections which accept binary frames,
+     * encoding it with {@link #encodeBinFrame()} on first call if needed.
+     * The returned array is shared by all callers: Do not change its contents.
+     * @return  Binary frame including its 2-byte length, or null if there isn't one
+     *     (or it couldn't be encoded) and the text should be sent
+     */
+    public byte[] getBinFrame()
+    {
+        byte[] bf = binFrame;
+        if (bf == null)
+        {
+            try
+            {
+                bf = encodeBinFrame();
+            }
+            catch (RuntimeException e)
+            {
+                bf = null;
+            }
+            if (bf == null)
+                bf = NO_BIN_FRAME;
+            binFrame = bf;
+        }
+
+        return (bf != NO_BIN_FRAME) ? bf : null;
+    }
+
+    /**
+     * Get this message's network frame bytes, encoding them on first call.
+     * The returned array is shared by all callers: Do not change its contents.
+     * @return  Frame bytes, ready to write to a socket
+     * @throws IOException if {@link #str} is too long to encode (more than 65535 bytes)
+     */
+    public byte[] getFrame()
+        throws IOException
+    {
+        byte[] fr = frame;
+        if (fr == null)
+        {
+            fr = encodeFrame(str);
+            frame = fr;
+        }
+
+        return fr;
+    }
+
+    /**
+     * Get the frame bytes to send to a connection: {@link #getBinFrame()} if the connection accepts
+     * binary frames and there is one, otherwise the text frame from {@link #getFrame()}.
+     * The returned array is shared by all callers: Do not change its contents.
+     * @param binaryOK  True if the connection accepts binary frames ({@link StringConnection#isBinaryFrames()})
+     * @return  Frame bytes, ready to write to a socket
+     * @throws IOException if the text is too long to encode
+     */
+    public byte[] getFrame(final boolean binaryOK)
+        throws IOException
+    {
+        if (binaryOK)
+        {
+            final byte[] bf = getBinFrame();
+            if (bf != null)
+                return bf;
+        }
+
+        return getFrame();
+    }
+
+    /**
+     * Encode a message into the same frame format as {@link DataOutputStream#writeUTF(String)}.
+     * @param str  Message data
+     * @return  Frame bytes
+     * @throws IOException if {@code str} is too long to encode
+     */
+    static byte[] encodeFrame(final String str)
+        throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(str.length() + 8);
+        new DataOutputStream(bos).writeUTF(str);
+        return bos.toByteArray();
+    }
+
+}
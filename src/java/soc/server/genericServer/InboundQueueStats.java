@@ -0,0 +1,194 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Metrics for a {@link Server}'s inbound message queue and the {@link Server.Treater} which processes it:
+ * Queue depth, time from enqueue until dispatch, and processing time per message type.
+ * Updated by the server as messages are queued and treated; read with the getters
+ * or {@link #getTypeStats()}, usually for an admin's {@code *STATS*} command.
+ *<P>
+ * All times are in nanoseconds, from {@link System#nanoTime()}.
+ *<P>
+ * <B>Locks:</B> Methods are synchronized, since messages are queued from many threads.
+ *
+ * @see Server#getInboundQueueStats()
+ * @since 1.2.00
+ */
+public class InboundQueueStats
+{
+    /** Current number of queued messages and tasks, not yet dispatched */
+    private int depth;
+
+    /** Highest {@link #depth} seen since startup */
+    private int depthMax;
+
+    /** Number of messages and tasks dispatched since startup */
+    private long dispatched;
+
+    /** Total and maximum enqueue-to-dispatch wait of all {@link #dispatched} items */
+    private long waitTotal, waitMax;
+
+    /**
+     * Maximum number of message types in {@link #types}. Once reached, other
+     * new types are counted together as {@link #OTHER_TYPE}.
+     */
+    private static final int MAX_TYPES = 256;
+
+    /** Message type used for new types once {@link #MAX_TYPES} is reached */
+    private static final String OTHER_TYPE = "(other)";
+
+    /**
+     * Processing time per message type. Key = type from {@link Server#getCommandType(String)},
+     * or {@link #OTHER_TYPE}.
+     */
+    private final HashMap<String, TypeStats> types = new HashMap<String, TypeStats>();
+
+    /** A message or task has been queued. */
+    synchronized void enqueued()
+    {
+        ++depth;
+        if (depth > depthMax)
+            depthMax = depth;
+    }
+
+    /**
+     * A message or task has been taken from the queue, to be processed now.
+     * @param waitNanos  Time it spent in the queue
+     */
+    synchronized void dispatched(final long waitNanos)
+    {
+        --depth;
+        ++dispatched;
+        waitTotal += waitNanos;
+        if (waitNanos > waitMax)
+            waitMax = waitNanos;
+    }
+
+    /**
+     * A message or task has been processed.
+     * @param type  Message type, from {@link Server#getCommandType(String)}
+     * @param procNanos  Time taken to process it
+     */
+    synchronized void processed(final String type, final long procNanos)
+    {
+        TypeStats ts = types.get(type);
+        if ((ts == null) && (types.size() >= MAX_TYPES))
+            ts = types.get(OTHER_TYPE);
+        if (ts == null)
+        {
+            final String key = (types.size() < MAX_TYPES) ? type : OTHER_TYPE;
+            ts = new TypeStats(key);
+            types.put(key, ts);
+        }
+        ++ts.count;
+        ts.nanosTotal += procNanos;
+        if (procNanos > ts.nanosMax)
+            ts.nanosMax = procNanos;
+    }
+
+    /** Get the number of messages and tasks currently queued, not yet dispatched. */
+    public synchronized int getDepth()
+    {
+        return depth;
+    }
+
+    /** Get the highest queue depth since startup. */
+    public synchronized int getDepthMax()
+    {
+        return depthMax;
+    }
+
+    /** Get the number of messages and tasks dispatched since startup. */
+    public synchronized long getDispatchedCount()
+    {
+        return dispatched;
+    }
+
+    /** Get the average enqueue-to-dispatch wait in nanoseconds, or 0 if nothing dispatched yet. */
+    public synchronized long getWaitAverage()
+    {
+        return (dispatched > 0) ? (waitTotal / dispatched) : 0;
+    }
+
+    /** Get the longest enqueue-to-dispatch wait in nanoseconds since startup. */
+    public synchronized long getWaitMax()
+    {
+        return waitMax;
+    }
+
+    /**
+     * Get a copy of the per-type processing stats, sorted by total processing time, highest first.
+     * @return  Stats for each message type seen since startup; may be empty, never null
+     */
+    public synchronized List<TypeStats> getTypeStats()
+    {
+        final ArrayList<TypeStats> ret = new ArrayList<TypeStats>(types.size());
+        for (TypeStats ts : types.values())
+            ret.add(new TypeStats(ts));
+
+        Collections.sort(ret, new Comparator<TypeStats>()
+        {
+            public int compare(final TypeStats a, final TypeStats b)
+            {
+                return (a.nanosTotal < b.nanosTotal) ? 1 : ((a.nanosTotal == b.nanosTotal) ? 0 : -1);
+            }
+        });
+
+        return ret;
+    }
+
+    /**
+     * Processing time stats for one message type.
+     * Instances returned from {@link InboundQueueStats#getTypeStats()} are copies, not updated later.
+     */
+    public static class TypeStats
+    {
+        /** Message type, from {@link Server#getCommandType(String)} */
+        public final String type;
+
+        /** Number processed since startup */
+        public long count;
+
+        /** Total and maximum processing time, in nanoseconds */
+        public long nanosTotal, nanosMax;
+
+        TypeStats(final String type)
+        {
+            this.type = type;
+        }
+
+        /** Copy constructor. */
+        TypeStats(final TypeStats ts)
+        {
+            type = ts.type;
+            count = ts.count;
+            nanosTotal = ts.nanosTotal;
+            nanosMax = ts.nanosMax;
+        }
+    }
+
+}
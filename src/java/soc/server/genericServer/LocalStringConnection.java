@@ -23,13 +23,12 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.util.Date;
-import java.util.Vector;
 
 import soc.disableDebug.D;
 
 /**
  * Symmetric buffered connection sending strings between two local peers.
- * Uses vectors and thread synchronization, no actual network traffic.
+ * Uses lock-free queues ({@link LocalStringQueue}), no actual network traffic.
  *<P>
  * This class has a run method, but you must start the thread yourself.
  * Constructors will not create or start a thread.
@@ -52,6 +51,7 @@ import soc.disableDebug.D;
  *  1.0.5.1- 2009-10-26- javadoc warnings fixed
  *  1.0.5.2- 2010-04-05- add toString for debugging
  *  1.2.0 - 2017-06-03 - {@link #setData(String)} now takes a String, not Object.
+ *  1.2.0 - 2017-10-15 - in/out are lock-free {@link LocalStringQueue}s, not synchronized Vectors.
  *</PRE>
  *
  * @author Jeremy D. Monin <jeremy@nand.net>
@@ -62,9 +62,14 @@ public class LocalStringConnection
 {
     protected static Object EOF_MARKER = new Object();
 
-    protected Vector in, out;
-    protected boolean in_reachedEOF;
-    protected boolean out_setEOF;
+    /**
+     * Our inbound and outbound queues; our {@code in} is our peer's {@code out}.
+     * Only our reader thread takes from {@code in}.
+     */
+    private final LocalStringQueue in, out;
+
+    protected volatile boolean in_reachedEOF;
+    protected volatile boolean out_setEOF;
     /** Active connection, server has called accept, and not disconnected yet */
     protected boolean accepted;
     private LocalStringConnection ourPeer;
@@ -102,13 +107,13 @@ public class LocalStringConnection
      */
     public LocalStringConnection()
     {
-        in = new Vector();
-        out = new Vector();
+        in = new LocalStringQueue();
+        out = new LocalStringQueue();
         init();
     }
 
     /**
-     * Constructor for an existing peer; we'll share two Vectors for in/out queues.
+     * Constructor for an existing peer; we'll share two queues for in/out.
      *
      * This class has a run method, but you must start the thread yourself.
      * Constructors will not create or start a thread.
@@ -156,8 +161,9 @@ public class LocalStringConnection
     /**
      * Read the next string sent from the remote end,
      * blocking if necessary to wait.
-     *
-     * Synchronized on in-buffer.
+     *<P>
+     * <B>Threads:</B> Only one thread may read from a connection.
+     * Doesn't lock; parks the thread while waiting for input.
      * 
      * @return Next string in the in-buffer
      * @throws EOFException Our input buffer has reached EOF
@@ -176,38 +182,16 @@ public class LocalStringConnection
             throw (EOFException) error;
         }
 
-        Object obj;
-
-        synchronized (in)
+        final Object obj = in.take();
+        if (obj == EOF_MARKER)
         {
-            while (in.isEmpty())
-            {
-                if (in_reachedEOF)
-                {
-                    error = new EOFException();
-                    throw (EOFException) error;
-                }
-                else
-                {
-                    try
-                    {
-                        in.wait();
-                    }
-                    catch (InterruptedException e) {}
-                }
-            }
-            obj = in.elementAt(0);
-            in.removeElementAt(0);
-
-            if (obj == EOF_MARKER)
-            {
-                in_reachedEOF = true;
-                if (ourServer != null)
-                    ourServer.removeConnection(this);
-                error = new EOFException();
-                throw (EOFException) error;
-            }
+            in_reachedEOF = true;
+            if (ourServer != null)
+                ourServer.removeConnection(this);
+            error = new EOFException();
+            throw (EOFException) error;
         }
+
         return (String) obj;
     }
 
@@ -215,7 +199,7 @@ public class LocalStringConnection
      * Send data over the connection.  Does not block.
      * Ignored if setEOF() has been called.
      *<P>
-     * <B>Threads:</B> Safe to call from any thread; synchronizes on internal {@code out} queue.
+     * <B>Threads:</B> Safe to call from any thread; doesn't lock.
      *
      * @param dat Data to send
      *
@@ -231,11 +215,24 @@ public class LocalStringConnection
         if (out_setEOF)
             return;
 
-        synchronized (out)
-        {
-            out.addElement(dat);
-            out.notifyAll();  // Another thread may have been waiting for input
-        }
+        out.add(dat);  // wakes peer's reader if it's waiting for input
+    }
+
+    /**
+     * Send a pre-encoded message over the connection.  Does not block.
+     * Since this connection is local, sends {@link EncodedMessage#str} without encoding.
+     * Ignored if setEOF() has been called.
+     *<P>
+     * <B>Threads:</B> Safe to call from any thread; doesn't lock.
+     *
+     * @param msg Message to send
+     *
+     * @throws IllegalStateException if not yet accepted by server
+     * @since 1.2.00
+     */
+    public void put(EncodedMessage msg) throws IllegalStateException
+    {
+        put(msg.str);
     }
 
     /**
@@ -249,14 +246,9 @@ public class LocalStringConnection
 
         D.ebugPrintln("DISCONNECTING " + data);
         accepted = false;
-        synchronized (out)
-        {
-            // let the remote-end know we're closing
-            out.clear();
-            out.addElement(EOF_MARKER);
-            out_setEOF = true;
-            out.notifyAll();
-        }
+        // let the remote-end know we're closing
+        out_setEOF = true;
+        out.discardThenAdd(EOF_MARKER);
         disconnectSoft();  // clear "in", set its EOF
     }
 
@@ -274,13 +266,8 @@ public class LocalStringConnection
         // disconnect(), and it's OK to do this part twice.
 
         D.ebugPrintln("DISCONNECTING(SOFT) " + data);
-        synchronized (in)
-        {
-            in.clear();
-            in.addElement(EOF_MARKER);
-            in_reachedEOF = true;
-            in.notifyAll();
-        }
+        in_reachedEOF = true;
+        in.discardThenAdd(EOF_MARKER);  // wakes our reader if it's waiting
     }
 
     /**
@@ -347,18 +334,12 @@ public class LocalStringConnection
     /**
      * Signal the end of outbound data.
      * Not the same as closing, because we don't terminate the inbound side.
-     * 
-     * Synchronizes on out-buffer.
      */
     public void setEOF()
     {
-        synchronized (out)
-        {
-            // let the remote-end know we're closing
-            out.addElement(EOF_MARKER);
-            out_setEOF = true;
-            out.notifyAll();
-        }
+        // let the remote-end know we're closing
+        out_setEOF = true;
+        out.add(EOF_MARKER);
     }
 
     /**
@@ -366,10 +347,7 @@ public class LocalStringConnection
      */
     public boolean isInEOF()
     {
-        synchronized (in)
-        {
-            return in_reachedEOF;
-        }
+        return in_reachedEOF;
     }
 
     /**
@@ -379,10 +357,7 @@ public class LocalStringConnection
      */
     public boolean isOutEOF()
     {
-        synchronized (out)
-        {
-            return out_setEOF;            
-        }
+        return out_setEOF;
     }
 
     /**
@@ -568,7 +543,7 @@ public class LocalStringConnection
      */
     public boolean isInputAvailable()
     {
-        return (! in_reachedEOF) && (0 < in.size());
+        return (! in_reachedEOF) && ! in.isEmpty();
     }
 
     /**
@@ -661,4 +636,31 @@ public class LocalStringConnection
         return sb.toString();
     }
 
+    /**
+     * Local connections have no outbound network queue: The client reads our messages directly.
+     * @return null
+     * @since 1.2.00
+     */
+    public OutboundQueue getOutboundQueue()
+    {
+        return null;
+    }
+
+    /**
+     * Local connections always send text: The client reads our message strings directly.
+     * @return false
+     * @since 1.2.00
+     */
+    public boolean isBinaryFrames()
+    {
+        return false;
+    }
+
+    /**
+     * Local connections always send text, so this is ignored.
+     * @param accepts  ignored
+     * @since 1.2.00
+     */
+    public void setBinaryFrames(boolean accepts) {}
+
 }
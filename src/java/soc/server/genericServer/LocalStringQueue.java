@@ -0,0 +1,183 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free queue of messages from one {@link LocalStringConnection} peer to the other.
+ * Adding never blocks and never takes a lock. The reader parks when the queue is empty,
+ * and is unparked only when it's waiting, so most adds don't wake anyone.
+ *<P>
+ * <B>Threads:</B> Any number of threads may {@link #add(Object)}: The server sends to a connection from its
+ * message treater, game lanes, and timer threads, and a robot client from its brains. Only one thread,
+ * the connection's reader, may call {@link #poll()} or {@link #take()}.
+ *<P>
+ * A linked list of nodes, not a fixed-size ring: A local peer's {@code put} must never block or drop
+ * messages, so the queue has no capacity limit. Each add swaps the tail node atomically and then links
+ * the previous tail to the new node; the reader follows those links from its own head node.
+ *
+ * @since 1.2.00
+ */
+final class LocalStringQueue
+{
+    /**
+     * Last node added. Producers atomically replace it with their new node.
+     */
+    private final AtomicReference<Node> tail;
+
+    /**
+     * Reader's current node, whose {@link Node#next} holds the next item to read.
+     * Only the reader changes this; volatile so {@link #isEmpty()} can be called from any thread.
+     */
+    private volatile Node head;
+
+    /** The reader thread while it's parked in {@link #take()}, otherwise null. */
+    private volatile Thread waiter;
+
+    /**
+     * If not null, the reader discards items until it reaches this one.
+     * @see #discardThenAdd(Object)
+     */
+    private volatile Object discardUntil;
+
+    LocalStringQueue()
+    {
+        final Node n = new Node(null);
+        head = n;
+        tail = new AtomicReference<Node>(n);
+    }
+
+    /**
+     * Add an item to the end of the queue, and wake the reader if it's waiting.
+     * Safe to call from any thread; never blocks.
+     * @param item  Item to add; not null
+     */
+    void add(final Object item)
+    {
+        final Node n = new Node(item);
+        tail.getAndSet(n).next = n;
+
+        final Thread w = waiter;
+        if (w != null)
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Discard all items now queued, then add this one: The reader skips everything before it.
+     * Used to send an EOF marker after discarding pending data.
+     * Safe to call from any thread; never blocks.
+     * @param item  Item to add; not null
+     */
+    void discardThenAdd(final Object item)
+    {
+        discardUntil = item;
+        add(item);
+    }
+
+    /**
+     * Is the queue empty now? Safe to call from any thread,
+     * but the answer may be out of date as soon as it's returned.
+     */
+    boolean isEmpty()
+    {
+        return (head.next == null);
+    }
+
+    /**
+     * Remove and return the first item, if any. Reader thread only.
+     * @return  First item, or null if empty
+     */
+    Object poll()
+    {
+        for (;;)
+        {
+            final Node n = head.next;
+            if (n == null)
+                return null;
+
+            final Object item = n.item;
+            n.item = null;
+            head = n;
+
+            final Object until = discardUntil;
+            if (until == null)
+                return item;
+            if (item == until)
+            {
+                discardUntil = null;
+                return item;
+            }
+            // else, discard and keep looking
+        }
+    }
+
+    /**
+     * Remove and return the first item, parking until one is added if the queue is empty.
+     * Reader thread only.
+     *<P>
+     * Like the {@link Object#wait()} loop this replaced, an interrupt doesn't end the wait.
+     * @return  First item; not null
+     */
+    Object take()
+    {
+        Object item = poll();
+        if (item != null)
+            return item;  // <--- Early return: Didn't need to wait ---
+
+        final Thread me = Thread.currentThread();
+        for (;;)
+        {
+            waiter = me;
+            item = poll();  // check again, in case an item was added before waiter was set
+            if (item != null)
+            {
+                waiter = null;
+                return item;
+            }
+
+            LockSupport.park(this);
+            waiter = null;
+            Thread.interrupted();  // ignore interrupts; otherwise park would return at once
+
+            item = poll();
+            if (item != null)
+                return item;
+        }
+    }
+
+    /**
+     * One queued item. {@link #next} is set once, by the producer which adds the node after this one.
+     */
+    private static final class Node
+    {
+        /** Queued item, or null once read. Written before the node is published by {@link #next}. */
+        Object item;
+
+        volatile Node next;
+
+        Node(final Object item)
+        {
+            this.item = item;
+        }
+    }
+
+}
@@ -0,0 +1,744 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import soc.disableDebug.D;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.net.Socket;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import java.util.Date;
+
+/**
+ * A client's connection at a server, using non-blocking {@link SocketChannel}s
+ * instead of a reader and a writer thread per client.
+ *<P>
+ * Reads and writes are done by one of the shared I/O threads of a
+ * {@link NioStringServerSocket}. The wire format is the same as {@link Connection}:
+ * Each message is sent as a 2-byte length followed by modified UTF-8 bytes,
+ * as written by {@link DataOutputStream#writeUTF(String)}, so clients
+ * can't tell which implementation the server is using.
+ *<P>
+ * As with {@link Connection}, the first inbound message is given to
+ * {@link Server#processFirstCommand(String, StringConnection)}, and
+ * all others to the server's inbound queue. Those are called from the I/O thread,
+ * which must not block: If the server's queue is full, this connection stops reading
+ * until there's room; see {@link #doRead()}.
+ *<P>
+ * As used within JSettlers, the structure of this class has much in common
+ * with {@link Connection} and {@link LocalStringConnection}, as they all implement
+ * the {@link StringConnection} interface.  If you add something to one class
+ * (or to StringConnection), you should probably add it to the others.
+ *
+ * @since 1.2.00
+ */
+public final class NioConnection
+    implements StringConnection
+{
+    /** Initial size of {@link #readBuf}; grows as needed up to a full-size message. */
+    private static final int READ_BUF_INITIAL_SIZE = 4096;
+
+    /** Largest possible frame: 2-byte length + 65535 bytes of modified UTF-8 */
+    private static final int FRAME_MAX_SIZE = 2 + 65535;
+
+    /**
+     * The key (client "name") associated with this connection, or {@code null}.
+     * @see #getData()
+     */
+    private String data;
+
+    /**
+     * the arbitrary app-specific data associated with this connection.
+     * Not used or referenced by generic server.
+     */
+    private Object appData;
+
+    private final Server sv;
+
+    /** Our socket channel, in non-blocking mode */
+    private final SocketChannel ch;
+
+    /** The I/O thread which reads and writes {@link #ch} */
+    private final NioStringServerSocket.IOThread io;
+
+    /**
+     * Our registration with {@link #io}'s selector, or null if not yet registered.
+     * Set and used only by the I/O thread.
+     */
+    SelectionKey key;
+
+    private final String hst;
+    private final int remotePort;
+    private int remoteVersion;
+    private boolean remoteVersionKnown;
+    private boolean remoteVersionTrack;
+    private boolean hideTimeoutMessage = false;
+
+    private Exception error = null;
+    private Date connectTime = new Date();
+    private volatile boolean connected = false;
+    /** @see #disconnectSoft() */
+    private volatile boolean inputConnected = false;
+
+    /** Has the first inbound message been read and given to {@link Server#processFirstCommand(String, StringConnection)}? */
+    private boolean gotFirstMessage = false;
+
+    /**
+     * Is reading stopped because the server's inbound queue was full?
+     * While true, {@link #readBuf} holds the message which didn't fit, and our key
+     * isn't interested in reads. Used only by the I/O thread.
+     * @see #doRead()
+     * @see NioStringServerSocket.IOThread#resumeRead(NioConnection)
+     */
+    boolean readPaused;
+
+    /**
+     * Callback for {@link Server#tryTreat(String, StringConnection, Runnable)} when the queue has room again:
+     * Asks our I/O thread to resume reading.
+     */
+    private final Runnable resumeRead = new Runnable()
+    {
+        public void run()
+        {
+            io.resumeRead(NioConnection.this);
+        }
+    };
+
+    /**
+     * Inbound bytes not yet decoded into messages; in "write" mode (not flipped) between reads.
+     * Used by the I/O thread, and by {@link #isInputAvailable()} before the connection is registered.
+     */
+    private ByteBuffer readBuf = ByteBuffer.allocate(READ_BUF_INITIAL_SIZE);
+
+    /**
+     * Time of the last successful read, from {@link System#currentTimeMillis()},
+     * for the idle timeout check in {@link NioStringServerSocket.IOThread}.
+     */
+    volatile long lastReadTime;
+
+    /**
+     * Encoded outbound frames ({@link ByteBuffer}s), waiting for {@link #io} to write them.
+     * Synchronized on itself.
+     */
+    private final OutboundQueue outQueue = new OutboundQueue();
+
+    /**
+     * Does the client accept binary frames? Set during the app's version handshake.
+     * @see #setBinaryFrames(boolean)
+     * @since 1.2.00
+     */
+    private volatile boolean binaryFrames;
+
+    /** initialize the connection data */
+    NioConnection(SocketChannel so, Server sve, NioStringServerSocket.IOThread iot)
+    {
+        final Socket s = so.socket();
+        hst = s.getInetAddress().getHostName();
+        remotePort = s.getPort();
+
+        sv = sve;
+        ch = so;
+        io = iot;
+        lastReadTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @return Hostname of the remote end of the connection
+     */
+    public String host()
+    {
+        return hst;
+    }
+
+    /**
+     * Called by the server's main thread after {@link NioStringServerSocket#accept()}:
+     * Add the connection to the server with {@link Server#addConnection(StringConnection)},
+     * then register with our I/O thread to begin reading.
+     * Unlike {@link Connection}, no thread is started.
+     */
+    void start()
+    {
+        sv.addConnection(this);
+            // won't throw IllegalArgumentException, because conn is unnamed at this point; getData() is null
+
+        if (connected)
+            io.register(this);
+    }
+
+    /**
+     * Prepare for reading from the net; called only by the server.
+     * If successful, also sets connectTime to now.
+     *<P>
+     * Connection must be unnamed (<tt>{@link #getData()} == null</tt>) at this point.
+     *
+     * @return true if successful, false if an error occurred.
+     */
+    public boolean connect()
+    {
+        if (getData() != null)
+        {
+            D.ebugPrintln("conn.connect() requires null getData()");
+            return false;
+        }
+
+        try
+        {
+            ch.configureBlocking(false);
+            connected = true;
+            inputConnected = true;
+            connectTime = new Date();
+        }
+        catch (IOException e)
+        {
+            D.ebugPrintln("IOException in NioConnection.connect (" + hst + ") - " + e);
+
+            error = e;
+            disconnect();
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Is input available now, without blocking?
+     * Same idea as {@link java.io.DataInputStream#available()}.
+     * Before the connection is registered with its I/O thread, will try a non-blocking read.
+     */
+    public boolean isInputAvailable()
+    {
+        if (! inputConnected)
+            return false;
+
+        if ((key == null) && (readBuf.position() == 0))
+        {
+            // Not yet registered, so the I/O thread isn't using readBuf
+            try
+            {
+                if (ch.read(readBuf) > 0)
+                    lastReadTime = System.currentTimeMillis();
+            }
+            catch (IOException e) {}
+        }
+
+        return (readBuf.position() > 0);
+    }
+
+    /**
+     * If client connection times out at server, should the server not print a message to console?
+     * This would be desired, for instance, in automated clients, which would reconnect
+     * if they become disconnected.
+     * @see #setHideTimeoutMessage(boolean)
+     */
+    public boolean wantsHideTimeoutMessage()
+    {
+        return hideTimeoutMessage;
+    }
+
+    /**
+     * If client connection times out at server, should the server not print a message to console?
+     * This would be desired, for instance, in automated clients, which would reconnect
+     * if they become disconnected.
+     * @param wantsHide true to hide, false to print, the log message on idle-disconnect
+     * @see #wantsHideTimeoutMessage()
+     */
+    public void setHideTimeoutMessage(boolean wantsHide)
+    {
+        hideTimeoutMessage = wantsHide;
+    }
+
+    /**
+     * Not used: Our I/O thread reads from the net, see {@link #doRead()}.
+     * Required by the {@link StringConnection} interface.
+     */
+    public void run() {}
+
+    /**
+     * Send this data over the connection.  Encodes it and adds it to an outbound queue
+     * to be written by our I/O thread.
+     * If the client isn't keeping up, the queue's limits and policy apply: See {@link OutboundQueue}.
+     *<P>
+     * <B>Threads:</B> Safe to call from any thread; synchronizes on internal {@code outQueue}.
+     *
+     * @param str Data to send
+     * @see #put(EncodedMessage)
+     */
+    public final void put(String str)
+    {
+        final byte[] frame;
+        try
+        {
+            frame = EncodedMessage.encodeFrame(str);
+        }
+        catch (IOException e)
+        {
+            putFailed(e);
+            return;
+        }
+
+        enqueue(frame, null);
+    }
+
+    /**
+     * Send a pre-encoded message over the connection. Adds its frame bytes, shared and not copied,
+     * to an outbound queue to be written by our I/O thread.
+     *<P>
+     * <B>Threads:</B> Safe to call from any thread; synchronizes on internal {@code outQueue}.
+     *
+     * @param msg Message to send
+     * @since 1.2.00
+     */
+    public final void put(EncodedMessage msg)
+    {
+        final byte[] frame;
+        try
+        {
+            frame = msg.getFrame(binaryFrames);
+        }
+        catch (IOException e)
+        {
+            putFailed(e);
+            return;
+        }
+
+        enqueue(frame, msg.coalesceKey);
+    }
+
+    /**
+     * Queue a frame to be written by our I/O thread,
+     * and tell the server if the queue's now lagging or has overflowed.
+     * @param frame  Encoded frame; not changed or copied
+     * @param coalesceKey  Message's {@link EncodedMessage#coalesceKey}, or null
+     */
+    private void enqueue(final byte[] frame, final String coalesceKey)
+    {
+        // Each buffer has its own position; the array may be shared with other connections
+        final ByteBuffer buf = ByteBuffer.wrap(frame);
+        switch (outQueue.add(buf, frame.length, coalesceKey))
+        {
+        case OutboundQueue.ADD_NOW_LAGGING:
+            sv.outboundQueueLagging(this);
+            break;
+
+        case OutboundQueue.ADD_OVERFLOW:
+            if (error == null)
+                error = new IOException("Outbound queue overflow");
+            sv.outboundQueueOverflowed(this);
+            return;
+
+        case OutboundQueue.ADD_DISCARDED:
+            return;
+        }
+
+        io.wantsWrite(this);
+    }
+
+    /**
+     * A message couldn't be encoded to put; remove this connection from the server.
+     * @param e  Exception from encoding
+     */
+    private void putFailed(final IOException e)
+    {
+        // UTFDataFormatException: more than 65535 bytes encoded
+        D.ebugPrintln("IOException in NioConnection.put (" + hst + ") - " + e);
+        if (connected)
+        {
+            error = e;
+            sv.removeConnection(this);
+        }
+    }
+
+    /**
+     * Are there any frames waiting to be written? Called from our I/O thread.
+     */
+    boolean hasPendingOutput()
+    {
+        return ! outQueue.isEmpty();
+    }
+
+    /**
+     * Read whatever is available from the channel, and treat each complete message.
+     * Called from our I/O thread when the channel is readable, or when resuming after {@link #readPaused}.
+     *<P>
+     * If the server's inbound queue is full, sets {@link #readPaused} and stops, leaving the
+     * rest of the messages in {@link #readBuf}; the I/O thread won't block, and stops reading
+     * from the channel until {@link Server#tryTreat(String, StringConnection, Runnable)} says
+     * there's room, so the client's TCP window fills instead of our memory.
+     * On end of stream or error, removes the connection from the server.
+     */
+    void doRead()
+    {
+        if (readPaused)
+            return;
+
+        try
+        {
+            final int n = ch.read(readBuf);
+            if (n < 0)
+                throw new EOFException();
+            if (n > 0)
+                lastReadTime = System.currentTimeMillis();
+
+            readBuf.flip();
+            while (readBuf.remaining() >= 2)
+            {
+                final int pos = readBuf.position();
+                final int frameLen = 2 + (readBuf.getShort(pos) & 0xFFFF);
+                if (readBuf.remaining() < frameLen)
+                {
+                    if (frameLen > readBuf.capacity())
+                    {
+                        // grow to fit the whole frame
+                        ByteBuffer bigger = ByteBuffer.allocate(Math.min(FRAME_MAX_SIZE, 2 * frameLen));
+                        bigger.put(readBuf);
+                        readBuf = bigger;
+                        readBuf.flip();
+                    }
+                    break;
+                }
+
+                final String msg = new DataInputStream
+                    (new ByteArrayInputStream(readBuf.array(), readBuf.arrayOffset() + pos, frameLen)).readUTF();
+
+                if (inputConnected)
+                {
+                    if (! gotFirstMessage)
+                    {
+                        gotFirstMessage = true;
+                        if (sv.processFirstCommand(msg, this))
+                        {
+                            readBuf.position(pos + frameLen);
+                            continue;
+                        }
+                    }
+
+                    if (! sv.tryTreat(msg, this, resumeRead))
+                    {
+                        // Queue's full: Keep this message in readBuf, and try it again when resumed
+                        readPaused = true;
+                        break;
+                    }
+                }
+                readBuf.position(pos + frameLen);
+            }
+            readBuf.compact();
+        }
+        catch (IOException e)
+        {
+            D.ebugPrintln("IOException in NioConnection.doRead (" + hst + ") - " + e);
+
+            if (! connected)
+                return;  // Don't set error twice
+
+            error = e;
+            sv.removeConnection(this);
+        }
+    }
+
+    /**
+     * Write as many queued frames as the channel will accept without blocking.
+     * Called from our I/O thread when the channel is writable.
+     * On error, removes the connection from the server.
+     *
+     * @return true if all queued output was written, false if some remains
+     */
+    boolean doWrite()
+    {
+        try
+        {
+            synchronized (outQueue)
+            {
+                ByteBuffer bb;
+                while (null != (bb = (ByteBuffer) outQueue.peek()))
+                {
+                    ch.write(bb);
+                    if (bb.hasRemaining())
+                        return false;  // socket buffer full; wait for next OP_WRITE
+                    outQueue.remove();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            D.ebugPrintln("IOException in NioConnection.doWrite (" + hst + ") - " + e);
+
+            if (connected)
+            {
+                error = e;
+                sv.removeConnection(this);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Our channel, for registration by the I/O thread.
+     */
+    SocketChannel getChannel()
+    {
+        return ch;
+    }
+
+    /**
+     * Set {@link #getError()} and remove this idle connection from the server;
+     * called from our I/O thread.
+     * @param e  Exception to report, such as {@link java.net.SocketTimeoutException}
+     */
+    void timedOut(final Exception e)
+    {
+        if (! connected)
+            return;
+
+        error = e;
+        sv.removeConnection(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getData()
+    {
+        return data;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object getAppData()
+    {
+        return appData;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setData(String dat)
+    {
+        data = dat;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setAppData(Object data)
+    {
+        appData = data;
+    }
+
+    /**
+     * @return Any error encountered, or null
+     */
+    public Exception getError()
+    {
+        return error;
+    }
+
+    /**
+     * @return Time of connection to server, or of object creation if that time's not available
+     */
+    public Date getConnectTime()
+    {
+        return connectTime;
+    }
+
+    /** close the channel; called after conn is removed from server structures */
+    public void disconnect()
+    {
+        if (! connected)
+            return;  // <--- Early return: Already disconnected ---
+
+        D.ebugPrintln("DISCONNECTING " + data);
+        connected = false;
+        inputConnected = false;
+
+        try
+        {
+            ch.close();  // also cancels key
+        }
+        catch (IOException e)
+        {
+            D.ebugPrintln("IOException in NioConnection.disconnect (" + hst + ") - " + e);
+
+            error = e;
+        }
+
+        outQueue.clear();
+    }
+
+    /**
+     * Accept no further input, allow output to drain, don't immediately close the socket.
+     * Once called, {@link #isConnected()} will return false, even if output is still being
+     * sent to the other side.
+     */
+    public void disconnectSoft()
+    {
+        if (! inputConnected)
+            return;
+
+        D.ebugPrintln("DISCONNECTING(SOFT) " + data);
+        inputConnected = false;
+    }
+
+    /**
+     * Are we currently connected and active?
+     */
+    public boolean isConnected()
+    {
+        return connected && inputConnected;
+    }
+
+    /**
+     * Is the channel still open? Unlike {@link #isConnected()}, ignores {@link #disconnectSoft()}.
+     */
+    boolean isOpen()
+    {
+        return connected;
+    }
+
+    /**
+     * Give the version number (if known) of the remote end of this connection.
+     * The meaning of this number is application-defined.
+     * @return Version number, or 0 if unknown.
+     */
+    public int getVersion()
+    {
+        return remoteVersion;
+    }
+
+    /**
+     * Set the version number of the remote end of this connection.
+     * The meaning of this number is application-defined.
+     *<P>
+     * <b>Locking:</b> If we're on server side, and {@link #setVersionTracking(boolean)} is true,
+     *  caller should synchronize on {@link Server#unnamedConns}.
+     *
+     * @param version Version number, or 0 if unknown.
+     *                If version is greater than 0, future calls to {@link #isVersionKnown()}
+     *                should return true.
+     */
+    public void setVersion(int version)
+    {
+        setVersion(version, version > 0);
+    }
+
+    /**
+     * Set the version number of the remote end of this connection.
+     * The meaning of this number is application-defined.
+     *<P>
+     * <b>Locking:</b> If we're on server side, and {@link #setVersionTracking(boolean)} is true,
+     *  caller should synchronize on {@link Server#unnamedConns}.
+     *
+     * @param version Version number, or 0 if unknown.
+     * @param isKnown Should this version be considered confirmed/known by {@link #isVersionKnown()}?
+     */
+    public void setVersion(int version, boolean isKnown)
+    {
+        final int prevVers = remoteVersion;
+        remoteVersion = version;
+        remoteVersionKnown = isKnown;
+        if (remoteVersionTrack && (sv != null) && (prevVers != version))
+        {
+            sv.clientVersionRem(prevVers);
+            sv.clientVersionAdd(version);
+        }
+    }
+
+    /**
+     * Is the version known of the remote end of this connection?
+     * We may have just assumed it, or taken a default.
+     * @return True if we've confirmed the version, false if it's assumed or default.
+     */
+    public boolean isVersionKnown()
+    {
+        return remoteVersionKnown;
+    }
+
+    /**
+     * For server-side use, should we notify the server when our version
+     * is changed by setVersion calls?
+     * @param doTracking true if we should notify server, false otherwise.
+     *        If true, please call both setVersion and
+     *        {@link Server#clientVersionAdd(int)} before calling setVersionTracking.
+     *        If false, please call {@link Server#clientVersionRem(int)} before
+     *        calling setVersionTracking.
+     */
+    public void setVersionTracking(boolean doTracking)
+    {
+        remoteVersionTrack = doTracking;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return  Our queue of encoded frames waiting to be written
+     * @since 1.2.00
+     */
+    public OutboundQueue getOutboundQueue()
+    {
+        return outQueue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.2.00
+     */
+    public boolean isBinaryFrames()
+    {
+        return binaryFrames;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 1.2.00
+     */
+    public void setBinaryFrames(final boolean accepts)
+    {
+        binaryFrames = accepts;
+    }
+
+    /**
+     * For debugging, toString includes data.toString, host and port.
+     */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer("NioConnection[");
+        if (data != null)
+            sb.append(data);
+        else
+            sb.append(super.hashCode());
+        sb.append('-');
+        sb.append(hst);
+        sb.append('-');
+        sb.append(remotePort);
+        sb.append(']');
+        return sb.toString();
+    }
+
+}
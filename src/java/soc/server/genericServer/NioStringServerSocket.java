@@ -0,0 +1,334 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import soc.disableDebug.D;
+
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Uses {@link ServerSocketChannel} and a small fixed pool of {@link Selector} threads
+ * to implement StringServerSocket over a network, instead of the
+ * reader and writer thread per client used by {@link Connection}.
+ * Accepted clients are {@link NioConnection}s, which use the same wire format as {@link Connection}.
+ *<P>
+ * {@link #accept()} blocks as with {@link java.net.ServerSocket#accept()}. Each accepted connection
+ * is assigned round-robin to one of the I/O threads, which does all reading and writing for it.
+ *<P>
+ * {@link #close()} stops accepting new connections. Connections already accepted remain open;
+ * each I/O thread exits once the socket is closed and its last connection has gone.
+ *
+ * @see Server#Server(int, int)
+ * @since 1.2.00
+ */
+public class NioStringServerSocket implements StringServerSocket
+{
+    /**
+     * How often (10 seconds) each I/O thread wakes to check for closing
+     * and for connections idle longer than {@link Connection#TIMEOUT_VALUE}.
+     */
+    private static final int IDLE_CHECK_MS = 10 * 1000;
+
+    private final ServerSocketChannel implServChannel;
+    private final Server server;
+
+    /** Our I/O threads; each one has its own {@link Selector} */
+    private final IOThread[] ioThreads;
+
+    /** Index into {@link #ioThreads} for the next accepted connection; accessed only by {@link #accept()}'s caller */
+    private int nextIOThread;
+
+    /** Has {@link #close()} been called? */
+    private volatile boolean closed;
+
+    /**
+     * Bind to a TCP port and start the I/O threads.
+     * @param port  TCP port to listen on
+     * @param serv  Server which will be given the accepted connections
+     * @param nThreads  Number of I/O threads to start; at least 1
+     * @throws IOException  if the port can't be bound, or a Selector can't be opened
+     * @throws IllegalArgumentException if {@code nThreads} &lt; 1
+     */
+    public NioStringServerSocket(final int port, final Server serv, final int nThreads)
+        throws IOException, IllegalArgumentException
+    {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads: " + nThreads);
+
+        server = serv;
+        implServChannel = ServerSocketChannel.open();
+        implServChannel.socket().bind(new InetSocketAddress(port));
+
+        ioThreads = new IOThread[nThreads];
+        for (int i = 0; i < nThreads; ++i)
+        {
+            ioThreads[i] = new IOThread("nio-io-" + port + "-" + i);
+            ioThreads[i].start();
+        }
+    }
+
+    /**
+     * For server to call.  Blocks waiting for next inbound connection.
+     * The returned connection isn't yet reading from the network; the server
+     * must call {@link NioConnection#start()}.
+     *
+     * @return The server-side peer to the inbound client connection
+     * @throws IOException  if network has a problem accepting
+     * @throws SocketException if {@link #close()} has been called
+     */
+    public StringConnection accept()
+        throws SocketException, IOException
+    {
+        SocketChannel sc;
+        try
+        {
+            sc = implServChannel.accept();
+        }
+        catch (ClosedChannelException e)
+        {
+            throw new SocketException("closed");
+        }
+
+        final IOThread iot = ioThreads[nextIOThread];
+        ++nextIOThread;
+        if (nextIOThread >= ioThreads.length)
+            nextIOThread = 0;
+
+        return new NioConnection(sc, server, iot);
+    }
+
+    /**
+     * Stop accepting new connections. Already-accepted connections are not closed.
+     */
+    public void close()
+        throws IOException
+    {
+        closed = true;
+        implServChannel.close();
+        for (int i = 0; i < ioThreads.length; ++i)
+            ioThreads[i].selector.wakeup();
+    }
+
+    /**
+     * One of our I/O threads, handling reads and writes for all of its connections.
+     * Other threads ask for registration or writes through its queues;
+     * only this thread touches its {@link Selector}'s keys.
+     */
+    class IOThread extends Thread
+    {
+        final Selector selector;
+
+        /** Newly accepted connections waiting to be registered */
+        private final ConcurrentLinkedQueue<NioConnection> pendingRegister
+            = new ConcurrentLinkedQueue<NioConnection>();
+
+        /** Connections which have new output queued */
+        private final ConcurrentLinkedQueue<NioConnection> pendingWrite
+            = new ConcurrentLinkedQueue<NioConnection>();
+
+        /** Connections whose {@link NioConnection#readPaused} should end, because the server's queue has room */
+        private final ConcurrentLinkedQueue<NioConnection> pendingResume
+            = new ConcurrentLinkedQueue<NioConnection>();
+
+        IOThread(final String name)
+            throws IOException
+        {
+            super(name);  // Thread name for debug
+            selector = Selector.open();
+            setDaemon(true);
+        }
+
+        /**
+         * Ask this thread to begin reading from a connection.
+         * @param c  Connection, already {@link NioConnection#connect() connected}
+         */
+        void register(final NioConnection c)
+        {
+            pendingRegister.add(c);
+            selector.wakeup();
+        }
+
+        /**
+         * Tell this thread that a connection has new output queued.
+         * Safe to call from any thread.
+         * @param c  Connection with output to write
+         */
+        void wantsWrite(final NioConnection c)
+        {
+            if (Thread.currentThread() == this)
+            {
+                // We're here because of a callback from doRead or doWrite; key is ours to update
+                updateInterest(c);
+                return;
+            }
+
+            pendingWrite.add(c);
+            selector.wakeup();
+        }
+
+        /**
+         * Tell this thread to resume reading from a connection which had stopped because
+         * the server's inbound queue was full. Safe to call from any thread;
+         * the connection's buffered messages are treated later by this thread, not during this call.
+         * @param c  Connection whose {@link NioConnection#readPaused} is set
+         */
+        void resumeRead(final NioConnection c)
+        {
+            pendingResume.add(c);
+            selector.wakeup();
+        }
+
+        /**
+         * Set a connection's interest ops to read, unless {@link NioConnection#readPaused},
+         * plus write if it has queued output.
+         * Call only from this thread.
+         */
+        private void updateInterest(final NioConnection c)
+        {
+            final SelectionKey k = c.key;
+            if ((k == null) || ! k.isValid())
+                return;
+
+            try
+            {
+                final int readOp = (c.readPaused) ? 0 : SelectionKey.OP_READ;
+                k.interestOps(c.hasPendingOutput() ? (readOp | SelectionKey.OP_WRITE) : readOp);
+            }
+            catch (CancelledKeyException e) {}
+        }
+
+        public void run()
+        {
+            long nextIdleCheck = System.currentTimeMillis() + IDLE_CHECK_MS;
+
+            while (! (closed && pendingRegister.isEmpty() && selector.keys().isEmpty()))
+            {
+                try
+                {
+                    selector.select(IDLE_CHECK_MS);
+                }
+                catch (IOException e)
+                {
+                    D.ebugPrintln("IOException in NioStringServerSocket select - " + e);
+                    continue;
+                }
+
+                NioConnection c;
+                while (null != (c = pendingRegister.poll()))
+                {
+                    if (! c.isOpen())
+                        continue;
+
+                    try
+                    {
+                        c.key = c.getChannel().register(selector, SelectionKey.OP_READ, c);
+                        if (c.isInputAvailable())
+                            c.doRead();  // bytes were read by isInputAvailable before registration
+                        updateInterest(c);
+                    }
+                    catch (ClosedChannelException e) {}
+                }
+
+                while (null != (c = pendingWrite.poll()))
+                    updateInterest(c);
+
+                while (null != (c = pendingResume.poll()))
+                {
+                    if (! c.isOpen())
+                        continue;
+
+                    c.readPaused = false;
+                    c.lastReadTime = System.currentTimeMillis();  // wasn't idle, just waiting for us
+                    c.doRead();  // treat the messages already in its buffer, and read more
+                    updateInterest(c);
+                }
+
+                Iterator<SelectionKey> ki = selector.selectedKeys().iterator();
+                while (ki.hasNext())
+                {
+                    final SelectionKey k = ki.next();
+                    ki.remove();
+                    c = (NioConnection) k.attachment();
+
+                    try
+                    {
+                        if (k.isValid() && k.isReadable())
+                        {
+                            c.doRead();
+                            if (c.readPaused)
+                                updateInterest(c);  // stop reading until resumed
+                        }
+                        if (k.isValid() && k.isWritable())
+                        {
+                            if (c.doWrite())
+                                updateInterest(c);
+                        }
+                    }
+                    catch (CancelledKeyException e) {}
+                }
+
+                final long now = System.currentTimeMillis();
+                if (now >= nextIdleCheck)
+                {
+                    nextIdleCheck = now + IDLE_CHECK_MS;
+                    checkIdleConnections(now);
+                }
+            }
+
+            try
+            {
+                selector.close();
+            }
+            catch (IOException e) {}
+        }
+
+        /**
+         * Remove any connection which hasn't sent anything in {@link Connection#TIMEOUT_VALUE} ms,
+         * like a {@link java.net.Socket#setSoTimeout(int) read timeout} would in {@link Connection}.
+         * @param now  Current time, from {@link System#currentTimeMillis()}
+         */
+        private void checkIdleConnections(final long now)
+        {
+            final Object[] keys = selector.keys().toArray();  // copy, since timedOut will cancel keys
+            for (int i = 0; i < keys.length; ++i)
+            {
+                final NioConnection c = (NioConnection) ((SelectionKey) keys[i]).attachment();
+                if ((now - c.lastReadTime > Connection.TIMEOUT_VALUE) && ! c.readPaused)
+                    c.timedOut(new SocketTimeoutException("Read timed out"));
+            }
+        }
+
+    }  // IOThread
+
+}
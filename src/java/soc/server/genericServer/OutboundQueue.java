@@ -0,0 +1,319 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * A network connection's bounded queue of outbound messages waiting to be written,
+ * with byte-count watermarks and a policy for clients which can't keep up.
+ * Used by {@link Connection} and {@link NioConnection}; each holds its own item type
+ * (text, {@link EncodedMessage}, or frame buffer) along with the item's size in bytes.
+ *<P>
+ * When the queued bytes rise above the high watermark, the connection is marked lagging
+ * and the queue's policy is applied:
+ *<UL>
+ * <LI> {@link #POLICY_COALESCE}: While lagging, a new message with a coalesce key
+ *      (see {@link EncodedMessage#coalesceKey}) replaces any older queued message with the same key,
+ *      which it makes redundant. The new one is added at the end of the queue, after the
+ *      messages which preceded it.
+ * <LI> {@link #POLICY_LAGGING}: Only mark the connection lagging.
+ * <LI> {@link #POLICY_DISCONNECT}: Overflow right away.
+ *</UL>
+ * With either of the first two policies, the queue overflows at {@link #HARD_LIMIT_FACTOR} times
+ * the high watermark. On overflow, queued items are discarded, all further items are refused,
+ * and the connection should remove itself from the server. Lagging is cleared once the queue drains
+ * to the low watermark.
+ *<P>
+ * A high watermark of 0 means no limit, although queued bytes are still counted.
+ *<P>
+ * <B>Locks:</B> Methods are synchronized. A connection's writer may synchronize on the queue
+ * to peek, write, and remove an item atomically, and may {@link Object#wait()} on it for new items.
+ *
+ * @see StringConnection#getOutboundQueue()
+ * @since 1.2.00
+ */
+public class OutboundQueue
+{
+    /** Policy: While lagging, drop queued messages made redundant by newer ones with the same coalesce key. */
+    public static final int POLICY_COALESCE = 1;
+
+    /** Policy: Only mark the connection lagging until the hard limit. */
+    public static final int POLICY_LAGGING = 2;
+
+    /** Policy: Disconnect the client as soon as the high watermark is passed. */
+    public static final int POLICY_DISCONNECT = 3;
+
+    /**
+     * For {@link #POLICY_COALESCE} and {@link #POLICY_LAGGING}, the queue overflows
+     * at this many times the high watermark.
+     */
+    public static final int HARD_LIMIT_FACTOR = 4;
+
+    /** {@link #add(Object, int, String)} result: Item was queued. */
+    static final int ADD_OK = 0;
+
+    /** {@link #add(Object, int, String)} result: Item was queued, and the connection has just become lagging. */
+    static final int ADD_NOW_LAGGING = 1;
+
+    /**
+     * {@link #add(Object, int, String)} result: Queue has just overflowed; item and queue contents were discarded.
+     * Caller should remove the connection from the server.
+     */
+    static final int ADD_OVERFLOW = 2;
+
+    /** {@link #add(Object, int, String)} result: Queue had already overflowed; item was discarded. */
+    static final int ADD_DISCARDED = 3;
+
+    /** Queued items, oldest first */
+    private final LinkedList<Item> items = new LinkedList<Item>();
+
+    /** Total size of {@link #items}, and the highest it's been */
+    private int bytes, bytesMax;
+
+    /** Watermarks in bytes; {@link #highWater} 0 means no limit */
+    private int highWater, lowWater;
+
+    /** Policy when above {@link #highWater}, such as {@link #POLICY_COALESCE} */
+    private int policy = POLICY_COALESCE;
+
+    private boolean lagging, overflowed;
+
+    /** Number of times this queue has become lagging, and number of messages dropped by coalescing */
+    private int laggingCount, coalescedCount;
+
+    /**
+     * Set this queue's watermarks and policy. Usually called by the server when the client connects.
+     * @param high  High watermark in bytes, or 0 for no limit
+     * @param low  Low watermark in bytes; must be less than {@code high} unless {@code high} is 0
+     * @param pol  Policy when above {@code high}: {@link #POLICY_COALESCE}, {@link #POLICY_LAGGING},
+     *     or {@link #POLICY_DISCONNECT}
+     * @throws IllegalArgumentException if the watermarks are negative or out of order, or {@code pol} is unknown
+     */
+    public synchronized void setLimits(final int high, final int low, final int pol)
+        throws IllegalArgumentException
+    {
+        checkLimits(high, low, pol);
+
+        highWater = high;
+        lowWater = low;
+        policy = pol;
+    }
+
+    /**
+     * Check watermarks and policy for {@link #setLimits(int, int, int)}.
+     * @param high  High watermark in bytes, or 0 for no limit
+     * @param low  Low watermark in bytes
+     * @param pol  Policy such as {@link #POLICY_COALESCE}
+     * @throws IllegalArgumentException if the watermarks are negative or out of order, or {@code pol} is unknown
+     */
+    static void checkLimits(final int high, final int low, final int pol)
+        throws IllegalArgumentException
+    {
+        if ((high < 0) || (low < 0) || ((high > 0) && (low >= high)))
+            throw new IllegalArgumentException("watermarks: " + high + ", " + low);
+        if ((pol < POLICY_COALESCE) || (pol > POLICY_DISCONNECT))
+            throw new IllegalArgumentException("policy: " + pol);
+    }
+
+    /**
+     * Add an item to the end of the queue, applying the policy if it's now above the high watermark.
+     * Notifies any writer waiting on this queue.
+     * @param item  Item to queue; not null
+     * @param nbytes  Item's size in bytes, or an estimate
+     * @param coalesceKey  Item's coalesce key for {@link #POLICY_COALESCE}, or null
+     * @return  {@link #ADD_OK}, {@link #ADD_NOW_LAGGING}, {@link #ADD_OVERFLOW}, or {@link #ADD_DISCARDED}
+     */
+    synchronized int add(final Object item, final int nbytes, final String coalesceKey)
+    {
+        if (overflowed)
+            return ADD_DISCARDED;  // <--- Early return: Already overflowed ---
+
+        if (lagging && (coalesceKey != null) && (policy == POLICY_COALESCE))
+            coalesce(coalesceKey);
+
+        items.addLast(new Item(item, nbytes, coalesceKey));
+        bytes += nbytes;
+        if (bytes > bytesMax)
+            bytesMax = bytes;
+        notify();
+
+        if ((highWater == 0) || (bytes <= highWater))
+            return ADD_OK;
+
+        if ((policy == POLICY_DISCONNECT) || (bytes > (long) HARD_LIMIT_FACTOR * highWater))
+        {
+            overflowed = true;
+            items.clear();
+            bytes = 0;
+            return ADD_OVERFLOW;
+        }
+
+        if (lagging)
+            return ADD_OK;
+
+        lagging = true;
+        ++laggingCount;
+        return ADD_NOW_LAGGING;
+    }
+
+    /**
+     * Remove any queued items with this coalesce key, except the first item,
+     * which the writer may be sending now.
+     * @param key  Coalesce key; not null
+     */
+    private void coalesce(final String key)
+    {
+        final Iterator<Item> it = items.iterator();
+        if (! it.hasNext())
+            return;
+        it.next();  // skip first item
+
+        while (it.hasNext())
+        {
+            final Item qi = it.next();
+            if (key.equals(qi.key))
+            {
+                it.remove();
+                bytes -= qi.nbytes;
+                ++coalescedCount;
+            }
+        }
+    }
+
+    /**
+     * Get the first item without removing it.
+     * @return  First item, or null if empty
+     */
+    synchronized Object peek()
+    {
+        return (items.isEmpty()) ? null : items.getFirst().item;
+    }
+
+    /**
+     * Remove and return the first item, clearing the lagging flag if
+     * the queue has drained to the low watermark.
+     * @return  First item, or null if empty
+     */
+    synchronized Object remove()
+    {
+        if (items.isEmpty())
+            return null;
+
+        final Item qi = items.removeFirst();
+        bytes -= qi.nbytes;
+        if (lagging && (bytes <= lowWater))
+            lagging = false;
+
+        return qi.item;
+    }
+
+    /** Is the queue empty? */
+    public synchronized boolean isEmpty()
+    {
+        return items.isEmpty();
+    }
+
+    /** Discard all queued items, for example when disconnecting. */
+    synchronized void clear()
+    {
+        items.clear();
+        bytes = 0;
+        lagging = false;
+    }
+
+    /** Get the number of items queued. */
+    public synchronized int size()
+    {
+        return items.size();
+    }
+
+    /** Get the total size of queued items, in bytes. */
+    public synchronized int getQueuedBytes()
+    {
+        return bytes;
+    }
+
+    /** Get the highest total size of queued items since the connection started, in bytes. */
+    public synchronized int getQueuedBytesMax()
+    {
+        return bytesMax;
+    }
+
+    /** Is this queue currently above its high watermark, and hasn't yet drained to its low watermark? */
+    public synchronized boolean isLagging()
+    {
+        return lagging;
+    }
+
+    /** Has this queue overflowed and been discarded? */
+    public synchronized boolean isOverflowed()
+    {
+        return overflowed;
+    }
+
+    /** Get the number of times this queue has become lagging. */
+    public synchronized int getLaggingCount()
+    {
+        return laggingCount;
+    }
+
+    /** Get the number of queued messages dropped by {@link #POLICY_COALESCE}. */
+    public synchronized int getCoalescedCount()
+    {
+        return coalescedCount;
+    }
+
+    /**
+     * Parse a policy name, for server properties.
+     * @param name  Policy name: {@code "coalesce"}, {@code "lagging"}, or {@code "disconnect"}; case-insensitive
+     * @return  Policy such as {@link #POLICY_COALESCE}, or 0 if not recognized
+     */
+    public static int parsePolicy(final String name)
+    {
+        if (name.equalsIgnoreCase("coalesce"))
+            return POLICY_COALESCE;
+        else if (name.equalsIgnoreCase("lagging"))
+            return POLICY_LAGGING;
+        else if (name.equalsIgnoreCase("disconnect"))
+            return POLICY_DISCONNECT;
+        else
+            return 0;
+    }
+
+    /**
+     * One queued item, with its size and optional coalesce key.
+     */
+    private static final class Item
+    {
+        final Object item;
+        final int nbytes;
+        final String key;
+
+        Item(final Object item, final int nbytes, final String key)
+        {
+            this.item = item;
+            this.nbytes = nbytes;
+            this.key = key;
+        }
+    }
+
+}
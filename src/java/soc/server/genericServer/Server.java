@@ -32,16 +32,24 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 
 /** a general purpose server.
@@ -52,7 +60,8 @@ import java.util.Vector;
  *  to a {@link LocalStringServerSocket}.
  *<P>
  *  Newly connecting clients arrive in {@link #run()},
- *  start a thread for the server side of their Connection or LocalStringConnection,
+ *  start a thread for the server side of their Connection or LocalStringConnection
+ *  (or for {@link NioConnection}, register with a shared I/O thread),
  *  and are integrated into server data via {@link #addConnection(StringConnection)}
  *  called from that thread.  If the client's connection is accepted in
  *  {@link #newConnection1(StringConnection)},
@@ -99,6 +108,14 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     /** {@link LocalStringServerSocket} name, or <tt>null</tt> for network mode. */
     protected String strSocketName;
 
+    /**
+     * For network mode, number of I/O threads for a {@link NioStringServerSocket},
+     * or 0 to use a reader thread and writer thread per {@link Connection}.
+     * @see #Server(int, int)
+     * @since 1.2.00
+     */
+    protected final int nioThreads;
+
     /**
      * Consistency-check the {@link #cliVersionsConnected} set every so often (33 minutes).
      * @since 1.1.06
@@ -150,8 +167,61 @@ public abstract class Server extends Thread implements Serializable, Cloneable
      */
     private HashMap<String, String> connNames = new HashMap<String, String>();
 
-    /** Inbound messages from all clients, and/or Runnable tasks to run, in the {@link Treater} thread */
-    private final Vector<Command> inQueue = new Vector<Command>();
+    /**
+     * Maximum number of client messages (not {@link #postToTreater(Runnable)} tasks) which can be
+     * waiting in {@link #inQueue}. When full, {@link #treat(String, StringConnection)} blocks
+     * a {@link Connection}'s reading thread until the {@link Treater} catches up, and
+     * {@link #tryTreat(String, StringConnection, Runnable)} tells a {@link NioConnection} to stop reading.
+     * @since 1.2.00
+     */
+    public static final int INQUEUE_MAX_CLIENT_MESSAGES = 10000;
+
+    /**
+     * When {@link #inQueue} has been full, how many permits must be free again before
+     * {@link #tryTreat(String, StringConnection, Runnable)}'s waiting connections are resumed.
+     * Waiting for more than 1 keeps them from stopping and starting for each message.
+     * @since 1.2.00
+     */
+    private static final int INQUEUE_RESUME_PERMITS = INQUEUE_MAX_CLIENT_MESSAGES / 4;
+
+    /**
+     * Inbound messages from all clients, and/or Runnable tasks to run, in the {@link Treater} thread.
+     * Client messages are bounded by {@link #inQueueClientPermits}.
+     *<P>
+     * Before v1.2.00 this was a {@code Vector} polled by the Treater.
+     */
+    private final LinkedBlockingQueue<Command> inQueue = new LinkedBlockingQueue<Command>();
+
+    /**
+     * Permits for client messages in {@link #inQueue}, to bound it at {@link #INQUEUE_MAX_CLIENT_MESSAGES}.
+     * {@link #treat(String, StringConnection)} acquires one, the {@link Treater} releases it
+     * when the message is dispatched. Tasks from {@link #postToTreater(Runnable)} don't use a permit,
+     * so code running on the Treater can always post more work without blocking itself.
+     * @since 1.2.00
+     */
+    private final Semaphore inQueueClientPermits = new Semaphore(INQUEUE_MAX_CLIENT_MESSAGES);
+
+    /**
+     * Callbacks from {@link #tryTreat(String, StringConnection, Runnable)} calls which found {@link #inQueue} full,
+     * to run when at least {@link #INQUEUE_RESUME_PERMITS} of {@link #inQueueClientPermits} are free.
+     * @since 1.2.00
+     */
+    private final ConcurrentLinkedQueue<Runnable> inQueueWaiters = new ConcurrentLinkedQueue<Runnable>();
+
+    /**
+     * Metrics for {@link #inQueue} and its {@link Treater}.
+     * @see #getInboundQueueStats()
+     * @since 1.2.00
+     */
+    private final InboundQueueStats inQueueStats = new InboundQueueStats();
+
+    /**
+     * Limits given to each new connection's {@link OutboundQueue}:
+     * High and low watermarks in bytes, and policy. High watermark 0 means no limit.
+     * @see #setOutboundQueueLimits(int, int, int)
+     * @since 1.2.00
+     */
+    private int outQueueHighWater, outQueueLowWater, outQueuePolicy = OutboundQueue.POLICY_COALESCE;
 
     /**
      * {@link #inQueue}'s Treater.
@@ -229,12 +299,35 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     /** start listening to the given port */
     public Server(int port)
     {
+        this(port, 0);
+    }
+
+    /**
+     * Start listening to the given port, optionally with non-blocking I/O.
+     *<P>
+     * If {@code nioThreads} is 0, each client {@link Connection} has its own reader and writer threads.
+     * Otherwise a {@link NioStringServerSocket} is used, whose {@link NioConnection}s are all read and
+     * written by that many shared I/O threads; this uses far fewer threads when many clients are connected.
+     * Both use the same wire format.
+     *
+     * @param port  TCP port number to listen on
+     * @param nioThreads  Number of I/O threads for non-blocking I/O, or 0 for a thread pair per connection
+     * @throws IllegalArgumentException if {@code nioThreads} &lt; 0
+     * @since 1.2.00
+     */
+    public Server(int port, final int nioThreads)
+        throws IllegalArgumentException
+    {
+        if (nioThreads < 0)
+            throw new IllegalArgumentException("nioThreads: " + nioThreads);
+
         this.port = port;
         this.strSocketName = null;
+        this.nioThreads = nioThreads;
 
         try
         {
-            ss = new NetStringServerSocket(port, this);
+            ss = newNetServerSocket();
         }
         catch (IOException e)
         {
@@ -257,6 +350,7 @@ public abstract class Server extends Thread implements Serializable, Cloneable
 
         this.port = -1;
         this.strSocketName = stringSocketName;
+        this.nioThreads = 0;
 
         ss = new LocalStringServerSocket(stringSocketName);
         setName("server-localstring-" + stringSocketName);  // Thread name for debugging
@@ -266,6 +360,21 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         // Most other fields are set by initializers in their declaration.
     }
 
+    /**
+     * Create our network-mode server socket, bound to {@link #port}:
+     * A {@link NioStringServerSocket} if {@link #nioThreads} != 0, otherwise a {@link NetStringServerSocket}.
+     * @throws IOException  if the port can't be bound
+     * @since 1.2.00
+     */
+    private StringServerSocket newNetServerSocket()
+        throws IOException
+    {
+        if (nioThreads > 0)
+            return new NioStringServerSocket(port, this, nioThreads);
+        else
+            return new NetStringServerSocket(port, this);
+    }
+
     /**
      * Minor init tasks from both constructors.
      * Set up the recurring schedule of {@link #cliVersionsConnected} here.
@@ -408,7 +517,10 @@ public abstract class Server extends Thread implements Serializable, Cloneable
                     StringConnection con = ss.accept();
                     if (port != -1)
                     {
-                        ((Connection) con).start();
+                        if (con instanceof NioConnection)
+                            ((NioConnection) con).start();  // no new thread; registers with an I/O thread
+                        else
+                            ((Connection) con).start();
                     }
                     else
                     {
@@ -432,7 +544,7 @@ public abstract class Server extends Thread implements Serializable, Cloneable
             {
                 ss.close();
                 if (strSocketName == null)
-                    ss = new NetStringServerSocket(port, this);
+                    ss = newNetServerSocket();
                 else
                     ss = new LocalStringServerSocket(strSocketName);
             }
@@ -447,27 +559,112 @@ public abstract class Server extends Thread implements Serializable, Cloneable
 
     /**
      * Treat a request from the given connection, by adding to {@code inQueue}.
+     *<P>
+     *<B>Threads:</B>
+     * If {@link #INQUEUE_MAX_CLIENT_MESSAGES} client messages are already waiting,
+     * blocks the caller until the {@link Treater} dispatches one. That's fine for a {@link Connection}
+     * or {@link LocalStringConnection}, whose caller is the connection's own reading thread.
+     * If the calling thread is interrupted while waiting, the message is queued anyway.
+     * A caller which must not block, such as a {@link NioConnection}'s shared I/O thread,
+     * should call {@link #tryTreat(String, StringConnection, Runnable)} instead.
      * @see #postToTreater(Runnable)
      */
     public void treat(String s, StringConnection c)
     {
         // D.ebugPrintln("IN got: " + s);
         final Command cmd = new Command(s, c);
-        synchronized (inQueue)
+        if (isCurrentThreadTreater())
         {
-            inQueue.addElement(cmd);
-            inQueue.notify();
+            // Don't block the thread which releases permits
+            cmd.heldPermit = false;
+        } else {
+            try
+            {
+                inQueueClientPermits.acquire();
+            }
+            catch (InterruptedException e) {
+                cmd.heldPermit = false;
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        enqueue(cmd);
+    }
+
+    /**
+     * Treat a request from the given connection if there's room in {@code inQueue}, without blocking.
+     * If {@link #INQUEUE_MAX_CLIENT_MESSAGES} client messages are already waiting, doesn't queue it:
+     * The caller should stop reading from the connection, keep the message, and try it again
+     * once {@code whenRoom} runs.
+     *<P>
+     *<B>Threads:</B>
+     * Safe to call from any thread; never blocks. {@code whenRoom} is run once, by the {@link Treater}
+     * or sometimes by the calling thread before this method returns, so it should only
+     * hand off its work to the connection's own thread and return quickly.
+     *
+     * @param s  Message from the connection
+     * @param c  Connection the message came from
+     * @param whenRoom  If the queue is full, code to run once there's room again; not null
+     * @return  True if the message was queued, false if the queue was full and {@code whenRoom} will be run
+     * @see #treat(String, StringConnection)
+     * @since 1.2.00
+     */
+    public boolean tryTreat(String s, StringConnection c, final Runnable whenRoom)
+    {
+        if (! inQueueClientPermits.tryAcquire())
+        {
+            inQueueWaiters.add(whenRoom);
+
+            // Permits may have been freed before whenRoom was added, with no Treater release left to see it
+            if (inQueueClientPermits.availablePermits() >= INQUEUE_RESUME_PERMITS)
+                runInQueueWaiters();
+
+            return false;
+        }
+
+        enqueue(new Command(s, c));
+        return true;
+    }
+
+    /**
+     * Run and remove all of {@link #tryTreat(String, StringConnection, Runnable)}'s waiting callbacks.
+     * @since 1.2.00
+     */
+    private void runInQueueWaiters()
+    {
+        Runnable r;
+        while (null != (r = inQueueWaiters.poll()))
+        {
+            try
+            {
+                r.run();
+            }
+            catch (Exception e)
+            {
+                System.out.println("Exception resuming a connection's input - " + e);
+            }
         }
     }
 
+    /**
+     * Add a client message or task to {@link #inQueue} and update its stats.
+     * @param cmd  Command to add
+     * @since 1.2.00
+     */
+    private void enqueue(final Command cmd)
+    {
+        inQueueStats.enqueued();
+        cmd.enqueuedAt = System.nanoTime();
+        inQueue.add(cmd);
+    }
+
     /**
      * Post some Runnable code to be queued and then run on the Treater thread.
      *<P>
      *<B>Threads:</B>
-     * This method notifies the {@link Treater}, waking that thread if it
-     * was {@link Object#wait()}ing because the queue was empty.
-     * Although {@code postToTreater(..)} isn't declared {@code synchronized},
-     * it's thread-safe because it synchronizes on the internal queue object.
+     * This method wakes the {@link Treater} if it was waiting because the queue was empty.
+     * Thread-safe, and never blocks: Unlike client messages, posted tasks aren't
+     * limited by {@link #INQUEUE_MAX_CLIENT_MESSAGES}.
      * @param run  Runnable code
      * @see #treat(String, StringConnection)
      * @see #isCurrentThreadTreater()
@@ -476,11 +673,133 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     public void postToTreater(Runnable run)
     {
         final Command cmd = new Command(run);
-        synchronized (inQueue)
+        cmd.heldPermit = false;
+        enqueue(cmd);
+    }
+
+    /**
+     * Get the metrics for our inbound message queue and its Treater:
+     * Queue depth, enqueue-to-dispatch latency, and processing time per message type.
+     * @return  This server's queue stats; updated as messages are processed, not a copy
+     * @since 1.2.00
+     */
+    public InboundQueueStats getInboundQueueStats()
+    {
+        return inQueueStats;
+    }
+
+    /**
+     * Set the outbound queue limits for connections accepted from now on.
+     * Each connection's limits can also be changed later with
+     * {@link StringConnection#getOutboundQueue()}.{@link OutboundQueue#setLimits(int, int, int) setLimits(..)}.
+     * @param high  High watermark in bytes, or 0 for no limit
+     * @param low  Low watermark in bytes; must be less than {@code high} unless {@code high} is 0
+     * @param policy  Policy when above {@code high}, such as {@link OutboundQueue#POLICY_COALESCE}
+     * @throws IllegalArgumentException if the watermarks are negative or out of order, or {@code policy} is unknown
+     * @since 1.2.00
+     */
+    public void setOutboundQueueLimits(final int high, final int low, final int policy)
+        throws IllegalArgumentException
+    {
+        OutboundQueue.checkLimits(high, low, policy);
+        outQueueHighWater = high;
+        outQueueLowWater = low;
+        outQueuePolicy = policy;
+    }
+
+    /**
+     * A connection's {@link OutboundQueue} has just gone above its high watermark.
+     * Called from the thread which put the message to the connection.
+     * @param c  Connection which is now lagging
+     * @since 1.2.00
+     */
+    void outboundQueueLagging(final StringConnection c)
+    {
+        D.ebugPrintln("Outbound queue lagging for " + c + ": " + c.getOutboundQueue().getQueuedBytes() + " bytes");
+    }
+
+    /**
+     * A connection's {@link OutboundQueue} has overflowed and been discarded: Remove it from the server.
+     * Called from the thread which put the message to the connection, which may be holding locks
+     * such as a game's monitor, so the connection is removed later on the {@link Treater} thread.
+     * @param c  Connection to remove
+     * @since 1.2.00
+     */
+    void outboundQueueOverflowed(final StringConnection c)
+    {
+        System.err.println("Outbound queue overflow, disconnecting " + c + ": max "
+            + c.getOutboundQueue().getQueuedBytesMax() + " bytes");
+        c.disconnectSoft();
+        postToTreater(new Runnable()
         {
-            inQueue.addElement(cmd);
-            inQueue.notify();
+            public void run()
+            {
+                removeConnection(c);
+            }
+        });
+    }
+
+    /**
+     * Get the connections which have the most bytes waiting in their {@link OutboundQueue}s,
+     * for an admin report of clients which aren't keeping up.
+     * Connections without an outbound queue are skipped.
+     * @param n  Maximum number of connections to return
+     * @return  Up to {@code n} connections, sorted by current queued bytes and then highest queued bytes,
+     *     most first; may be empty, never null
+     * @since 1.2.00
+     */
+    public List<StringConnection> getOutboundQueueWorst(final int n)
+    {
+        final ArrayList<StringConnection> ret = new ArrayList<StringConnection>();
+        synchronized (unnamedConns)
+        {
+            for (Enumeration e = conns.elements(); e.hasMoreElements();)
+                ret.add((StringConnection) e.nextElement());
+            for (Enumeration e = unnamedConns.elements(); e.hasMoreElements();)
+                ret.add((StringConnection) e.nextElement());
         }
+
+        final HashMap<StringConnection, int[]> sizeMap = new HashMap<StringConnection, int[]>();
+        for (Iterator<StringConnection> it = ret.iterator(); it.hasNext(); )
+        {
+            final StringConnection c = it.next();
+            final OutboundQueue oq = c.getOutboundQueue();
+            if (oq == null)
+            {
+                it.remove();
+                continue;
+            }
+            sizeMap.put(c, new int[]{ oq.getQueuedBytes(), oq.getQueuedBytesMax() });
+        }
+
+        Collections.sort(ret, new Comparator<StringConnection>()
+        {
+            public int compare(final StringConnection a, final StringConnection b)
+            {
+                final int[] sa = sizeMap.get(a), sb = sizeMap.get(b);
+                if (sa[0] != sb[0])
+                    return (sa[0] < sb[0]) ? 1 : -1;
+                return (sa[1] < sb[1]) ? 1 : ((sa[1] == sb[1]) ? 0 : -1);
+            }
+        });
+
+        return (ret.size() > n) ? new ArrayList<StringConnection>(ret.subList(0, n)) : ret;
+    }
+
+    /**
+     * Get a client message's type, to group processing time stats in {@link #getInboundQueueStats()}.
+     * This default implementation returns the text before the first {@code '|'},
+     * or the entire message if none; override it in your app if needed,
+     * since the text comes from the client. The stats keep at most a few hundred
+     * types; any more are counted together as "(other)".
+     * @param str  Contents of message from the client; not null
+     * @return  Message type; not null
+     * @since 1.2.00
+     */
+    protected String getCommandType(final String str)
+    {
+        final int i = str.indexOf('|');
+        return (i >= 0) ? str.substring(0, i) : str;
     }
 
     /**
@@ -709,6 +1028,10 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         {
             if (c.connect())
             {
+                final OutboundQueue oq = c.getOutboundQueue();
+                if (oq != null)
+                    oq.setLimits(outQueueHighWater, outQueueLowWater, outQueuePolicy);
+
                 connAccepted = newConnection1(c);  // <-- App-specific #1 --
                 if (connAccepted)
                 {
@@ -1107,19 +1430,21 @@ public abstract class Server extends Thread implements Serializable, Cloneable
 
     /**
      * Broadcast a SOCmessage to all connected clients, named and unnamed.
+     * The message is encoded at most once for all of them, as an {@link EncodedMessage}.
      *
      * @param m SOCmessage string, generated by {@link soc.message.SOCMessage#toCmd()}
      * @see #broadcastToVers(String, int, int)
      */
     protected synchronized void broadcast(String m)
     {
+        final EncodedMessage em = new EncodedMessage(m);
         for (Enumeration e = getConnections(); e.hasMoreElements();)
         {
-            ((StringConnection) e.nextElement()).put(m);
+            ((StringConnection) e.nextElement()).put(em);
         }
         for (Enumeration e = unnamedConns.elements(); e.hasMoreElements();)
         {
-            ((StringConnection) e.nextElement()).put(m);
+            ((StringConnection) e.nextElement()).put(em);
         }
     }
 
@@ -1142,19 +1467,20 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     {
         if (vmin > vmax)
             return;
+        final EncodedMessage em = new EncodedMessage(m);
         for (Enumeration e = getConnections(); e.hasMoreElements();)
         {
             StringConnection c = (StringConnection) e.nextElement();
             int cvers = c.getVersion();
             if ((cvers >= vmin) && (cvers <= vmax))
-                c.put(m);
+                c.put(em);
         }
         for (Enumeration e = unnamedConns.elements(); e.hasMoreElements();)
         {
             StringConnection c = (StringConnection) e.nextElement();
             int cvers = c.getVersion();
             if ((cvers >= vmin) && (cvers <= vmax))
-                c.put(m);
+                c.put(em);
         }
     }
 
@@ -1183,6 +1509,19 @@ public abstract class Server extends Thread implements Serializable, Cloneable
          */
         public final Runnable run;
 
+        /**
+         * When this was queued, from {@link System#nanoTime()}; set in {@link Server#enqueue(Command)}
+         * @since 1.2.00
+         */
+        long enqueuedAt;
+
+        /**
+         * True if a client message holding one of {@link Server#inQueueClientPermits}
+         * which must be released when dispatched
+         * @since 1.2.00
+         */
+        boolean heldPermit = true;
+
         public Command(String s, StringConnection c)
         {
             str = s;
@@ -1200,7 +1539,9 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     }  // Command
 
     /**
-     * Single-threaded reader of {@link Server#inQueue}
+     * Single-threaded reader of {@link Server#inQueue}.
+     * Waits on the queue while it's empty, dispatching each command as soon as it's added,
+     * and updates {@link Server#getInboundQueueStats()}.
      */
     class Treater extends Thread
     {
@@ -1214,47 +1555,43 @@ public abstract class Server extends Thread implements Serializable, Cloneable
             while (isUp())
             {
                 //D.ebugPrintln("treater server is up");
-                Command c = null;
+                final Command c;
+                try
+                {
+                    // Wake at least once per second to check isUp()
+                    c = inQueue.poll(1, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    continue;
+                }
 
-                synchronized (inQueue)
+                if (c == null)
+                    continue;
+
+                final long dispatchedAt = System.nanoTime();
+                inQueueStats.dispatched(dispatchedAt - c.enqueuedAt);
+                if (c.heldPermit)
                 {
-                    if (inQueue.size() > 0)
-                        //D.ebugPrintln("treater getting command");
-                        c = inQueue.remove(0);
+                    inQueueClientPermits.release();
+                    if (! inQueueWaiters.isEmpty()
+                        && (inQueueClientPermits.availablePermits() >= INQUEUE_RESUME_PERMITS))
+                        runInQueueWaiters();
                 }
 
                 try
                 {
-                    if (c != null)
-                    {
-                        if (c.run != null)
-                            c.run.run();
-                        else
-                            processCommand(c.str, c.con);
-                    }
+                    if (c.run != null)
+                        c.run.run();
+                    else
+                        processCommand(c.str, c.con);
                 }
                 catch (Exception e)
                 {
                     System.out.println("Exception in treater (processCommand) - " + e);
                 }
 
-                yield();
-
-                synchronized (inQueue)
-                {
-                    if (inQueue.size() == 0)
-                    {
-                        try
-                        {
-                            //D.ebugPrintln("treater waiting");
-                            inQueue.wait(1000);
-                        }
-                        catch (Exception ex)
-                        {
-                            ;
-                        }
-                    }
-                }
+                inQueueStats.processed
+                    ((c.run != null) ? "(task)" : getCommandType(c.str), System.nanoTime() - dispatchedAt);
             }
 
             // D.ebugPrintln("treater returning; server not up");
@@ -0,0 +1,198 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small fixed pool of named daemon threads for a server's own occasional tasks, such as
+ * force-ending a stuck robot's turn, which would otherwise each start a short-lived thread.
+ * Tasks can run now or after a delay.
+ *<P>
+ * The pool is bounded: It has a fixed number of threads, and a limit on the number of tasks
+ * waiting to run. When that limit is reached, new tasks are refused instead of queued,
+ * so a burst of tasks (or a task stuck in a deadlock) can't pile up without end.
+ *<P>
+ * Queue depth, wait time past each task's scheduled time, and run time per task type
+ * are kept in an {@link InboundQueueStats}; see {@link #getStats()}.
+ *<P>
+ * Call {@link #shutdown(long)} to stop the pool when the server stops.
+ *
+ * @since 1.2.00
+ */
+public class ServerTaskExecutor
+{
+    /** The thread pool; a Java 5 {@link ScheduledThreadPoolExecutor} has a fixed number of threads */
+    private final ScheduledThreadPoolExecutor exec;
+
+    /** Maximum number of tasks waiting to run; see {@link #schedule(String, Runnable, long)} */
+    private final int maxQueued;
+
+    /** Queue and run-time stats; "dispatched" wait is the time past each task's scheduled time */
+    private final InboundQueueStats stats = new InboundQueueStats();
+
+    /**
+     * Create the pool. Its threads are started as tasks are submitted.
+     * @param name  Prefix for thread names, for debugging: {@code name + "-" + threadNumber}
+     * @param nThreads  Number of threads; at least 1
+     * @param maxQueued  Maximum number of tasks waiting to run, including delayed ones; at least 1
+     * @throws IllegalArgumentException if {@code nThreads} or {@code maxQueued} &lt; 1
+     */
+    public ServerTaskExecutor(final String name, final int nThreads, final int maxQueued)
+        throws IllegalArgumentException
+    {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads: " + nThreads);
+        if (maxQueued < 1)
+            throw new IllegalArgumentException("maxQueued: " + maxQueued);
+
+        this.maxQueued = maxQueued;
+        exec = new ScheduledThreadPoolExecutor(nThreads, new ThreadFactory()
+        {
+            private int n;
+
+            public synchronized Thread newThread(final Runnable r)
+            {
+                final Thread t = new Thread(r, name + "-" + n);  // Thread name for debug
+                ++n;
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        exec.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /** Get the number of threads in the pool. */
+    public int getThreadCount()
+    {
+        return exec.getCorePoolSize();
+    }
+
+    /**
+     * Get the metrics for this pool: Queue depth, how long tasks waited past their scheduled time
+     * for a free thread, and run time per task type.
+     * @return  Stats; updated as tasks run, not a copy
+     */
+    public InboundQueueStats getStats()
+    {
+        return stats;
+    }
+
+    /**
+     * Run a task as soon as a pool thread is free.
+     * Same as {@link #schedule(String, Runnable, long) schedule(type, task, 0)}.
+     * @param type  Task type for {@link #getStats()}, such as {@code "forceEndTurn"}
+     * @param task  Task to run
+     * @return  True if queued, false if refused because the queue is full or the pool is shut down
+     */
+    public boolean execute(final String type, final Runnable task)
+    {
+        return schedule(type, task, 0);
+    }
+
+    /**
+     * Run a task after a delay, on the next free pool thread.
+     * Returns immediately. If a task throws an exception, it's printed and the pool continues.
+     * @param type  Task type for {@link #getStats()}
+     * @param task  Task to run
+     * @param delayMillis  Delay in milliseconds, or 0 to run as soon as possible
+     * @return  True if queued, false if refused because the queue is full or the pool is shut down
+     */
+    public boolean schedule(final String type, final Runnable task, final long delayMillis)
+    {
+        if (exec.isShutdown() || (stats.getDepth() >= maxQueued))
+            return false;  // <--- Early return: Refused ---
+
+        stats.enqueued();
+        try
+        {
+            exec.schedule(new TimedTask(type, task, System.nanoTime() + (delayMillis * 1000000L)),
+                delayMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // shut down since isShutdown check
+            stats.dispatched(0);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop the pool: Refuse any new tasks, discard queued tasks which haven't started yet,
+     * and wait for any running tasks to finish.
+     * @param waitMillis  Maximum time to wait for them, in milliseconds
+     * @return  True if all finished, false if timed out or interrupted while waiting
+     */
+    public boolean shutdown(final long waitMillis)
+    {
+        exec.shutdown();
+        try
+        {
+            return exec.awaitTermination(waitMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * A task and its scheduled time, wrapped to record its stats when it runs.
+     */
+    private class TimedTask implements Runnable
+    {
+        final String type;
+        final Runnable task;
+
+        /** Scheduled time, from {@link System#nanoTime()} */
+        final long dueAt;
+
+        TimedTask(final String type, final Runnable task, final long dueAt)
+        {
+            this.type = type;
+            this.task = task;
+            this.dueAt = dueAt;
+        }
+
+        public void run()
+        {
+            final long startedAt = System.nanoTime();
+            stats.dispatched(Math.max(0, startedAt - dueAt));
+
+            try
+            {
+                task.run();
+            }
+            catch (Throwable th)
+            {
+                System.err.println("Exception in " + Thread.currentThread().getName() + " task " + type + " - " + th);
+                th.printStackTrace();
+            }
+
+            stats.processed(type, System.nanoTime() - startedAt);
+        }
+    }
+
+}
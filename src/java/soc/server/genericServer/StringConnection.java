@@ -36,6 +36,8 @@ import java.util.Date;
  *                       wantsHideTimeoutMessage, setHideTimeoutMessage
  *  1.0.5.1- 2009-10-26- javadoc warnings fixed; remove unused import EOFException
  *  1.2.0 - 2017-06-03 - {@link #setData(String)} now takes a String, not Object.
+ *                       Add {@link #put(EncodedMessage)}, {@link #getOutboundQueue()},
+ *                       {@link #isBinaryFrames()}, {@link #setBinaryFrames(boolean)}.
  *</PRE>
  *
  * @author Jeremy D Monin <jeremy@nand.net>
@@ -62,6 +64,23 @@ public interface StringConnection
     public abstract void put(String str)
         throws IllegalStateException;
 
+    /**
+     * Send a pre-encoded message over the connection, such as one being sent to all members of a game.
+     * Network implementations send its shared {@link EncodedMessage#getFrame()} bytes
+     * instead of encoding its text again for each connection; local ones send its {@link EncodedMessage#str}.
+     *<P>
+     * <B>Threads:</B> Each implementation must be safe to call from any thread,
+     * and synchronize itself on an appropriate object or field.
+     *
+     * @param msg Message to send
+     *
+     * @throws IllegalStateException if not yet accepted by server
+     * @see #put(String)
+     * @since 1.2.00
+     */
+    public abstract void put(EncodedMessage msg)
+        throws IllegalStateException;
+
     /** For server-side thread which reads and treats incoming messages */
     public abstract void run();
 
@@ -224,4 +243,30 @@ public interface StringConnection
      */
     public abstract void setHideTimeoutMessage(boolean wantsHide);
 
+    /**
+     * Get this connection's queue of outbound messages not yet written to the network,
+     * to set its limits or read its queued-bytes stats.
+     * @return  This connection's outbound queue, or null if it doesn't have one
+     *     (local connections, whose messages are read directly by an in-process client)
+     * @since 1.2.00
+     */
+    public abstract OutboundQueue getOutboundQueue();
+
+    /**
+     * Does the remote end accept binary frames? If so, {@link #put(EncodedMessage)} sends a message's
+     * {@link EncodedMessage#getBinFrame()} when it has one, instead of its text.
+     * @return  True if {@link #setBinaryFrames(boolean) setBinaryFrames(true)} has been called
+     * @since 1.2.00
+     */
+    public abstract boolean isBinaryFrames();
+
+    /**
+     * Set whether the remote end accepts binary frames, usually during the app's version handshake.
+     * Network connections default to false. Local connections ignore this, since they pass text directly.
+     * @param accepts  True if the remote end can read binary frames
+     * @see #isBinaryFrames()
+     * @since 1.2.00
+     */
+    public abstract void setBinaryFrames(boolean accepts);
+
 }
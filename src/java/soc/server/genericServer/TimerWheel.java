@@ -0,0 +1,345 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hierarchical timer wheel: Runs many short tasks at given times on a single thread,
+ * with O(1) cost to schedule or cancel a task no matter how many are pending.
+ * Meant for per-item deadlines such as each game's turn timeout and expiration time,
+ * which are rescheduled often and rarely fire.
+ *<P>
+ * Time is divided into ticks of {@link #getTickMillis()} each. There are {@link #LEVELS} wheels
+ * of {@link #SLOTS} slots each; a slot on level 0 holds tasks due on one tick, a slot on level 1 holds
+ * tasks due within one turn of level 0, and so on. Each time level 0 wraps around, the next level's
+ * current slot is "cascaded" down: its tasks are moved to the lower level(s) according to their
+ * remaining time. A task due further out than the top level's span is parked in the top level
+ * and cascaded again until it's in range. Tasks run no earlier than their scheduled time,
+ * and at most about 1 tick later unless the thread is busy.
+ *<P>
+ * <B>Threads:</B> {@link #schedule(Runnable, long)} and {@link Timeout#cancel()} may be called from any thread:
+ * Changes are queued and applied by the wheel's thread at its next tick. Tasks run on the wheel's thread,
+ * one at a time, so they should be short; long work should be handed off to another thread.
+ * A task may schedule other tasks, including another run of itself.
+ *
+ * @since 1.2.00
+ */
+public class TimerWheel
+{
+    /** Number of bits in the slot index of each level. */
+    private static final int SLOT_BITS = 6;
+
+    /** Number of slots on each level's wheel: 64. */
+    public static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * Number of levels: 4. With 100-millisecond ticks, the levels' spans are
+     * 6.4 seconds, 6.8 minutes, 7.3 hours, and 19 days.
+     */
+    public static final int LEVELS = 4;
+
+    /** Length of each tick, in milliseconds */
+    private final long tickMillis;
+
+    /** Time of tick 0, from {@link System#currentTimeMillis()} */
+    private final long startMillis;
+
+    /** Slot lists: {@code wheel[level][slot]} is the first task in that slot, or null. Wheel thread only. */
+    private final Timeout[][] wheel = new Timeout[LEVELS][SLOTS];
+
+    /** Last tick processed. Wheel thread only. */
+    private long currentTick;
+
+    /** Tasks scheduled since the last tick, to be added to {@link #wheel} by the wheel thread */
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<Timeout>();
+
+    /** Tasks cancelled since the last tick, to be removed from {@link #wheel} by the wheel thread */
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<Timeout>();
+
+    /** Number of tasks in {@link #wheel}. Wheel thread only; read by {@link #size()}. */
+    private volatile int size;
+
+    private final Thread thread;
+
+    private volatile boolean stopped;
+
+    /**
+     * Create a timer wheel and its thread; call {@link #start()} to start it.
+     * @param name  Thread name, for debugging
+     * @param tickMillis  Length of each tick in milliseconds, such as 100; the wheel's precision
+     * @throws IllegalArgumentException if {@code tickMillis} &lt; 1
+     */
+    public TimerWheel(final String name, final long tickMillis)
+        throws IllegalArgumentException
+    {
+        if (tickMillis < 1)
+            throw new IllegalArgumentException("tickMillis: " + tickMillis);
+
+        this.tickMillis = tickMillis;
+        startMillis = System.currentTimeMillis();
+        thread = new Thread(name)
+        {
+            public void run() { runWheel(); }
+        };
+        thread.setDaemon(true);  // Don't wait on us to exit program
+    }
+
+    /** Start the wheel's thread. */
+    public void start()
+    {
+        thread.start();
+    }
+
+    /** Stop the wheel's thread. Tasks not yet run are discarded. */
+    public void stop()
+    {
+        stopped = true;
+        thread.interrupt();
+    }
+
+    /** Get the length of each tick, in milliseconds. */
+    public long getTickMillis()
+    {
+        return tickMillis;
+    }
+
+    /** Get the number of pending tasks, not counting any scheduled or cancelled since the last tick. */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Schedule a task to run on the wheel's thread at or soon after a given time.
+     * Safe to call from any thread.
+     * @param task  Task to run; not null
+     * @param when  Time to run, from {@link System#currentTimeMillis()}; if already past, runs at the next tick
+     * @return  Timeout which can be used to cancel the task
+     */
+    public Timeout schedule(final Runnable task, final long when)
+    {
+        // round up, to never run early
+        final long t = when - startMillis;
+        final Timeout to = new Timeout(task, (t <= 0) ? 0 : ((t + tickMillis - 1) / tickMillis));
+        added.add(to);
+
+        return to;
+    }
+
+    /**
+     * Wheel thread's main loop: Sleep until the next tick, then process all ticks up to the current time.
+     */
+    private void runWheel()
+    {
+        while (! stopped)
+        {
+            final long nowTick = (System.currentTimeMillis() - startMillis) / tickMillis;
+
+            applyChanges();
+            while (currentTick < nowTick)
+            {
+                ++currentTick;
+                processTick();
+                applyChanges();  // tasks run by processTick may schedule or cancel others
+            }
+
+            try
+            {
+                // at most 1 tick, in case the clock is set back
+                Thread.sleep(Math.min
+                    (tickMillis, startMillis + (currentTick + 1) * tickMillis - System.currentTimeMillis()));
+            }
+            catch (InterruptedException e) {}
+            catch (IllegalArgumentException e) {}  // negative sleep: already time for next tick
+        }
+    }
+
+    /** Add newly scheduled tasks to the wheel, and remove newly cancelled ones. Wheel thread only. */
+    private void applyChanges()
+    {
+        Timeout to;
+        while (null != (to = added.poll()))
+            if (! to.isCancelled)
+                insert(to, currentTick + 1);
+
+        while (null != (to = cancelled.poll()))
+        {
+            if (to.level != -1)
+                unlink(to);
+            to.task = null;
+        }
+    }
+
+    /**
+     * Cascade any higher-level slots due at {@link #currentTick},
+     * then run the tasks in level 0's current slot. Wheel thread only.
+     */
+    private void processTick()
+    {
+        for (int lv = 1; lv < LEVELS; ++lv)
+        {
+            if ((currentTick & ((1L << (SLOT_BITS * lv)) - 1)) != 0)
+                break;  // lower level hasn't wrapped around
+
+            final int slot = (int) (currentTick >>> (SLOT_BITS * lv)) & SLOT_MASK;
+            Timeout to = wheel[lv][slot];
+            wheel[lv][slot] = null;
+            while (to != null)
+            {
+                final Timeout next = to.next;
+                to.level = -1;
+                --size;
+                insert(to, currentTick);  // level 0's current slot is processed next
+                to = next;
+            }
+        }
+
+        final int slot = (int) currentTick & SLOT_MASK;
+        Timeout to = wheel[0][slot];
+        wheel[0][slot] = null;
+        while (to != null)
+        {
+            final Timeout next = to.next;
+            to.level = -1;
+            --size;
+            if (to.isCancelled)
+            {
+                to.task = null;  // cancelled since last applyChanges
+            }
+            else if (to.deadlineTick > currentTick)
+            {
+                insert(to, currentTick + 1);  // not due yet
+            } else {
+                try
+                {
+                    to.task.run();
+                }
+                catch (Throwable th)
+                {
+                    System.err.println("Error in timer task " + to.task + ": " + th);
+                    th.printStackTrace();
+                }
+            }
+            to = next;
+        }
+    }
+
+    /**
+     * Add a task to the slot for its remaining time. Wheel thread only.
+     * @param to  Task not currently in a slot
+     * @param earliestTick  Earliest tick whose level-0 slot hasn't been processed yet:
+     *     {@link #currentTick} while cascading, otherwise {@code currentTick + 1}.
+     *     A task already due is added to this tick's slot.
+     */
+    private void insert(final Timeout to, final long earliestTick)
+    {
+        long dt = to.deadlineTick;
+        if (dt < earliestTick)
+            dt = earliestTick;
+
+        long delta = dt - currentTick;
+        int lv = 0;
+        while ((lv < LEVELS - 1) && (delta >= (1L << (SLOT_BITS * (lv + 1)))))
+            ++lv;
+        if (delta >= (1L << (SLOT_BITS * LEVELS)))
+            dt = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;  // beyond top level's span: park and cascade again later
+
+        final int slot = (int) (dt >>> (SLOT_BITS * lv)) & SLOT_MASK;
+        to.level = lv;
+        to.slot = slot;
+        to.prev = null;
+        to.next = wheel[lv][slot];
+        if (to.next != null)
+            to.next.prev = to;
+        wheel[lv][slot] = to;
+        ++size;
+    }
+
+    /**
+     * Remove a task from its slot. Wheel thread only.
+     * @param to  Task currently in a slot
+     */
+    private void unlink(final Timeout to)
+    {
+        if (to.prev != null)
+            to.prev.next = to.next;
+        else
+            wheel[to.level][to.slot] = to.next;
+        if (to.next != null)
+            to.next.prev = to.prev;
+
+        to.prev = null;
+        to.next = null;
+        to.level = -1;
+        --size;
+    }
+
+    /**
+     * A scheduled task, returned by {@link TimerWheel#schedule(Runnable, long)}.
+     */
+    public final class Timeout
+    {
+        /**
+         * Task to run. Set to null by the wheel thread once cancelled,
+         * so a cancelled task's data can be garbage-collected.
+         */
+        private Runnable task;
+
+        /** Tick when the task is due */
+        private final long deadlineTick;
+
+        private volatile boolean isCancelled;
+
+        /** Wheel level and slot holding this task, or -1 if not in a slot. Wheel thread only. */
+        private int level = -1, slot;
+
+        /** Neighbors in the slot's list. Wheel thread only. */
+        private Timeout prev, next;
+
+        private Timeout(final Runnable task, final long deadlineTick)
+        {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Cancel this task, if it hasn't run yet. Safe to call from any thread;
+         * if called on another thread just as the task is due, the task might still run.
+         */
+        public void cancel()
+        {
+            if (isCancelled)
+                return;
+
+            isCancelled = true;
+            cancelled.add(this);
+        }
+
+        /** Has {@link #cancel()} been called? */
+        public boolean isCancelled()
+        {
+            return isCancelled;
+        }
+    }
+
+}
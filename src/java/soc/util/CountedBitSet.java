@@ -0,0 +1,241 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2017 JSettlers contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.util;
+
+import java.io.Serializable;
+
+/**
+ * A fixed-size set of bits stored in a <tt>long[]</tt>, which keeps a count of its set bits.
+ * Used for sets of board coordinates, such as a player's potential settlement nodes,
+ * which were <tt>boolean[]</tt> before v1.2.00.
+ *<P>
+ * Unlike {@link java.util.BitSet}, {@link #cardinality()} and {@link #isEmpty()} just return the count,
+ * and the size doesn't grow: Setting a bit past {@link #size()} throws an exception.
+ * Copying is a single array clone.
+ *<P>
+ * To visit each set bit:
+ *<pre>
+ *   for (int i = bits.nextSetBit(0); i &gt;= 0; i = bits.nextSetBit(i + 1))
+ *       ...</pre>
+ *
+ * Not thread-safe.
+ *
+ * @since 1.2.00
+ */
+public class CountedBitSet implements Serializable
+{
+    /** Bit <tt>i</tt> is bit <tt>(i &amp; 63)</tt> of <tt>words[i &gt;&gt; 6]</tt> */
+    private final long[] words;
+
+    /** Number of bits; bits at or past this index in {@link #words} are always 0 */
+    private final int size;
+
+    /** Number of set bits */
+    private int count;
+
+    /**
+     * Create an empty bit set.
+     * @param size  Number of bits; indexes are 0 to <tt>size</tt> - 1
+     * @throws IllegalArgumentException if <tt>size</tt> &lt; 0
+     */
+    public CountedBitSet(final int size)
+        throws IllegalArgumentException
+    {
+        if (size < 0)
+            throw new IllegalArgumentException("size: " + size);
+
+        this.size = size;
+        words = new long[(size + 63) >> 6];
+    }
+
+    /**
+     * Create a bit set with the same size as a boolean array, and the same bits set.
+     * @param flags  Array to copy; not changed
+     */
+    public CountedBitSet(final boolean[] flags)
+    {
+        this(flags.length);
+        for (int i = 0; i < flags.length; ++i)
+            if (flags[i])
+            {
+                words[i >> 6] |= (1L << i);
+                ++count;
+            }
+    }
+
+    /**
+     * Copy a bit set.
+     * @param bits  Bit set to copy; not changed
+     */
+    public CountedBitSet(final CountedBitSet bits)
+    {
+        size = bits.size;
+        words = (long[]) bits.words.clone();
+        count = bits.count;
+    }
+
+    /**
+     * Get the number of bits in this set, set or not.
+     * @return  The size given to the constructor
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Is this bit set?
+     * @param i  Bit index, 0 to {@link #size()} - 1
+     * @return  True if set
+     * @throws ArrayIndexOutOfBoundsException if <tt>i</tt> &lt; 0 or &gt;= {@link #size()}
+     */
+    public boolean get(final int i)
+        throws ArrayIndexOutOfBoundsException
+    {
+        if (i >= size)
+            throw new ArrayIndexOutOfBoundsException(i);
+
+        return ((words[i >> 6] & (1L << i)) != 0);
+    }
+
+    /**
+     * Set or clear a bit.
+     * @param i  Bit index, 0 to {@link #size()} - 1
+     * @param value  True to set, false to clear
+     * @throws ArrayIndexOutOfBoundsException if <tt>i</tt> &lt; 0 or &gt;= {@link #size()}
+     */
+    public void set(final int i, final boolean value)
+        throws ArrayIndexOutOfBoundsException
+    {
+        if (i >= size)
+            throw new ArrayIndexOutOfBoundsException(i);
+
+        final int w = i >> 6;
+        final long old = words[w];
+        final long bit = 1L << i;
+        if (value)
+        {
+            if ((old & bit) == 0)
+            {
+                words[w] = old | bit;
+                ++count;
+            }
+        }
+        else
+        {
+            if ((old & bit) != 0)
+            {
+                words[w] = old & ~bit;
+                --count;
+            }
+        }
+    }
+
+    /**
+     * Clear all bits.
+     */
+    public void clear()
+    {
+        for (int w = 0; w < words.length; ++w)
+            words[w] = 0;
+        count = 0;
+    }
+
+    /**
+     * Set this set's bits to be the same as another set's.
+     * @param bits  Bit set to copy; not changed
+     * @throws IllegalArgumentException if <tt>bits</tt> has a different {@link #size()}
+     */
+    public void copyFrom(final CountedBitSet bits)
+        throws IllegalArgumentException
+    {
+        if (bits.size != size)
+            throw new IllegalArgumentException("size: " + bits.size + " != " + size);
+
+        System.arraycopy(bits.words, 0, words, 0, words.length);
+        count = bits.count;
+    }
+
+    /**
+     * Get the number of set bits. Doesn't scan the set.
+     * @return  Number of bits set, 0 to {@link #size()}
+     */
+    public int cardinality()
+    {
+        return count;
+    }
+
+    /**
+     * Are all bits clear? Doesn't scan the set.
+     * @return  True if {@link #cardinality()} is 0
+     */
+    public boolean isEmpty()
+    {
+        return (count == 0);
+    }
+
+    /**
+     * Find the next set bit at or after an index.
+     * @param from  Index to start at; may be &gt;= {@link #size()}
+     * @return  Index of the next set bit, or -1 if none
+     * @throws ArrayIndexOutOfBoundsException if <tt>from</tt> &lt; 0
+     */
+    public int nextSetBit(final int from)
+        throws ArrayIndexOutOfBoundsException
+    {
+        if (from < 0)
+            throw new ArrayIndexOutOfBoundsException(from);
+
+        int w = from >> 6;
+        if (w >= words.length)
+            return -1;
+
+        long word = words[w] & (-1L << from);
+        while (true)
+        {
+            if (word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+
+            ++w;
+            if (w >= words.length)
+                return -1;
+            word = words[w];
+        }
+    }
+
+    /**
+     * For debugging, list the set bits' indexes in hex.
+     * @return  A string such as "{0x23, 0x25, 0x47}"
+     */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer("{");
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1))
+        {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append("0x").append(Integer.toHexString(i));
+        }
+        sb.append('}');
+
+        return sb.toString();
+    }
+
+}
@@ -156,13 +156,13 @@ public class SOCGameList
                 }
                 else
                 {
+                    // set while synchronized, so two threads can't both take it
+                    mutex.setState(true);
                     done = true;
                 }
             }
         }
 
-        mutex.setState(true);
-
         return true;
     }
 
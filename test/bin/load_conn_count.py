@@ -0,0 +1,133 @@
+#!/usr/bin/env python
+
+# JSettlers load testing: Connection count vs server threads and memory
+# Compares the thread-per-connection transport against non-blocking I/O
+# (jsettlers.net.nio.threads). See bottom of file for copyright and license information (GPLv3+).
+
+# File/directory assumptions at runtime:
+# - This script lives in test/bin/  [not tested]
+# - Server JAR has been built already, to ../../target/JSettlersServer.jar,
+#   or its path is given with -j
+# - java command is on the PATH
+# - Runs on Linux: Reads the server's thread count and resident memory from /proc/<pid>/status.
+#   Heap use is read with "jcmd <pid> GC.heap_info" if jcmd is on the PATH.
+# - The open-files limit (ulimit -n) is higher than the largest connection count tested
+#
+# Usage: python load_conn_count.py [-j jarpath] [-p port] [count ...]
+# Default counts: 250 500 1000 2000
+# Prints one line per transport and connection count:
+#   transport  conns  threads  rss_kb  heap_used_kb
+
+from __future__ import print_function  # Python 2.6 or higher is required
+
+import os, re, socket, struct, subprocess, sys, time
+
+REL_PATH_JS_SERVER_JAR = "../../target/JSettlersServer.jar"
+DEFAULT_PORT = 8889
+DEFAULT_COUNTS = [250, 500, 1000, 2000]
+TRANSPORTS = [("classic", 0), ("nio-2", 2)]
+STARTUP_WAIT_SEC = 4
+SETTLE_WAIT_SEC = 3
+
+# SOCVersion message from a client: VERSION|vernum,verstr,build,
+MSG_CLI_VERSION = "9998|1200,1.2.00,LOADTEST,"
+
+def print_err(*args, **kwargs):
+    """Print the arguments to stderr instead of stdout."""
+    print(*args, file=sys.stderr, **kwargs)
+
+def frame(msg):
+    """Encode a message like java DataOutputStream.writeUTF: 2-byte length + bytes (ascii only here)."""
+    b = msg.encode("ascii")
+    return struct.pack(">H", len(b)) + b
+
+def proc_status(pid):
+    """Return (threads, rss_kb) for a process, from /proc/<pid>/status."""
+    threads = rss = -1
+    with open("/proc/%d/status" % pid) as f:
+        for line in f:
+            if line.startswith("Threads:"):
+                threads = int(line.split()[1])
+            elif line.startswith("VmRSS:"):
+                rss = int(line.split()[1])
+    return (threads, rss)
+
+def heap_used_kb(pid):
+    """Return heap used in KB from jcmd GC.heap_info, or -1 if not available."""
+    try:
+        out = subprocess.check_output(["jcmd", str(pid), "GC.heap_info"], stderr=subprocess.STDOUT)
+    except (OSError, subprocess.CalledProcessError):
+        return -1
+    m = re.search(r"used (\d+)K", str(out))
+    return int(m.group(1)) if m else -1
+
+def run_transport(jar, port, name, nio_threads, counts):
+    """Start a server with this transport, open connections in steps, print a line per step."""
+    args = ["java", "-jar", jar, "-Djsettlers.startrobots=0",
+        "-Djsettlers.net.nio.threads=%d" % nio_threads, str(port), str(max(counts) + 10)]
+    devnull = open(os.devnull, "w")
+    srv = subprocess.Popen(args, stdout=devnull, stderr=devnull)
+    socks = []
+    try:
+        time.sleep(STARTUP_WAIT_SEC)
+        (threads, rss) = proc_status(srv.pid)
+        print("%-8s %6d %8d %9d %12d" % (name, 0, threads, rss, heap_used_kb(srv.pid)))
+        for count in counts:
+            while len(socks) < count:
+                s = socket.create_connection(("127.0.0.1", port))
+                s.sendall(frame(MSG_CLI_VERSION))
+                socks.append(s)
+            time.sleep(SETTLE_WAIT_SEC)
+            (threads, rss) = proc_status(srv.pid)
+            print("%-8s %6d %8d %9d %12d" % (name, count, threads, rss, heap_used_kb(srv.pid)))
+            sys.stdout.flush()
+    finally:
+        for s in socks:
+            s.close()
+        srv.terminate()
+        srv.wait()
+        devnull.close()
+
+def main():
+    jar = REL_PATH_JS_SERVER_JAR
+    port = DEFAULT_PORT
+    counts = []
+    argv = sys.argv[1:]
+    while argv:
+        a = argv.pop(0)
+        if a == "-j":
+            jar = argv.pop(0)
+        elif a == "-p":
+            port = int(argv.pop(0))
+        else:
+            counts.append(int(a))
+    if not counts:
+        counts = DEFAULT_COUNTS
+    counts.sort()
+
+    if not os.path.isfile(jar):
+        print_err("Must build server JAR first: missing " + jar)
+        sys.exit(1)
+
+    print("%-8s %6s %8s %9s %12s" % ("transport", "conns", "threads", "rss_kb", "heap_used_kb"))
+    for (name, nio_threads) in TRANSPORTS:
+        run_transport(jar, port, name, nio_threads, counts)
+
+if __name__ == '__main__':
+    main()
+
+
+# This file is part of the JSettlers project.
+#
+# This program is free software: you can redistribute it and/or modify
+# it under the terms of the GNU General Public License as published by
+# the Free Software Foundation, either version 3 of the License, or
+# (at your option) any later version.
+#
+# This program is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+# GNU General Public License for more details.
+#
+# You should have received a copy of the GNU General Public License
+# along with this program.  If not, see http://www.gnu.org/licenses/ .
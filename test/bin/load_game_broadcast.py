@@ -0,0 +1,189 @@
+#!/usr/bin/env python
+
+# JSettlers load testing: Server cost of broadcasting messages to a game's members
+# Sets up one game with 4 seated players and 20 observers, sends a burst of chat
+# messages which the server must send to all 24 members, and measures the server's
+# CPU time and heap allocation. See bottom of file for copyright and license information (GPLv3+).
+
+# File/directory assumptions at runtime:
+# - This script lives in test/bin/  [not tested]
+# - Server JAR has been built already, to ../../target/JSettlersServer.jar,
+#   or its path is given with -j (may be given more than once, to compare builds)
+# - java and jstat commands are on the PATH
+# - Runs on Linux: Reads the server's CPU time from /proc/<pid>/stat.
+#   Heap allocation is estimated from "jstat -gc" using a large, fixed-size young generation.
+#
+# Usage: python load_game_broadcast.py [-j jarpath ...] [-p port] [-n messages] [-o observers] [-r runs]
+# Prints one line per jar and run:
+#   jar  run  msgs  recipients  sec  cpu_ticks  alloc_kb
+
+from __future__ import print_function  # Python 2.6 or higher is required
+
+import os, socket, struct, subprocess, sys, threading, time
+
+REL_PATH_JS_SERVER_JAR = "../../target/JSettlersServer.jar"
+DEFAULT_PORT = 8889
+DEFAULT_MSGS = 20000
+DEFAULT_OBSERVERS = 20
+DEFAULT_RUNS = 3
+NUM_PLAYERS = 4
+STARTUP_WAIT_SEC = 3
+BURST_TIMEOUT_SEC = 300
+GAME_NAME = "bcast"
+
+# SOCVersion message from a client: VERSION|vernum,verstr,build,
+MSG_CLI_VERSION = "9998|1200,1.2.00,LOADTEST,"
+
+def print_err(*args, **kwargs):
+    """Print the arguments to stderr instead of stdout."""
+    print(*args, file=sys.stderr, **kwargs)
+
+def frame(msg):
+    """Encode a message like java DataOutputStream.writeUTF: 2-byte length + bytes (ascii only here)."""
+    b = msg.encode("ascii")
+    return struct.pack(">H", len(b)) + b
+
+def cpu_ticks(pid):
+    """Return a process's user + system CPU time in clock ticks, from /proc/<pid>/stat."""
+    with open("/proc/%d/stat" % pid) as f:
+        fields = f.read().split(")")[1].split()
+    return int(fields[11]) + int(fields[12])
+
+def jstat_gc(pid):
+    """Return a dict of "jstat -gc" column values for a process; unavailable values ("-") are omitted."""
+    lines = subprocess.check_output(["jstat", "-gc", str(pid)]).decode().split("\n")
+    return dict((k, float(v)) for (k, v) in zip(lines[0].split(), lines[1].split()) if v != "-")
+
+def join_game(port, nick, seat):
+    """Connect, join the game, and sit down at seat if not None. Returns the socket."""
+    s = socket.create_connection(("127.0.0.1", port))
+    s.sendall(frame(MSG_CLI_VERSION))
+    time.sleep(0.1)
+    s.sendall(frame("1013|%s,\t,localhost,%s" % (nick, GAME_NAME)))  # JOINGAME, no password
+    time.sleep(0.3)
+    if seat is not None:
+        s.sendall(frame("1012|%s,%s,%d,false" % (GAME_NAME, nick, seat)))  # SITDOWN
+        time.sleep(0.2)
+    return s
+
+def count_chats(s, counts, idx, n):
+    """Read from a socket until n of our chat messages (GAMETEXTMSG) have arrived."""
+    buf = b''
+    prefix = ("1010|" + GAME_NAME).encode("ascii")
+    while counts[idx] < n:
+        d = s.recv(65536)
+        if not d:
+            break
+        buf += d
+        while len(buf) >= 2:
+            flen = struct.unpack(">H", buf[:2])[0]
+            if len(buf) < 2 + flen:
+                break
+            m = buf[2:2 + flen]
+            buf = buf[2 + flen:]
+            if m.startswith(prefix) and (b"burst " in m):
+                counts[idx] += 1
+
+def run_once(jar, port, n_msgs, n_obs):
+    """Start a server, set up the game, send the burst; return (sec, cpu_ticks, alloc_kb)."""
+    args = ["java", "-XX:+UseSerialGC", "-Xms512m", "-Xmx512m", "-Xmn256m",
+        "-jar", jar, "-Djsettlers.startrobots=0", str(port), str(NUM_PLAYERS + n_obs + 10)]
+    devnull = open(os.devnull, "w")
+    srv = subprocess.Popen(args, stdout=devnull, stderr=devnull)
+    socks = []
+    try:
+        time.sleep(STARTUP_WAIT_SEC)
+        for i in range(NUM_PLAYERS):
+            socks.append(join_game(port, "p%d" % i, i))
+        for i in range(n_obs):
+            socks.append(join_game(port, "o%d" % i, None))
+
+        counts = [0] * len(socks)
+        for i in range(len(socks)):
+            t = threading.Thread(target=count_chats, args=(socks[i], counts, i, n_msgs))
+            t.daemon = True
+            t.start()
+        time.sleep(1)
+
+        gc0 = jstat_gc(srv.pid)
+        cpu0 = cpu_ticks(srv.pid)
+        t0 = time.time()
+
+        # GAMETEXTMSG fields are separated by char 0, not ','
+        pad = "x" * 60
+        for i in range(n_msgs):
+            socks[0].sendall(frame("1010|%s\0p0\0burst %d %s" % (GAME_NAME, i, pad)))
+        while (min(counts) < n_msgs) and (time.time() - t0 < BURST_TIMEOUT_SEC):
+            time.sleep(0.05)
+
+        sec = time.time() - t0
+        cpu = cpu_ticks(srv.pid) - cpu0
+        gc1 = jstat_gc(srv.pid)
+        if min(counts) < n_msgs:
+            print_err("Timed out: Some members received only %d messages" % min(counts))
+        alloc = (gc1["YGC"] - gc0["YGC"]) * gc1["EC"] + gc1["EU"] - gc0["EU"]
+        return (sec, cpu, alloc)
+    finally:
+        for s in socks:
+            s.close()
+        srv.terminate()
+        srv.wait()
+        devnull.close()
+
+def main():
+    jars = []
+    port = DEFAULT_PORT
+    n_msgs = DEFAULT_MSGS
+    n_obs = DEFAULT_OBSERVERS
+    runs = DEFAULT_RUNS
+    argv = sys.argv[1:]
+    while argv:
+        a = argv.pop(0)
+        if a == "-j":
+            jars.append(argv.pop(0))
+        elif a == "-p":
+            port = int(argv.pop(0))
+        elif a == "-n":
+            n_msgs = int(argv.pop(0))
+        elif a == "-o":
+            n_obs = int(argv.pop(0))
+        elif a == "-r":
+            runs = int(argv.pop(0))
+        else:
+            print_err("Unknown argument: " + a)
+            sys.exit(1)
+    if not jars:
+        jars = [REL_PATH_JS_SERVER_JAR]
+
+    for jar in jars:
+        if not os.path.isfile(jar):
+            print_err("Must build server JAR first: missing " + jar)
+            sys.exit(1)
+
+    print("%-30s %3s %6s %10s %7s %9s %9s" % ("jar", "run", "msgs", "recipients", "sec", "cpu_ticks", "alloc_kb"))
+    for r in range(runs):
+        for jar in jars:
+            (sec, cpu, alloc) = run_once(jar, port, n_msgs, n_obs)
+            print("%-30s %3d %6d %10d %7.2f %9d %9.0f"
+                % (os.path.basename(jar), r + 1, n_msgs, NUM_PLAYERS + n_obs, sec, cpu, alloc))
+            sys.stdout.flush()
+            port += 1  # avoid waiting for the previous server's port to be released
+
+if __name__ == '__main__':
+    main()
+
+
+# This file is part of the JSettlers project.
+#
+# This program is free software: you can redistribute it and/or modify
+# it under the terms of the GNU General Public License as published by
+# the Free Software Foundation, either version 3 of the License, or
+# (at your option) any later version.
+#
+# This program is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+# GNU General Public License for more details.
+#
+# You should have received a copy of the GNU General Public License
+# along with this program.  If not, see http://www.gnu.org/licenses/ .